@@ -1,5 +1,6 @@
 package socialmedia;
 
+import java.io.Serializable;
 import java.util.HashSet;
 
 /**
@@ -8,8 +9,9 @@ import java.util.HashSet;
  * contains static counter variable numberOfAccounts that tracks the total number of accounts
  * contains NUMERICAL_IDENTIFIED, handle, description, totalEndorsementsReceived and totalPosts
  * Contains 3 HashSets that hold each Original, Comment and Endorsement relevant to the Account
+ * Contains 2 IntLists that hold the NUMERICAL_IDENTIFIER of each Account it follows and is followed by
  */
-public class Account {
+public class Account implements Serializable {
     private static int numberOfAccounts = 0;
     private final int NUMERICAL_IDENTIFIER;
     private String handle;
@@ -21,6 +23,16 @@ public class Account {
     private HashSet<Comment> comments = new HashSet<Comment>();
     private HashSet<Endorsement> endorsements = new HashSet<Endorsement>();
 
+    // Only following is saved, followers is rebuilt from the following of every other Account
+    private IntList following = new IntList();
+    private IntList followers = new IntList();
+
+    // The IDs of the Account's Posts in order, built from the HashSets the first time it is needed
+    private transient PostIndex postIndex;
+
+    // The IDs of the Comments and Endorsements made of the Account's Posts in order, built the first time it is needed
+    private transient PostIndex inboundIndex;
+
     /**
      * Constructor method for Account
      * @param handle A String that represents the user handle that is to be associated with the Account
@@ -36,18 +48,75 @@ public class Account {
 
     }
 
+    /**
+     * Constructor method used when restoring an Account from a snapshot, does not change numberOfAccounts
+     * @param id The int NUMERICAL_IDENTIFIER the Account was saved with
+     * @param handle A String that represents the user handle associated with the Account
+     * @param description A String paragraph that self-describes the user associated with the Account
+     * @param totalEndorsementsReceived The int number of Endorsements received the Account was saved with
+     * @param totalPosts The int number of posts the Account was saved with
+     */
+    Account(int id, String handle, String description, int totalEndorsementsReceived, int totalPosts) {
+        this.NUMERICAL_IDENTIFIER = id;
+        this.handle = handle;
+        this.description = description;
+        this.totalEndorsementsReceived = totalEndorsementsReceived;
+        this.totalPosts = totalPosts;
+    }
+
     /**
      * Method that adds 1 to the totalEndorsementsReceived counter
+     * @param endorsement The Endorsement made of one of the Account's Posts
      */
-    public void addEndorsementsReceived() {
+    public void addEndorsementsReceived(Endorsement endorsement) {
         totalEndorsementsReceived += 1;
+        if (inboundIndex != null) inboundIndex.add(endorsement);
     }
 
     /**
      * Method that removes 1 to the totalEndorsementsReceived counter
+     * @param endorsement The Endorsement being deleted
      */
-    public void removeEndorsementsReceived() {
+    public void removeEndorsementsReceived(Endorsement endorsement) {
         totalEndorsementsReceived -= 1;
+        if (inboundIndex != null) inboundIndex.remove(endorsement);
+    }
+
+    /**
+     * Method that sets the totalEndorsementsReceived counter to the number of Endorsements held by the Account's Posts
+     * @return Returns the int number of Endorsements the Account has received
+     */
+    public int recountEndorsementsReceived() {
+        totalEndorsementsReceived = getInboundIndex().size(PostType.ENDORSEMENT);
+        return totalEndorsementsReceived;
+    }
+
+    /**
+     * Method that records a Comment made in reply to one of the Account's Posts
+     * @param comment The Comment that has just been made
+     */
+    void addReplyReceived(Comment comment) {
+        if (inboundIndex != null) inboundIndex.add(comment);
+    }
+
+    /**
+     * Method that forgets a Comment made in reply to one of the Account's Posts
+     * @param comment The Comment being deleted
+     */
+    void removeReplyReceived(Comment comment) {
+        if (inboundIndex != null) inboundIndex.remove(comment);
+    }
+
+    /**
+     * Method that forgets every Comment made in reply to one of the Account's Posts, as the Post is being deleted.
+     * Its Endorsements are deleted with it and forgotten one by one
+     * @param post The Original or Comment being deleted
+     */
+    void removeRepliesReceived(Post post) {
+        if (inboundIndex == null) return;
+        for (Comment reply = post.getFirstComment(); reply != null; reply = reply.getNextComment()) {
+            inboundIndex.remove(reply);
+        }
     }
 
     /**
@@ -64,6 +133,7 @@ public class Account {
      */
     public void addComment(Comment comment) {
         comments.add(comment);
+        if (postIndex != null) postIndex.add(comment);
         totalPosts += 1;
     }
 
@@ -89,6 +159,7 @@ public class Account {
      */
     public void removeComment(Comment comment) {
         comments.remove(comment);
+        if (postIndex != null) postIndex.remove(comment);
         totalPosts -= 1;
     }
 
@@ -98,6 +169,7 @@ public class Account {
      */
     public void addOriginal(Original original) {
         originals.add(original);
+        if (postIndex != null) postIndex.add(original);
         totalPosts += 1;
     }
 
@@ -107,6 +179,7 @@ public class Account {
      */
     public void removeOriginal(Original original) {
         originals.remove(original);
+        if (postIndex != null) postIndex.remove(original);
         totalPosts -= 1;
     }
 
@@ -116,6 +189,7 @@ public class Account {
      */
     public void addEndorsement(Endorsement endorsement) {
         endorsements.add(endorsement);
+        if (postIndex != null) postIndex.add(endorsement);
         totalPosts += 1;
     }
 
@@ -125,6 +199,7 @@ public class Account {
      */
     public void removeEndorsement(Endorsement endorsement) {
         endorsements.remove(endorsement);
+        if (postIndex != null) postIndex.remove(endorsement);
         totalPosts -= 1;
     }
 
@@ -206,5 +281,70 @@ public class Account {
     public int getTotalPosts() {
         return totalPosts;
     }
-}
 
+    /**
+     * Method that returns the index of the Account's Posts in ID order, building it the first time
+     * @return Returns the PostIndex of the Account
+     */
+    PostIndex getPostIndex() {
+        if (postIndex == null) postIndex = PostIndex.of(this);
+        return postIndex;
+    }
+
+    /**
+     * Method that returns the index of the Comments and Endorsements made of the Account's Posts in ID order,
+     * building it the first time
+     * @return Returns the PostIndex of the Account's inbound activity
+     */
+    PostIndex getInboundIndex() {
+        if (inboundIndex == null) inboundIndex = PostIndex.inbound(this);
+        return inboundIndex;
+    }
+
+    /**
+     * Method that makes this Account follow another one, updating the followers of the other Account
+     * @param account The Account to follow
+     * @return Returns true if it was not already followed
+     */
+    public boolean follow(Account account) {
+        if (!following.add(account.NUMERICAL_IDENTIFIER)) return false;
+        account.followers.add(NUMERICAL_IDENTIFIER);
+        return true;
+    }
+
+    /**
+     * Method that makes this Account stop following another one, updating the followers of the other Account
+     * @param account The Account to stop following
+     * @return Returns true if it was followed
+     */
+    public boolean unfollow(Account account) {
+        if (!following.remove(account.NUMERICAL_IDENTIFIER)) return false;
+        account.followers.remove(NUMERICAL_IDENTIFIER);
+        return true;
+    }
+
+    /**
+     * Method that returns whether this Account follows another one
+     * @param id The int NUMERICAL_IDENTIFIER of the other Account
+     * @return Returns true if it is followed
+     */
+    public boolean isFollowing(int id) {
+        return following.contains(id);
+    }
+
+    /**
+     * Method that returns the Accounts this Account follows
+     * @return Returns the IntList of their NUMERICAL_IDENTIFIERs in ascending order
+     */
+    public IntList getFollowing() {
+        return following;
+    }
+
+    /**
+     * Method that returns the Accounts following this Account
+     * @return Returns the IntList of their NUMERICAL_IDENTIFIERs in ascending order
+     */
+    public IntList getFollowers() {
+        return followers;
+    }
+}
@@ -0,0 +1,244 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+/**
+ * The AccountRecommender Class.
+ * Accounts that endorse the same Posts as each other, used by {@link SocialMedia#recommendAccounts(String, int)}
+ *
+ * Two Accounts are alike when the sets of Posts they have endorsed overlap, measured by the Jaccard similarity of
+ * the sets. Each Account is summarised by a MinHash signature of {@link #HASHES} ints, the lowest value of each of
+ * as many hash functions over the IDs of the Posts it has endorsed; the fraction of positions at which two
+ * signatures agree estimates the similarity of the sets. Signatures are split into {@link #BANDS} bands, and
+ * each Account is held in a bucket for each band keyed by the hash of that band (locality sensitive hashing),
+ * so Accounts that are alike share a bucket with high probability and only the Accounts in the same buckets are
+ * compared when recommending. A new Endorsement can only lower a signature, so it is applied at once; when an
+ * Endorsement is deleted the signature of its Account is computed again from its Endorsements before the next
+ * recommendation. Must only be used while holding the {@link SocialMedia} lock
+ */
+class AccountRecommender {
+
+    static final int HASHES = 64;
+    static final int BANDS = 16;
+    static final int ROWS = HASHES / BANDS;
+
+    // Candidates compared per recommendation, so Accounts in very large buckets do not slow it down
+    static final int MAX_CANDIDATES = 2000;
+
+    // The same hash functions are used every time, so signatures only depend on the Posts endorsed
+    private static final long[] SEEDS = new SplittableRandom(0x5EEDL).longs(HASHES).toArray();
+
+    private final Platform platform;
+
+    // Signatures and band keys by NUMERICAL_IDENTIFIER, for Accounts that have endorsed anything
+    private final HashMap<Integer, int[]> signatures = new HashMap<>();
+    private final HashMap<Integer, long[]> bandKeys = new HashMap<>();
+    private final HashMap<Long, IntList> buckets = new HashMap<>();
+
+    // Accounts whose signature must be computed again, as one of their Endorsements has been deleted
+    private final HashSet<Integer> stale = new HashSet<>();
+
+    /**
+     * Constructor method for AccountRecommender, which signs every Account already in the Platform
+     * @param platform The Platform whose Endorsements are compared
+     */
+    AccountRecommender(Platform platform) {
+        this.platform = platform;
+        for (Account account : platform.getAccounts().values()) sign(account);
+    }
+
+    /**
+     * Method that lowers the signature of an Account for a new Endorsement
+     * @param endorsement The Endorsement that has just been made
+     */
+    void endorsementAdded(Endorsement endorsement) {
+        Account account = endorsement.getHandle() == null ? null : platform.getAccount(endorsement.getHandle());
+        if (account == null || endorsement.getEndorsedPost() == null) return;
+
+        int id = account.getNUMERICAL_IDENTIFIER();
+        if (stale.contains(id)) return;
+
+        int[] signature = signatures.get(id);
+        int[] updated = signature == null ? emptySignature() : signature.clone();
+        if (!addPost(updated, endorsement.getEndorsedPost().getID()) && signature != null) return;
+
+        reindex(id, updated);
+    }
+
+    /**
+     * Method that marks the Account that made a deleted Endorsement, to be signed again before it is next compared
+     * @param endorsement The Endorsement being deleted
+     */
+    void endorsementRemoved(Endorsement endorsement) {
+        Account account = endorsement.getHandle() == null ? null : platform.getAccount(endorsement.getHandle());
+        if (account != null) stale.add(account.getNUMERICAL_IDENTIFIER());
+    }
+
+    /**
+     * Method that returns the Accounts most alike an Account, among those sharing a bucket with it
+     * @param account The Account recommendations are made for
+     * @param k The most NUMERICAL_IDENTIFIERs returned
+     * @return Returns an ArrayList of NUMERICAL_IDENTIFIERs, most alike first and lowest identifier among equals,
+     *         leaving out the Account itself and the Accounts it already follows
+     */
+    ArrayList<Integer> recommend(Account account, int k) {
+        refresh();
+
+        int id = account.getNUMERICAL_IDENTIFIER();
+        int[] signature = signatures.get(id);
+        ArrayList<Integer> recommended = new ArrayList<>();
+        if (signature == null || k <= 0) return recommended;
+
+        // Every Account sharing at least one bucket is a candidate
+        HashSet<Integer> candidates = new HashSet<>();
+        for (long key : bandKeys.get(id)) {
+            IntList bucket = buckets.get(key);
+            for (int i = 0; i < bucket.size() && candidates.size() < MAX_CANDIDATES; i++) {
+                int other = bucket.get(i);
+                if (other != id && !account.getFollowing().contains(other)) candidates.add(other);
+            }
+        }
+
+        // Candidates are packed with the number of positions that disagree in the high bits, so sorting ranks them
+        long[] ranked = new long[candidates.size()];
+        int count = 0;
+        for (int other : candidates) {
+            int matches = agreement(signature, signatures.get(other));
+            if (matches > 0) ranked[count++] = ((long) (HASHES - matches) << 32) | other;
+        }
+        Arrays.sort(ranked, 0, count);
+
+        for (int i = 0; i < Math.min(count, k); i++) recommended.add((int) ranked[i]);
+        return recommended;
+    }
+
+    /**
+     * Method that returns the estimated Jaccard similarity of the Posts two Accounts have endorsed
+     * @param first The int NUMERICAL_IDENTIFIER of one Account
+     * @param second The int NUMERICAL_IDENTIFIER of the other Account
+     * @return Returns the double fraction of signature positions that agree, 0 if either has endorsed nothing
+     */
+    double similarity(int first, int second) {
+        refresh();
+        int[] a = signatures.get(first);
+        int[] b = signatures.get(second);
+        return a == null || b == null ? 0 : agreement(a, b) / (double) HASHES;
+    }
+
+    /**
+     * Method that signs again every Account marked since the last recommendation
+     */
+    private void refresh() {
+        if (stale.isEmpty()) return;
+
+        for (int id : stale) {
+            Account account = platform.getAccount(id);
+            if (account == null) reindex(id, null);
+            else sign(account);
+        }
+        stale.clear();
+    }
+
+    /**
+     * Method that computes the signature of an Account from its live Endorsements and indexes it
+     * @param account The Account
+     */
+    private void sign(Account account) {
+        int[] signature = null;
+        for (Endorsement endorsement : account.getEndorsements()) {
+            if (endorsement.getEndorsedPost() == null) continue;
+            if (signature == null) signature = emptySignature();
+            addPost(signature, endorsement.getEndorsedPost().getID());
+        }
+        reindex(account.getNUMERICAL_IDENTIFIER(), signature);
+    }
+
+    /**
+     * Method that replaces the signature of an Account, moving it to the buckets of its new bands
+     * @param id The int NUMERICAL_IDENTIFIER of the Account
+     * @param signature The new int array signature, or null if the Account has no Endorsements
+     */
+    private void reindex(int id, int[] signature) {
+        long[] oldKeys = bandKeys.remove(id);
+        if (oldKeys != null) {
+            for (long key : oldKeys) {
+                IntList bucket = buckets.get(key);
+                bucket.remove(id);
+                if (bucket.isEmpty()) buckets.remove(key);
+            }
+        }
+
+        if (signature == null) {
+            signatures.remove(id);
+            return;
+        }
+
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int row = band * ROWS; row < (band + 1) * ROWS; row++) key = hash(key * 31 + signature[row]);
+            keys[band] = key;
+            buckets.computeIfAbsent(key, k -> new IntList()).add(id);
+        }
+        signatures.put(id, signature);
+        bandKeys.put(id, keys);
+    }
+
+    /**
+     * Method that lowers a signature for one more endorsed Post
+     * @param signature The int array signature, changed in place
+     * @param postID The int ID of the endorsed Post
+     * @return Returns true if any position was lowered
+     */
+    private static boolean addPost(int[] signature, int postID) {
+        boolean changed = false;
+        for (int i = 0; i < HASHES; i++) {
+            int value = (int) hash(postID ^ SEEDS[i]);
+            if (value < signature[i]) {
+                signature[i] = value;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Method that returns the signature of an empty set of Posts
+     * @return Returns an int array holding the highest int in every position
+     */
+    private static int[] emptySignature() {
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        return signature;
+    }
+
+    /**
+     * Method that counts the positions at which two signatures agree
+     * @param first The int array signature of one Account
+     * @param second The int array signature of the other Account
+     * @return Returns the int number of positions
+     */
+    private static int agreement(int[] first, int[] second) {
+        int matches = 0;
+        for (int i = 0; i < HASHES; i++) if (first[i] == second[i]) matches++;
+        return matches;
+    }
+
+    /**
+     * Method that mixes the bits of a value, so values that differ in a few bits hash far apart
+     * @param key The long value
+     * @return Returns the long hash
+     */
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
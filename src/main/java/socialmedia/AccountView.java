@@ -0,0 +1,24 @@
+package socialmedia;
+
+/**
+ * The AccountView Record.
+ * The details of a single Account as plain fields, returned by {@link SocialMedia#getAccountView(String)}
+ * so callers can read them without parsing the text of {@link SocialMedia#showAccount(String)}
+ * @param id The NUMERICAL_IDENTIFIER of the Account
+ * @param handle The handle of the Account
+ * @param description The description of the Account
+ * @param postCount The number of posts the Account has made
+ * @param endorsementCount The number of Endorsements the Account's posts have received
+ */
+public record AccountView(int id, String handle, String description, int postCount, int endorsementCount) {
+
+    /**
+     * Method that builds the view of an Account
+     * @param account The Account
+     * @return Returns the AccountView holding the Account's current details
+     */
+    static AccountView of(Account account) {
+        return new AccountView(account.getNUMERICAL_IDENTIFIER(), account.getHandle(), account.getDescription(),
+                account.getTotalPosts(), account.getTotalEndorsementsReceived());
+    }
+}
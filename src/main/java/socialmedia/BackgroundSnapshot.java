@@ -0,0 +1,248 @@
+package socialmedia;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * The BackgroundSnapshot Class.
+ * This writes a consistent point-in-time snapshot of a {@link Platform} while the platform keeps changing
+ *
+ * When the snapshot starts it remembers every Account and the highest Post ID, which is cheap.
+ * Records are then encoded in small batches while holding the platform lock, and written to disk without it.
+ * Before an Account or Post that has not been written yet is changed, {@link Platform#beforeChange(Object)}
+ * calls {@link #capture(Object)} so the snapshot keeps a copy of it as it was (copy-on-write).
+ * The file is in the {@link SnapshotCodec} format, compressed if requested, and is written
+ * through {@link SnapshotFiles.Writer} so it only replaces the target once it is complete
+ */
+public class BackgroundSnapshot implements Runnable {
+
+    // Number of records encoded each time the lock is held
+    private static final int BATCH_SIZE = 512;
+
+    private final Object lock;
+    private final Platform platform;
+    private final String filename;
+    private final boolean compressed;
+    private final SnapshotListener listener;
+
+    // State of the platform when the snapshot started
+    private final byte[] header;
+    private final ArrayList<Account> accounts;
+    private final int lastPostID;
+
+    // Copies of entities taken before they were changed, by Account ID and by Post ID
+    private final HashMap<Integer, byte[]> copiedAccounts = new HashMap<>();
+    private final HashMap<Integer, byte[]> copiedPosts = new HashMap<>();
+
+    // Accounts not written yet, and the first Post ID not written yet
+    private final HashSet<Integer> unwrittenAccounts = new HashSet<>();
+    private int nextPostID = 1;
+
+    private volatile boolean done = false;
+    private IOException failure;
+
+    /**
+     * Constructor method for BackgroundSnapshot. Must be called while holding the lock,
+     * and makes this the active snapshot of the platform
+     * @param lock The Object that every change to the platform synchronizes on
+     * @param platform The Platform to snapshot
+     * @param filename The file the snapshot will be written to
+     * @param compressed Whether the snapshot should be compressed
+     * @param listener The SnapshotListener told about progress and completion, may be null
+     */
+    BackgroundSnapshot(Object lock, Platform platform, String filename, boolean compressed, SnapshotListener listener) {
+        if (platform.getActiveSnapshot() != null) throw new IllegalStateException("A snapshot is already running");
+
+        this.lock = lock;
+        this.platform = platform;
+        this.filename = filename;
+        this.compressed = compressed;
+        this.listener = listener;
+
+        this.header = SnapshotCodec.encodeHeader();
+        this.accounts = new ArrayList<>(platform.getAccounts().values());
+        this.lastPostID = Post.getUniqueID();
+
+        for (Account account : accounts) {
+            unwrittenAccounts.add(account.getNUMERICAL_IDENTIFIER());
+        }
+
+        platform.setActiveSnapshot(this);
+    }
+
+    /**
+     * Method that keeps a copy of an entity that is about to change, if the snapshot still needs it.
+     * Called while holding the lock
+     * @param entity The Account or Post about to change
+     */
+    void capture(Object entity) {
+        if (entity instanceof Account account) {
+
+            int id = account.getNUMERICAL_IDENTIFIER();
+            if (unwrittenAccounts.contains(id) && !copiedAccounts.containsKey(id)) {
+                copiedAccounts.put(id, SnapshotCodec.encode(account));
+            }
+
+        } else if (entity instanceof Post post) {
+
+            // Posts created after the snapshot started are not part of it
+            int id = post.getID();
+            if (id >= nextPostID && id <= lastPostID && !copiedPosts.containsKey(id)) {
+                copiedPosts.put(id, SnapshotCodec.encode(post));
+            }
+        }
+    }
+
+    /**
+     * Method that writes the snapshot, then tells the listener whether it succeeded
+     */
+    @Override
+    public void run() {
+        try {
+            write();
+        } catch (IOException e) {
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = new IOException(e);
+        } finally {
+            synchronized (lock) {
+                platform.setActiveSnapshot(null);
+                copiedAccounts.clear();
+                copiedPosts.clear();
+                lock.notifyAll();
+            }
+        }
+
+        try {
+            if (listener != null) {
+                if (failure == null) listener.onComplete(filename);
+                else listener.onFailure(failure);
+            }
+        } finally {
+            // Anyone waiting in await() is only released once the listener has been told
+            synchronized (lock) {
+                done = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Method that writes every record, a batch at a time, then commits the file
+     * @throws IOException If the file could not be written
+     */
+    private void write() throws IOException {
+
+        long total = (long) accounts.size() + lastPostID;
+
+        try (SnapshotFiles.Writer out = new SnapshotFiles.Writer(filename, compressed)) {
+
+            out.write(header, header.length);
+            out.endSection(SnapshotFiles.HEADER_SECTION, 1);
+
+            ByteArrayOutputStream batch = new ByteArrayOutputStream(BATCH_SIZE * 64);
+            DataOutputStream batchOut = new DataOutputStream(batch);
+
+            // Accounts are written first so Posts can be linked to them when loading
+            int accountIndex = 0;
+            while (accountIndex < accounts.size()) {
+
+                int end = Math.min(accountIndex + BATCH_SIZE, accounts.size());
+
+                synchronized (lock) {
+                    for (; accountIndex < end; accountIndex++) {
+                        Account account = accounts.get(accountIndex);
+                        int id = account.getNUMERICAL_IDENTIFIER();
+
+                        byte[] copy = copiedAccounts.remove(id);
+                        if (copy != null) batchOut.write(copy);
+                        else SnapshotCodec.write(batchOut, account);
+
+                        unwrittenAccounts.remove(id);
+                    }
+                }
+
+                flushBatch(batch, out, total);
+            }
+
+            batchOut.writeByte(SnapshotCodec.END);
+            flushBatch(batch, out, total);
+            out.endSection(SnapshotFiles.ACCOUNTS_SECTION, accounts.size());
+
+            // Posts are written in ID order so a Comment always comes after the Post it replies to
+            long posts = 0;
+            while (nextPostID <= lastPostID) {
+
+                int end = Math.min(nextPostID + BATCH_SIZE, lastPostID + 1);
+
+                synchronized (lock) {
+                    for (; nextPostID < end; nextPostID++) {
+
+                        byte[] copy = copiedPosts.remove(nextPostID);
+                        Post post = copy == null ? platform.getPost(nextPostID) : null;
+
+                        if (copy != null) batchOut.write(copy);
+                        else if (post != null) SnapshotCodec.write(batchOut, post);
+                        else continue;
+
+                        posts += 1;
+                    }
+                }
+
+                flushBatch(batch, out, total);
+            }
+
+            batchOut.writeByte(SnapshotCodec.END);
+            flushBatch(batch, out, total);
+            out.endSection(SnapshotFiles.POSTS_SECTION, posts);
+
+            out.commit();
+        }
+    }
+
+    /**
+     * Method that writes a batch of encoded records to the file and reports progress
+     * @param batch The encoded records, emptied afterwards
+     * @param out The Writer of the file
+     * @param total The number of Accounts and Post IDs in the snapshot
+     * @throws IOException If the batch could not be written
+     */
+    private void flushBatch(ByteArrayOutputStream batch, SnapshotFiles.Writer out, long total) throws IOException {
+        out.write(batch.toByteArray(), batch.size());
+        batch.reset();
+
+        // Only this thread changes unwrittenAccounts and nextPostID, so they can be read without the lock
+        long written = (long) (accounts.size() - unwrittenAccounts.size()) + (nextPostID - 1);
+        if (listener != null) listener.onProgress(written, total);
+    }
+
+    /**
+     * Method that waits for the snapshot to finish
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        synchronized (lock) {
+            while (!done) lock.wait();
+        }
+    }
+
+    /**
+     * Method that returns whether the snapshot has finished, successfully or not
+     * @return Returns true once the snapshot has finished
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Method that returns why the snapshot failed
+     * @return Returns the IOException that stopped the snapshot, or null if it has not failed
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,160 @@
+package socialmedia;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * The BlockDeflaterOutputStream Class.
+ * This compresses everything written to it in fixed-size blocks, each block being deflated on its own
+ *
+ * The stream starts with the {@link #MAGIC} bytes and the block size, followed by one frame per block:
+ * raw length, compressed length, CRC32 of the raw bytes and then the compressed bytes.
+ * A frame with a raw length of 0 marks the end of the stream.
+ * Because no block depends on another, blocks can be inflated in parallel by {@link BlockInflaterInputStream}
+ */
+public class BlockDeflaterOutputStream extends FilterOutputStream {
+
+    // Bytes that identify a block compressed stream, "SMZ1"
+    static final byte[] MAGIC = {'S', 'M', 'Z', '1'};
+
+    static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] block;
+    private byte[] compressed;
+    private int count = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    /**
+     * Constructor method for BlockDeflaterOutputStream using the default block size
+     * @param out The OutputStream the compressed blocks will be written to
+     * @throws IOException If the header could not be written
+     */
+    public BlockDeflaterOutputStream(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor method for BlockDeflaterOutputStream
+     * @param out The OutputStream the compressed blocks will be written to
+     * @param blockSize The number of uncompressed bytes held in each block
+     * @throws IOException If the header could not be written
+     */
+    public BlockDeflaterOutputStream(OutputStream out, int blockSize) throws IOException {
+        super(out);
+
+        if (blockSize <= 0) throw new IllegalArgumentException("Block size must be positive");
+
+        this.out = new DataOutputStream(out);
+        this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        this.block = new byte[blockSize];
+
+        // Deflate can expand incompressible data slightly, so the buffer is sized for the worst case
+        this.compressed = new byte[blockSize + blockSize / 8 + 64];
+
+        this.out.write(MAGIC);
+        this.out.writeInt(blockSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (finished) throw new IOException("Stream has been finished");
+        if (count == block.length) writeBlock();
+        block[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) throw new IOException("Stream has been finished");
+        while (len > 0) {
+            if (count == block.length) writeBlock();
+
+            int copied = Math.min(len, block.length - count);
+            System.arraycopy(b, off, block, count, copied);
+            count += copied;
+            off += copied;
+            len -= copied;
+        }
+    }
+
+    /**
+     * Method that compresses the current block and writes its frame to the underlying stream
+     * @throws IOException If the frame could not be written
+     */
+    private void writeBlock() throws IOException {
+        if (count == 0) return;
+
+        crc.reset();
+        crc.update(block, 0, count);
+
+        deflater.reset();
+        deflater.setInput(block, 0, count);
+        deflater.finish();
+
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                byte[] larger = new byte[compressed.length * 2];
+                System.arraycopy(compressed, 0, larger, 0, compressedLength);
+                compressed = larger;
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        out.writeInt(count);
+        out.writeInt(compressedLength);
+        out.writeInt((int) crc.getValue());
+        out.write(compressed, 0, compressedLength);
+
+        count = 0;
+    }
+
+    /**
+     * Method that writes out the current partial block. The next block starts empty
+     */
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        out.flush();
+    }
+
+    /**
+     * Method that writes the final block and the end marker without closing the underlying stream,
+     * so more data can be written after the compressed stream. Nothing more can be written to this stream
+     * @throws IOException If the final block could not be written
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        finished = true;
+
+        try {
+            writeBlock();
+            out.writeInt(0); // End marker
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Method that writes the final block and the end marker, then closes the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package socialmedia;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * The BlockInflaterInputStream Class.
+ * This reads a stream written by {@link BlockDeflaterOutputStream} and checks the CRC32 of every block
+ *
+ * Compressed blocks are read from the underlying stream in order, but up to parallelism blocks
+ * are inflated at the same time on the common fork-join pool
+ */
+public class BlockInflaterInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private final int blockSize;
+    private final int parallelism;
+
+    // Blocks that have been read and are being (or have been) inflated, in stream order
+    private final ArrayDeque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+
+    private byte[] current = new byte[0];
+    private int position = 0;
+    private boolean endOfBlocks = false;
+
+    /**
+     * Constructor method for BlockInflaterInputStream that inflates one block at a time
+     * @param in The InputStream the compressed blocks are read from
+     * @throws IOException If the stream does not start with a valid header
+     */
+    public BlockInflaterInputStream(InputStream in) throws IOException {
+        this(in, 1);
+    }
+
+    /**
+     * Constructor method for BlockInflaterInputStream
+     * @param in The InputStream the compressed blocks are read from
+     * @param parallelism The maximum number of blocks inflated at once
+     * @throws IOException If the stream does not start with a valid header
+     */
+    public BlockInflaterInputStream(InputStream in, int parallelism) throws IOException {
+        this.in = new DataInputStream(in);
+        this.parallelism = Math.max(1, parallelism);
+
+        byte[] magic = new byte[BlockDeflaterOutputStream.MAGIC.length];
+        this.in.readFully(magic);
+        if (!Arrays.equals(magic, BlockDeflaterOutputStream.MAGIC)) throw new ZipException("Not a block compressed stream");
+
+        this.blockSize = this.in.readInt();
+        if (blockSize <= 0) throw new ZipException("Invalid block size " + blockSize);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) return -1;
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!fill()) return -1;
+
+        int copied = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, copied);
+        position += copied;
+        return copied;
+    }
+
+    @Override
+    public int available() {
+        return current.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        pending.clear();
+        in.close();
+    }
+
+    /**
+     * Method that makes sure there are unread bytes in the current block
+     * @return Returns false if the end of the stream has been reached
+     * @throws IOException If a block could not be read or failed its checksum
+     */
+    private boolean fill() throws IOException {
+        while (position == current.length) {
+
+            // Keeps up to parallelism blocks in flight ahead of the reader
+            while (!endOfBlocks && pending.size() < parallelism) {
+                readBlock();
+            }
+
+            if (pending.isEmpty()) return false;
+
+            try {
+                current = pending.poll().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw e;
+            }
+            position = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Method that reads the next compressed frame and schedules it to be inflated
+     * @throws IOException If the frame is truncated or malformed
+     * @throws CorruptSnapshotException If the frame is longer than its block could ever compress to
+     */
+    private void readBlock() throws IOException {
+        int rawLength;
+        try {
+            rawLength = in.readInt();
+        } catch (EOFException e) {
+            throw new ZipException("Compressed stream is truncated");
+        }
+
+        if (rawLength == 0) {
+            endOfBlocks = true;
+            return;
+        }
+
+        int compressedLength = in.readInt();
+        int checksum = in.readInt();
+
+        if (rawLength < 0 || rawLength > blockSize || compressedLength < 0) {
+            throw new ZipException("Corrupt block header");
+        }
+
+        // Deflate never grows a block by more than a few bytes per thousand, so a longer frame can only come from a
+        // corrupt header and is rejected before its length is allocated
+        if (compressedLength > rawLength + rawLength / 1000 + 64) {
+            throw new CorruptSnapshotException("Block of " + rawLength + " bytes has a compressed length of " + compressedLength);
+        }
+
+        byte[] compressed = new byte[compressedLength];
+        in.readFully(compressed);
+
+        if (parallelism == 1) {
+            pending.add(CompletableFuture.completedFuture(inflate(compressed, rawLength, checksum)));
+        } else {
+            pending.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return inflate(compressed, rawLength, checksum);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Method that inflates a single block and checks it against its stored CRC32
+     * @param compressed The compressed bytes of the block
+     * @param rawLength The number of bytes the block inflates to
+     * @param checksum The CRC32 of the uncompressed block
+     * @return Returns the uncompressed block
+     * @throws IOException If the block cannot be inflated or its checksum does not match
+     */
+    private static byte[] inflate(byte[] compressed, int rawLength, int checksum) throws IOException {
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+
+        try {
+            inflater.setInput(compressed);
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, rawLength - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                inflated += n;
+            }
+            if (inflated != rawLength) throw new ZipException("Block is shorter than its header states");
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt block: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(raw, 0, rawLength);
+        if ((int) crc.getValue() != checksum) throw new ZipException("Block checksum mismatch");
+
+        return raw;
+    }
+}
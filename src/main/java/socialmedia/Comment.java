@@ -7,7 +7,9 @@ import java.util.HashSet;
  *
  * Contains static counter variable totalNumberOfComments that tracks the total number of Comments
  * Contains message, originalPost, numberOfEndorsements and numberOfComments
- * Also Contains 2 HashMaps to contain Comments and Endorsements
+ * Also Contains a HashSet of Endorsements, the Comments made on it are linked in ID order by {@link Post}
+ * Also contains the Original its thread starts from and jump pointers to the Posts 1, 2, 4, 8... levels above it,
+ * so any ancestor is found in a number of steps that grows with the logarithm of its level, see {@link #getAncestor(int)}
  */
 public class Comment extends Post {
     private String message;
@@ -16,9 +18,15 @@ public class Comment extends Post {
     private int numberOfComments;
     private static int totalNumberOfComments = 0;
 
-    private HashSet<Comment> comments = new HashSet<>();
     private HashSet<Endorsement> endorsements = new HashSet<>();
 
+    // The next Comment made on the same Post, in ID order
+    private Comment nextComment;
+
+    // The Original at the top of the thread, and the Posts 2^i levels above this one, worked out by linkThread()
+    private transient Original root;
+    private transient Post[] jumps;
+
 
     /**
      * Constructor method for Comment object
@@ -30,6 +38,7 @@ public class Comment extends Post {
         super(handle); // Super constructor called by default
         setActionable(true); // Comments are actionable by default
         ORIGINAL_POST = original;
+        linkThread();
         this.message = message;
         totalNumberOfComments += 1;
     }
@@ -46,20 +55,103 @@ public class Comment extends Post {
         setActionable(true);
 
         ORIGINAL_POST = original;
+        linkThread();
         this.message = message;
         totalNumberOfComments += 1;
     }
 
+    /**
+     * Constructor method used when restoring a Comment from a snapshot, does not change totalNumberOfComments
+     * @param id The int ID the Comment was saved with
+     * @param handle String handle of the Account associated with the Comment, null if deleted
+     * @param original The Original or Comment Post that is being commented on
+     * @param message String message that the Comment will display
+     * @param numberOfEndorsements The int number of Endorsements the Comment was saved with
+     * @param numberOfComments The int number of Comments the Comment was saved with
+     * @param actionable Boolean that determines whether Comment is actionable
+     */
+    Comment(int id, String handle, Post original, String message, int numberOfEndorsements, int numberOfComments,
+            boolean actionable) {
+        super(id, handle, actionable);
+        ORIGINAL_POST = original;
+        this.message = message;
+        this.numberOfEndorsements = numberOfEndorsements;
+        this.numberOfComments = numberOfComments;
+    }
 
     /**
-     * Method that returns the HashSet of comments
-     * @return HashSet of comments
+     * Method that returns the Post being commented on, whether it is an Original or a Comment
+     * @return Returns the Post that is being commented on
      */
-    public HashSet<Comment> getComments(){
-        return comments;
+    public Post getParentPost() {
+        return ORIGINAL_POST;
     }
 
 
+    /**
+     * Method that works out the level, root and jump pointers of this Comment from those of its parent Post,
+     * and resets its thread aggregates. The parent Post must already be linked
+     */
+    void linkThread() {
+        startThread(ORIGINAL_POST.getLevel() + 1);
+        root = ORIGINAL_POST instanceof Comment parent ? parent.root : (Original) ORIGINAL_POST;
+
+        // The Post 2^i levels up is 2^(i-1) levels above the Post 2^(i-1) levels up
+        jumps = new Post[32 - Integer.numberOfLeadingZeros(getLevel())];
+        jumps[0] = ORIGINAL_POST;
+        for (int i = 1; i < jumps.length; i++) jumps[i] = ((Comment) jumps[i - 1]).jumps[i - 1];
+    }
+
+    /**
+     * Method that returns the Original this Comment's thread starts from, however many levels above it
+     * @return Returns the Original at the top of the thread
+     */
+    @Override
+    public Original getThreadRoot() {
+        return root;
+    }
+
+    /**
+     * Method that returns a Post above this Comment, following the jump pointer for each set bit of k
+     * @param k The number of levels up
+     * @return Returns the Post k levels above this Comment, or null if k is greater than its level
+     */
+    @Override
+    public Post getAncestor(int k) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative");
+        if (k > getLevel()) return null;
+
+        Post post = this;
+        for (int i = 0; k != 0; i++, k >>>= 1) {
+            if ((k & 1) != 0) post = ((Comment) post).jumps[i];
+        }
+        return post;
+    }
+
+    /**
+     * Method that returns the jump pointers of this Comment
+     * @return Returns the array of Posts 1, 2, 4, 8... levels above this Comment
+     */
+    Post[] getJumps() {
+        return jumps;
+    }
+
+    /**
+     * Method that returns the next Comment made on the same Post, see {@link Post#getFirstComment()}
+     * @return Returns the Comment with the next highest ID on the same Post, or null if this is the last one
+     */
+    public Comment getNextComment() {
+        return nextComment;
+    }
+
+    /**
+     * Method that sets the next Comment made on the same Post
+     * @param nextComment The Comment that follows this one
+     */
+    void setNextComment(Comment nextComment) {
+        this.nextComment = nextComment;
+    }
+
     /**
      * Method that sets numberOfOriginals to a certain value
      * @param value int value that is to be set as totalNumberOfComments
@@ -69,11 +161,30 @@ public class Comment extends Post {
     }
 
     /**
-     * Method that returns String message
+     * Method that returns String message, reading it from the StorageEngine if it has been paged out
      * @return Returns String message
      */
     public String getMessage() {
-        return message;
+        return message == null && isPagedOut() ? readPagedMessage() : message;
+    }
+
+    /**
+     * Method that drops the message once it has been paged out to a StorageEngine
+     * @param storage The StorageEngine holding the record of this Comment
+     */
+    @Override
+    void pageOut(StorageEngine storage) {
+        super.pageOut(storage);
+        message = null;
+    }
+
+    /**
+     * Method that reads the message back from the StorageEngine it was paged out to, if it was
+     */
+    @Override
+    void pageIn() {
+        if (isPagedOut()) message = getMessage();
+        super.pageIn();
     }
 
     /**
@@ -100,6 +211,8 @@ public class Comment extends Post {
 
         setHandle(null);
 
+        // The message is replaced, so the one paged out is never read again
+        super.pageIn();
         message = "The original content was removed from the system and is no longer available.";
 
         setActionable(false);
@@ -155,12 +268,13 @@ public class Comment extends Post {
     }
 
     /**
-     * Method that adds Comment to HashMap of Comments
+     * Method that adds Comment to the Comments made on this Post
      * @param comment The Comment to be added
      */
     public void addComment(Comment comment) {
-        comments.add(comment);
+        linkComment(comment);
         numberOfComments += 1;
+        if (root != null) root.commentAdded(comment);
     }
 
     /**
@@ -0,0 +1,40 @@
+package socialmedia;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a snapshot file is incomplete or fails one of its checksums, for
+ * example because the process stopped while it was being written.
+ * 
+ * @version 1.0
+ *
+ */
+public class CorruptSnapshotException extends IOException {
+
+	/**
+	 * Constructs an instance of the exception with no message
+	 */
+	public CorruptSnapshotException() {
+		// do nothing
+	}
+
+	/**
+	 * Constructs an instance of the exception containing the message argument
+	 * 
+	 * @param message message containing details regarding the exception cause
+	 */
+	public CorruptSnapshotException(String message) {
+		super(message);
+	}
+
+	/**
+	 * Constructs an instance of the exception containing the message and cause
+	 * 
+	 * @param message message containing details regarding the exception cause
+	 * @param cause   the exception that revealed the corruption
+	 */
+	public CorruptSnapshotException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+}
@@ -0,0 +1,29 @@
+package socialmedia;
+
+/**
+ * Thrown when an account attempts to endorse a post it has already endorsed.
+ * It is a kind of {@link NotActionablePostException}, so callers that only
+ * handle that exception still treat the post as one that cannot be endorsed.
+ * 
+ * @version 1.0
+ *
+ */
+public class DuplicateEndorsementException extends NotActionablePostException {
+
+	/**
+	 * Constructs an instance of the exception with no message
+	 */
+	public DuplicateEndorsementException() {
+		// do nothing
+	}
+
+	/**
+	 * Constructs an instance of the exception containing the message argument
+	 * 
+	 * @param message message containing details regarding the exception cause
+	 */
+	public DuplicateEndorsementException(String message) {
+		super(message);
+	}
+
+}
@@ -38,6 +38,19 @@ public class Endorsement extends Post {
         numberOfEndorsements += 1;
     }
 
+    /**
+     * Constructor method used when restoring an Endorsement from a snapshot, does not change numberOfEndorsements
+     * @param id The int ID the Endorsement was saved with
+     * @param handle String handle of the Account associated with the Endorsement, null if deleted
+     * @param endorsedPost The Original or Comment Post that is endorsed, null if deleted
+     * @param message String message the Endorsement was saved with
+     */
+    Endorsement(int id, String handle, Post endorsedPost, String message) {
+        super(id, handle, false);
+        this.endorsedPost = endorsedPost;
+        this.message = message;
+    }
+
     /**
      * Method that deletes the Endorsement by clearing all its data
      */
@@ -45,16 +58,38 @@ public class Endorsement extends Post {
     public void deletePost() {
         setHandle(null);
         endorsedPost = null;
+
+        // The message is cleared, so the one paged out is never read again
+        super.pageIn();
         message = null;
         numberOfEndorsements -= 1;
     }
 
     /**
-     * Method that returns String message
+     * Method that returns String message, reading it from the StorageEngine if it has been paged out
      * @return Returns String message
      */
     public String getMessage() {
-        return message;
+        return message == null && isPagedOut() ? readPagedMessage() : message;
+    }
+
+    /**
+     * Method that drops the message once it has been paged out to a StorageEngine
+     * @param storage The StorageEngine holding the record of this Endorsement
+     */
+    @Override
+    void pageOut(StorageEngine storage) {
+        super.pageOut(storage);
+        message = null;
+    }
+
+    /**
+     * Method that reads the message back from the StorageEngine it was paged out to, if it was
+     */
+    @Override
+    void pageIn() {
+        if (isPagedOut()) message = getMessage();
+        super.pageIn();
     }
 
     /**
@@ -0,0 +1,228 @@
+package socialmedia;
+
+import java.util.Arrays;
+
+/**
+ * The EndorsementIndex Class.
+ * The ID of the Endorsement each Account has made of each Post, used by {@link SocialMedia#endorsePost(String, int)}
+ * to turn down a second Endorsement of the same Post and by {@link SocialMedia#unendorsePost(String, int)} to find
+ * the Endorsement to undo
+ *
+ * Each pair is packed into one long, the Account's NUMERICAL_IDENTIFIER in the high 32 bits and the Post ID in the
+ * low 32 bits, and held in open addressing tables with linear probing alongside the Endorsement ID, so a pair
+ * takes 12 bytes at full load and nothing is boxed. As Post IDs start at 1 no pair packs to 0, which marks an empty
+ * slot. Removed pairs are not left as tombstones: the pairs after them in the same run are shifted back instead.
+ * The pairs are spread over {@link #SHARDS} tables by the top bits of their hash, so each table stays well within
+ * the size of a Java array and grows on its own, copying only its own share of the pairs.
+ * Platforms saved before duplicates were turned down may hold several Endorsements of a pair; only the first is held.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+class EndorsementIndex {
+
+    static final int SHARDS = 64;
+
+    private static final int SHARD_BITS = Integer.numberOfTrailingZeros(SHARDS);
+    private static final int INITIAL_CAPACITY = 16;
+
+    // A table grows once it is more than this fraction full
+    private static final double MAX_LOAD = 0.75;
+
+    private final long[][] tables = new long[SHARDS][];
+    private final int[][] values = new int[SHARDS][];
+    private final int[] sizes = new int[SHARDS];
+    private long size;
+
+    /**
+     * Constructor method for EndorsementIndex, which adds every Endorsement already in the Platform
+     * @param platform The Platform whose Endorsements are indexed
+     */
+    EndorsementIndex(Platform platform) {
+        for (int i = 0; i < SHARDS; i++) {
+            tables[i] = new long[INITIAL_CAPACITY];
+            values[i] = new int[INITIAL_CAPACITY];
+        }
+
+        // Endorsements are added in ID order, so the first of any duplicates is the one held
+        int[] ids = new int[platform.getEndorsements().size()];
+        int count = 0;
+        for (int id : platform.getEndorsements().keySet()) ids[count++] = id;
+        Arrays.sort(ids);
+
+        for (int id : ids) {
+            Endorsement endorsement = platform.getEndorsements().get(id);
+            Account account = endorsement.getHandle() == null ? null : platform.getAccount(endorsement.getHandle());
+            if (account != null && endorsement.getEndorsedPost() != null) {
+                add(account.getNUMERICAL_IDENTIFIER(), endorsement.getEndorsedPost().getID(), id);
+            }
+        }
+    }
+
+    /**
+     * Method that packs an Account and a Post into the key they are held under
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+     * @param postID The int ID of the Post
+     * @return Returns the long key
+     */
+    static long key(int accountID, int postID) {
+        return ((long) accountID << 32) | (postID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Method that returns whether an Account has endorsed a Post
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+     * @param postID The int ID of the Post
+     * @return Returns true if the pair is held
+     */
+    boolean contains(int accountID, int postID) {
+        return get(accountID, postID) != 0;
+    }
+
+    /**
+     * Method that returns the Endorsement an Account has made of a Post
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+     * @param postID The int ID of the Post
+     * @return Returns the int ID of the Endorsement, or 0 if the pair is not held
+     */
+    int get(int accountID, int postID) {
+        long key = key(accountID, postID);
+        long hash = hash(key);
+        int shard = shard(hash);
+        int slot = find(tables[shard], key, hash);
+        return slot < 0 ? 0 : values[shard][slot];
+    }
+
+    /**
+     * Method that adds the pair of an Account and a Post it has endorsed
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+     * @param postID The int ID of the Post
+     * @param endorsementID The int ID of the Endorsement
+     * @return Returns true if the pair was added, false if it was already held, in which case it is left unchanged
+     */
+    boolean add(int accountID, int postID, int endorsementID) {
+        long key = key(accountID, postID);
+        long hash = hash(key);
+        int shard = shard(hash);
+
+        if (sizes[shard] + 1 > tables[shard].length * MAX_LOAD) resize(shard);
+        long[] table = tables[shard];
+
+        int mask = table.length - 1;
+        int slot = (int) hash & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = key;
+        values[shard][slot] = endorsementID;
+        sizes[shard]++;
+        size++;
+        return true;
+    }
+
+    /**
+     * Method that removes the pair of an Account and a Post if it is held for the given Endorsement,
+     * shifting back the pairs after it in its run that would otherwise no longer be found
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+     * @param postID The int ID of the Post
+     * @param endorsementID The int ID of the Endorsement being removed
+     * @return Returns true if the pair was removed, false if it was not held for that Endorsement
+     */
+    boolean remove(int accountID, int postID, int endorsementID) {
+        long key = key(accountID, postID);
+        long hash = hash(key);
+        int shard = shard(hash);
+        long[] table = tables[shard];
+        int[] ids = values[shard];
+
+        int slot = find(table, key, hash);
+        if (slot < 0 || ids[slot] != endorsementID) return false;
+
+        // Each later pair in the run moves into the empty slot unless its home slot lies after the empty slot
+        int mask = table.length - 1;
+        int empty = slot;
+        for (int next = (empty + 1) & mask; table[next] != 0; next = (next + 1) & mask) {
+            int home = (int) hash(table[next]) & mask;
+            if (((next - home) & mask) >= ((next - empty) & mask)) {
+                table[empty] = table[next];
+                ids[empty] = ids[next];
+                empty = next;
+            }
+        }
+        table[empty] = 0;
+        ids[empty] = 0;
+
+        sizes[shard]--;
+        size--;
+        return true;
+    }
+
+    /**
+     * Method that returns the number of pairs held
+     * @return Returns the long number of pairs
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Method that finds the slot a key is held in
+     * @param table The table the key belongs to
+     * @param key The long key
+     * @param hash The long hash of the key
+     * @return Returns the int slot, or -1 if the key is not held
+     */
+    private static int find(long[] table, long key, long hash) {
+        int mask = table.length - 1;
+        for (int slot = (int) hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (table[slot] == key) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Method that copies the pairs of a table into one twice its size
+     * @param shard The int index of the full table
+     */
+    private void resize(int shard) {
+        long[] table = tables[shard];
+        int[] ids = values[shard];
+        long[] resized = new long[table.length * 2];
+        int[] resizedIDs = new int[resized.length];
+        int mask = resized.length - 1;
+
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == 0) continue;
+            int slot = (int) hash(table[i]) & mask;
+            while (resized[slot] != 0) slot = (slot + 1) & mask;
+            resized[slot] = table[i];
+            resizedIDs[slot] = ids[i];
+        }
+
+        tables[shard] = resized;
+        values[shard] = resizedIDs;
+    }
+
+    /**
+     * Method that returns the table a pair is held in
+     * @param hash The long hash of the pair
+     * @return Returns the int index of the table
+     */
+    private static int shard(long hash) {
+        return (int) (hash >>> (64 - SHARD_BITS));
+    }
+
+    /**
+     * Method that mixes the bits of a key, so keys that differ in a few bits land far apart
+     * @param key The long key
+     * @return Returns the long hash, whose low bits pick the slot and whose top bits pick the table
+     */
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
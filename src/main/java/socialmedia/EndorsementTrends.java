@@ -0,0 +1,226 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The EndorsementTrends Class.
+ * Counts of the Endorsements each Post has received recently, used by {@link SocialMedia#getMostEndorsedPost(java.time.Duration)}
+ * and {@link SocialMedia#getHotPosts(int)}
+ *
+ * Each Endorsement is counted in the bucket of the minute it was made in; the last {@link #MINUTE_BUCKETS} buckets are
+ * kept in a ring, a bucket being reused once its minute has passed, so a window is answered by adding up its buckets.
+ * Each Post also has a hot score, the sum over its Endorsements of a weight that halves every half-life.
+ * As every score decays at the same rate, scores are held relative to a fixed origin time, so they only change when
+ * a Post is endorsed and are kept ranked in a TreeSet; the origin is moved forward once the weights grow too large.
+ * Endorsements whose creation time is not known are not counted.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+class EndorsementTrends {
+
+    static final long MINUTE = 60_000L;
+    static final int MINUTE_BUCKETS = 24 * 60;
+    static final long DEFAULT_HALF_LIFE = 60 * MINUTE;
+
+    // Weights are rescaled before they pass e^MAX_EXPONENT, well within the range of a double
+    private static final double MAX_EXPONENT = 500;
+
+    private final Platform platform;
+    private final Bucket[] buckets = new Bucket[MINUTE_BUCKETS];
+
+    // Decay per millisecond, and the time the hot scores are relative to
+    private final double decay;
+    private long origin = Long.MIN_VALUE;
+
+    // Hot scores by Post ID, and the IDs ranked by score, highest first and newest first among equals
+    private final HashMap<Integer, Double> scores = new HashMap<>();
+    private final TreeSet<Integer> ranking;
+
+    /**
+     * Constructor method for EndorsementTrends using the default half-life
+     * @param platform The Platform whose Endorsements are counted
+     */
+    EndorsementTrends(Platform platform) {
+        this(platform, DEFAULT_HALF_LIFE);
+    }
+
+    /**
+     * Constructor method for EndorsementTrends, which counts every Endorsement already in the Platform
+     * @param platform The Platform whose Endorsements are counted
+     * @param halfLife The long number of milliseconds it takes the weight of an Endorsement to halve
+     */
+    EndorsementTrends(Platform platform, long halfLife) {
+        this.platform = platform;
+        this.decay = Math.log(2) / halfLife;
+        this.ranking = new TreeSet<>((a, b) -> {
+            int order = Double.compare(scores.get(b), scores.get(a));
+            return order != 0 ? order : Integer.compare(b, a);
+        });
+
+        for (Endorsement endorsement : platform.getEndorsements().values()) endorsementAdded(endorsement);
+    }
+
+    /**
+     * Method that counts a new Endorsement
+     * @param endorsement The Endorsement that has just been made
+     */
+    void endorsementAdded(Endorsement endorsement) {
+        update(endorsement, 1);
+    }
+
+    /**
+     * Method that stops counting an Endorsement. Must be called while it still refers to the Post it endorses
+     * @param endorsement The Endorsement that is being deleted
+     */
+    void endorsementRemoved(Endorsement endorsement) {
+        update(endorsement, -1);
+    }
+
+    /**
+     * Method that forgets the hot score of a deleted Post. Its counts are left in the buckets and skipped when read
+     * @param post The Original or Comment that has been deleted
+     */
+    void postRemoved(Post post) {
+        if (scores.containsKey(post.getID())) {
+            ranking.remove(post.getID());
+            scores.remove(post.getID());
+        }
+    }
+
+    /**
+     * Method that returns the Post endorsed most often in a window of time ending now, counted by the minute
+     * including the current minute
+     * @param now The long current time in milliseconds since the epoch
+     * @param window The long length of the window in milliseconds, at most {@link #MINUTE_BUCKETS} minutes
+     * @return Returns the int ID of the Post, the lowest ID among equals, or 0 if nothing was endorsed in the window
+     */
+    int getMostEndorsedPost(long now, long window) {
+        long current = Math.floorDiv(now, MINUTE);
+        long count = Math.min(MINUTE_BUCKETS, Math.max(1, -Math.floorDiv(-window, MINUTE)));
+
+        HashMap<Integer, Integer> totals = new HashMap<>();
+        for (long number = current - count + 1; number <= current; number++) {
+            Bucket bucket = buckets[(int) Math.floorMod(number, (long) MINUTE_BUCKETS)];
+            if (bucket == null || bucket.number != number) continue;
+            for (Map.Entry<Integer, Integer> entry : bucket.counts.entrySet()) totals.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+
+        int best = 0;
+        int bestCount = 0;
+        for (Map.Entry<Integer, Integer> entry : totals.entrySet()) {
+            int id = entry.getKey();
+            int total = entry.getValue();
+            if (total < bestCount || (total == bestCount && id > best) || total <= 0) continue;
+
+            Post post = platform.getPost(id);
+            if (post == null || post.getHandle() == null) continue;
+
+            best = id;
+            bestCount = total;
+        }
+        return best;
+    }
+
+    /**
+     * Method that returns the Posts with the highest hot scores
+     * @param k The most Post IDs returned
+     * @return Returns an ArrayList of Post IDs, hottest first
+     */
+    ArrayList<Integer> getHotPosts(int k) {
+        ArrayList<Integer> hot = new ArrayList<>(Math.max(0, Math.min(k, ranking.size())));
+        for (int id : ranking) {
+            if (hot.size() >= k) break;
+            hot.add(id);
+        }
+        return hot;
+    }
+
+    /**
+     * Method that returns the hot score of a Post as of a given time
+     * @param id The int ID of the Post
+     * @param now The long time in milliseconds since the epoch
+     * @return Returns the double score, where an Endorsement made at that time counts as 1
+     */
+    double getHotScore(int id, long now) {
+        Double score = scores.get(id);
+        if (score == null) return 0;
+        return score * Math.exp(decay * (origin - now));
+    }
+
+    /**
+     * Method that adds or removes an Endorsement from its minute bucket and from the hot score of the endorsed Post
+     * @param endorsement The Endorsement
+     * @param delta 1 when it is made, -1 when it is deleted
+     */
+    private void update(Endorsement endorsement, int delta) {
+        Post endorsed = endorsement.getEndorsedPost();
+        long time = endorsement.getTimestamp();
+        if (endorsed == null || endorsed.getHandle() == null || endorsement.getHandle() == null || time == 0) return;
+
+        int id = endorsed.getID();
+
+        // Counts are only changed in a bucket that still holds the minute the Endorsement was made in
+        long number = Math.floorDiv(time, MINUTE);
+        int slot = (int) Math.floorMod(number, (long) MINUTE_BUCKETS);
+        Bucket bucket = buckets[slot];
+        if (bucket == null || bucket.number < number) {
+            if (delta > 0) buckets[slot] = bucket = new Bucket(number);
+        }
+        if (bucket != null && bucket.number == number) {
+            int total = bucket.counts.getOrDefault(id, 0) + delta;
+            if (total <= 0) bucket.counts.remove(id);
+            else bucket.counts.put(id, total);
+        }
+
+        if (origin == Long.MIN_VALUE) origin = time;
+        if (decay * (time - origin) > MAX_EXPONENT) rescale(time);
+
+        Double previous = scores.get(id);
+        double score = (previous == null ? 0 : previous) + delta * Math.exp(decay * (time - origin));
+
+        if (previous != null) ranking.remove(id);
+
+        // Removing the last Endorsement can leave a rounding error instead of 0
+        if (score <= 0 || (delta < 0 && score < previous * 1e-9)) {
+            scores.remove(id);
+            return;
+        }
+        scores.put(id, score);
+        ranking.add(id);
+    }
+
+    /**
+     * Method that moves the origin of the hot scores forward, scaling every score to match.
+     * Scores that become too small to hold are dropped
+     * @param newOrigin The long time the scores are to be relative to
+     */
+    private void rescale(long newOrigin) {
+        double factor = Math.exp(decay * (origin - newOrigin));
+        origin = newOrigin;
+
+        ranking.clear();
+        scores.replaceAll((id, score) -> score * factor);
+        scores.values().removeIf(score -> score == 0);
+        ranking.addAll(scores.keySet());
+    }
+
+    /**
+     * The Bucket Class.
+     * The number of Endorsements each Post received in one minute
+     */
+    private static final class Bucket {
+
+        private final long number;
+        private final HashMap<Integer, Integer> counts = new HashMap<>();
+
+        /**
+         * Constructor method for Bucket
+         * @param number The long number of the minute since the epoch
+         */
+        private Bucket(long number) {
+            this.number = number;
+        }
+    }
+}
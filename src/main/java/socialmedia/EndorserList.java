@@ -0,0 +1,118 @@
+package socialmedia;
+
+import java.util.Arrays;
+
+/**
+ * The EndorserList Class.
+ * The Accounts that have endorsed one Post, in the order they endorsed it, used to list them a page at a time by
+ * {@link SocialMedia#getEndorsers(int, int, int)}
+ *
+ * Each Endorsement is held as its Account's NUMERICAL_IDENTIFIER and its own ID in two int arrays. Endorsement IDs
+ * are given out in creation order, so new Endorsements are appended and the IDs stay sorted; a page starts with a
+ * binary search for its cursor, so only the page itself is read. A deleted Endorsement is found the same way and
+ * left in place as a tombstone, and the arrays are compacted once half their entries are tombstones.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+class EndorserList {
+
+    // The Account ID held in place of a deleted Endorsement
+    private static final int REMOVED = -1;
+
+    private int[] accounts = new int[4];
+    private int[] endorsements = new int[4];
+    private int length;
+    private int removed;
+
+    /**
+     * Method that builds the list of the current Endorsements of a Post
+     * @param post The Original or Comment
+     * @param platform The Platform the Accounts of the Endorsements are found in
+     * @return Returns the new EndorserList
+     */
+    static EndorserList of(Post post, Platform platform) {
+        Endorsement[] held = (post instanceof Original original ? original.getEndorsements()
+                : ((Comment) post).getEndorsements()).toArray(new Endorsement[0]);
+        Arrays.sort(held, (a, b) -> Integer.compare(a.getID(), b.getID()));
+
+        EndorserList list = new EndorserList();
+        for (Endorsement endorsement : held) {
+            Account account = endorsement.getHandle() == null ? null : platform.getAccount(endorsement.getHandle());
+            if (account != null) list.add(account.getNUMERICAL_IDENTIFIER(), endorsement.getID());
+        }
+        return list;
+    }
+
+    /**
+     * Method that adds an Endorsement to the end of the list
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account that made it
+     * @param endorsementID The int ID of the Endorsement, higher than any already held
+     */
+    void add(int accountID, int endorsementID) {
+        if (length == accounts.length) {
+            accounts = Arrays.copyOf(accounts, length * 2);
+            endorsements = Arrays.copyOf(endorsements, length * 2);
+        }
+        accounts[length] = accountID;
+        endorsements[length] = endorsementID;
+        length++;
+    }
+
+    /**
+     * Method that marks an Endorsement as deleted
+     * @param endorsementID The int ID of the Endorsement
+     * @return Returns true if it was removed, false if it was not held
+     */
+    boolean remove(int endorsementID) {
+        int index = Arrays.binarySearch(endorsements, 0, length, endorsementID);
+        if (index < 0 || accounts[index] == REMOVED) return false;
+
+        accounts[index] = REMOVED;
+        removed++;
+        if (removed * 2 > length) compact();
+        return true;
+    }
+
+    /**
+     * Method that returns the number of Endorsements held
+     * @return Returns the int number of Endorsements that have not been deleted
+     */
+    int size() {
+        return length - removed;
+    }
+
+    /**
+     * Method that copies the Endorsements made after a cursor
+     * @param cursor Only Endorsements with a higher ID than this are copied, 0 to start from the first
+     * @param accountIDs The array the Account IDs are copied to, whose length is the most copied
+     * @param endorsementIDs The array the Endorsement IDs are copied to, at least as long as accountIDs
+     * @return Returns the int number of Endorsements copied
+     */
+    int page(int cursor, int[] accountIDs, int[] endorsementIDs) {
+        int index = Arrays.binarySearch(endorsements, 0, length, cursor);
+        index = index < 0 ? -index - 1 : index + 1;
+
+        int count = 0;
+        for (; index < length && count < accountIDs.length; index++) {
+            if (accounts[index] == REMOVED) continue;
+            accountIDs[count] = accounts[index];
+            endorsementIDs[count] = endorsements[index];
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Method that removes the tombstones, moving the remaining Endorsements up in order
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (accounts[i] == REMOVED) continue;
+            accounts[kept] = accounts[i];
+            endorsements[kept] = endorsements[i];
+            kept++;
+        }
+        length = kept;
+        removed = 0;
+    }
+}
@@ -0,0 +1,20 @@
+package socialmedia;
+
+import java.util.List;
+
+/**
+ * The EndorserPage Record.
+ * One page of the Accounts that have endorsed a Post, as returned by {@link SocialMedia#getEndorsers(int, int, int)}
+ * @param handles The handles of the Accounts on the page, in the order they endorsed the Post
+ * @param nextCursor The cursor to pass to get the next page, or 0 if this is the last page
+ */
+public record EndorserPage(List<String> handles, int nextCursor) {
+
+    /**
+     * Method that returns whether there are more pages after this one
+     * @return Returns true if there is a next page
+     */
+    public boolean hasMore() {
+        return nextCursor != 0;
+    }
+}
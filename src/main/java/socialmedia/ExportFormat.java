@@ -0,0 +1,591 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The ExportFormat Enum.
+ * The text formats the platform can be exported to and imported from by {@link PlatformExporter} and {@link PlatformImporter}
+ *
+ * JSON_LINES writes one JSON object per line, with field names that depend on the type of the row.
+ * CSV writes a header line followed by one row per entity, with the columns in {@link #CSV_HEADER};
+ * an empty unquoted field is null and "" is an empty String
+ */
+public enum ExportFormat {
+
+    JSON_LINES(".jsonl") {
+        @Override
+        void writeRow(ExportRow row, Writer out) throws IOException {
+            out.write("{\"type\":\"");
+            out.write(row.type);
+            out.write("\",\"id\":");
+            out.write(Integer.toString(row.id));
+            out.write(",\"handle\":");
+            writeJsonString(row.handle, out);
+
+            switch (row.type) {
+                case ExportRow.ACCOUNT -> {
+                    out.write(",\"description\":");
+                    writeJsonString(row.text, out);
+                    out.write(",\"endorsementsReceived\":");
+                    out.write(Integer.toString(row.endorsements));
+                    out.write(",\"posts\":");
+                    out.write(Integer.toString(row.posts));
+                }
+                case ExportRow.FOLLOW -> {
+                    out.write(",\"follows\":");
+                    out.write(Integer.toString(row.reference));
+                }
+                case ExportRow.COUNTERS -> {
+                    out.write(",\"lastPost\":");
+                    out.write(Integer.toString(row.reference));
+                }
+                case ExportRow.ENDORSEMENT -> {
+                    out.write(",\"endorsed\":");
+                    out.write(Integer.toString(row.reference));
+                    out.write(",\"message\":");
+                    writeJsonString(row.text, out);
+                    out.write(",\"created\":");
+                    out.write(Long.toString(row.created));
+                }
+                default -> {
+                    if (row.type.equals(ExportRow.COMMENT)) {
+                        out.write(",\"parent\":");
+                        out.write(Integer.toString(row.reference));
+                    }
+                    out.write(",\"message\":");
+                    writeJsonString(row.text, out);
+                    out.write(",\"endorsements\":");
+                    out.write(Integer.toString(row.endorsements));
+                    out.write(",\"comments\":");
+                    out.write(Integer.toString(row.comments));
+                    out.write(",\"actionable\":");
+                    out.write(row.actionable ? "true" : "false");
+                    out.write(",\"created\":");
+                    out.write(Long.toString(row.created));
+                }
+            }
+
+            out.write("}\n");
+        }
+
+        @Override
+        boolean readRow(ExportReader in, ExportRow row) throws IOException {
+            return in.readJsonObject(row);
+        }
+    },
+
+    CSV(".csv") {
+        @Override
+        void writeHeader(Writer out) throws IOException {
+            out.write(CSV_HEADER);
+            out.write('\n');
+        }
+
+        @Override
+        void writeRow(ExportRow row, Writer out) throws IOException {
+            out.write(row.type);
+            out.write(',');
+            out.write(Integer.toString(row.id));
+            out.write(',');
+            writeCsvString(row.handle, out);
+            out.write(',');
+            writeCsvString(row.text, out);
+            out.write(',');
+            out.write(Integer.toString(row.reference));
+            out.write(',');
+            out.write(Integer.toString(row.endorsements));
+            out.write(',');
+            out.write(Integer.toString(row.comments));
+            out.write(',');
+            out.write(Integer.toString(row.posts));
+            out.write(',');
+            out.write(row.actionable ? "true" : "false");
+            out.write(',');
+            out.write(Long.toString(row.created));
+            out.write('\n');
+        }
+
+        @Override
+        void readHeader(ExportReader in) throws IOException {
+            in.readCsvHeader();
+        }
+
+        @Override
+        boolean readRow(ExportReader in, ExportRow row) throws IOException {
+            return in.readCsvRow(row);
+        }
+    };
+
+    // Columns of every CSV export, in order. Exports written before posts had a creation time lack the last column
+    static final String CSV_HEADER = "type,id,handle,text,reference,endorsements,comments,posts,actionable,created";
+    static final String UNTIMED_CSV_HEADER = "type,id,handle,text,reference,endorsements,comments,posts,actionable";
+
+    private final String extension;
+
+    /**
+     * Constructor method for ExportFormat
+     * @param extension The file extension used by the format
+     */
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Method that returns the file extension used by the format
+     * @return Returns the String extension, including the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Method that picks the format of a file from its extension
+     * @param filename The name of the file
+     * @return Returns the ExportFormat whose extension the filename ends with
+     * @throws IllegalArgumentException If no format uses the file's extension
+     */
+    public static ExportFormat fromFilename(String filename) {
+        for (ExportFormat format : values()) {
+            if (filename.endsWith(format.extension)) return format;
+        }
+        throw new IllegalArgumentException("No export format for " + filename);
+    }
+
+    /**
+     * Method that writes anything that comes before the first row
+     * @param out The Writer the export is written to
+     * @throws IOException If the header could not be written
+     */
+    void writeHeader(Writer out) throws IOException {
+    }
+
+    /**
+     * Method that writes a single row
+     * @param row The ExportRow to write
+     * @param out The Writer the export is written to
+     * @throws IOException If the row could not be written
+     */
+    abstract void writeRow(ExportRow row, Writer out) throws IOException;
+
+    /**
+     * Method that reads anything that comes before the first row
+     * @param in The ExportReader the import is read from
+     * @throws IOException If the header is missing or malformed
+     */
+    void readHeader(ExportReader in) throws IOException {
+    }
+
+    /**
+     * Method that reads the next row
+     * @param in The ExportReader the import is read from
+     * @param row The ExportRow that is filled in
+     * @return Returns true if a row was read, false at the end of the input
+     * @throws IOException If the row is malformed
+     */
+    abstract boolean readRow(ExportReader in, ExportRow row) throws IOException;
+
+    /**
+     * Method that writes a String as a quoted JSON string, or null
+     * @param value The String to write, or null
+     * @param out The Writer it is written to
+     * @throws IOException If the String could not be written
+     */
+    private static void writeJsonString(String value, Writer out) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Method that writes a String as a CSV field, quoting it when it holds a separator, quote or line break.
+     * Empty Strings are always quoted so they can be told apart from null
+     * @param value The String to write, or null
+     * @param out The Writer it is written to
+     * @throws IOException If the String could not be written
+     */
+    private static void writeCsvString(String value, Writer out) throws IOException {
+        if (value == null) return;
+
+        boolean quoted = value.isEmpty();
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quoted) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') out.write('"');
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    /**
+     * The ExportReader Class. Reads rows from an export a character at a time, so memory use does not
+     * depend on the size of the file
+     */
+    static final class ExportReader {
+
+        private final Reader in;
+        private final StringBuilder token = new StringBuilder();
+        private final String[] fields = new String[10];
+        private int columns = 10;
+        private int next;
+        private long line = 1;
+
+        /**
+         * Constructor method for ExportReader
+         * @param in The Reader the export is read from, which should be buffered
+         * @throws IOException If the first character could not be read
+         */
+        ExportReader(Reader in) throws IOException {
+            this.in = in;
+            this.next = in.read();
+        }
+
+        /**
+         * Method that returns the line the reader has reached, used in error messages
+         * @return Returns the long line number, starting at 1
+         */
+        long getLine() {
+            return line;
+        }
+
+        /**
+         * Method that moves on to the next character
+         * @return Returns the character that was current
+         * @throws IOException If the input could not be read
+         */
+        private int advance() throws IOException {
+            int current = next;
+            if (current == '\n') line++;
+            next = in.read();
+            return current;
+        }
+
+        /**
+         * Method that builds the exception thrown for malformed input
+         * @param message What was wrong
+         * @return Returns the IOException, including the line number
+         */
+        private IOException malformed(String message) {
+            return new IOException("Line " + line + ": " + message);
+        }
+
+        // JSON lines
+
+        /**
+         * Method that reads one JSON object into a row
+         * @param row The ExportRow that is filled in
+         * @return Returns true if an object was read, false at the end of the input
+         * @throws IOException If the object is malformed or has an unknown type
+         */
+        boolean readJsonObject(ExportRow row) throws IOException {
+            skipWhitespace();
+            if (next < 0) return false;
+
+            row.clear();
+            if (advance() != '{') throw malformed("Expected '{'");
+
+            skipWhitespace();
+            if (next == '}') {
+                advance();
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    String key = readJsonString();
+                    skipWhitespace();
+                    if (advance() != ':') throw malformed("Expected ':' after " + key);
+                    skipWhitespace();
+                    setField(row, key, readJsonValue());
+                    skipWhitespace();
+
+                    int c = advance();
+                    if (c == '}') break;
+                    if (c != ',') throw malformed("Expected ',' or '}'");
+                }
+            }
+
+            if (row.type == null) throw malformed("Row has no type");
+            return true;
+        }
+
+        /**
+         * Method that skips spaces and line breaks between JSON tokens
+         * @throws IOException If the input could not be read
+         */
+        private void skipWhitespace() throws IOException {
+            while (next == ' ' || next == '\n' || next == '\r' || next == '\t') advance();
+        }
+
+        /**
+         * Method that reads a JSON value, which must be a string, number, boolean or null
+         * @return Returns the value as a String, or null
+         * @throws IOException If the value is malformed
+         */
+        private String readJsonValue() throws IOException {
+            if (next == '"') return readJsonString();
+
+            token.setLength(0);
+            while (next >= 0 && next != ',' && next != '}' && next != ' ' && next != '\n' && next != '\r' && next != '\t') {
+                token.append((char) advance());
+            }
+            if (token.length() == 0) throw malformed("Expected a value");
+
+            String value = token.toString();
+            return value.equals("null") ? null : value;
+        }
+
+        /**
+         * Method that reads a quoted JSON string, unescaping it
+         * @return Returns the String
+         * @throws IOException If the string is malformed
+         */
+        private String readJsonString() throws IOException {
+            if (advance() != '"') throw malformed("Expected '\"'");
+
+            token.setLength(0);
+            while (true) {
+                int c = advance();
+                if (c < 0 || c == '\n') throw malformed("Unterminated string");
+                if (c == '"') break;
+
+                if (c == '\\') {
+                    int escaped = advance();
+                    switch (escaped) {
+                        case '"', '\\', '/' -> token.append((char) escaped);
+                        case 'n' -> token.append('\n');
+                        case 'r' -> token.append('\r');
+                        case 't' -> token.append('\t');
+                        case 'b' -> token.append('\b');
+                        case 'f' -> token.append('\f');
+                        case 'u' -> {
+                            int code = 0;
+                            for (int i = 0; i < 4; i++) {
+                                int digit = Character.digit(advance(), 16);
+                                if (digit < 0) throw malformed("Invalid unicode escape");
+                                code = code * 16 + digit;
+                            }
+                            token.append((char) code);
+                        }
+                        default -> throw malformed("Invalid escape");
+                    }
+                } else {
+                    token.append((char) c);
+                }
+            }
+            return token.toString();
+        }
+
+        /**
+         * Method that sets the field of a row named by a JSON key. Unknown keys are ignored
+         * @param row The ExportRow being filled in
+         * @param key The JSON key
+         * @param value The value, or null
+         * @throws IOException If a number or boolean is malformed
+         */
+        private void setField(ExportRow row, String key, String value) throws IOException {
+            switch (key) {
+                case "type" -> row.type = readType(value);
+                case "id" -> row.id = readInt(value);
+                case "handle" -> row.handle = value;
+                case "description", "message" -> row.text = value;
+                case "parent", "endorsed", "follows", "lastPost" -> row.reference = readInt(value);
+                case "endorsements", "endorsementsReceived" -> row.endorsements = readInt(value);
+                case "comments" -> row.comments = readInt(value);
+                case "posts" -> row.posts = readInt(value);
+                case "actionable" -> row.actionable = readBoolean(value);
+                case "created" -> row.created = readLong(value);
+                default -> {
+                    // Extra fields added by other tools are allowed
+                }
+            }
+        }
+
+        // CSV
+
+        /**
+         * Method that reads the CSV header line and checks it has the expected columns
+         * @throws IOException If the header is missing or different
+         */
+        void readCsvHeader() throws IOException {
+            int count = readCsvRecord();
+            if (count < 0) return;
+
+            String header = String.join(",", Arrays.copyOf(fields, count));
+            if (header.equals(UNTIMED_CSV_HEADER)) columns = 9;
+            else if (!header.equals(CSV_HEADER)) throw malformed("Expected CSV header " + CSV_HEADER);
+        }
+
+        /**
+         * Method that reads one CSV row into a row
+         * @param row The ExportRow that is filled in
+         * @return Returns true if a row was read, false at the end of the input
+         * @throws IOException If the row is malformed
+         */
+        boolean readCsvRow(ExportRow row) throws IOException {
+            int count = readCsvRecord();
+            if (count < 0) return false;
+            if (count != columns) throw malformed("Expected " + columns + " columns but found " + count);
+
+            row.clear();
+            row.type = readType(fields[0]);
+            row.id = readInt(fields[1]);
+            row.handle = fields[2];
+            row.text = fields[3];
+            row.reference = readInt(fields[4]);
+            row.endorsements = readInt(fields[5]);
+            row.comments = readInt(fields[6]);
+            row.posts = readInt(fields[7]);
+            row.actionable = readBoolean(fields[8]);
+            if (columns > 9) row.created = readLong(fields[9]);
+            return true;
+        }
+
+        /**
+         * Method that reads the fields of one CSV record, which may span several lines if a field is quoted.
+         * Blank lines are skipped
+         * @return Returns the int number of fields read, or -1 at the end of the input
+         * @throws IOException If there are too many fields or a quote is not closed
+         */
+        private int readCsvRecord() throws IOException {
+            while (next == '\n' || next == '\r') advance();
+            if (next < 0) return -1;
+
+            int count = 0;
+            while (true) {
+                if (count == fields.length) throw malformed("Too many columns");
+                fields[count++] = readCsvField();
+
+                if (next == ',') {
+                    advance();
+                    continue;
+                }
+                if (next == '\r') advance();
+                if (next == '\n') advance();
+                return count;
+            }
+        }
+
+        /**
+         * Method that reads a single CSV field
+         * @return Returns the String field, or null if it is empty and unquoted
+         * @throws IOException If a quoted field is not closed
+         */
+        private String readCsvField() throws IOException {
+            token.setLength(0);
+
+            if (next != '"') {
+                while (next >= 0 && next != ',' && next != '\n' && next != '\r') token.append((char) advance());
+                return token.length() == 0 ? null : token.toString();
+            }
+
+            advance();
+            while (true) {
+                int c = advance();
+                if (c < 0) throw malformed("Unterminated quoted field");
+                if (c == '"') {
+                    if (next != '"') break;
+                    advance(); // A doubled quote is a quote inside the field
+                }
+                token.append((char) c);
+            }
+
+            if (next >= 0 && next != ',' && next != '\n' && next != '\r') throw malformed("Unexpected character after quoted field");
+            return token.toString();
+        }
+
+        // Shared
+
+        /**
+         * Method that checks a row type is one of the known types
+         * @param value The type read from the row
+         * @return Returns the matching type constant from {@link ExportRow}
+         * @throws IOException If the type is unknown
+         */
+        private String readType(String value) throws IOException {
+            if (value == null) throw malformed("Row has no type");
+            return switch (value) {
+                case ExportRow.ACCOUNT -> ExportRow.ACCOUNT;
+                case ExportRow.ORIGINAL -> ExportRow.ORIGINAL;
+                case ExportRow.COMMENT -> ExportRow.COMMENT;
+                case ExportRow.ENDORSEMENT -> ExportRow.ENDORSEMENT;
+                case ExportRow.FOLLOW -> ExportRow.FOLLOW;
+                case ExportRow.COUNTERS -> ExportRow.COUNTERS;
+                default -> throw malformed("Unknown row type " + value);
+            };
+        }
+
+        /**
+         * Method that parses an int field
+         * @param value The field, or null for 0
+         * @return Returns the int value
+         * @throws IOException If the field is not a number
+         */
+        private int readInt(String value) throws IOException {
+            if (value == null) return 0;
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw malformed("Expected a number but found " + value);
+            }
+        }
+
+        /**
+         * Method that parses a long field
+         * @param value The field, or null for 0
+         * @return Returns the long value
+         * @throws IOException If the field is not a number
+         */
+        private long readLong(String value) throws IOException {
+            if (value == null) return 0;
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw malformed("Expected a number but found " + value);
+            }
+        }
+
+        /**
+         * Method that parses a boolean field
+         * @param value The field, or null for false
+         * @return Returns the boolean value
+         * @throws IOException If the field is not true or false
+         */
+        private boolean readBoolean(String value) throws IOException {
+            if (value == null || value.equals("false")) return false;
+            if (value.equals("true")) return true;
+            throw malformed("Expected true or false but found " + value);
+        }
+    }
+}
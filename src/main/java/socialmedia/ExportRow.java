@@ -0,0 +1,138 @@
+package socialmedia;
+
+/**
+ * The ExportRow Class.
+ * A single Account, Original, Comment or Endorsement as a flat row, used by {@link PlatformExporter}
+ * and {@link PlatformImporter}. One instance is reused for every row so exporting allocates very little
+ *
+ * Which fields are used depends on the type:
+ * an account has handle, text (description), endorsements (received) and posts;
+ * an original has handle, text (message), endorsements, comments and actionable;
+ * a comment is the same as an original, with reference holding the ID of the post it replies to;
+ * an endorsement has handle, text (message) and reference holding the ID of the endorsed post (0 if deleted);
+ * a follow has id and handle of the following account, and reference holding the ID of the followed account;
+ * the counters row has id holding the ID the next account will be given, and reference holding the ID given to
+ * the most recent post, so IDs of removed accounts and deleted posts are not given out again after importing.
+ * Every type of post also has created, the time it was made in milliseconds since the epoch (0 if not known)
+ */
+class ExportRow {
+
+    static final String ACCOUNT = "account";
+    static final String ORIGINAL = "original";
+    static final String COMMENT = "comment";
+    static final String ENDORSEMENT = "endorsement";
+    static final String FOLLOW = "follow";
+    static final String COUNTERS = "counters";
+
+    String type;
+    int id;
+    String handle;
+    String text;
+    int reference;
+    int endorsements;
+    int comments;
+    int posts;
+    boolean actionable;
+    long created;
+
+    /**
+     * Method that resets every field, ready for the next row
+     */
+    void clear() {
+        type = null;
+        id = 0;
+        handle = null;
+        text = null;
+        reference = 0;
+        endorsements = 0;
+        comments = 0;
+        posts = 0;
+        actionable = false;
+        created = 0;
+    }
+
+    /**
+     * Method that fills the row from an Account
+     * @param account The Account to export
+     */
+    void set(Account account) {
+        clear();
+        type = ACCOUNT;
+        id = account.getNUMERICAL_IDENTIFIER();
+        handle = account.getHandle();
+        text = account.getDescription();
+        endorsements = account.getTotalEndorsementsReceived();
+        posts = account.getTotalPosts();
+    }
+
+    /**
+     * Method that fills the row from one of the Accounts an Account follows
+     * @param account The Account that follows
+     * @param followedID The int NUMERICAL_IDENTIFIER of the followed Account
+     */
+    void setFollow(Account account, int followedID) {
+        clear();
+        type = FOLLOW;
+        id = account.getNUMERICAL_IDENTIFIER();
+        handle = account.getHandle();
+        reference = followedID;
+    }
+
+    /**
+     * Method that fills the row from the counters that give out Account and Post IDs
+     */
+    void setCounters() {
+        clear();
+        type = COUNTERS;
+        id = Account.getNumberOfAccounts();
+        reference = Post.getUniqueID();
+    }
+
+    /**
+     * Method that fills the row from a Post of any type
+     * @param post The Original, Comment or Endorsement to export
+     */
+    void set(Post post) {
+        clear();
+        id = post.getID();
+        handle = post.getHandle();
+        actionable = post.isActionable();
+        created = post.getTimestamp();
+
+        if (post instanceof Original original) {
+            type = ORIGINAL;
+            text = original.getMessage();
+            endorsements = original.getNumberOfEndorsements();
+            comments = original.getNumberOfComments();
+        } else if (post instanceof Comment comment) {
+            type = COMMENT;
+            text = comment.getMessage();
+            reference = comment.getParentPost().getID();
+            endorsements = comment.getNumberOfEndorsements();
+            comments = comment.getNumberOfComments();
+        } else if (post instanceof Endorsement endorsement) {
+            type = ENDORSEMENT;
+            text = endorsement.getMessage();
+            reference = endorsement.getEndorsedPost() == null ? 0 : endorsement.getEndorsedPost().getID();
+        }
+    }
+
+    /**
+     * Method that copies another row into this one
+     * @param other The ExportRow to copy
+     * @return Returns this ExportRow
+     */
+    ExportRow copyOf(ExportRow other) {
+        type = other.type;
+        id = other.id;
+        handle = other.handle;
+        text = other.text;
+        reference = other.reference;
+        endorsements = other.endorsements;
+        comments = other.comments;
+        posts = other.posts;
+        actionable = other.actionable;
+        created = other.created;
+        return this;
+    }
+}
@@ -0,0 +1,248 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The HashtagIndex Class.
+ * The #tags used in the messages of Originals and Comments, with the Posts using each one and how often each has
+ * been used recently, used by {@link SocialMedia#getTrendingTags(java.time.Duration, int)}
+ *
+ * Tags are extracted once, when a Post is added. Each use is counted in the bucket of the minute and of the hour
+ * the Post was made in, from {@link Post#getTimestamp()}; the last {@link #MINUTE_BUCKETS} minute buckets and
+ * {@link #HOUR_BUCKETS} hour buckets are kept in rings, a bucket being reused once its time has passed. Trending tags
+ * are found by adding up the counts of the buckets covering the window, so the cost depends on the number of tags
+ * used in the window and not the number of Posts. Posts whose creation time is not known are indexed but not counted.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+class HashtagIndex {
+
+    static final long MINUTE = 60_000L;
+    static final long HOUR = 60 * MINUTE;
+    static final int MINUTE_BUCKETS = 60;
+    static final int HOUR_BUCKETS = 7 * 24;
+
+    // The IDs of the Posts using each tag, and the tags of every tagged Post
+    private final HashMap<String, IntList> posts = new HashMap<>();
+    private final HashMap<Integer, String[]> tagged = new HashMap<>();
+
+    private final Bucket[] minutes = new Bucket[MINUTE_BUCKETS];
+    private final Bucket[] hours = new Bucket[HOUR_BUCKETS];
+
+    // Reused while extracting tags
+    private final ArrayList<String> tags = new ArrayList<>();
+
+    /**
+     * Constructor method for HashtagIndex, which indexes every Original and Comment already in the Platform
+     * @param platform The Platform whose Posts are indexed
+     */
+    HashtagIndex(Platform platform) {
+        for (Original original : platform.getOriginals().values()) postAdded(original);
+        for (Comment comment : platform.getComments().values()) postAdded(comment);
+    }
+
+    /**
+     * Method that indexes the tags of a new Post and counts them at the time it was made
+     * @param post The Original or Comment that has just been added to the Platform
+     */
+    void postAdded(Post post) {
+        if (post.getHandle() == null) return;
+
+        extract(post instanceof Original original ? original.getMessage() : ((Comment) post).getMessage(), tags);
+        if (tags.isEmpty()) return;
+
+        String[] postTags = tags.toArray(new String[0]);
+        tagged.put(post.getID(), postTags);
+
+        for (String tag : postTags) {
+            posts.computeIfAbsent(tag, t -> new IntList()).add(post.getID());
+            if (post.getTimestamp() != 0) count(tag, post.getTimestamp(), 1);
+        }
+    }
+
+    /**
+     * Method that removes a deleted Post from the index, and from the counts if its buckets are still kept
+     * @param post The Original or Comment that has been deleted
+     */
+    void remove(Post post) {
+        String[] removed = tagged.remove(post.getID());
+        if (removed == null) return;
+
+        for (String tag : removed) {
+            IntList ids = posts.get(tag);
+            ids.remove(post.getID());
+            if (ids.isEmpty()) posts.remove(tag);
+
+            if (post.getTimestamp() != 0) count(tag, post.getTimestamp(), -1);
+        }
+    }
+
+    /**
+     * Method that returns the latest Posts using a tag
+     * @param tag The tag, with or without its #, in any case
+     * @param limit The most Post IDs returned
+     * @return Returns an int array of Post IDs, newest first
+     */
+    int[] getPosts(String tag, int limit) {
+        IntList ids = posts.get(normalise(tag));
+        if (ids == null) return new int[0];
+
+        int[] latest = new int[Math.max(0, Math.min(limit, ids.size()))];
+        for (int i = 0; i < latest.length; i++) latest[i] = ids.get(ids.size() - 1 - i);
+        return latest;
+    }
+
+    /**
+     * Method that returns the tags used most in a window of time ending now.
+     * Windows of up to an hour are counted by the minute, including the current minute; longer windows are
+     * counted by the hour, including the current hour, and are at most {@link #HOUR_BUCKETS} hours long
+     * @param now The long current time in milliseconds since the epoch
+     * @param window The long length of the window in milliseconds
+     * @param k The most tags returned
+     * @return Returns an ArrayList of TagCounts, most used first and in alphabetical order among equals
+     */
+    ArrayList<TagCount> getTrending(long now, long window, int k) {
+        HashMap<String, Integer> totals = new HashMap<>();
+
+        if (window <= HOUR) {
+            addBuckets(minutes, Math.floorDiv(now, MINUTE), (int) Math.max(1, ceilDiv(window, MINUTE)), totals);
+        } else {
+            addBuckets(hours, Math.floorDiv(now, HOUR), (int) Math.min(HOUR_BUCKETS, ceilDiv(window, HOUR)), totals);
+        }
+
+        // The k most used tags are kept in a heap with the least used of them on top
+        PriorityQueue<TagCount> best = new PriorityQueue<>((a, b) -> a.count() != b.count()
+                ? Integer.compare(a.count(), b.count()) : b.tag().compareTo(a.tag()));
+
+        for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+            if (entry.getValue() <= 0 || k <= 0) continue;
+            best.add(new TagCount(entry.getKey(), entry.getValue()));
+            if (best.size() > k) best.poll();
+        }
+
+        ArrayList<TagCount> trending = new ArrayList<>(best.size());
+        while (!best.isEmpty()) trending.add(best.poll());
+        Collections.reverse(trending);
+        return trending;
+    }
+
+    /**
+     * Method that adds the counts of the latest buckets of a ring to a map of totals
+     * @param ring The ring of Buckets
+     * @param current The long number of the current bucket
+     * @param count The number of buckets added, ending with the current one
+     * @param totals The HashMap the counts are added to
+     */
+    private static void addBuckets(Bucket[] ring, long current, int count, HashMap<String, Integer> totals) {
+        for (long number = current - Math.min(count, ring.length) + 1; number <= current; number++) {
+            Bucket bucket = ring[(int) Math.floorMod(number, (long) ring.length)];
+            if (bucket == null || bucket.number != number) continue;
+            for (Map.Entry<String, Integer> entry : bucket.counts.entrySet()) totals.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+    }
+
+    /**
+     * Method that changes the count of a tag in the minute and hour buckets of a time
+     * @param tag The tag
+     * @param time The long time in milliseconds since the epoch
+     * @param delta 1 when the tag is used, -1 when a Post using it is deleted
+     */
+    private void count(String tag, long time, int delta) {
+        count(minutes, Math.floorDiv(time, MINUTE), tag, delta);
+        count(hours, Math.floorDiv(time, HOUR), tag, delta);
+    }
+
+    /**
+     * Method that changes the count of a tag in one bucket of a ring, reusing the bucket if its time has passed.
+     * Removals from a bucket that is no longer kept are ignored
+     * @param ring The ring of Buckets
+     * @param number The long number of the bucket
+     * @param tag The tag
+     * @param delta The change in the count
+     */
+    private static void count(Bucket[] ring, long number, String tag, int delta) {
+        int slot = (int) Math.floorMod(number, (long) ring.length);
+        Bucket bucket = ring[slot];
+
+        if (bucket == null || bucket.number != number) {
+            if (delta < 0 || (bucket != null && bucket.number > number)) return;
+            bucket = new Bucket(number);
+            ring[slot] = bucket;
+        }
+
+        int total = bucket.counts.getOrDefault(tag, 0) + delta;
+        if (total <= 0) bucket.counts.remove(tag);
+        else bucket.counts.put(tag, total);
+    }
+
+    /**
+     * Method that extracts the distinct tags of a message: a # at the start or after a character that is not part
+     * of a word, followed by letters, digits or underscores
+     * @param message The String message
+     * @param tags The ArrayList the lower case tags are written to without their #, emptied first
+     */
+    static void extract(String message, ArrayList<String> tags) {
+        tags.clear();
+        if (message == null) return;
+
+        for (int i = message.indexOf('#'); i >= 0; i = message.indexOf('#', i + 1)) {
+            if (i > 0 && isTagCharacter(message.charAt(i - 1))) continue;
+
+            int end = i + 1;
+            while (end < message.length() && isTagCharacter(message.charAt(end))) end++;
+            if (end == i + 1) continue;
+
+            String tag = message.substring(i + 1, end).toLowerCase();
+            if (!tags.contains(tag)) tags.add(tag);
+        }
+    }
+
+    /**
+     * Method that returns a tag as it is held in the index
+     * @param tag The tag, with or without its #, in any case
+     * @return Returns the lower case tag without its #
+     */
+    private static String normalise(String tag) {
+        return (tag.startsWith("#") ? tag.substring(1) : tag).toLowerCase();
+    }
+
+    /**
+     * Method that returns whether a character can be part of a tag
+     * @param c The char
+     * @return Returns true for letters, digits and underscores
+     */
+    private static boolean isTagCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * Method that divides two positive longs, rounding up
+     * @param value The long dividend
+     * @param divisor The long divisor
+     * @return Returns the long quotient rounded up
+     */
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    /**
+     * The Bucket Class.
+     * The number of uses of each tag in one minute or hour
+     */
+    private static final class Bucket {
+
+        private final long number;
+        private final HashMap<String, Integer> counts = new HashMap<>();
+
+        /**
+         * Constructor method for Bucket
+         * @param number The long number of the minute or hour since the epoch
+         */
+        private Bucket(long number) {
+            this.number = number;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The InfluenceRank Class.
+ * An influence score for every Account, computed by PageRank over the {@link InteractionGraph}, used by
+ * {@link SocialMedia#computeInfluence()} and {@link SocialMedia#getMostInfluentialAccounts(int)}
+ *
+ * Each Account passes on its score along the edges it starts, in proportion to their weight, so an Account is
+ * influential when Accounts that are themselves influential comment on and endorse its Posts, rather than when it
+ * has simply received many Endorsements. With probability {@link #DAMPING} the score follows an edge; otherwise,
+ * and always for Accounts that have not interacted with anyone, it is spread evenly over every Account.
+ * Scores are found by power iteration on primitive arrays: each round first works out what every Account passes
+ * on along each unit of weight, then pulls the new score of every Account from the edges ending at it, so no two
+ * tasks write to the same entry and each round is split over the cores with fork-join. Iteration starts from the
+ * previous scores when there are some, so after a few changes to the graph it takes only a few rounds.
+ * A computed InfluenceRank is never changed
+ */
+class InfluenceRank {
+
+    static final double DAMPING = 0.85;
+    static final double TOLERANCE = 1e-9;
+    static final int MAX_ITERATIONS = 100;
+
+    // Accounts per task below which a round is not split any further
+    private static final int SPLIT = 4096;
+
+    // Scores by NUMERICAL_IDENTIFIER, adding up to 1 over the Accounts ranked
+    private final double[] scores;
+    private final int iterations;
+
+    /**
+     * Constructor method for InfluenceRank
+     * @param scores The double array of scores by NUMERICAL_IDENTIFIER
+     * @param iterations The number of rounds taken to compute them
+     */
+    private InfluenceRank(double[] scores, int iterations) {
+        this.scores = scores;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Method that computes the scores of a graph. Does not need the {@link SocialMedia} lock
+     * @param rows The Rows of the InteractionGraph
+     * @param accounts The boolean array of which NUMERICAL_IDENTIFIERs belong to an Account, at least as long as
+     *                 the graph covers
+     * @param previous The InfluenceRank last computed, to start from, or null to start from even scores
+     * @return Returns the new InfluenceRank
+     */
+    static InfluenceRank compute(InteractionGraph.Rows rows, boolean[] accounts, InfluenceRank previous) {
+        int nodes = accounts.length;
+        int count = 0;
+        for (boolean account : accounts) if (account) count++;
+        if (count == 0) return new InfluenceRank(new double[nodes], 0);
+
+        // Accounts keep their previous score, new Accounts start from an even share, and the total is brought back to 1
+        double[] scores = new double[nodes];
+        double total = 0;
+        for (int i = 0; i < nodes; i++) {
+            if (!accounts[i]) continue;
+            boolean known = previous != null && i < previous.scores.length && previous.scores[i] > 0;
+            scores[i] = known ? previous.scores[i] : 1.0 / count;
+            total += scores[i];
+        }
+        for (int i = 0; i < nodes; i++) scores[i] /= total;
+
+        double[] next = new double[nodes];
+        double[] shares = new double[nodes];
+        Round round = new Round(rows, accounts, count);
+
+        int iterations = 0;
+        while (iterations < MAX_ITERATIONS) {
+            iterations++;
+            double change = round.run(scores, shares, next);
+
+            double[] swap = scores;
+            scores = next;
+            next = swap;
+            if (change < TOLERANCE) break;
+        }
+        return new InfluenceRank(scores, iterations);
+    }
+
+    /**
+     * Method that returns the score of an Account
+     * @param id The int NUMERICAL_IDENTIFIER of the Account
+     * @return Returns the double score, 0 if the Account was not ranked
+     */
+    double getScore(int id) {
+        return id >= 0 && id < scores.length ? scores[id] : 0;
+    }
+
+    /**
+     * Method that returns the number of rounds it took to compute the scores
+     * @return Returns the int number of rounds
+     */
+    int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Method that returns the Accounts with the highest scores
+     * @param k The most NUMERICAL_IDENTIFIERs returned
+     * @param accounts The boolean array of which NUMERICAL_IDENTIFIERs still belong to an Account
+     * @return Returns an ArrayList of NUMERICAL_IDENTIFIERs, highest score first and lowest identifier among equals
+     */
+    ArrayList<Integer> getTop(int k, boolean[] accounts) {
+
+        // The k best Accounts are kept in a heap with the worst of them on top
+        PriorityQueue<Integer> best = new PriorityQueue<>((a, b) -> scores[a] != scores[b]
+                ? Double.compare(scores[a], scores[b]) : Integer.compare(b, a));
+
+        for (int id = 0; id < Math.min(scores.length, accounts.length) && k > 0; id++) {
+            if (!accounts[id] || scores[id] <= 0) continue;
+            best.add(id);
+            if (best.size() > k) best.poll();
+        }
+
+        ArrayList<Integer> top = new ArrayList<>(best.size());
+        while (!best.isEmpty()) top.add(best.poll());
+        Collections.reverse(top);
+        return top;
+    }
+
+    /**
+     * The Round Class.
+     * One round of power iteration over a graph, split over the common fork-join pool
+     */
+    private static final class Round {
+
+        private final InteractionGraph.Rows rows;
+        private final boolean[] accounts;
+        private final int count;
+
+        /**
+         * Constructor method for Round
+         * @param rows The Rows of the InteractionGraph
+         * @param accounts The boolean array of which NUMERICAL_IDENTIFIERs belong to an Account
+         * @param count The number of Accounts
+         */
+        private Round(InteractionGraph.Rows rows, boolean[] accounts, int count) {
+            this.rows = rows;
+            this.accounts = accounts;
+            this.count = count;
+        }
+
+        /**
+         * Method that computes the next scores from the current ones
+         * @param scores The double array of current scores
+         * @param shares The double array written with what each Account passes on per unit of weight
+         * @param next The double array written with the next scores
+         * @return Returns the double total change in score over every Account
+         */
+        private double run(double[] scores, double[] shares, double[] next) {
+            ForkJoinPool pool = ForkJoinPool.commonPool();
+
+            // The score of Accounts without edges is spread evenly, along with the share that does not follow an edge
+            double unlinked = pool.invoke(new Task(this, scores, shares, null, 0, scores.length));
+            double base = (1 - DAMPING) / count + DAMPING * unlinked / count;
+
+            return pool.invoke(new Task(this, scores, shares, next, 0, scores.length, base));
+        }
+    }
+
+    /**
+     * The Task Class.
+     * One pass of a round over a range of Accounts, split in half until the range is small enough. Without a next
+     * array it works out the shares and returns the score of Accounts without edges; with one it pulls the next
+     * scores and returns the change
+     */
+    private static final class Task extends RecursiveTask<Double> {
+
+        private final Round round;
+        private final double[] scores;
+        private final double[] shares;
+        private final double[] next;
+        private final int from;
+        private final int to;
+        private final double base;
+
+        /**
+         * Constructor method for Task working out shares
+         * @param round The Round the Task belongs to
+         * @param scores The double array of current scores
+         * @param shares The double array of shares
+         * @param next Null
+         * @param from The first NUMERICAL_IDENTIFIER of the range
+         * @param to The NUMERICAL_IDENTIFIER after the last of the range
+         */
+        private Task(Round round, double[] scores, double[] shares, double[] next, int from, int to) {
+            this(round, scores, shares, next, from, to, 0);
+        }
+
+        /**
+         * Constructor method for Task
+         * @param round The Round the Task belongs to
+         * @param scores The double array of current scores
+         * @param shares The double array of shares
+         * @param next The double array of next scores, or null to work out shares
+         * @param from The first NUMERICAL_IDENTIFIER of the range
+         * @param to The NUMERICAL_IDENTIFIER after the last of the range
+         * @param base The double score every Account receives without following an edge
+         */
+        private Task(Round round, double[] scores, double[] shares, double[] next, int from, int to, double base) {
+            this.round = round;
+            this.scores = scores;
+            this.shares = shares;
+            this.next = next;
+            this.from = from;
+            this.to = to;
+            this.base = base;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from > SPLIT) {
+                int middle = (from + to) >>> 1;
+                Task left = new Task(round, scores, shares, next, from, middle, base);
+                Task right = new Task(round, scores, shares, next, middle, to, base);
+                left.fork();
+                double rightResult = right.compute();
+                return left.join() + rightResult;
+            }
+            return next == null ? share() : pull();
+        }
+
+        /**
+         * Method that works out what each Account in the range passes on per unit of weight
+         * @return Returns the double total score of the Accounts in the range without edges
+         */
+        private double share() {
+            InteractionGraph.Rows rows = round.rows;
+            double unlinked = 0;
+            for (int i = from; i < to; i++) {
+                int degree = i < rows.nodes ? rows.outDegrees[i] : 0;
+                if (degree > 0) {
+                    shares[i] = scores[i] / degree;
+                } else {
+                    shares[i] = 0;
+                    if (round.accounts[i]) unlinked += scores[i];
+                }
+            }
+            return unlinked;
+        }
+
+        /**
+         * Method that pulls the next score of each Account in the range from the edges ending at it
+         * @return Returns the double total change in score of the Accounts in the range
+         */
+        private double pull() {
+            InteractionGraph.Rows rows = round.rows;
+            double change = 0;
+            for (int i = from; i < to; i++) {
+                if (!round.accounts[i]) {
+                    next[i] = 0;
+                    continue;
+                }
+
+                double received = 0;
+                if (i < rows.nodes) {
+                    for (int j = rows.offsets[i]; j < rows.offsets[i + 1]; j++) {
+                        received += shares[rows.sources[j]] * rows.weights[j];
+                    }
+                }
+                next[i] = base + DAMPING * received;
+                change += Math.abs(next[i] - scores[i]);
+            }
+            return change;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package socialmedia;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The IntList Class.
+ * A sorted set of ints held in a single growable array, used wherever a set of Account or Post IDs is kept:
+ * the Accounts an Account follows and is followed by, the Posts of an Account in its {@link PostIndex}, the
+ * Posts under a hashtag in the {@link HashtagIndex}, the Accounts with many followers in the
+ * {@link TimelineService} and the buckets of the {@link AccountRecommender}
+ *
+ * Each value takes 4 bytes, against the boxed Integer and hash entry of a HashSet, and lookups are a binary search.
+ * Adding or removing a value moves the values after it, which is cheap for the sizes involved
+ */
+public final class IntList implements Serializable {
+
+    private static final int[] EMPTY = new int[0];
+
+    private int[] values = EMPTY;
+    private int size = 0;
+
+    /**
+     * Method that builds an IntList from values in any order, sorting them once rather than inserting each in turn
+     * @param values The int array of values, which is sorted and kept by the new IntList
+     * @param count The number of values used from the start of the array
+     * @return Returns the new IntList, holding each value once
+     */
+    static IntList ofUnsorted(int[] values, int count) {
+        Arrays.sort(values, 0, count);
+
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || values[i] != values[size - 1]) values[size++] = values[i];
+        }
+
+        IntList list = new IntList();
+        list.values = size == 0 ? EMPTY : values;
+        list.size = size;
+        return list;
+    }
+
+    /**
+     * Method that adds a value, keeping the values in order
+     * @param value The int to add
+     * @return Returns true if the value was added, false if it was already held
+     */
+    boolean add(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) return false;
+
+        index = -index - 1;
+        if (size == values.length) values = Arrays.copyOf(values, Math.max(4, size * 2));
+
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Method that removes a value
+     * @param value The int to remove
+     * @return Returns true if the value was removed, false if it was not held
+     */
+    boolean remove(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) return false;
+
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    /**
+     * Method that removes every value
+     */
+    void clear() {
+        values = EMPTY;
+        size = 0;
+    }
+
+    /**
+     * Method that returns whether a value is held
+     * @param value The int to look for
+     * @return Returns true if the value is held
+     */
+    public boolean contains(int value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * Method that returns the position of the first value that is not less than a given value
+     * @param value The int to look for
+     * @return Returns the int position, which is {@link #size()} if every value is less than it
+     */
+    public int lowerBound(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Method that returns the value at a position
+     * @param index The position, from 0 to {@link #size()} - 1
+     * @return Returns the int value, the values being in ascending order
+     * @throws IndexOutOfBoundsException If the position is out of range
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return values[index];
+    }
+
+    /**
+     * Method that returns the number of values held
+     * @return Returns the int size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method that returns whether no values are held
+     * @return Returns true if the list is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Method that copies the values into a new array
+     * @return Returns an int array of the values in ascending order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,11 @@
+package socialmedia;
+
+/**
+ * The Interaction Record.
+ * An account another account has commented on or endorsed, or been commented on or endorsed by, as returned by
+ * {@link SocialMedia#getInteractions(String, boolean)}
+ * @param handle The String handle of the other account
+ * @param weight The number of live comments and endorsements between the two accounts in that direction
+ */
+public record Interaction(String handle, int weight) {
+}
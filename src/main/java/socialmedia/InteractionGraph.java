@@ -0,0 +1,348 @@
+package socialmedia;
+
+import java.util.Arrays;
+
+/**
+ * The InteractionGraph Class.
+ * Who comments on and endorses whom: an edge runs from an Account to each Account whose Posts it has replied to or
+ * endorsed, weighted by the number of live Comments and Endorsements, used by
+ * {@link SocialMedia#getInteractions(String, boolean)} and {@link SocialMedia#getInteractionCount(String, boolean)}
+ *
+ * Accounts are numbered by their NUMERICAL_IDENTIFIER. The edges are held in compressed sparse row form, once by
+ * the Account they start from and once by the Account they end at, each row sorted by the Account at its other end,
+ * so the edges of an Account are one contiguous range of primitive arrays. Changes are not written into the rows
+ * but appended to a delta of weight changes, chained per Account in both directions; once the delta grows past
+ * {@link #MIN_DELTA} changes and an eighth of the compacted edges it is merged into new rows. Weighted degrees are
+ * kept up to date in their own arrays. Interactions of an Account with its own Posts are not counted.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+class InteractionGraph {
+
+    static final int MIN_DELTA = 4096;
+
+    private static final int NONE = -1;
+    private static final int[] EMPTY = new int[0];
+
+    // Number of Accounts the arrays cover, the highest NUMERICAL_IDENTIFIER seen plus one
+    private int nodes;
+
+    // Compacted edges by source and by target: row i is the positions from offsets[i] up to offsets[i + 1]
+    private int[] outOffsets = new int[1];
+    private int[] outTargets = EMPTY;
+    private int[] outWeights = EMPTY;
+    private int[] inOffsets = new int[1];
+    private int[] inSources = EMPTY;
+    private int[] inWeights = EMPTY;
+
+    // Weighted degrees including the delta
+    private int[] outDegrees = EMPTY;
+    private int[] inDegrees = EMPTY;
+
+    // The delta, with the last change of each Account and the change before each change in both directions
+    private int[] deltaSources = new int[16];
+    private int[] deltaTargets = new int[16];
+    private int[] deltaWeights = new int[16];
+    private int[] nextOut = new int[16];
+    private int[] nextIn = new int[16];
+    private int[] lastOut = EMPTY;
+    private int[] lastIn = EMPTY;
+    private int deltaSize;
+
+    /**
+     * Constructor method for InteractionGraph, which adds every live Comment and Endorsement already in the Platform
+     * @param platform The Platform whose interactions are held
+     */
+    InteractionGraph(Platform platform) {
+        for (Comment comment : platform.getComments().values()) {
+            if (comment.getHandle() != null) add(platform, comment, comment.getParentPost(), 1);
+        }
+        for (Endorsement endorsement : platform.getEndorsements().values()) {
+            if (endorsement.getHandle() != null) add(platform, endorsement, endorsement.getEndorsedPost(), 1);
+        }
+        compact();
+    }
+
+    /**
+     * Method that adds or removes the interaction of a Comment or Endorsement with the Post it refers to
+     * @param platform The Platform the Accounts are found in by handle
+     * @param post The Comment or Endorsement
+     * @param target The Post it replies to or endorses
+     * @param weight 1 when it is made, -1 when it is deleted
+     */
+    void add(Platform platform, Post post, Post target, int weight) {
+        if (target == null || post.getHandle() == null || target.getHandle() == null) return;
+
+        Account source = platform.getAccount(post.getHandle());
+        Account owner = platform.getAccount(target.getHandle());
+        if (source == null || owner == null || source == owner) return;
+
+        add(source.getNUMERICAL_IDENTIFIER(), owner.getNUMERICAL_IDENTIFIER(), weight);
+    }
+
+    /**
+     * Method that changes the weight of an edge, merging the delta into the rows once it is large enough
+     * @param source The int NUMERICAL_IDENTIFIER of the Account that interacted
+     * @param target The int NUMERICAL_IDENTIFIER of the Account interacted with
+     * @param weight The change in weight
+     */
+    void add(int source, int target, int weight) {
+        ensureNodes(Math.max(source, target) + 1);
+
+        if (deltaSize == deltaSources.length) {
+            int capacity = deltaSize * 2;
+            deltaSources = Arrays.copyOf(deltaSources, capacity);
+            deltaTargets = Arrays.copyOf(deltaTargets, capacity);
+            deltaWeights = Arrays.copyOf(deltaWeights, capacity);
+            nextOut = Arrays.copyOf(nextOut, capacity);
+            nextIn = Arrays.copyOf(nextIn, capacity);
+        }
+
+        deltaSources[deltaSize] = source;
+        deltaTargets[deltaSize] = target;
+        deltaWeights[deltaSize] = weight;
+        nextOut[deltaSize] = lastOut[source];
+        nextIn[deltaSize] = lastIn[target];
+        lastOut[source] = deltaSize;
+        lastIn[target] = deltaSize;
+        deltaSize++;
+
+        outDegrees[source] += weight;
+        inDegrees[target] += weight;
+
+        if (deltaSize > Math.max(MIN_DELTA, outTargets.length / 8)) compact();
+    }
+
+    /**
+     * Method that returns the total weight of the edges of an Account
+     * @param account The int NUMERICAL_IDENTIFIER of the Account
+     * @param outgoing True for the interactions the Account has made, false for those made with its Posts
+     * @return Returns the int number of Comments and Endorsements
+     */
+    int getWeightedDegree(int account, boolean outgoing) {
+        if (account < 0 || account >= nodes) return 0;
+        return outgoing ? outDegrees[account] : inDegrees[account];
+    }
+
+    /**
+     * Method that returns the Accounts at the other end of the edges of an Account, reading its row and its
+     * changes in the delta without creating an object per edge
+     * @param account The int NUMERICAL_IDENTIFIER of the Account
+     * @param outgoing True for the Accounts it has interacted with, false for those that have interacted with it
+     * @return Returns the Neighbors, in order of NUMERICAL_IDENTIFIER
+     */
+    Neighbors getNeighbors(int account, boolean outgoing) {
+        if (account < 0 || account >= nodes) return new Neighbors(EMPTY, EMPTY, 0);
+
+        int[] offsets = outgoing ? outOffsets : inOffsets;
+        int[] ends = outgoing ? outTargets : inSources;
+        int[] weights = outgoing ? outWeights : inWeights;
+        int[] next = outgoing ? nextOut : nextIn;
+        int[] others = outgoing ? deltaTargets : deltaSources;
+
+        // Rows only cover the Accounts seen when they were compacted
+        int start = account + 1 < offsets.length ? offsets[account] : 0;
+        int end = account + 1 < offsets.length ? offsets[account + 1] : 0;
+
+        int changes = 0;
+        for (int i = (outgoing ? lastOut : lastIn)[account]; i != NONE; i = next[i]) changes++;
+
+        // Each edge is packed with the other Account in the high bits, so sorting brings changes to the same edge together
+        long[] packed = new long[end - start + changes];
+        int count = 0;
+        for (int i = start; i < end; i++) packed[count++] = pack(ends[i], weights[i]);
+        for (int i = (outgoing ? lastOut : lastIn)[account]; i != NONE; i = next[i]) packed[count++] = pack(others[i], deltaWeights[i]);
+        if (changes > 0) Arrays.sort(packed);
+
+        int[] ids = new int[packed.length];
+        int[] totals = new int[packed.length];
+        int size = merge(packed, 0, packed.length, ids, totals, 0);
+        return new Neighbors(ids, totals, size);
+    }
+
+    /**
+     * Method that merges the delta into new rows, dropping edges whose weight has fallen to 0
+     */
+    void compact() {
+        if (deltaSize == 0 && outOffsets.length == nodes + 1) return;
+
+        // Every edge of the old rows and the delta is grouped by its source
+        int[] counts = new int[nodes + 1];
+        for (int i = 0; i + 1 < outOffsets.length; i++) counts[i + 1] += outOffsets[i + 1] - outOffsets[i];
+        for (int i = 0; i < deltaSize; i++) counts[deltaSources[i] + 1]++;
+        for (int i = 0; i < nodes; i++) counts[i + 1] += counts[i];
+
+        long[] packed = new long[counts[nodes]];
+        int[] fill = Arrays.copyOf(counts, nodes);
+        for (int i = 0; i + 1 < outOffsets.length; i++) {
+            for (int j = outOffsets[i]; j < outOffsets[i + 1]; j++) packed[fill[i]++] = pack(outTargets[j], outWeights[j]);
+        }
+        for (int i = 0; i < deltaSize; i++) packed[fill[deltaSources[i]]++] = pack(deltaTargets[i], deltaWeights[i]);
+
+        // Each row is sorted and the changes to each edge added up
+        int[] offsets = new int[nodes + 1];
+        int[] targets = new int[packed.length];
+        int[] weights = new int[packed.length];
+        int size = 0;
+        for (int i = 0; i < nodes; i++) {
+            Arrays.sort(packed, counts[i], counts[i + 1]);
+            size = merge(packed, counts[i], counts[i + 1], targets, weights, size);
+            offsets[i + 1] = size;
+        }
+        outOffsets = offsets;
+        outTargets = Arrays.copyOf(targets, size);
+        outWeights = Arrays.copyOf(weights, size);
+
+        // The rows by target are the rows by source turned around; walking the sources in order keeps them sorted
+        inOffsets = new int[nodes + 1];
+        for (int i = 0; i < size; i++) inOffsets[outTargets[i] + 1]++;
+        for (int i = 0; i < nodes; i++) inOffsets[i + 1] += inOffsets[i];
+        inSources = new int[size];
+        inWeights = new int[size];
+        fill = Arrays.copyOf(inOffsets, nodes);
+        for (int source = 0; source < nodes; source++) {
+            for (int j = outOffsets[source]; j < outOffsets[source + 1]; j++) {
+                int position = fill[outTargets[j]]++;
+                inSources[position] = source;
+                inWeights[position] = outWeights[j];
+            }
+        }
+
+        deltaSize = 0;
+        Arrays.fill(lastOut, NONE);
+        Arrays.fill(lastIn, NONE);
+    }
+
+    /**
+     * Method that compacts the graph and returns its edges by target as they are now. Compacting always
+     * creates new rows, so the arrays returned are never changed and can be read without the lock
+     * @return Returns the Rows of the graph
+     */
+    Rows snapshot() {
+        compact();
+        return new Rows(nodes, inOffsets, inSources, inWeights, Arrays.copyOf(outDegrees, nodes));
+    }
+
+    /**
+     * Method that returns the number of Accounts the graph covers
+     * @return Returns the int highest NUMERICAL_IDENTIFIER seen plus one
+     */
+    int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Method that returns the number of edges in the compacted rows
+     * @return Returns the int number of edges, not counting changes still in the delta
+     */
+    int getCompactedEdges() {
+        return outTargets.length;
+    }
+
+    /**
+     * Method that grows the per Account arrays to cover more Accounts
+     * @param count The int number of Accounts to cover
+     */
+    private void ensureNodes(int count) {
+        if (count <= nodes) return;
+
+        int capacity = Math.max(count, lastOut.length);
+        if (capacity > lastOut.length) {
+            capacity = Math.max(count, lastOut.length * 2);
+            outDegrees = Arrays.copyOf(outDegrees, capacity);
+            inDegrees = Arrays.copyOf(inDegrees, capacity);
+            int old = lastOut.length;
+            lastOut = Arrays.copyOf(lastOut, capacity);
+            lastIn = Arrays.copyOf(lastIn, capacity);
+            Arrays.fill(lastOut, old, capacity, NONE);
+            Arrays.fill(lastIn, old, capacity, NONE);
+        }
+        nodes = count;
+    }
+
+    /**
+     * Method that adds up sorted packed edges with the same Account at the other end, keeping those left above 0
+     * @param packed The long array of packed edges, sorted between the positions read
+     * @param from The position of the first packed edge read
+     * @param to The position after the last packed edge read
+     * @param ids The int array the other Accounts are written to
+     * @param weights The int array the added up weights are written to
+     * @param size The position the first edge is written at
+     * @return Returns the int position after the last edge written
+     */
+    private static int merge(long[] packed, int from, int to, int[] ids, int[] weights, int size) {
+        for (int i = from; i < to; ) {
+            int id = (int) (packed[i] >> 32);
+            int weight = 0;
+            for (; i < to && (int) (packed[i] >> 32) == id; i++) weight += (int) packed[i];
+            if (weight <= 0) continue;
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Method that packs an edge into a long ordered by the Account at its other end
+     * @param id The int NUMERICAL_IDENTIFIER of the Account at the other end
+     * @param weight The int weight, or change in weight
+     * @return Returns the long packed edge
+     */
+    private static long pack(int id, int weight) {
+        return ((long) id << 32) | (weight & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The Rows Class.
+     * The compacted edges of the graph by target, with the weighted degree of every source, as read by
+     * {@link InfluenceRank}. The edges ending at Account i are the positions from offsets[i] up to offsets[i + 1]
+     */
+    static final class Rows {
+
+        final int nodes;
+        final int[] offsets;
+        final int[] sources;
+        final int[] weights;
+        final int[] outDegrees;
+
+        /**
+         * Constructor method for Rows
+         * @param nodes The number of Accounts covered
+         * @param offsets The int array of row starts, one longer than the number of Accounts
+         * @param sources The int array of the Account each edge starts from
+         * @param weights The int array of the weight of each edge
+         * @param outDegrees The int array of the total weight of the edges starting from each Account
+         */
+        private Rows(int nodes, int[] offsets, int[] sources, int[] weights, int[] outDegrees) {
+            this.nodes = nodes;
+            this.offsets = offsets;
+            this.sources = sources;
+            this.weights = weights;
+            this.outDegrees = outDegrees;
+        }
+    }
+
+    /**
+     * The Neighbors Class.
+     * The Accounts at the other end of the edges of one Account, with the weight of each edge, in the first
+     * size positions of two primitive arrays
+     */
+    static final class Neighbors {
+
+        final int[] ids;
+        final int[] weights;
+        final int size;
+
+        /**
+         * Constructor method for Neighbors
+         * @param ids The int array of NUMERICAL_IDENTIFIERs
+         * @param weights The int array of weights
+         * @param size The number of Accounts held
+         */
+        private Neighbors(int[] ids, int[] weights, int size) {
+            this.ids = ids;
+            this.weights = weights;
+            this.size = size;
+        }
+    }
+}
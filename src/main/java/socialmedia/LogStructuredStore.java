@@ -0,0 +1,548 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The LogStructuredStore Class. A {@link StorageEngine} that keeps records in append-only segment files
+ *
+ * Every put or remove appends a frame to the active segment: payload length (-1 for a removal), key,
+ * CRC32 of the key and payload, then the payload. An in-memory HashMap indexes each key to the location
+ * of its latest frame. When the active segment is full a new one is started, and a background thread
+ * compacts the full (sealed) segments into one once most of their bytes are out of date.
+ * On opening, the segments are replayed in order to rebuild the index; a frame cut short by a crash
+ * is discarded. Recently read records are kept in a {@link RecordCache}.
+ * A background compaction that fails is thrown, wrapped, by the next put, remove, flush or close
+ */
+public class LogStructuredStore implements StorageEngine {
+
+    static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static final int FRAME_HEADER = 16;
+    private static final int TOMBSTONE = -1;
+
+    // Sealed segments are compacted once less than this fraction of their bytes is still live
+    private static final double LIVE_RATIO_THRESHOLD = 0.5;
+    private static final long COMPACTION_INTERVAL_SECONDS = 30;
+
+    /**
+     * A segment file and how many of its bytes belong to the latest frame of a key
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private long size;
+        private long liveBytes;
+
+        private Segment(int id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Where the latest frame of a key is stored
+     * @param segment The Segment holding the frame
+     * @param offset The position of the frame in the segment
+     * @param length The length of the whole frame in bytes
+     */
+    private record Location(Segment segment, long offset, int length) {
+    }
+
+    private final Path directory;
+    private final long segmentSize;
+    private final HashMap<Long, Location> index = new HashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private final RecordCache cache;
+    private final ScheduledExecutorService compactor;
+    private Segment active;
+
+    // The failure of the last background compaction, thrown by the next put, remove, flush or close
+    private IOException compactionFailure;
+
+    // Whether a compaction is copying frames, so no other starts, and whether the store has been closed
+    private boolean compacting;
+    private boolean closed;
+
+    /**
+     * Constructor method for LogStructuredStore using the default segment and cache sizes
+     * @param directory The directory holding the segment files, created if it does not exist
+     * @throws IOException If the segments could not be opened
+     */
+    public LogStructuredStore(String directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_CACHE_SIZE, true);
+    }
+
+    /**
+     * Constructor method for LogStructuredStore
+     * @param directory The directory holding the segment files, created if it does not exist
+     * @param segmentSize The size in bytes after which a new segment is started
+     * @param cacheSize The maximum number of records kept in the cache
+     * @param backgroundCompaction Whether sealed segments are compacted on a background thread
+     * @throws IOException If the segments could not be opened
+     */
+    public LogStructuredStore(String directory, long segmentSize, int cacheSize, boolean backgroundCompaction)
+            throws IOException {
+
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.cache = new RecordCache(cacheSize);
+
+        Files.createDirectories(this.directory);
+        finishCompaction();
+        replay();
+
+        if (backgroundCompaction) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "log-store-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(() -> {
+                try {
+                    compactIfNeeded();
+                } catch (IOException e) {
+                    compactionFailed(e);
+                }
+            }, COMPACTION_INTERVAL_SECONDS, COMPACTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } else {
+            compactor = null;
+        }
+    }
+
+    @Override
+    public synchronized void put(long key, byte[] record) throws IOException {
+        throwCompactionFailure();
+
+        Location location = append(key, record);
+        Location old = index.put(key, location);
+        if (old != null) old.segment.liveBytes -= old.length;
+        location.segment.liveBytes += location.length;
+
+        // Only records that are being read are worth caching
+        cache.remove(key);
+    }
+
+    @Override
+    public synchronized byte[] get(long key) throws IOException {
+        byte[] record = cache.get(key);
+        if (record != null) return record;
+
+        Location location = index.get(key);
+        if (location == null) return null;
+
+        ByteBuffer frame = ByteBuffer.allocate(location.length);
+        readFully(location.segment.channel, frame, location.offset);
+        frame.flip();
+
+        int length = frame.getInt();
+        long storedKey = frame.getLong();
+        int checksum = frame.getInt();
+        record = new byte[length];
+        frame.get(record);
+
+        if (storedKey != key || checksum != checksum(key, record, length)) {
+            throw new IOException("Corrupt record in " + location.segment.path);
+        }
+
+        cache.put(key, record);
+        return record;
+    }
+
+    @Override
+    public synchronized void remove(long key) throws IOException {
+        throwCompactionFailure();
+        if (!index.containsKey(key)) return;
+
+        append(key, null);
+        Location old = index.remove(key);
+        old.segment.liveBytes -= old.length;
+        cache.remove(key);
+    }
+
+    @Override
+    public synchronized long[] keys() {
+        long[] keys = new long[index.size()];
+        int i = 0;
+        for (long key : index.keySet()) keys[i++] = key;
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        throwCompactionFailure();
+        active.channel.force(false);
+    }
+
+    /**
+     * Method that returns the number of segment files in the store
+     * @return Returns the int number of segments
+     */
+    public synchronized int getNumberOfSegments() {
+        return segments.size();
+    }
+
+    /**
+     * Method that compacts the sealed segments if less than half of their bytes are still live
+     * @throws IOException If the compacted segment could not be written
+     */
+    public void compactIfNeeded() throws IOException {
+        if (needsCompaction()) compact();
+    }
+
+    /**
+     * Method that checks whether less than half of the bytes of the sealed segments are still live
+     * @return Returns true if the sealed segments should be compacted
+     */
+    private synchronized boolean needsCompaction() {
+        long size = 0;
+        long live = 0;
+        for (Segment segment : segments.values()) {
+            if (segment == active) continue;
+            size += segment.size;
+            live += segment.liveBytes;
+        }
+
+        return size > 0 && live < size * LIVE_RATIO_THRESHOLD;
+    }
+
+    /**
+     * Method that rewrites the live frames of every sealed segment into a single segment.
+     * The new segment takes the ID of the newest sealed segment so replay order is unchanged.
+     * It is written to a .tmp file, renamed to .compact once complete, then the old segments are deleted
+     * and it is renamed to .log; {@link #finishCompaction()} completes these steps after a crash.
+     * Only finding the live frames and swapping the files hold the lock. Frames are copied without it, since
+     * sealed segments are never written again, so puts, gets and removes carry on while the copy is made.
+     * Keys written or removed during the copy keep their newer frame in the active segment
+     * @throws IOException If the compacted segment could not be written
+     */
+    public void compact() throws IOException {
+        ArrayList<Segment> sealed = new ArrayList<>();
+        long[] keys;
+        Location[] locations;
+
+        // The live frames of the sealed segments as they are when the compaction starts
+        synchronized (this) {
+            if (compacting || closed) return;
+
+            for (Segment segment : segments.values()) {
+                if (segment != active) sealed.add(segment);
+            }
+            if (sealed.isEmpty()) return;
+
+            keys = new long[index.size()];
+            locations = new Location[index.size()];
+            int count = 0;
+            for (Map.Entry<Long, Location> entry : index.entrySet()) {
+                if (entry.getValue().segment == active) continue;
+                keys[count] = entry.getKey();
+                locations[count++] = entry.getValue();
+            }
+            keys = Arrays.copyOf(keys, count);
+            locations = Arrays.copyOf(locations, count);
+            compacting = true;
+        }
+
+        try {
+            int id = sealed.get(sealed.size() - 1).id;
+            Path temporary = directory.resolve(segmentName(id, ".tmp"));
+            Path compacted = directory.resolve(segmentName(id, ".compact"));
+
+            // Where each frame is in the new segment
+            long[] offsets = new long[keys.length];
+
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+                long position = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    Location location = locations[i];
+
+                    ByteBuffer frame = ByteBuffer.allocate(location.length);
+                    readFully(location.segment.channel, frame, location.offset);
+                    frame.flip();
+
+                    offsets[i] = position;
+                    while (frame.hasRemaining()) position += out.write(frame);
+                }
+                out.force(true);
+            }
+
+            synchronized (this) {
+                // A store closed during the copy leaves the .tmp file to be deleted when it is next opened
+                if (closed) return;
+
+                Files.move(temporary, compacted, StandardCopyOption.ATOMIC_MOVE);
+
+                for (Segment segment : sealed) {
+                    segment.channel.close();
+                    segments.remove(segment.id);
+                    Files.delete(segment.path);
+                }
+
+                Path path = directory.resolve(segmentName(id, ".log"));
+                Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE);
+
+                Segment segment = openSegment(id, path);
+                segments.put(id, segment);
+
+                // Keys changed during the copy already point at the active segment, so their copied frame is dead
+                for (int i = 0; i < keys.length; i++) {
+                    if (index.get(keys[i]) != locations[i]) continue;
+                    index.put(keys[i], new Location(segment, offsets[i], locations[i].length));
+                    segment.liveBytes += locations[i].length;
+                }
+            }
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        // A compaction copying frames is not interrupted, as that would close the channel it is reading,
+        // but it stops before swapping in the new segment once it sees the store is closed
+        closed = true;
+        if (compactor != null) compactor.shutdown();
+
+        for (Segment segment : segments.values()) {
+            if (segment == active) segment.channel.force(true);
+            segment.channel.close();
+        }
+        cache.clear();
+
+        throwCompactionFailure();
+    }
+
+    /**
+     * Method that records the failure of a background compaction, to be thrown to the next caller
+     * that writes to the store, since the compactor thread has no caller of its own to throw it to
+     * @param failure The IOException thrown by the compaction
+     */
+    synchronized void compactionFailed(IOException failure) {
+        // A compaction cut short by the store being closed has not failed
+        if (closed) return;
+
+        if (compactionFailure == null) compactionFailure = failure;
+        else compactionFailure.addSuppressed(failure);
+    }
+
+    /**
+     * Method that throws the failure of a background compaction, if there has been one since it was last thrown
+     * @throws IOException Wrapping the failure of the compaction
+     */
+    private void throwCompactionFailure() throws IOException {
+        if (compactionFailure == null) return;
+
+        IOException failure = compactionFailure;
+        compactionFailure = null;
+        throw new IOException("Background compaction of " + directory + " failed", failure);
+    }
+
+    /**
+     * Method that appends a frame to the active segment, starting a new segment if it is full
+     * @param key The long key of the record
+     * @param record The bytes of the record, or null to mark the key as removed
+     * @return Returns the Location of the new frame
+     * @throws IOException If the frame could not be written
+     */
+    private Location append(long key, byte[] record) throws IOException {
+        int length = record == null ? 0 : record.length;
+        int frameLength = FRAME_HEADER + length;
+
+        if (active.size > 0 && active.size + frameLength > segmentSize) {
+            active.channel.force(true);
+            int id = active.id + 1;
+            active = openSegment(id, directory.resolve(segmentName(id, ".log")));
+            segments.put(id, active);
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(frameLength);
+        frame.putInt(record == null ? TOMBSTONE : length);
+        frame.putLong(key);
+        frame.putInt(checksum(key, record, length));
+        if (record != null) frame.put(record);
+        frame.flip();
+
+        long offset = active.size;
+        long position = offset;
+        while (frame.hasRemaining()) position += active.channel.write(frame, position);
+        active.size = position;
+
+        return new Location(active, offset, frameLength);
+    }
+
+    /**
+     * Method that rebuilds the index by reading every segment in order
+     * @throws IOException If a segment could not be read
+     */
+    private void replay() throws IOException {
+        ArrayList<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().matches("segment-\\d+\\.log")).forEach(paths::add);
+        }
+        paths.sort(Comparator.comparingInt(LogStructuredStore::segmentID));
+
+        for (Path path : paths) {
+            Segment segment = openSegment(segmentID(path), path);
+            segments.put(segment.id, segment);
+            replaySegment(segment);
+        }
+
+        if (segments.isEmpty()) {
+            active = openSegment(1, directory.resolve(segmentName(1, ".log")));
+            segments.put(1, active);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+    }
+
+    /**
+     * Method that reads every frame of a segment into the index, cutting off a frame left incomplete by a crash
+     * @param segment The Segment to read
+     * @throws IOException If the segment could not be read
+     */
+    private void replaySegment(Segment segment) throws IOException {
+        long fileSize = segment.channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER);
+
+        while (position + FRAME_HEADER <= fileSize) {
+            header.clear();
+            readFully(segment.channel, header, position);
+            header.flip();
+
+            int length = header.getInt();
+            long key = header.getLong();
+            int checksum = header.getInt();
+
+            int payloadLength = length == TOMBSTONE ? 0 : length;
+            if (payloadLength < 0 || position + FRAME_HEADER + payloadLength > fileSize) break;
+
+            byte[] record = null;
+            if (length != TOMBSTONE) {
+                ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+                readFully(segment.channel, payload, position + FRAME_HEADER);
+                record = payload.array();
+            }
+            if (checksum != checksum(key, record, payloadLength)) break;
+
+            Location old = length == TOMBSTONE ? index.remove(key)
+                    : index.put(key, new Location(segment, position, FRAME_HEADER + payloadLength));
+            if (old != null) old.segment.liveBytes -= old.length;
+            if (length != TOMBSTONE) segment.liveBytes += FRAME_HEADER + payloadLength;
+
+            position += FRAME_HEADER + payloadLength;
+        }
+
+        // Anything after the last complete frame was being written when the process stopped
+        if (position < fileSize) segment.channel.truncate(position);
+        segment.size = position;
+    }
+
+    /**
+     * Method that completes a compaction that was interrupted, see {@link #compact()}
+     * @throws IOException If the segment files could not be moved or deleted
+     */
+    private void finishCompaction() throws IOException {
+        ArrayList<Path> compacted = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.matches("segment-\\d+\\.tmp")) Files.delete(path);
+                else if (name.matches("segment-\\d+\\.compact")) compacted.add(path);
+            }
+        }
+
+        for (Path path : compacted) {
+            int id = segmentID(path);
+
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path old : (Iterable<Path>) files::iterator) {
+                    if (old.getFileName().toString().matches("segment-\\d+\\.log") && segmentID(old) <= id) {
+                        Files.delete(old);
+                    }
+                }
+            }
+            Files.move(path, directory.resolve(segmentName(id, ".log")), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Method that opens a segment file for reading and appending
+     * @param id The int ID of the segment
+     * @param path The Path of the segment file
+     * @return Returns the opened Segment
+     * @throws IOException If the file could not be opened
+     */
+    private static Segment openSegment(int id, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, path, channel);
+        segment.size = channel.size();
+        return segment;
+    }
+
+    /**
+     * Method that reads from a channel until the buffer is full
+     * @param channel The FileChannel to read from
+     * @param buffer The ByteBuffer to fill
+     * @param position The position in the file to start reading at
+     * @throws IOException If the file ends before the buffer is full
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new IOException("Unexpected end of segment");
+            position += read;
+        }
+    }
+
+    /**
+     * Method that calculates the CRC32 of a frame's key and payload
+     * @param key The long key of the record
+     * @param record The bytes of the record, or null for a removal
+     * @param length The number of bytes of the record
+     * @return Returns the int checksum
+     */
+    private static int checksum(long key, byte[] record, int length) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) crc.update((int) (key >>> shift));
+        if (record != null) crc.update(record, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Method that returns the file name of a segment
+     * @param id The int ID of the segment
+     * @param extension The extension of the file, including the dot
+     * @return Returns the String file name
+     */
+    private static String segmentName(int id, String extension) {
+        return String.format("segment-%08d%s", id, extension);
+    }
+
+    /**
+     * Method that returns the ID of a segment from its file name
+     * @param path The Path of the segment file
+     * @return Returns the int ID of the segment
+     */
+    private static int segmentID(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring("segment-".length(), name.indexOf('.')));
+    }
+}
@@ -127,6 +127,9 @@ public interface MiniSocialMediaPlatform extends Serializable {
      *                                      instance, if post A is endorsed by post
      *                                      B, and an account wants to endorse B, in
      *                                      fact, the endorsement must refers to A.
+     *                                      A {@link DuplicateEndorsementException}
+     *                                      is thrown if the account has already
+     *                                      endorsed the post.
      */
     int endorsePost(String handle, int id)
             throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException;
@@ -7,7 +7,7 @@ import java.util.HashSet;
  *
  * Contains static counter variable numberOfOriginal that tracks the total number of Originals
  * Contains message, numberOfComments and numberOfEndorsements
- * Also Contains 2 HashMaps to contain Comments and Endorsements
+ * Also Contains a HashSet of Endorsements, the Comments made on it are linked in ID order by {@link Post}
  */
 public class Original extends Post {
 
@@ -16,9 +16,11 @@ public class Original extends Post {
     private int numberOfComments = 0;
     private static int numberOfOriginals = 0;
 
-    private HashSet<Comment> comments = new HashSet<>();
     private HashSet<Endorsement> endorsements = new HashSet<>();
 
+    // The thread below this Original laid out flat, built the first time it is needed
+    private transient ThreadLayout layout;
+
     /**
      * Constructor method for Original object
      * @param handle String handle that represents the Account that is to be associated with the Original
@@ -31,6 +33,22 @@ public class Original extends Post {
         numberOfOriginals += 1;
     }
 
+    /**
+     * Constructor method used when restoring an Original from a snapshot, does not change numberOfOriginals
+     * @param id The int ID the Original was saved with
+     * @param handle String handle of the Account associated with the Original, null if deleted
+     * @param message String message that the Original will display
+     * @param numberOfEndorsements The int number of Endorsements the Original was saved with
+     * @param numberOfComments The int number of Comments the Original was saved with
+     * @param actionable Boolean that determines whether Original is actionable
+     */
+    Original(int id, String handle, String message, int numberOfEndorsements, int numberOfComments, boolean actionable) {
+        super(id, handle, actionable);
+        this.message = message;
+        this.numberOfEndorsements = numberOfEndorsements;
+        this.numberOfComments = numberOfComments;
+    }
+
     /**
      * Method that gets HashMap of Endorsements
      * @return Returns HashMap of Endorsements of Original
@@ -56,11 +74,30 @@ public class Original extends Post {
     }
 
     /**
-     * Method that returns String message
+     * Method that returns String message, reading it from the StorageEngine if it has been paged out
      * @return Returns String message
      */
     public String getMessage() {
-        return message;
+        return message == null && isPagedOut() ? readPagedMessage() : message;
+    }
+
+    /**
+     * Method that drops the message once it has been paged out to a StorageEngine
+     * @param storage The StorageEngine holding the record of this Original
+     */
+    @Override
+    void pageOut(StorageEngine storage) {
+        super.pageOut(storage);
+        message = null;
+    }
+
+    /**
+     * Method that reads the message back from the StorageEngine it was paged out to, if it was
+     */
+    @Override
+    void pageIn() {
+        if (isPagedOut()) message = getMessage();
+        super.pageIn();
     }
 
 
@@ -72,6 +109,8 @@ public class Original extends Post {
 
         setHandle(null);
 
+        // The message is replaced, so the one paged out is never read again
+        super.pageIn();
         message = "The original content was removed from the system and is no longer available.";
 
         numberOfEndorsements = 0;
@@ -105,7 +144,7 @@ public class Original extends Post {
      * @param endorsement The Endorsement to be removed
      */
     public void removeEndorsement(Endorsement endorsement) {
-        endorsements.add(endorsement);
+        endorsements.remove(endorsement);
         numberOfEndorsements -= 1;
     }
 
@@ -118,21 +157,30 @@ public class Original extends Post {
     }
 
     /**
-     * Method that adds Comment to HashMap of Comments
+     * Method that adds Comment to the Comments made on this Post
      * @param comment The Comment to be added
      */
     public void addComment(Comment comment) {
-        comments.add(comment);
+        linkComment(comment);
         numberOfComments += 1;
+        commentAdded(comment);
     }
 
+    /**
+     * Method that adds a new Comment anywhere in this Original's thread to its layout, if it has been laid out
+     * @param comment The Comment that has just been made
+     */
+    void commentAdded(Comment comment) {
+        if (layout != null) layout.add(comment);
+    }
 
     /**
-     * Method the returns the HashSet of comments
-     * @return HashSet of comments
+     * Method that returns the layout of this Original's thread, laying it out the first time
+     * @return Returns the ThreadLayout of the thread
      */
-    public HashSet<Comment> getComments() {
-        return  comments;
+    ThreadLayout getLayout() {
+        if (layout == null) layout = ThreadLayout.of(this);
+        return layout;
     }
 
 }
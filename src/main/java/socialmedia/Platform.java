@@ -1,6 +1,13 @@
 package socialmedia;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 
 /**
  * The Platform Class.
@@ -8,7 +15,7 @@ import java.util.HashMap;
  * It also holds the counters, just before saving and loading
  * Required by {@link SocialMedia}, {@link Account}, {@link Post}, {@link Original}, {@link Comment} and {@link Endorsement}
  */
-public class Platform {
+public class Platform implements Serializable {
 
 
     // Below are HashMaps that store each Account, Original, Comment and Endorsement respectively
@@ -23,6 +30,45 @@ public class Platform {
     private int numberOfEndorsements;
     private int numberOfComments;
     private int numberOfOriginals;
+    private int lastPostID;
+
+    // The snapshot currently being written in the background, if any
+    private transient BackgroundSnapshot activeSnapshot;
+
+    // The StorageEngine every change is written to, if any, and the entities changed since the last write
+    private transient StorageEngine storage;
+    private transient LinkedHashSet<Object> changed;
+
+    // The failure of the last write to the StorageEngine, kept until a later write succeeds
+    private transient IOException storageFailure;
+
+    // Rendered text of Posts and threads, and the Posts changed since the last commit whose text must be removed again
+    private transient RenderCache renderCache;
+    private transient ArrayList<Post> uncommittedPosts;
+
+    // Accounts by NUMERICAL_IDENTIFIER, built the first time it is needed, and the home timelines of every Account
+    private transient HashMap<Integer, Account> accountsById;
+    private transient TimelineService timelines;
+
+    // Words of every Original and Comment, built the first time posts are searched
+    private transient SearchIndex searchIndex;
+
+    // Tags of every Original and Comment and how often each was used recently, and the same for Endorsements,
+    // built the first time they are needed
+    private transient HashtagIndex hashtags;
+    private transient EndorsementTrends endorsementTrends;
+
+    // The Endorsement of each (Account, Post) pair, built the first time a Post is endorsed
+    private transient EndorsementIndex endorsementIndex;
+
+    // Who has commented on and endorsed whom, built the first time it is needed
+    private transient InteractionGraph interactionGraph;
+
+    // The influence scores last computed from the InteractionGraph, null until they are first computed
+    private transient InfluenceRank influence;
+
+    // Signatures of the Posts each Account has endorsed, built the first time Accounts are recommended
+    private transient AccountRecommender recommender;
 
 
     /**
@@ -40,6 +86,8 @@ public class Platform {
      */
     void addAccount(String handle, Account account){
         accounts.put(handle, account);
+        if (accountsById != null) accountsById.put(account.getNUMERICAL_IDENTIFIER(), account);
+        markChanged(account);
     }
 
     /**
@@ -48,6 +96,11 @@ public class Platform {
      * @return Returns the Account that has been removed
      */
     Account removeAccount(String handle) {
+        Account account = accounts.get(handle);
+        if (account != null) {
+            beforeChange(account);
+            if (accountsById != null) accountsById.remove(account.getNUMERICAL_IDENTIFIER());
+        }
         return accounts.remove(handle);
     }
 
@@ -60,6 +113,60 @@ public class Platform {
         return accounts.get(handle);
     }
 
+    /**
+     * Method that returns an Account based on its NUMERICAL_IDENTIFIER
+     * @param id The int NUMERICAL_IDENTIFIER of the Account
+     * @return Returns the Account, or null if there is none
+     */
+    Account getAccount(int id) {
+        if (accountsById == null) {
+            accountsById = new HashMap<>(Math.max(16, accounts.size() * 2));
+            for (Account account : accounts.values()) accountsById.put(account.getNUMERICAL_IDENTIFIER(), account);
+        }
+        return accountsById.get(id);
+    }
+
+    /**
+     * Method that rebuilds the followers of every Account from the Accounts each one follows,
+     * after the Accounts have been restored. Followed Accounts that no longer exist are dropped
+     */
+    void linkFollowers() {
+        for (Account account : accounts.values()) account.getFollowers().clear();
+
+        for (Account account : accounts.values()) {
+            int[] following = account.getFollowing().toArray();
+            for (int id : following) {
+                Account followed = getAccount(id);
+                if (followed == null) account.getFollowing().remove(id);
+                else followed.getFollowers().add(account.getNUMERICAL_IDENTIFIER());
+            }
+        }
+    }
+
+    /**
+     * Method that works out the thread aggregates of every Original and Comment, see {@link Post#getThreadSummary()},
+     * and the jump pointers of every Comment, after the Posts have been restored. Comments are visited in ID order, so each Comment's parent is visited first
+     */
+    void linkThreads() {
+        for (Original original : originals.values()) original.startThread(0);
+
+        int[] ids = new int[comments.size()];
+        int count = 0;
+        for (int id : comments.keySet()) ids[count++] = id;
+        Arrays.sort(ids);
+
+        for (int id : ids) {
+            Comment comment = comments.get(id);
+            comment.linkThread();
+            comment.getParentPost().addToThread(comment.getHandle() != null ? 1 : 0, 0, comment.getLevel(), id);
+        }
+
+        for (Endorsement endorsement : endorsements.values()) {
+            Post endorsed = endorsement.getEndorsedPost();
+            if (endorsed != null && endorsement.getHandle() != null) endorsed.addToThread(0, 1, 0, endorsement.getID());
+        }
+    }
+
     /**
      * Method that adds an Original to the HashMap of Originals
      * @param original The Original to be added
@@ -67,6 +174,10 @@ public class Platform {
     void addOriginal(Original original){
         int id = original.getID(); // Gets ID of Account to be used as key
         originals.put(id, original);
+        markChanged(original);
+        if (timelines != null) timelines.postAdded(original);
+        if (searchIndex != null) searchIndex.add(original);
+        if (hashtags != null) hashtags.postAdded(original);
     }
 
     /**
@@ -75,6 +186,11 @@ public class Platform {
      */
     void addComment(Comment comment) {
         comments.put(comment.getID(), comment);
+        markChanged(comment);
+        if (timelines != null) timelines.postAdded(comment);
+        if (searchIndex != null) searchIndex.add(comment);
+        if (hashtags != null) hashtags.postAdded(comment);
+        if (interactionGraph != null) interactionGraph.add(this, comment, comment.getParentPost(), 1);
     }
 
     /**
@@ -83,6 +199,12 @@ public class Platform {
      */
     void addEndorsement(Endorsement endorsement) {
         endorsements.put(endorsement.getID(), endorsement);
+        markChanged(endorsement);
+        if (timelines != null) timelines.postAdded(endorsement);
+        if (endorsementTrends != null) endorsementTrends.endorsementAdded(endorsement);
+        if (interactionGraph != null) interactionGraph.add(this, endorsement, endorsement.getEndorsedPost(), 1);
+        if (recommender != null) recommender.endorsementAdded(endorsement);
+        indexEndorsement(endorsement, true);
     }
 
     /**
@@ -90,7 +212,345 @@ public class Platform {
      * @param endorsement The Endorsement to be removed
      */
     void removeEndorsement(Endorsement endorsement) {
-        endorsements.remove(endorsement.getID(), endorsement);
+        beforeChange(endorsement);
+        boolean removed = endorsements.remove(endorsement.getID(), endorsement);
+        if (removed && interactionGraph != null) interactionGraph.add(this, endorsement, endorsement.getEndorsedPost(), -1);
+        if (recommender != null) recommender.endorsementRemoved(endorsement);
+        indexEndorsement(endorsement, false);
+    }
+
+    /**
+     * Method that returns the Post with the given ID, whatever type of Post it is
+     * @param id The int ID of the Post
+     * @return Returns the Original, Comment or Endorsement with that ID, or null if there is none
+     */
+    Post getPost(int id) {
+        Post post = originals.get(id);
+        if (post == null) post = comments.get(id);
+        if (post == null) post = endorsements.get(id);
+        return post;
+    }
+
+    /**
+     * Method that must be called before an Account or Post held by the Platform is changed or removed.
+     * If a snapshot is being written in the background, this lets it keep a copy of the entity as it was
+     * when the snapshot started. Any text rendered for a Post is removed from the {@link RenderCache}
+     * @param entity The Account or Post that is about to change
+     */
+    void beforeChange(Object entity) {
+        if (activeSnapshot != null) activeSnapshot.capture(entity);
+        markChanged(entity);
+
+        if (entity instanceof Post post) {
+            getRenderCache().invalidate(post);
+            uncommittedPosts.add(post);
+        }
+    }
+
+    /**
+     * Method that remembers an Account or Post has changed, so it is written to the StorageEngine
+     * by the next {@link #commitChanges()}
+     * @param entity The Account or Post that has changed
+     */
+    private void markChanged(Object entity) {
+        if (storage != null && entity != null) changed.add(entity);
+    }
+
+    /**
+     * Method that writes every Account and Post changed since the last call to the StorageEngine,
+     * along with the counter variables. Entities no longer held by the Platform are removed from it.
+     * Does nothing more than finishing the {@link RenderCache} invalidation if no StorageEngine is attached.
+     * If a write fails, the entities not yet written stay pending and are written again by the next call
+     * @throws UncheckedIOException If the changes could not be written, after they have been made in memory
+     */
+    void commitChanges() {
+        // Text rendered while the Posts were changing is removed now the changes are complete
+        if (uncommittedPosts != null && !uncommittedPosts.isEmpty()) {
+            for (Post post : uncommittedPosts) renderCache.invalidate(post);
+            uncommittedPosts.clear();
+        }
+
+        try {
+            writeChanges();
+        } catch (IOException e) {
+            // The change has already been made in memory, so the caller is told it was not written
+            throw new UncheckedIOException("Changes could not be written to storage and are still pending", e);
+        }
+    }
+
+    /**
+     * Method that writes every Account and Post changed since the last write to the StorageEngine,
+     * along with the counter variables. Each entity stops being pending once it has been written
+     * @throws IOException If the changes could not be written, in which case the entities not yet written
+     *                     stay pending and the failure is kept until a later write succeeds
+     */
+    void writeChanges() throws IOException {
+        if (storage == null || (changed.isEmpty() && storageFailure == null)) return;
+
+        try {
+            Iterator<Object> pending = changed.iterator();
+            while (pending.hasNext()) {
+                Object entity = pending.next();
+
+                if (entity instanceof Account account) {
+
+                    long key = StorageEngine.accountKey(account.getNUMERICAL_IDENTIFIER());
+                    if (accounts.get(account.getHandle()) == account) storage.put(key, SnapshotCodec.encode(account));
+                    else storage.remove(key);
+
+                } else if (entity instanceof Post post) {
+
+                    long key = StorageEngine.postKey(post.getID());
+                    if (getPost(post.getID()) == post) {
+                        storage.put(key, SnapshotCodec.encode(post));
+
+                        // The message is read back from the record through the storage's cache when it is needed
+                        post.pageOut(storage);
+                    } else {
+                        post.pageIn();
+                        storage.remove(key);
+                    }
+                }
+                pending.remove();
+            }
+
+            storage.put(StorageEngine.HEADER_KEY, SnapshotCodec.encodeHeader());
+            storageFailure = null;
+        } catch (IOException e) {
+            storageFailure = e;
+            throw e;
+        }
+    }
+
+    /**
+     * Method that returns the failure of the last write to the StorageEngine, if it has not since succeeded
+     * @return Returns the IOException, or null if every change has been written
+     */
+    IOException getStorageFailure() {
+        return storageFailure;
+    }
+
+    /**
+     * Method that attaches a StorageEngine to the Platform, replacing whatever it held with every
+     * Account and Post currently in the Platform
+     * @param storage The StorageEngine to write changes to
+     * @throws IOException If the Platform could not be written
+     */
+    void attachStorage(StorageEngine storage) throws IOException {
+        for (long key : storage.keys()) storage.remove(key);
+
+        this.storage = storage;
+        this.changed = new LinkedHashSet<>();
+
+        changed.addAll(accounts.values());
+        changed.addAll(originals.values());
+        changed.addAll(comments.values());
+        changed.addAll(endorsements.values());
+
+        writeChanges();
+        storage.flush();
+    }
+
+    /**
+     * Method that attaches a StorageEngine the Platform was just restored from, without rewriting it
+     * @param storage The StorageEngine to write changes to, or null to stop writing changes
+     */
+    void resumeStorage(StorageEngine storage) {
+
+        // Messages paged out to the old StorageEngine are read back before it stops being used
+        if (this.storage != null && this.storage != storage) {
+            for (Original original : originals.values()) original.pageIn();
+            for (Comment comment : comments.values()) comment.pageIn();
+            for (Endorsement endorsement : endorsements.values()) endorsement.pageIn();
+        }
+
+        this.storage = storage;
+        this.changed = new LinkedHashSet<>();
+        this.storageFailure = null;
+    }
+
+    /**
+     * Method that returns the cache of rendered text, creating it the first time
+     * @return Returns the RenderCache of this Platform
+     */
+    synchronized RenderCache getRenderCache() {
+        if (renderCache == null) {
+            renderCache = new RenderCache();
+            uncommittedPosts = new ArrayList<>();
+        }
+        return renderCache;
+    }
+
+    /**
+     * Method that returns the home timelines of the Accounts, creating them the first time
+     * @return Returns the TimelineService of this Platform
+     */
+    synchronized TimelineService getTimelines() {
+        if (timelines == null) timelines = new TimelineService(this);
+        return timelines;
+    }
+
+    /**
+     * Method that returns the index used to search the messages of Posts, creating it the first time
+     * @return Returns the SearchIndex of this Platform
+     */
+    synchronized SearchIndex getSearchIndex() {
+        if (searchIndex == null) searchIndex = new SearchIndex(this);
+        return searchIndex;
+    }
+
+    /**
+     * Method that must be called just before an Original or Comment is deleted, while it still has its handle,
+     * so neither it nor the live Comments replying to it are counted as interactions
+     * @param post The Original or Comment about to be deleted
+     */
+    void postDeleting(Post post) {
+        if (interactionGraph == null) return;
+        if (post instanceof Comment comment) interactionGraph.add(this, comment, comment.getParentPost(), -1);
+        for (Comment reply = post.getFirstComment(); reply != null; reply = reply.getNextComment()) {
+            interactionGraph.add(this, reply, post, -1);
+        }
+    }
+
+    /**
+     * Method that must be called once an Original or Comment has been deleted, so it is no longer found by searches
+     * @param post The Original or Comment that has been deleted
+     */
+    void postDeleted(Post post) {
+        if (searchIndex != null) searchIndex.remove(post);
+        if (hashtags != null) hashtags.remove(post);
+        if (endorsementTrends != null) endorsementTrends.postRemoved(post);
+    }
+
+    /**
+     * Method that must be called just before an Endorsement is deleted, while it still refers to the Post it endorses,
+     * so it is no longer counted
+     * @param endorsement The Endorsement about to be deleted
+     */
+    void endorsementDeleted(Endorsement endorsement) {
+        if (endorsementTrends != null) endorsementTrends.endorsementRemoved(endorsement);
+        if (interactionGraph != null) interactionGraph.add(this, endorsement, endorsement.getEndorsedPost(), -1);
+        if (recommender != null) recommender.endorsementRemoved(endorsement);
+        indexEndorsement(endorsement, false);
+    }
+
+    /**
+     * Method that adds or removes an Endorsement in the EndorsementIndex and in the EndorserList of the Post it
+     * endorses, for those that have been built. Endorsements whose Account cannot be found by their handle are
+     * only removed from the EndorserList
+     * @param endorsement The Endorsement, which must still refer to the Post it endorses
+     * @param add True to add it, false to remove it
+     */
+    private void indexEndorsement(Endorsement endorsement, boolean add) {
+        Post endorsed = endorsement.getEndorsedPost();
+        if (endorsed == null || (endorsementIndex == null && endorsed.getEndorserList() == null)) return;
+
+        if (!add && endorsed.getEndorserList() != null) endorsed.getEndorserList().remove(endorsement.getID());
+
+        Account account = endorsement.getHandle() == null ? null : accounts.get(endorsement.getHandle());
+        if (account == null) return;
+        int accountID = account.getNUMERICAL_IDENTIFIER();
+
+        if (add && endorsed.getEndorserList() != null) endorsed.getEndorserList().add(accountID, endorsement.getID());
+
+        if (endorsementIndex == null) return;
+        if (add) endorsementIndex.add(accountID, endorsed.getID(), endorsement.getID());
+        else endorsementIndex.remove(accountID, endorsed.getID(), endorsement.getID());
+    }
+
+    /**
+     * Method that returns the Accounts that have endorsed a Post in order, creating the list the first time
+     * @param post The Original or Comment
+     * @return Returns the EndorserList of the Post
+     */
+    EndorserList getEndorserList(Post post) {
+        if (post.getEndorserList() == null) post.setEndorserList(EndorserList.of(post, this));
+        return post.getEndorserList();
+    }
+
+    /**
+     * Method that returns the Endorsement each Account has made of each Post, creating them the first time
+     * @return Returns the EndorsementIndex of this Platform
+     */
+    synchronized EndorsementIndex getEndorsementIndex() {
+        if (endorsementIndex == null) endorsementIndex = new EndorsementIndex(this);
+        return endorsementIndex;
+    }
+
+    /**
+     * Method that returns who has commented on and endorsed whom, creating it the first time
+     * @return Returns the InteractionGraph of this Platform
+     */
+    synchronized InteractionGraph getInteractionGraph() {
+        if (interactionGraph == null) interactionGraph = new InteractionGraph(this);
+        return interactionGraph;
+    }
+
+    /**
+     * Method that returns the signatures used to recommend Accounts, creating them the first time
+     * @return Returns the AccountRecommender of this Platform
+     */
+    synchronized AccountRecommender getRecommender() {
+        if (recommender == null) recommender = new AccountRecommender(this);
+        return recommender;
+    }
+
+    /**
+     * Method that returns the influence scores last computed
+     * @return Returns the InfluenceRank, or null if none have been computed
+     */
+    InfluenceRank getInfluence() {
+        return influence;
+    }
+
+    /**
+     * Method that sets the influence scores served until they are next computed
+     * @param influence The InfluenceRank
+     */
+    void setInfluence(InfluenceRank influence) {
+        this.influence = influence;
+    }
+
+    /**
+     * Method that returns the counts of recent Endorsements, creating them the first time
+     * @return Returns the EndorsementTrends of this Platform
+     */
+    synchronized EndorsementTrends getEndorsementTrends() {
+        if (endorsementTrends == null) endorsementTrends = new EndorsementTrends(this);
+        return endorsementTrends;
+    }
+
+    /**
+     * Method that returns the index of the tags used in Posts, creating it the first time
+     * @return Returns the HashtagIndex of this Platform
+     */
+    synchronized HashtagIndex getHashtags() {
+        if (hashtags == null) hashtags = new HashtagIndex(this);
+        return hashtags;
+    }
+
+    /**
+     * Method that returns the StorageEngine changes are written to
+     * @return Returns the StorageEngine, or null if there is none
+     */
+    StorageEngine getStorage() {
+        return storage;
+    }
+
+    /**
+     * Method that returns the snapshot currently being written in the background
+     * @return Returns the active BackgroundSnapshot, or null if there is none
+     */
+    BackgroundSnapshot getActiveSnapshot() {
+        return activeSnapshot;
+    }
+
+    /**
+     * Method that sets the snapshot currently being written in the background
+     * @param snapshot The BackgroundSnapshot being written, or null once it has finished
+     */
+    void setActiveSnapshot(BackgroundSnapshot snapshot) {
+        this.activeSnapshot = snapshot;
     }
 
     /**
@@ -126,6 +586,26 @@ public class Platform {
         this.numberOfEndorsements = Endorsement.getNumberOfEndorsements();
         this.numberOfOriginals = Original.getNumberOfPosts();
         this.numberOfPosts = Post.getNumberOfPosts();
+        this.lastPostID = Post.getUniqueID();
+    }
+
+    /**
+     * Method that sets the counter variables of a Platform restored from a snapshot
+     * @param numberOfAccounts The saved number of Accounts
+     * @param numberOfPosts The saved number of Posts
+     * @param numberOfEndorsements The saved number of Endorsements
+     * @param numberOfComments The saved number of Comments
+     * @param numberOfOriginals The saved number of Originals
+     * @param lastPostID The saved ID of the most recently created Post
+     */
+    void setCounters(int numberOfAccounts, int numberOfPosts, int numberOfEndorsements, int numberOfComments,
+                     int numberOfOriginals, int lastPostID) {
+        this.numberOfAccounts = numberOfAccounts;
+        this.numberOfPosts = numberOfPosts;
+        this.numberOfEndorsements = numberOfEndorsements;
+        this.numberOfComments = numberOfComments;
+        this.numberOfOriginals = numberOfOriginals;
+        this.lastPostID = lastPostID;
     }
 
     /**
@@ -137,16 +617,38 @@ public class Platform {
         Endorsement.setNumberOfEndorsements(this.numberOfEndorsements);
         Original.setNumberOfOriginals(this.numberOfOriginals);
         Post.setNumberOfPosts(this.numberOfPosts);
+
+        // Snapshots older than lastPostID fall back on numberOfPosts, as set above
+        if (this.lastPostID != 0) Post.setUniqueID(this.lastPostID);
     }
 
     /**
      * Method to empty the HashMaps in the Platform object
      */
     void eraseHashMaps() {
+        // Everything is marked so the StorageEngine removes it too
+        if (storage != null) {
+            changed.addAll(accounts.values());
+            changed.addAll(originals.values());
+            changed.addAll(comments.values());
+            changed.addAll(endorsements.values());
+        }
+
         accounts.clear();
         originals.clear();
         comments.clear();
         endorsements.clear();
+        accountsById = null;
+        timelines = null;
+        searchIndex = null;
+        hashtags = null;
+        endorsementTrends = null;
+        endorsementIndex = null;
+        interactionGraph = null;
+        influence = null;
+        recommender = null;
+
+        getRenderCache().clear();
     }
 
     /**
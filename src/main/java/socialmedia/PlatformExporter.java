@@ -0,0 +1,82 @@
+package socialmedia;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The PlatformExporter Class.
+ * This streams every Account, Original, Comment and Endorsement of a Platform out as text in an {@link ExportFormat}
+ *
+ * A counters row comes first, holding the counters that give out IDs, then the Accounts, then the Accounts each one
+ * follows, then every Post in ID order, so a Post is always written after the Post it comments on or endorses. Each row is written as soon as it is built from a single reused {@link ExportRow},
+ * so memory use does not grow with the size of the platform
+ */
+public class PlatformExporter {
+
+    // Size of the character buffer in front of the channel
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportFormat format;
+
+    /**
+     * Constructor method for PlatformExporter
+     * @param format The ExportFormat rows are written in
+     */
+    public PlatformExporter(ExportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Method that writes the whole of a Platform to a channel. The Platform must not change while it is written
+     * @param platform The Platform to export
+     * @param channel The WritableByteChannel the rows are written to as UTF-8, which is not closed
+     * @return Returns the long number of rows written
+     * @throws IOException If the channel could not be written
+     */
+    public long export(Platform platform, WritableByteChannel channel) throws IOException {
+        Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+
+        ExportRow row = new ExportRow();
+        long rows = 0;
+
+        format.writeHeader(out);
+
+        // The ID counters only ever go up, so they cannot be worked out from the Accounts and Posts still held
+        row.setCounters();
+        format.writeRow(row, out);
+        rows++;
+
+        for (Account account : platform.getAccounts().values()) {
+            row.set(account);
+            format.writeRow(row, out);
+            rows++;
+        }
+
+        for (Account account : platform.getAccounts().values()) {
+            IntList following = account.getFollowing();
+            for (int i = 0; i < following.size(); i++) {
+                row.setFollow(account, following.get(i));
+                format.writeRow(row, out);
+                rows++;
+            }
+        }
+
+        // Post IDs are shared by all types of Post, so walking the IDs writes every Post in creation order
+        int lastPostID = Post.getUniqueID();
+        for (int id = 1; id <= lastPostID; id++) {
+            Post post = platform.getPost(id);
+            if (post == null) continue;
+
+            row.set(post);
+            format.writeRow(row, out);
+            rows++;
+        }
+
+        out.flush();
+        return rows;
+    }
+}
@@ -0,0 +1,226 @@
+package socialmedia;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * The PlatformImporter Class.
+ * This reads an export written by {@link PlatformExporter}, or by any other tool using the same {@link ExportFormat},
+ * into a new Platform
+ *
+ * Rows are inserted straight into the new Platform as they are read, without the checks and links made by
+ * {@link SocialMedia}. The sets linking Accounts to their Posts and Posts to their Comments and Endorsements
+ * are only built once every row has been read, in a single pass, and the counts of Posts are worked out from
+ * what was imported. The counters that give out IDs are taken from the counters row, or from the highest IDs
+ * imported if the export has none. Rows do not have to be in ID order: a Comment or Endorsement read before the Post it refers
+ * to, or a follow read before its Accounts, is held back until the end of the input
+ */
+public class PlatformImporter {
+
+    private final ExportFormat format;
+
+    /**
+     * Constructor method for PlatformImporter
+     * @param format The ExportFormat rows are read in
+     */
+    public PlatformImporter(ExportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Method that reads a whole export into a new Platform. The static counter variables are not changed,
+     * they are saved in the Platform to be loaded with {@link Platform#loadCounters()}
+     * @param channel The ReadableByteChannel the UTF-8 rows are read from, which is not closed
+     * @return Returns the new Platform
+     * @throws IOException If the channel could not be read, or a row is malformed or refers to a missing Post
+     */
+    public Platform read(ReadableByteChannel channel) throws IOException {
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1),
+                PlatformExporter.BUFFER_SIZE);
+        ExportFormat.ExportReader in = new ExportFormat.ExportReader(reader);
+
+        Platform platform = new Platform();
+        ExportRow row = new ExportRow();
+
+        // Comments and Endorsements whose Post has not been read yet
+        ArrayList<ExportRow> waiting = new ArrayList<>();
+
+        int lastAccountID = -1;
+        int lastPostID = 0;
+
+        // The ID counters written by the exporter, if any
+        int nextAccountID = 0;
+        int uniqueID = 0;
+
+        format.readHeader(in);
+
+        while (format.readRow(in, row)) {
+            if (row.type.equals(ExportRow.COUNTERS)) {
+                nextAccountID = row.id;
+                uniqueID = row.reference;
+                continue;
+            }
+
+            if (row.type.equals(ExportRow.ACCOUNT)) {
+                if (row.handle == null) throw new IOException("Line " + in.getLine() + ": Account " + row.id + " has no handle");
+                lastAccountID = Math.max(lastAccountID, row.id);
+            } else if (!row.type.equals(ExportRow.FOLLOW)) {
+                lastPostID = Math.max(lastPostID, row.id);
+            }
+
+            if (!insert(platform, row)) waiting.add(new ExportRow().copyOf(row));
+        }
+
+        // Each pass inserts every waiting row whose Post has now been inserted, until no more can be
+        while (!waiting.isEmpty()) {
+            ArrayList<ExportRow> stillWaiting = new ArrayList<>();
+            for (ExportRow waitingRow : waiting) {
+                if (!insert(platform, waitingRow)) stillWaiting.add(waitingRow);
+            }
+
+            if (stillWaiting.size() == waiting.size()) {
+                ExportRow missing = stillWaiting.get(0);
+                if (missing.type.equals(ExportRow.FOLLOW)) {
+                    throw new IOException("Account " + missing.id + " follows missing account " + missing.reference);
+                }
+                throw new IOException("Post " + missing.id + " refers to missing post " + missing.reference);
+            }
+            waiting = stillWaiting;
+        }
+
+        link(platform, lastPostID);
+        platform.linkThreads();
+        countPosts(platform, Math.max(lastAccountID + 1, nextAccountID), Math.max(lastPostID, uniqueID));
+
+        return platform;
+    }
+
+    /**
+     * Method that creates the Account or Post described by a row and adds it to the Platform
+     * @param platform The Platform being imported into
+     * @param row The ExportRow to insert
+     * @return Returns true if it was inserted, false if it refers to an Account or Post that has not been inserted yet
+     * @throws IOException If a Comment refers to an Endorsement
+     */
+    private boolean insert(Platform platform, ExportRow row) throws IOException {
+        switch (row.type) {
+
+            case ExportRow.ACCOUNT -> platform.addAccount(row.handle,
+                    new Account(row.id, row.handle, row.text, row.endorsements, row.posts));
+
+            case ExportRow.ORIGINAL -> {
+                Original original = new Original(row.id, row.handle, row.text, row.endorsements, row.comments,
+                        row.actionable);
+                original.setTimestamp(row.created);
+                platform.addOriginal(original);
+            }
+
+            case ExportRow.COMMENT -> {
+                Post parent = platform.getPost(row.reference);
+                if (parent == null) return false;
+                if (parent instanceof Endorsement) throw new IOException("Comment " + row.id + " refers to an endorsement");
+
+                Comment comment = new Comment(row.id, row.handle, parent, row.text, row.endorsements, row.comments,
+                        row.actionable);
+                comment.setTimestamp(row.created);
+                platform.addComment(comment);
+            }
+
+            case ExportRow.ENDORSEMENT -> {
+                // Deleted Endorsements no longer refer to a Post
+                Post endorsedPost = null;
+                if (row.reference != 0) {
+                    endorsedPost = platform.getPost(row.reference);
+                    if (endorsedPost == null) return false;
+                }
+
+                Endorsement endorsement = new Endorsement(row.id, row.handle, endorsedPost, row.text);
+                endorsement.setTimestamp(row.created);
+                platform.addEndorsement(endorsement);
+            }
+
+            case ExportRow.FOLLOW -> {
+                Account account = platform.getAccount(row.id);
+                Account followed = platform.getAccount(row.reference);
+                if (account == null || followed == null) return false;
+
+                account.follow(followed);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method that builds the sets linking each Account to its Posts and each Post to its Comments and Endorsements
+     * @param platform The Platform that has been imported into
+     * @param lastPostID The highest Post ID imported
+     */
+    private void link(Platform platform, int lastPostID) {
+        for (Original original : platform.getOriginals().values()) {
+            Account account = ownerOf(platform, original);
+            if (account != null) account.getOriginals().add(original);
+        }
+
+        // Comments are linked in ID order, so each is added to the end of its parent's list
+        for (int id = 1; id <= lastPostID; id++) {
+            Comment comment = platform.getComments().get(id);
+            if (comment == null) continue;
+
+            comment.getParentPost().linkComment(comment);
+
+            Account account = ownerOf(platform, comment);
+            if (account != null) account.getComments().add(comment);
+        }
+
+        for (Endorsement endorsement : platform.getEndorsements().values()) {
+            if (endorsement.getEndorsedPost() instanceof Original original) {
+                original.getEndorsements().add(endorsement);
+            } else if (endorsement.getEndorsedPost() instanceof Comment comment) {
+                comment.getEndorsements().add(endorsement);
+            }
+
+            Account account = ownerOf(platform, endorsement);
+            if (account != null) account.getEndorsements().add(endorsement);
+        }
+    }
+
+    /**
+     * Method that works out the counter variables of the imported Platform. Deleted Posts are not counted
+     * @param platform The Platform that has been imported into
+     * @param nextAccountID The ID the next Account will be given
+     * @param lastPostID The ID given to the most recent Post, or 0 if there have been none
+     */
+    private void countPosts(Platform platform, int nextAccountID, int lastPostID) {
+        int originals = 0;
+        int comments = 0;
+        int endorsements = 0;
+
+        for (Original original : platform.getOriginals().values()) {
+            if (original.getHandle() != null) originals++;
+        }
+        for (Comment comment : platform.getComments().values()) {
+            if (comment.getHandle() != null) comments++;
+        }
+        for (Endorsement endorsement : platform.getEndorsements().values()) {
+            if (endorsement.getHandle() != null) endorsements++;
+        }
+
+        platform.setCounters(nextAccountID, originals + comments + endorsements, endorsements, comments,
+                originals, lastPostID);
+    }
+
+    /**
+     * Method that returns the Account that made a Post
+     * @param platform The Platform that has been imported into
+     * @param post The Post
+     * @return Returns the Account, or null if the Post has been deleted
+     */
+    private Account ownerOf(Platform platform, Post post) {
+        if (post.getHandle() == null) return null;
+        return platform.getAccount(post.getHandle());
+    }
+}
@@ -1,13 +1,20 @@
 package socialmedia;
 
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 
 /**
  * The Post class. This is a superclass for {@link Original}, {@link Comment} and {@link Endorsement}.
  *
  * Contains static counter variable numberOfPosts that tracks the total number of Posts that have ever been made
- * Contains id, handle, unique_id and actionable
+ * Contains id, handle, unique_id, actionable and the time the Post was made
+ * Also contains the first and last Comment made on the Post, see {@link #getFirstComment()}, and aggregates over
+ * the thread below it, see {@link #addToThread(int, int, int, int)}
  */
-public class Post {
+public class Post implements Serializable {
 
     private static int numberOfPosts = 0;
     private static int unique_id = 0;
@@ -15,6 +22,29 @@ public class Post {
     private String handle;
     private boolean actionable;
 
+    // Milliseconds since the epoch when the Post was made, 0 if it is not known
+    private long timestamp;
+
+    // The Comments made on this Post, kept as a linked list in ID order through Comment.getNextComment()
+    private Comment firstComment;
+    private Comment lastComment;
+
+    // Aggregates over this Post and the Comments below it, kept up to date as the thread changes and worked out
+    // again by Platform.linkThreads() when a Platform is loaded
+    private transient int level;
+    private transient int replies;
+    private transient int threadEndorsements;
+    private transient int threadDepth;
+    private transient int lastActivityID;
+
+    // The position of this Post in the ThreadLayout of its thread, if it has been laid out
+    private transient int layoutIndex;
+
+    // The Accounts that have endorsed this Post in order, built the first time they are listed
+    private transient EndorserList endorserList;
+
+    // The StorageEngine this Post's message has been paged out to, or null if the message is held in memory
+    private transient StorageEngine pagedTo;
 
     /**
      * Constructor method for Post
@@ -26,9 +56,23 @@ public class Post {
         numberOfPosts += 1;
         unique_id += 1;
         this.ID = unique_id;
+        this.lastActivityID = unique_id;
 
     }
 
+    /**
+     * Constructor method used when restoring a Post from a snapshot.
+     * Does not change any counter variables as they are restored separately
+     * @param id The int ID the Post was saved with
+     * @param handle A String that represents the Account that is associated with the Post
+     * @param actionable Boolean that determines whether Post is actionable
+     */
+    Post(int id, String handle, boolean actionable) {
+        this.ID = id;
+        this.handle = handle;
+        this.actionable = actionable;
+    }
+
     /**
      * Method that 'deletes' a Post by setting handle to null.
      * Also removes 1 from the numberOfPosts variable.
@@ -55,6 +99,22 @@ public class Post {
         return actionable;
     }
 
+    /**
+     * Method that returns the time the Post was made
+     * @return Returns the long number of milliseconds since the epoch, or 0 if it is not known
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Method that sets the time the Post was made
+     * @param timestamp The long number of milliseconds since the epoch
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     /**
      * Method that sets the counter variable numberOfPosts
      * @param numberOfPosts The int that will become the new numberOfPosts
@@ -64,6 +124,22 @@ public class Post {
         Post.unique_id = numberOfPosts;
     }
 
+    /**
+     * Method that returns the ID given to the most recently created Post
+     * @return Returns the int unique_id
+     */
+    public static int getUniqueID() {
+        return unique_id;
+    }
+
+    /**
+     * Method that sets the ID given to the most recently created Post, so the next Post gets the ID after it
+     * @param uniqueID The int that will become the new unique_id
+     */
+    public static void setUniqueID(int uniqueID) {
+        Post.unique_id = uniqueID;
+    }
+
     /**
      * Method that returns the number of total posts
      * @return Returns the int numberOfPosts
@@ -96,4 +172,248 @@ public class Post {
         this.handle = handle;
     }
 
+    /**
+     * Method that returns the first Comment made on this Post. The rest follow in ID order through
+     * {@link Comment#getNextComment()}, so they can be walked in the order they were made without sorting
+     * @return Returns the Comment with the lowest ID, or null if there are none
+     */
+    public Comment getFirstComment() {
+        return firstComment;
+    }
+
+    /**
+     * Method that adds a Comment to the list of Comments made on this Post, keeping the list in ID order.
+     * New Comments always have the highest ID so are added to the end straight away;
+     * only Comments restored out of order need the list to be walked
+     * @param comment The Comment made on this Post
+     */
+    void linkComment(Comment comment) {
+        int id = comment.getID();
+
+        if (lastComment == null) {
+            firstComment = comment;
+            lastComment = comment;
+        } else if (id > lastComment.getID()) {
+            lastComment.setNextComment(comment);
+            lastComment = comment;
+        } else if (id < firstComment.getID()) {
+            comment.setNextComment(firstComment);
+            firstComment = comment;
+        } else {
+            Comment previous = firstComment;
+            while (previous.getNextComment() != null && previous.getNextComment().getID() < id) {
+                previous = previous.getNextComment();
+            }
+
+            // A Comment that is already in the list is not added twice
+            if (previous.getID() == id || (previous.getNextComment() != null && previous.getNextComment().getID() == id)) return;
+
+            comment.setNextComment(previous.getNextComment());
+            previous.setNextComment(comment);
+        }
+    }
+
+    /**
+     * Method that changes the aggregates of this Post and of every Post above it in its thread, following the chain
+     * of parent Posts up to the Original, so it takes time proportional to the level of this Post
+     * @param replies The change in the number of Comments below
+     * @param endorsements The change in the number of Endorsements in the thread
+     * @param level The level of a new Comment below, or 0
+     * @param activityID The ID of a new Comment or Endorsement in the thread, or 0
+     */
+    void addToThread(int replies, int endorsements, int level, int activityID) {
+        for (Post post = this; post != null; post = post instanceof Comment comment ? comment.getParentPost() : null) {
+            post.replies += replies;
+            post.threadEndorsements += endorsements;
+            post.threadDepth = Math.max(post.threadDepth, level - post.level);
+            post.lastActivityID = Math.max(post.lastActivityID, activityID);
+        }
+    }
+
+    /**
+     * Method that works out the latest activity again after an Endorsement in the thread has been deleted, for this
+     * Post and every Post above it whose latest activity was that Endorsement. Other Posts above keep their value, so
+     * it stops at the first one that did not, and only the Comments and Endorsements of the Posts it changes are read
+     * @param endorsementID The int ID of the deleted Endorsement, which must already be taken off this Post
+     */
+    void removeActivity(int endorsementID) {
+        for (Post post = this; post != null && post.lastActivityID == endorsementID;
+             post = post instanceof Comment comment ? comment.getParentPost() : null) {
+
+            // Comments below count whether deleted or not, like when the thread is linked again after a load
+            int latest = post.getID();
+            for (Comment comment = post.firstComment; comment != null; comment = comment.getNextComment()) {
+                latest = Math.max(latest, ((Post) comment).lastActivityID);
+            }
+            Iterable<Endorsement> endorsements = post instanceof Original original ? original.getEndorsements()
+                    : ((Comment) post).getEndorsements();
+            for (Endorsement endorsement : endorsements) latest = Math.max(latest, endorsement.getID());
+            post.lastActivityID = latest;
+        }
+    }
+
+    /**
+     * Method that sets the level of this Post in its thread, and resets its other aggregates
+     * @param level The int number of Posts above it, 0 for an Original
+     */
+    void startThread(int level) {
+        this.level = level;
+        replies = 0;
+        threadEndorsements = 0;
+        threadDepth = 0;
+        lastActivityID = getID();
+    }
+
+    /**
+     * Method that returns the aggregates over this Post and the Comments below it
+     * @return Returns the ThreadSummary of this Post
+     */
+    public ThreadSummary getThreadSummary() {
+        return new ThreadSummary(ID, level, replies, threadEndorsements, threadDepth, lastActivityID);
+    }
+
+    /**
+     * Method that returns the Post at the top of this Post's thread
+     * @return Returns this Post, overridden by {@link Comment}
+     */
+    public Post getThreadRoot() {
+        return this;
+    }
+
+    /**
+     * Method that returns a Post above this one in its thread
+     * @param k The number of levels up
+     * @return Returns this Post if k is 0, otherwise null, overridden by {@link Comment}
+     */
+    public Post getAncestor(int k) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative");
+        return k == 0 ? this : null;
+    }
+
+    /**
+     * Method that returns the lowest Post that is above or equal to both of two Posts in a thread.
+     * Both are first brought to the same level, then moved up together by the largest jumps that leave them apart
+     * @param first The first Original or Comment
+     * @param second The second Original or Comment
+     * @return Returns the lowest common ancestor, or null if the Posts are in different threads
+     */
+    public static Post getCommonAncestor(Post first, Post second) {
+        if (first.getThreadRoot() != second.getThreadRoot()) return null;
+
+        if (first.level > second.level) first = first.getAncestor(first.level - second.level);
+        else second = second.getAncestor(second.level - first.level);
+
+        if (first == second) return first;
+
+        // Both are now Comments on the same level of the same thread, with the same number of jump pointers
+        for (int i = ((Comment) first).getJumps().length - 1; i >= 0; i--) {
+            Post[] firstJumps = ((Comment) first).getJumps();
+            Post[] secondJumps = ((Comment) second).getJumps();
+            if (i < firstJumps.length && firstJumps[i] != secondJumps[i]) {
+                first = firstJumps[i];
+                second = secondJumps[i];
+            }
+        }
+        return ((Comment) first).getParentPost();
+    }
+
+    /**
+     * Method that returns the flat layout of this Post's thread, laying it out the first time
+     * @return Returns the ThreadLayout of the Original at the top of the thread
+     */
+    ThreadLayout getThreadLayout() {
+        return ((Original) getThreadRoot()).getLayout();
+    }
+
+    /**
+     * Method that returns the position of this Post in the layout of its thread
+     * @return Returns the int physical position, see {@link ThreadLayout}
+     */
+    int getLayoutIndex() {
+        return layoutIndex;
+    }
+
+    /**
+     * Method that sets the position of this Post in the layout of its thread
+     * @param layoutIndex The int physical position
+     */
+    void setLayoutIndex(int layoutIndex) {
+        this.layoutIndex = layoutIndex;
+    }
+
+    /**
+     * Method that returns the Accounts that have endorsed this Post in order, see {@link Platform#getEndorserList(Post)}
+     * @return Returns the EndorserList, or null if it has not been built
+     */
+    EndorserList getEndorserList() {
+        return endorserList;
+    }
+
+    /**
+     * Method that sets the Accounts that have endorsed this Post in order
+     * @param endorserList The EndorserList built for this Post
+     */
+    void setEndorserList(EndorserList endorserList) {
+        this.endorserList = endorserList;
+    }
+
+    /**
+     * Method that returns the level of this Post in its thread
+     * @return Returns the int number of Posts above it, 0 for an Original
+     */
+    int getLevel() {
+        return level;
+    }
+
+    /**
+     * Method that returns whether this Post's message has been paged out to a StorageEngine
+     * @return Returns true if the message must be read from the StorageEngine when it is needed
+     */
+    boolean isPagedOut() {
+        return pagedTo != null;
+    }
+
+    /**
+     * Method that pages this Post's message out to the StorageEngine its latest record has just been written to,
+     * so it is read back from there, through the store's cache, when it is needed.
+     * Overridden by each kind of Post to drop the message it holds
+     * @param storage The StorageEngine holding the record of this Post
+     */
+    void pageOut(StorageEngine storage) {
+        this.pagedTo = storage;
+    }
+
+    /**
+     * Method that brings this Post's message back into memory, so it no longer depends on the StorageEngine.
+     * Overridden by each kind of Post to read the message back before it stops being paged out
+     */
+    void pageIn() {
+        this.pagedTo = null;
+    }
+
+    /**
+     * Method that reads this Post's message from the StorageEngine it has been paged out to
+     * @return Returns the String message held in the record of this Post
+     * @throws UncheckedIOException If the record could not be read
+     */
+    String readPagedMessage() {
+        try {
+            byte[] record = pagedTo.get(StorageEngine.postKey(ID));
+            if (record == null) throw new StreamCorruptedException("Post " + ID + " is missing from storage");
+            return SnapshotCodec.readMessage(record);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method that returns the Comments made on this Post
+     * @return Returns a new ArrayList of the Comments in ID order
+     */
+    public ArrayList<Comment> getComments() {
+        ArrayList<Comment> comments = new ArrayList<>();
+        for (Comment comment = firstComment; comment != null; comment = comment.getNextComment()) comments.add(comment);
+        return comments;
+    }
+
 }
@@ -0,0 +1,182 @@
+package socialmedia;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The PostIndex Class.
+ * The IDs of the Posts made by one Account, in ID order and split by {@link PostType},
+ * used to list an Account's Posts newest first by {@link SocialMedia#getAccountPosts(String, int, int, PostType)}.
+ * The same index also holds the Comments and Endorsements other Posts have made of an Account's Posts, listed by
+ * {@link SocialMedia#getAccountActivity(String, int, int, PostType)}
+ *
+ * Post IDs are given out in creation order, so new Posts are added to the end of their list.
+ * A page is found with a binary search for the cursor in each list followed by a merge of at most three lists,
+ * so its cost depends on the size of the page and not the number of Posts the Account has made
+ */
+class PostIndex {
+
+    private final IntList originals;
+    private final IntList comments;
+    private final IntList endorsements;
+
+    /**
+     * Constructor method for PostIndex
+     * @param originals The IntList of Original IDs
+     * @param comments The IntList of Comment IDs
+     * @param endorsements The IntList of Endorsement IDs
+     */
+    private PostIndex(IntList originals, IntList comments, IntList endorsements) {
+        this.originals = originals;
+        this.comments = comments;
+        this.endorsements = endorsements;
+    }
+
+    /**
+     * Method that builds the index of an Account's current Posts.
+     * The IDs come from HashSets in no order, so each list is sorted once rather than built by sorted inserts
+     * @param account The Account whose Posts are indexed
+     * @return Returns the new PostIndex
+     */
+    static PostIndex of(Account account) {
+        return new PostIndex(ids(account.getOriginals()), ids(account.getComments()), ids(account.getEndorsements()));
+    }
+
+    /**
+     * Method that builds the index of the live Comments and Endorsements made of an Account's current Posts,
+     * reading only the Account's own Posts
+     * @param account The Account whose Posts have been replied to and endorsed
+     * @return Returns the new PostIndex, whose originals are always empty
+     */
+    static PostIndex inbound(Account account) {
+        IdBuffer comments = new IdBuffer();
+        IdBuffer endorsements = new IdBuffer();
+        for (Original original : account.getOriginals()) addInbound(original, original.getEndorsements(), comments, endorsements);
+        for (Comment comment : account.getComments()) addInbound(comment, comment.getEndorsements(), comments, endorsements);
+        return new PostIndex(new IntList(), comments.toIntList(), endorsements.toIntList());
+    }
+
+    /**
+     * Method that collects the IDs of the live Comments and Endorsements made of one Post
+     * @param post The Original or Comment
+     * @param endorsements The HashSet of its Endorsements
+     * @param commentIDs The IdBuffer the IDs of the Comments are added to
+     * @param endorsementIDs The IdBuffer the IDs of the Endorsements are added to
+     */
+    private static void addInbound(Post post, Iterable<Endorsement> endorsements, IdBuffer commentIDs,
+                                   IdBuffer endorsementIDs) {
+        for (Endorsement endorsement : endorsements) endorsementIDs.add(endorsement.getID());
+        for (Comment reply = post.getFirstComment(); reply != null; reply = reply.getNextComment()) {
+            if (reply.getHandle() != null) commentIDs.add(reply.getID());
+        }
+    }
+
+    /**
+     * Method that returns the IDs of a set of Posts as a sorted IntList
+     * @param posts The Posts
+     * @return Returns the new IntList
+     */
+    private static IntList ids(Collection<? extends Post> posts) {
+        IdBuffer ids = new IdBuffer();
+        for (Post post : posts) ids.add(post.getID());
+        return ids.toIntList();
+    }
+
+    /**
+     * Method that adds a Post to the index
+     * @param post The Original, Comment or Endorsement made by the Account
+     */
+    void add(Post post) {
+        list(PostType.of(post)).add(post.getID());
+    }
+
+    /**
+     * Method that removes a Post from the index
+     * @param post The Original, Comment or Endorsement no longer held by the Account
+     * @return Returns true if the Post was removed, false if it was not held
+     */
+    boolean remove(Post post) {
+        return list(PostType.of(post)).remove(post.getID());
+    }
+
+    /**
+     * Method that returns the number of Posts indexed
+     * @param type The type of Post counted, or null to count every type
+     * @return Returns the int number of Posts
+     */
+    int size(PostType type) {
+        if (type != null) return list(type).size();
+        return originals.size() + comments.size() + endorsements.size();
+    }
+
+    /**
+     * Method that returns the IDs of the Posts older than a cursor, newest first
+     * @param type The type of Post returned, or null to return every type
+     * @param cursor Only Posts with a lower ID than this are returned, 0 to start from the newest Post
+     * @param limit The most Post IDs returned
+     * @return Returns an int array of Post IDs, newest first, which is shorter than the limit on the last page
+     */
+    int[] page(PostType type, int cursor, int limit) {
+        IntList[] lists = type == null ? new IntList[]{originals, comments, endorsements} : new IntList[]{list(type)};
+
+        // The position of the newest Post older than the cursor in each list, walked towards the oldest
+        int[] positions = new int[lists.length];
+        int available = 0;
+        for (int i = 0; i < lists.length; i++) {
+            positions[i] = (cursor <= 0 ? lists[i].size() : lists[i].lowerBound(cursor)) - 1;
+            available += positions[i] + 1;
+        }
+
+        int[] page = new int[Math.max(0, Math.min(limit, available))];
+        for (int count = 0; count < page.length; count++) {
+            int newest = -1;
+            for (int i = 0; i < lists.length; i++) {
+                if (positions[i] < 0) continue;
+                if (newest < 0 || lists[i].get(positions[i]) > lists[newest].get(positions[newest])) newest = i;
+            }
+            page[count] = lists[newest].get(positions[newest]--);
+        }
+
+        return page;
+    }
+
+    /**
+     * Method that returns the list holding one type of Post
+     * @param type The PostType
+     * @return Returns the IntList of Post IDs of that type
+     */
+    private IntList list(PostType type) {
+        return switch (type) {
+            case ORIGINAL -> originals;
+            case COMMENT -> comments;
+            case ENDORSEMENT -> endorsements;
+        };
+    }
+
+    /**
+     * The IdBuffer Class.
+     * Post IDs collected in the order they are found, before being sorted into an IntList
+     */
+    private static final class IdBuffer {
+
+        private int[] ids = new int[16];
+        private int count = 0;
+
+        /**
+         * Method that adds an ID to the end of the buffer
+         * @param id The int Post ID
+         */
+        private void add(int id) {
+            if (count == ids.length) ids = Arrays.copyOf(ids, count * 2);
+            ids[count++] = id;
+        }
+
+        /**
+         * Method that sorts the IDs collected into an IntList, which takes over the buffer's array
+         * @return Returns the new IntList
+         */
+        private IntList toIntList() {
+            return IntList.ofUnsorted(ids, count);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package socialmedia;
+
+import java.util.List;
+
+/**
+ * The PostPage Record.
+ * One page of the Posts made by an Account, as returned by {@link SocialMedia#getAccountPosts(String, int, int, PostType)}
+ * @param posts The views of the Posts on the page, newest first
+ * @param nextCursor The cursor to pass to get the next page, or 0 if this is the last page
+ */
+public record PostPage(List<PostView> posts, int nextCursor) {
+
+    /**
+     * Method that returns whether there are more pages after this one
+     * @return Returns true if there is a next page
+     */
+    public boolean hasMore() {
+        return nextCursor != 0;
+    }
+}
@@ -0,0 +1,23 @@
+package socialmedia;
+
+/**
+ * The PostType Enum.
+ * The three kinds of {@link Post}: an {@link Original}, a {@link Comment} or an {@link Endorsement}
+ */
+public enum PostType {
+
+    ORIGINAL,
+    COMMENT,
+    ENDORSEMENT;
+
+    /**
+     * Method that returns the type of a Post
+     * @param post The Post
+     * @return Returns the PostType matching the Post's class
+     */
+    public static PostType of(Post post) {
+        if (post instanceof Original) return ORIGINAL;
+        if (post instanceof Comment) return COMMENT;
+        return ENDORSEMENT;
+    }
+}
@@ -0,0 +1,42 @@
+package socialmedia;
+
+/**
+ * The PostView Record.
+ * The details of a single Post as plain fields, returned by {@link SocialMedia#getPostView(int)}
+ * so callers can read them without parsing the text of {@link SocialMedia#showIndividualPost(int)}
+ * @param id The ID of the Post
+ * @param type Whether the Post is an Original, Comment or Endorsement
+ * @param handle The handle of the Account that made the Post, null if it has been deleted
+ * @param message The message of the Post
+ * @param endorsements The number of Endorsements of the Post, always 0 for an Endorsement
+ * @param comments The number of Comments made on the Post, always 0 for an Endorsement
+ * @param parentID The ID of the Post a Comment replies to or an Endorsement endorses, 0 for an Original
+ * or a deleted Endorsement
+ * @param actionable Whether the Post can be endorsed and commented on
+ */
+public record PostView(int id, PostType type, String handle, String message, int endorsements, int comments,
+                       int parentID, boolean actionable) {
+
+    /**
+     * Method that builds the view of a Post
+     * @param post The Original, Comment or Endorsement
+     * @return Returns the PostView holding the Post's current details
+     */
+    static PostView of(Post post) {
+        if (post instanceof Original original) {
+            return new PostView(original.getID(), PostType.ORIGINAL, original.getHandle(), original.getMessage(),
+                    original.getNumberOfEndorsements(), original.getNumberOfComments(), 0, original.isActionable());
+        }
+
+        if (post instanceof Comment comment) {
+            return new PostView(comment.getID(), PostType.COMMENT, comment.getHandle(), comment.getMessage(),
+                    comment.getNumberOfEndorsements(), comment.getNumberOfComments(), comment.getParentPost().getID(),
+                    comment.isActionable());
+        }
+
+        Endorsement endorsement = (Endorsement) post;
+        int endorsedID = endorsement.getEndorsedPost() == null ? 0 : endorsement.getEndorsedPost().getID();
+        return new PostView(endorsement.getID(), PostType.ENDORSEMENT, endorsement.getHandle(), endorsement.getMessage(),
+                0, 0, endorsedID, endorsement.isActionable());
+    }
+}
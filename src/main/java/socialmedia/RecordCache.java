@@ -0,0 +1,72 @@
+package socialmedia;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The RecordCache Class.
+ * A bounded least-recently-used cache of records read from a {@link StorageEngine}, so hot Posts
+ * are served from the heap instead of the disk
+ */
+public class RecordCache {
+
+    private final int capacity;
+    private final LinkedHashMap<Long, byte[]> records;
+
+    /**
+     * Constructor method for RecordCache
+     * @param capacity The maximum number of records held
+     */
+    public RecordCache(int capacity) {
+        this.capacity = capacity;
+
+        // Access order makes the eldest entry the least recently used one
+        this.records = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                return size() > RecordCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Method that returns a cached record
+     * @param key The long key of the record
+     * @return Returns the bytes of the record, or null if it is not cached
+     */
+    public byte[] get(long key) {
+        return records.get(key);
+    }
+
+    /**
+     * Method that adds a record to the cache, evicting the least recently used record if it is full
+     * @param key The long key of the record
+     * @param record The bytes of the record
+     */
+    public void put(long key, byte[] record) {
+        if (capacity > 0) records.put(key, record);
+    }
+
+    /**
+     * Method that removes a record from the cache
+     * @param key The long key of the record
+     */
+    public void remove(long key) {
+        records.remove(key);
+    }
+
+    /**
+     * Method that empties the cache
+     */
+    public void clear() {
+        records.clear();
+    }
+
+    /**
+     * Method that returns the number of records cached
+     * @return Returns the int number of records
+     */
+    public int size() {
+        return records.size();
+    }
+}
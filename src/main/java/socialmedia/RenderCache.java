@@ -0,0 +1,196 @@
+package socialmedia;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The RenderCache Class.
+ * A bounded least-recently-used cache of the text rendered for single Posts by {@link SocialMedia#showIndividualPost(int)}
+ * and for whole threads by {@link SocialMedia#showPostChildrenDetails(int)}, keyed by Post ID
+ *
+ * The cache is bounded by both the number of entries and the total number of characters held.
+ * When a Post changes, its own entries are removed along with the thread of every Post above it, found through
+ * {@link Comment#getParentPost()}, since each of those threads includes it.
+ * Every removal also moves the cache on to a new version; text rendered from an older version is not stored,
+ * so a render that overlaps a change can never leave stale text behind
+ */
+public class RenderCache {
+
+    // The kinds of text held, a single Post or the thread starting from it
+    static final int POST = 0;
+    static final int THREAD = 1;
+
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+    static final long DEFAULT_MAX_CHARACTERS = 16L * 1024 * 1024;
+
+    private final int maxEntries;
+    private final long maxCharacters;
+
+    // Access order makes the first entry the least recently used one
+    private final LinkedHashMap<Long, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long characters = 0;
+    private long version = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long invalidations = 0;
+
+    /**
+     * Constructor method for RenderCache using the default bounds
+     */
+    public RenderCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_CHARACTERS);
+    }
+
+    /**
+     * Constructor method for RenderCache
+     * @param maxEntries The most entries held
+     * @param maxCharacters The most characters held across all entries, text longer than this is never cached
+     */
+    public RenderCache(int maxEntries, long maxCharacters) {
+        this.maxEntries = maxEntries;
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Method that returns cached text
+     * @param kind {@link #POST} or {@link #THREAD}
+     * @param id The int ID of the Post
+     * @return Returns the cached text, or null if it is not cached
+     */
+    synchronized String get(int kind, int id) {
+        String text = entries.get(key(kind, id));
+        if (text == null) misses++;
+        else hits++;
+        return text;
+    }
+
+    /**
+     * Method that returns the current version, which must be read before rendering text to be cached
+     * @return Returns the long version
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Method that caches rendered text, evicting the least recently used entries to stay within the bounds.
+     * Nothing is stored if anything has been invalidated since the text started being rendered
+     * @param kind {@link #POST} or {@link #THREAD}
+     * @param id The int ID of the Post
+     * @param text The rendered text
+     * @param renderedVersion The version read by {@link #getVersion()} before rendering started
+     */
+    synchronized void put(int kind, int id, String text, long renderedVersion) {
+        if (renderedVersion != version || maxEntries <= 0 || text.length() > maxCharacters) return;
+
+        String previous = entries.put(key(kind, id), text);
+        if (previous != null) characters -= previous.length();
+        characters += text.length();
+
+        Iterator<Map.Entry<Long, String>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries || characters > maxCharacters) {
+            characters -= eldest.next().getValue().length();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Method that removes everything cached for a Post, and the cached thread of every Post above it
+     * @param post The Post that is changing or has changed
+     */
+    synchronized void invalidate(Post post) {
+        version++;
+
+        remove(key(POST, post.getID()));
+        remove(key(THREAD, post.getID()));
+
+        Post parent = post instanceof Comment comment ? comment.getParentPost() : null;
+        while (parent != null) {
+            remove(key(THREAD, parent.getID()));
+            parent = parent instanceof Comment comment ? comment.getParentPost() : null;
+        }
+    }
+
+    /**
+     * Method that empties the cache. The metrics are kept
+     */
+    public synchronized void clear() {
+        version++;
+        entries.clear();
+        characters = 0;
+    }
+
+    /**
+     * Method that removes a single entry
+     * @param key The long key of the entry
+     */
+    private void remove(long key) {
+        String text = entries.remove(key);
+        if (text != null) {
+            characters -= text.length();
+            invalidations++;
+        }
+    }
+
+    /**
+     * Method that builds the key of an entry
+     * @param kind {@link #POST} or {@link #THREAD}
+     * @param id The int ID of the Post
+     * @return Returns the long key
+     */
+    private static long key(int kind, int id) {
+        return ((long) kind << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Method that returns the number of lookups that found cached text
+     * @return Returns the long number of hits
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Method that returns the number of lookups that found nothing
+     * @return Returns the long number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Method that returns the number of entries removed to stay within the bounds
+     * @return Returns the long number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Method that returns the number of entries removed because their Post changed
+     * @return Returns the long number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Method that returns the number of entries held
+     * @return Returns the int number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Method that returns the number of characters held across all entries
+     * @return Returns the long number of characters
+     */
+    public synchronized long getCharacters() {
+        return characters;
+    }
+}
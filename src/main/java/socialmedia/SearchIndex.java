@@ -0,0 +1,696 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * The SearchIndex Class.
+ * An inverted index of the words in the messages of every Original and Comment, used by
+ * {@link SocialMedia#searchPosts(String, int)}
+ *
+ * Messages are split into lower case terms of letters and digits. Each term has a posting list: the IDs of the Posts
+ * using it in ID order, each with the positions the term appears at, all written as variable length deltas so most
+ * numbers take a single byte. New Posts are added to an open segment; once it holds {@link #SEGMENT_SIZE} Posts it is
+ * sealed into sorted arrays, and sealed segments of similar size are merged, so there are only ever a few segments.
+ * Post IDs are given out in creation order, so each segment covers a range of IDs after the one before it and
+ * merging two segments appends their posting lists. Deleted Posts are left out whenever their segment is rewritten,
+ * which also happens once a quarter of a segment has been deleted.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+class SearchIndex {
+
+    // Posts added to the open segment before it is sealed
+    static final int SEGMENT_SIZE = 1024;
+
+    private final Platform platform;
+
+    // Sealed segments in ID order, then the open segment new Posts are added to
+    private final ArrayList<Segment> segments = new ArrayList<>();
+    private Segment open = new Segment();
+
+    // Reused while adding a Post
+    private final ArrayList<String> terms = new ArrayList<>();
+
+    /**
+     * Constructor method for SearchIndex, which indexes every Original and Comment already in the Platform
+     * @param platform The Platform whose Posts are indexed
+     */
+    SearchIndex(Platform platform) {
+        this.platform = platform;
+
+        int lastPostID = Post.getUniqueID();
+        for (int id = 1; id <= lastPostID; id++) {
+            Post post = platform.getPost(id);
+            if (post != null && !(post instanceof Endorsement)) add(post);
+        }
+    }
+
+    /**
+     * Method that adds a new Post to the index. Posts must be added in ID order
+     * @param post The Original or Comment that has just been added to the Platform
+     */
+    void add(Post post) {
+        if (post.getHandle() == null) return;
+
+        tokenize(post instanceof Original original ? original.getMessage() : ((Comment) post).getMessage(), terms);
+        open.add(post.getID(), terms);
+
+        if (open.posts >= SEGMENT_SIZE) {
+            open.seal();
+            segments.add(open);
+            open = new Segment();
+
+            // Merging whenever the newest segment is at least half the size of the one before it keeps sizes doubling
+            while (segments.size() > 1) {
+                Segment last = segments.get(segments.size() - 1);
+                Segment previous = segments.get(segments.size() - 2);
+                if (last.posts * 2 < previous.posts) break;
+
+                segments.remove(segments.size() - 1);
+                segments.set(segments.size() - 1, merge(previous, last));
+            }
+        }
+    }
+
+    /**
+     * Method that records a Post has been deleted, rewriting its segment without the deleted Posts
+     * once a quarter of them have been deleted
+     * @param post The Original or Comment that has just been deleted
+     */
+    void remove(Post post) {
+        int index = segmentOf(post.getID());
+        if (index < 0) {
+            open.deleted++;
+            return;
+        }
+
+        Segment segment = segments.get(index);
+        segment.deleted++;
+        if (segment.deleted * 4 > segment.posts) segments.set(index, merge(segment, Segment.sealed()));
+    }
+
+    /**
+     * Method that finds the Posts matching a query and returns the most endorsed of them.
+     * The query is a list of clauses which must all match. A clause is a word, or a "quoted phrase" whose words
+     * must appear next to each other in order, or several of these joined by OR, any of which may match.
+     * A clause starting with - must not match
+     * @param query The String query
+     * @param k The most Post IDs returned
+     * @return Returns an int array of Post IDs, with the most endorsed first and newer Posts first among equals
+     */
+    int[] search(String query, int k) {
+        int[] matches = null;
+        int[] excluded = new int[0];
+
+        for (Clause clause : parse(query)) {
+            int[] docs = new int[0];
+            for (String[] item : clause.items) docs = union(docs, item.length == 1 ? term(item[0]) : phrase(item));
+
+            if (clause.negated) excluded = union(excluded, docs);
+            else matches = matches == null ? docs : intersect(matches, docs);
+        }
+        if (matches == null || k <= 0) return new int[0];
+
+        // The k best Posts are kept in a heap with the worst of them on top
+        PriorityQueue<long[]> best = new PriorityQueue<>(Math.min(k, matches.length) + 1, (a, b) -> a[0] != b[0]
+                ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        int skip = 0;
+        for (int id : matches) {
+            while (skip < excluded.length && excluded[skip] < id) skip++;
+            if (skip < excluded.length && excluded[skip] == id) continue;
+
+            Post post = platform.getPost(id);
+            if (post == null || post.getHandle() == null) continue;
+
+            int endorsements = post instanceof Original original ? original.getNumberOfEndorsements()
+                    : ((Comment) post).getNumberOfEndorsements();
+            best.add(new long[]{endorsements, id});
+            if (best.size() > k) best.poll();
+        }
+
+        int[] results = new int[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) results[i] = (int) best.poll()[1];
+        return results;
+    }
+
+    /**
+     * Method that returns every Post using a term
+     * @param term The lower case term
+     * @return Returns a sorted int array of Post IDs
+     */
+    private int[] term(String term) {
+        IntBuffer docs = new IntBuffer();
+        PostingsReader reader = new PostingsReader();
+
+        for (Segment segment : allSegments()) {
+            if (!segment.read(term, reader)) continue;
+            for (int doc = reader.nextDoc(); doc != 0; doc = reader.nextDoc()) docs.add(doc);
+        }
+        return docs.toArray();
+    }
+
+    /**
+     * Method that returns every Post using the terms of a phrase next to each other in order
+     * @param phrase The lower case terms of the phrase
+     * @return Returns a sorted int array of Post IDs
+     */
+    private int[] phrase(String[] phrase) {
+        IntBuffer docs = new IntBuffer();
+        PostingsReader[] readers = new PostingsReader[phrase.length];
+        for (int i = 0; i < readers.length; i++) readers[i] = new PostingsReader();
+
+        segments:
+        for (Segment segment : allSegments()) {
+            for (int i = 0; i < phrase.length; i++) {
+                if (!segment.read(phrase[i], readers[i])) continue segments;
+            }
+
+            // Every reader is moved on to the first term's next Post until they all agree on one
+            for (int doc = readers[0].nextDoc(); doc != 0; doc = readers[0].nextDoc()) {
+                boolean all = true;
+                for (int i = 1; i < readers.length && all; i++) {
+                    int other = readers[i].advance(doc);
+                    if (other == 0) continue segments;
+                    all = other == doc;
+                }
+
+                if (all && adjacent(readers)) docs.add(doc);
+            }
+        }
+        return docs.toArray();
+    }
+
+    /**
+     * Method that checks whether the terms read by each reader appear next to each other in order in the current Post
+     * @param readers The PostingsReaders of each term of the phrase, all on the same Post
+     * @return Returns true if there is a position where the whole phrase appears
+     */
+    private static boolean adjacent(PostingsReader[] readers) {
+        PostingsReader first = readers[0];
+
+        for (int p = 0; p < first.frequency; p++) {
+            int start = first.positions[p];
+            boolean found = true;
+            for (int i = 1; i < readers.length && found; i++) {
+                found = Arrays.binarySearch(readers[i].positions, 0, readers[i].frequency, start + i) >= 0;
+            }
+            if (found) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Method that returns the sealed segments followed by the open one
+     * @return Returns an ArrayList of every Segment in ID order
+     */
+    private ArrayList<Segment> allSegments() {
+        ArrayList<Segment> all = new ArrayList<>(segments);
+        all.add(open);
+        return all;
+    }
+
+    /**
+     * Method that finds the sealed segment holding a Post ID
+     * @param id The int ID of the Post
+     * @return Returns the index of the Segment, or -1 if the ID is after every sealed segment
+     */
+    private int segmentOf(int id) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (segments.get(middle).lastID < id) low = middle + 1;
+            else high = middle - 1;
+        }
+        return low < segments.size() ? low : -1;
+    }
+
+    /**
+     * Method that merges two sealed segments into one, leaving out every deleted Post
+     * @param older The Segment covering the lower IDs
+     * @param newer The Segment covering the higher IDs, which may be empty
+     * @return Returns the new sealed Segment
+     */
+    private Segment merge(Segment older, Segment newer) {
+        ArrayList<String> mergedTerms = new ArrayList<>(older.terms.length + newer.terms.length);
+        ArrayList<byte[]> mergedPostings = new ArrayList<>(older.terms.length + newer.terms.length);
+
+        // Both term arrays are sorted, so they are merged by walking them together
+        PostingsReader reader = new PostingsReader();
+        int i = 0;
+        int j = 0;
+        while (i < older.terms.length || j < newer.terms.length) {
+            int order = i == older.terms.length ? 1 : j == newer.terms.length ? -1 : older.terms[i].compareTo(newer.terms[j]);
+
+            PostingsWriter writer = new PostingsWriter();
+            if (order <= 0) copyLive(reader.reset(older.postings[i]), writer);
+            if (order >= 0) copyLive(reader.reset(newer.postings[j]), writer);
+
+            if (writer.length > 0) {
+                mergedTerms.add(order <= 0 ? older.terms[i] : newer.terms[j]);
+                mergedPostings.add(writer.toArray());
+            }
+            if (order <= 0) i++;
+            if (order >= 0) j++;
+        }
+
+        Segment merged = Segment.sealed();
+        merged.terms = mergedTerms.toArray(new String[0]);
+        merged.postings = mergedPostings.toArray(new byte[0][]);
+        merged.lastID = Math.max(older.lastID, newer.lastID);
+
+        // Only Posts with at least one term are counted, deleted ones have now gone
+        merged.posts = older.posts + newer.posts - older.deleted - newer.deleted;
+        return merged;
+    }
+
+    /**
+     * Method that copies every Post that has not been deleted from one posting list to another
+     * @param reader The PostingsReader of the list to copy from
+     * @param writer The PostingsWriter to copy to
+     */
+    private void copyLive(PostingsReader reader, PostingsWriter writer) {
+        for (int doc = reader.nextDoc(); doc != 0; doc = reader.nextDoc()) {
+            Post post = platform.getPost(doc);
+            if (post != null && post.getHandle() != null) writer.add(doc, reader.positions, reader.frequency);
+        }
+    }
+
+    /**
+     * Method that splits a message into lower case terms of letters and digits
+     * @param message The String message
+     * @param terms The ArrayList the terms are written to in order, emptied first
+     */
+    static void tokenize(String message, ArrayList<String> terms) {
+        terms.clear();
+        if (message == null) return;
+
+        int start = -1;
+        for (int i = 0; i <= message.length(); i++) {
+            boolean word = i < message.length() && Character.isLetterOrDigit(message.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                terms.add(message.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+    }
+
+    /**
+     * Method that splits a query into its clauses
+     * @param query The String query
+     * @return Returns an ArrayList of the Clauses
+     */
+    private static ArrayList<Clause> parse(String query) {
+        ArrayList<Clause> clauses = new ArrayList<>();
+        ArrayList<String> terms = new ArrayList<>();
+        Clause clause = null;
+        boolean or = false;
+
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            boolean negated = false;
+            if (c == '-') {
+                negated = true;
+                i++;
+            }
+
+            // An item is a quoted phrase or runs up to the next space
+            int end;
+            String text;
+            if (i < query.length() && query.charAt(i) == '"') {
+                end = query.indexOf('"', i + 1);
+                if (end < 0) end = query.length();
+                text = query.substring(i + 1, end);
+                end++;
+            } else {
+                end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end))) end++;
+                text = query.substring(i, end);
+            }
+            i = end;
+
+            if (!negated && text.equals("OR")) {
+                or = clause != null;
+                continue;
+            }
+
+            tokenize(text, terms);
+            if (terms.isEmpty()) continue;
+
+            if (!or || clause == null) {
+                clause = new Clause(negated);
+                clauses.add(clause);
+            }
+            clause.items.add(terms.toArray(new String[0]));
+            or = false;
+        }
+        return clauses;
+    }
+
+    /**
+     * Method that returns the sorted IDs found in either of two sorted arrays
+     * @param a The first sorted int array
+     * @param b The second sorted int array
+     * @return Returns the sorted union
+     */
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) result[count++] = a[i++];
+            else if (i == a.length || b[j] < a[i]) result[count++] = b[j++];
+            else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Method that returns the sorted IDs found in both of two sorted arrays
+     * @param a The first sorted int array
+     * @param b The second sorted int array
+     * @return Returns the sorted intersection
+     */
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (b[j] < a[i]) j++;
+            else {
+                result[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Method that returns the number of sealed segments, used for testing
+     * @return Returns the int number of sealed segments
+     */
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Method that returns the number of bytes used by every posting list, used for testing
+     * @return Returns the long number of bytes
+     */
+    long getPostingBytes() {
+        long bytes = 0;
+        for (Segment segment : allSegments()) {
+            if (segment.open != null) {
+                for (PostingsWriter writer : segment.open.values()) bytes += writer.length;
+            } else {
+                for (byte[] posting : segment.postings) bytes += posting.length;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The Clause Class.
+     * Part of a query: one or more words or phrases of which at least one must match, or must not match if negated
+     */
+    private static final class Clause {
+
+        private final boolean negated;
+        private final ArrayList<String[]> items = new ArrayList<>();
+
+        /**
+         * Constructor method for Clause
+         * @param negated Whether Posts matching the clause are left out
+         */
+        private Clause(boolean negated) {
+            this.negated = negated;
+        }
+    }
+
+    /**
+     * The Segment Class.
+     * The posting lists of a range of Posts. While open, new Posts are added to a HashMap of writers;
+     * once sealed the terms are held in a sorted array, each with its posting list as a byte array
+     */
+    private static final class Segment {
+
+        private HashMap<String, PostingsWriter> open = new HashMap<>();
+        private String[] terms;
+        private byte[][] postings;
+
+        // Number of Posts added, and how many of them have since been deleted
+        private int posts;
+        private int deleted;
+        private int lastID;
+
+        // Reused while adding a Post
+        private final HashMap<String, IntBuffer> positions = new HashMap<>();
+
+        /**
+         * Method that creates an empty sealed segment
+         * @return Returns the new Segment
+         */
+        static Segment sealed() {
+            Segment segment = new Segment();
+            segment.open = null;
+            segment.terms = new String[0];
+            segment.postings = new byte[0][];
+            return segment;
+        }
+
+        /**
+         * Method that adds a Post to the open segment
+         * @param id The int ID of the Post, higher than any already added
+         * @param terms The terms of the Post's message in order
+         */
+        void add(int id, ArrayList<String> terms) {
+            positions.clear();
+            for (int i = 0; i < terms.size(); i++) positions.computeIfAbsent(terms.get(i), t -> new IntBuffer()).add(i);
+
+            for (HashMap.Entry<String, IntBuffer> entry : positions.entrySet()) {
+                IntBuffer termPositions = entry.getValue();
+                open.computeIfAbsent(entry.getKey(), t -> new PostingsWriter())
+                        .add(id, termPositions.values, termPositions.size);
+            }
+
+            posts++;
+            lastID = id;
+        }
+
+        /**
+         * Method that turns the HashMap of writers into the sorted arrays of a sealed segment
+         */
+        void seal() {
+            terms = open.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+
+            postings = new byte[terms.length][];
+            for (int i = 0; i < terms.length; i++) postings[i] = open.get(terms[i]).toArray();
+
+            open = null;
+            positions.clear();
+        }
+
+        /**
+         * Method that points a reader at the posting list of a term
+         * @param term The lower case term
+         * @param reader The PostingsReader to reset
+         * @return Returns true if the segment has Posts using the term
+         */
+        boolean read(String term, PostingsReader reader) {
+            if (open != null) {
+                PostingsWriter writer = open.get(term);
+                if (writer == null) return false;
+                reader.reset(writer.bytes, writer.length);
+                return true;
+            }
+
+            int index = Arrays.binarySearch(terms, term);
+            if (index < 0) return false;
+            reader.reset(postings[index]);
+            return true;
+        }
+    }
+
+    /**
+     * The PostingsWriter Class.
+     * Writes a posting list: for each Post, the gap from the previous Post ID, the number of positions,
+     * then the gaps between positions, each as a variable length int of 7 bits per byte
+     */
+    private static final class PostingsWriter {
+
+        private byte[] bytes = new byte[8];
+        private int length = 0;
+        private int lastID = 0;
+
+        /**
+         * Method that adds a Post to the end of the list
+         * @param id The int ID of the Post, higher than the last one written
+         * @param positions The positions the term appears at, in ascending order
+         * @param count The number of positions
+         */
+        void add(int id, int[] positions, int count) {
+            writeVarInt(id - lastID);
+            writeVarInt(count);
+            int last = 0;
+            for (int i = 0; i < count; i++) {
+                writeVarInt(positions[i] - last);
+                last = positions[i];
+            }
+            lastID = id;
+        }
+
+        /**
+         * Method that writes an unsigned int in as few bytes as possible
+         * @param value The int to write, which must not be negative
+         */
+        private void writeVarInt(int value) {
+            if (length + 5 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        /**
+         * Method that copies the list into an array of exactly its size
+         * @return Returns the byte array
+         */
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * The PostingsReader Class.
+     * Reads a posting list written by a {@link PostingsWriter} one Post at a time
+     */
+    private static final class PostingsReader {
+
+        private byte[] bytes;
+        private int length;
+        private int offset;
+        private int doc;
+
+        // The positions of the term in the current Post
+        private int[] positions = new int[8];
+        private int frequency;
+
+        /**
+         * Method that starts reading a new posting list
+         * @param bytes The byte array of the list
+         * @return Returns this PostingsReader
+         */
+        PostingsReader reset(byte[] bytes) {
+            return reset(bytes, bytes.length);
+        }
+
+        /**
+         * Method that starts reading a new posting list
+         * @param bytes The byte array holding the list
+         * @param length The number of bytes used
+         * @return Returns this PostingsReader
+         */
+        PostingsReader reset(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+            this.offset = 0;
+            this.doc = 0;
+            this.frequency = 0;
+            return this;
+        }
+
+        /**
+         * Method that moves on to the next Post in the list, reading its positions
+         * @return Returns the int ID of the Post, or 0 at the end of the list
+         */
+        int nextDoc() {
+            if (offset >= length) return 0;
+
+            doc += readVarInt();
+            frequency = readVarInt();
+            if (frequency > positions.length) positions = new int[Math.max(frequency, positions.length * 2)];
+
+            int last = 0;
+            for (int i = 0; i < frequency; i++) {
+                last += readVarInt();
+                positions[i] = last;
+            }
+            return doc;
+        }
+
+        /**
+         * Method that moves on to the first Post with an ID of at least target, unless already there
+         * @param target The int ID to move to
+         * @return Returns the int ID of the Post now read, or 0 at the end of the list
+         */
+        int advance(int target) {
+            if (doc >= target) return doc;
+            int next;
+            do {
+                next = nextDoc();
+            } while (next != 0 && next < target);
+            return next;
+        }
+
+        /**
+         * Method that reads an int written by {@link PostingsWriter#writeVarInt(int)}
+         * @return Returns the int value
+         */
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    /**
+     * The IntBuffer Class.
+     * A growable array of ints in the order they were added
+     */
+    private static final class IntBuffer {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        /**
+         * Method that adds an int to the end of the buffer
+         * @param value The int to add
+         */
+        void add(int value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        /**
+         * Method that copies the values into an array of exactly their size
+         * @return Returns the int array
+         */
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
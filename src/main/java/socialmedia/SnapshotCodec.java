@@ -0,0 +1,435 @@
+package socialmedia;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * The SnapshotCodec Class.
+ * This converts Accounts and Posts to and from the flat records that make up a platform snapshot
+ *
+ * A snapshot is made of three sections, each followed by the CRC32 of its bytes: the header, holding the
+ * {@link #MAGIC} bytes and the counter variables, then every Account, then every Post in ID order.
+ * The Account and Post sections end with {@link #END}. The footer written by {@link SnapshotFiles} records
+ * the same CRC32s. Snapshots written before sections were added have no CRC32s or footer.
+ * Each record only holds the IDs of the Posts it refers to, so the links between objects
+ * are rebuilt when the snapshot is read. An Account that follows others is written as a {@link #FOLLOWING_ACCOUNT}
+ * record, which adds the IDs of the Accounts it follows, so snapshots of Accounts that follow nobody are unchanged.
+ * In the same way, a Post whose creation time is known is written with the lower case form of its tag and the time
+ */
+final class SnapshotCodec {
+
+    // Bytes that identify a record snapshot, "SMR1"
+    static final byte[] MAGIC = {'S', 'M', 'R', '1'};
+
+    // Tags written before each record
+    static final byte END = 0;
+    static final byte ACCOUNT = 'A';
+    static final byte FOLLOWING_ACCOUNT = 'F';
+    static final byte ORIGINAL = 'O';
+    static final byte COMMENT = 'C';
+    static final byte ENDORSEMENT = 'E';
+
+    // Tags of Posts whose creation time is known, which is written at the end of the record
+    static final byte TIMED_ORIGINAL = 'o';
+    static final byte TIMED_COMMENT = 'c';
+    static final byte TIMED_ENDORSEMENT = 'e';
+
+    private SnapshotCodec() {
+    }
+
+    /**
+     * Method that encodes the snapshot header, holding the current values of every counter variable
+     * @return Returns the bytes of the header
+     */
+    static byte[] encodeHeader() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.write(MAGIC);
+            out.writeInt(Account.getNumberOfAccounts());
+            out.writeInt(Post.getNumberOfPosts());
+            out.writeInt(Endorsement.getNumberOfEndorsements());
+            out.writeInt(Comment.getTotalNumberOfComments());
+            out.writeInt(Original.getNumberOfPosts());
+            out.writeInt(Post.getUniqueID());
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Method that encodes an Account or Post as a single record
+     * @param entity The Account, Original, Comment or Endorsement to encode
+     * @return Returns the bytes of the record
+     */
+    static byte[] encode(Object entity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+        try {
+            write(new DataOutputStream(bytes), entity);
+        } catch (IOException e) {
+            // A ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Method that writes an Account or Post as a single record
+     * @param out The DataOutput the record is written to
+     * @param entity The Account, Original, Comment or Endorsement to write
+     * @throws IOException If the record could not be written
+     */
+    static void write(DataOutput out, Object entity) throws IOException {
+
+        if (entity instanceof Account account) {
+
+            IntList following = account.getFollowing();
+
+            out.writeByte(following.isEmpty() ? ACCOUNT : FOLLOWING_ACCOUNT);
+            out.writeInt(account.getNUMERICAL_IDENTIFIER());
+            writeString(out, account.getHandle());
+            writeString(out, account.getDescription());
+            out.writeInt(account.getTotalEndorsementsReceived());
+            out.writeInt(account.getTotalPosts());
+
+            if (!following.isEmpty()) {
+                out.writeInt(following.size());
+                for (int i = 0; i < following.size(); i++) out.writeInt(following.get(i));
+            }
+
+        } else if (entity instanceof Original original) {
+
+            out.writeByte(original.getTimestamp() == 0 ? ORIGINAL : TIMED_ORIGINAL);
+            out.writeInt(original.getID());
+            writeString(out, original.getHandle());
+            writeString(out, original.getMessage());
+            out.writeInt(original.getNumberOfEndorsements());
+            out.writeInt(original.getNumberOfComments());
+            out.writeBoolean(original.isActionable());
+            if (original.getTimestamp() != 0) out.writeLong(original.getTimestamp());
+
+        } else if (entity instanceof Comment comment) {
+
+            out.writeByte(comment.getTimestamp() == 0 ? COMMENT : TIMED_COMMENT);
+            out.writeInt(comment.getID());
+            writeString(out, comment.getHandle());
+            out.writeInt(comment.getParentPost().getID());
+            writeString(out, comment.getMessage());
+            out.writeInt(comment.getNumberOfEndorsements());
+            out.writeInt(comment.getNumberOfComments());
+            out.writeBoolean(comment.isActionable());
+            if (comment.getTimestamp() != 0) out.writeLong(comment.getTimestamp());
+
+        } else if (entity instanceof Endorsement endorsement) {
+
+            // A deleted Endorsement no longer refers to a Post, so 0 is written instead
+            Post endorsedPost = endorsement.getEndorsedPost();
+
+            out.writeByte(endorsement.getTimestamp() == 0 ? ENDORSEMENT : TIMED_ENDORSEMENT);
+            out.writeInt(endorsement.getID());
+            writeString(out, endorsement.getHandle());
+            out.writeInt(endorsedPost == null ? 0 : endorsedPost.getID());
+            writeString(out, endorsement.getMessage());
+            if (endorsement.getTimestamp() != 0) out.writeLong(endorsement.getTimestamp());
+
+        } else {
+            throw new IllegalArgumentException("Cannot encode " + entity);
+        }
+    }
+
+    /**
+     * Method that reads the sections of a snapshot, checking each against its CRC32 and the footer,
+     * and rebuilds the Platform it was taken from.
+     * The counter variables are stored in the new Platform, ready for {@link Platform#loadCounters()}
+     * @param stream The uncompressed payload of the snapshot
+     * @param footer The Footer read from the snapshot file
+     * @return Returns the restored Platform
+     * @throws CorruptSnapshotException If a section fails its checksum or does not match the footer
+     * @throws IOException If the snapshot is truncated or malformed
+     */
+    static Platform readSections(InputStream stream, SnapshotFiles.Footer footer) throws IOException {
+
+        if (footer.sections().size() != 3) throw new CorruptSnapshotException("Snapshot has an unexpected number of sections");
+
+        // The CRC32 covers exactly the bytes read through the DataInputStream
+        CRC32 crc = new CRC32();
+        DataInputStream in = new DataInputStream(new CheckedInputStream(stream, crc));
+
+        Platform platform = new Platform();
+        readHeader(in, platform);
+        checkSection(in, crc, footer.sections().get(0), 1);
+
+        long accounts = 0;
+        HashMap<Integer, Post> posts = new HashMap<>();
+
+        for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+            readRecord(in, tag, platform, posts);
+            accounts += 1;
+        }
+        checkSection(in, crc, footer.sections().get(1), accounts);
+
+        for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+            readRecord(in, tag, platform, posts);
+        }
+        checkSection(in, crc, footer.sections().get(2), posts.size());
+
+        platform.linkFollowers();
+        platform.linkThreads();
+        return platform;
+    }
+
+    /**
+     * Method that reads the CRC32 stored after a section and checks it and the record count against the footer
+     * @param in The DataInput positioned just after the section
+     * @param crc The CRC32 of the bytes of the section, reset afterwards
+     * @param section The Section recorded in the footer
+     * @param records The number of records read from the section
+     * @throws CorruptSnapshotException If the section does not match its CRC32 or the footer
+     * @throws IOException If the CRC32 could not be read
+     */
+    private static void checkSection(DataInput in, CRC32 crc, SnapshotFiles.Section section, long records)
+            throws IOException {
+
+        int actual = (int) crc.getValue();
+        int stored = in.readInt();
+
+        if (stored != actual || section.crc() != actual) {
+            throw new CorruptSnapshotException("Section " + (char) section.tag() + " failed its checksum");
+        }
+        if (section.records() != records) {
+            throw new CorruptSnapshotException("Section " + (char) section.tag() + " is missing records");
+        }
+
+        crc.reset();
+    }
+
+    /**
+     * Method that reads a whole snapshot written without sections, and rebuilds the Platform it was taken from.
+     * The counter variables are stored in the new Platform, ready for {@link Platform#loadCounters()}
+     * @param in The DataInput positioned at the start of the snapshot
+     * @return Returns the restored Platform
+     * @throws IOException If the snapshot is truncated or malformed
+     */
+    static Platform read(DataInput in) throws IOException {
+
+        Platform platform = new Platform();
+        readHeader(in, platform);
+
+        // Every Post read so far, so later records can be linked to the Posts they refer to
+        HashMap<Integer, Post> posts = new HashMap<>();
+
+        for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+            readRecord(in, tag, platform, posts);
+        }
+
+        platform.linkFollowers();
+        platform.linkThreads();
+        return platform;
+    }
+
+    /**
+     * Method that rebuilds a Platform from the records held by a StorageEngine.
+     * The counter variables are stored in the new Platform, ready for {@link Platform#loadCounters()}
+     * @param storage The StorageEngine holding the records
+     * @return Returns the restored Platform
+     * @throws IOException If a record could not be read or is malformed
+     */
+    static Platform read(StorageEngine storage) throws IOException {
+
+        byte[] header = storage.get(StorageEngine.HEADER_KEY);
+        if (header == null) throw new StreamCorruptedException("Storage has no header record");
+
+        Platform platform = new Platform();
+        readHeader(new DataInputStream(new ByteArrayInputStream(header)), platform);
+
+        HashMap<Integer, Post> posts = new HashMap<>();
+
+        // Account keys sort before Post keys, and Post keys are in ID order
+        for (long key : storage.keys()) {
+            if (key == StorageEngine.HEADER_KEY) continue;
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(storage.get(key)));
+            readRecord(in, in.readByte(), platform, posts);
+
+            // Messages are left in the storage as each Post is read, so they are never all held in memory at once
+            Post post = posts.get((int) key);
+            if (post != null && key == StorageEngine.postKey(post.getID())) post.pageOut(storage);
+        }
+
+        platform.linkFollowers();
+        platform.linkThreads();
+        return platform;
+    }
+
+    /**
+     * Method that reads only the message of a Post from its record, without restoring the Post
+     * @param record The bytes of an Original, Comment or Endorsement record
+     * @return Returns the String message, or null if it was written as null
+     * @throws IOException If the record is truncated or is not a Post
+     */
+    static String readMessage(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte tag = in.readByte();
+
+        // Every Post record starts with its ID and handle, and Comments and Endorsements then the ID they refer to
+        in.readInt();
+        readString(in);
+        switch (tag) {
+            case ORIGINAL, TIMED_ORIGINAL -> { }
+            case COMMENT, TIMED_COMMENT, ENDORSEMENT, TIMED_ENDORSEMENT -> in.readInt();
+            default -> throw new StreamCorruptedException("Not a post record " + tag);
+        }
+        return readString(in);
+    }
+
+    /**
+     * Method that reads the snapshot header and stores the counter variables in the Platform
+     * @param in The DataInput positioned at the start of the header
+     * @param platform The Platform being restored
+     * @throws IOException If the header is truncated or malformed
+     */
+    static void readHeader(DataInput in, Platform platform) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new StreamCorruptedException("Not a platform snapshot");
+
+        platform.setCounters(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * Method that reads a single record and adds it to the Platform, linking it to the objects it refers to
+     * @param in The DataInput positioned just after the record's tag
+     * @param tag The byte tag of the record
+     * @param platform The Platform being restored
+     * @param posts HashMap of every Post restored so far by ID
+     * @throws IOException If the record is truncated or malformed
+     */
+    static void readRecord(DataInput in, byte tag, Platform platform, HashMap<Integer, Post> posts)
+            throws IOException {
+
+        switch (tag) {
+
+            case ACCOUNT, FOLLOWING_ACCOUNT -> {
+                Account account = new Account(in.readInt(), readString(in), readString(in), in.readInt(), in.readInt());
+
+                // Followers are linked once every Account has been read, by Platform.linkFollowers()
+                if (tag == FOLLOWING_ACCOUNT) {
+                    int count = in.readInt();
+                    if (count < 0) throw new StreamCorruptedException("Invalid following count " + count);
+                    for (int i = 0; i < count; i++) account.getFollowing().add(in.readInt());
+                }
+
+                platform.addAccount(account.getHandle(), account);
+            }
+
+            case ORIGINAL, TIMED_ORIGINAL -> {
+                Original original = new Original(in.readInt(), readString(in), readString(in), in.readInt(),
+                        in.readInt(), in.readBoolean());
+                if (tag == TIMED_ORIGINAL) original.setTimestamp(in.readLong());
+
+                Account account = ownerOf(platform, original);
+                if (account != null) account.getOriginals().add(original);
+
+                platform.addOriginal(original);
+                posts.put(original.getID(), original);
+            }
+
+            case COMMENT, TIMED_COMMENT -> {
+                int id = in.readInt();
+                String handle = readString(in);
+                Post parent = posts.get(in.readInt());
+                if (parent == null) throw new StreamCorruptedException("Comment " + id + " refers to a missing post");
+
+                Comment comment = new Comment(id, handle, parent, readString(in), in.readInt(), in.readInt(),
+                        in.readBoolean());
+                if (tag == TIMED_COMMENT) comment.setTimestamp(in.readLong());
+
+                if (parent instanceof Endorsement) throw new StreamCorruptedException("Comment " + id + " refers to an endorsement");
+                parent.linkComment(comment);
+
+                Account account = ownerOf(platform, comment);
+                if (account != null) account.getComments().add(comment);
+
+                platform.addComment(comment);
+                posts.put(id, comment);
+            }
+
+            case ENDORSEMENT, TIMED_ENDORSEMENT -> {
+                int id = in.readInt();
+                String handle = readString(in);
+                Post endorsedPost = posts.get(in.readInt());
+
+                Endorsement endorsement = new Endorsement(id, handle, endorsedPost, readString(in));
+                if (tag == TIMED_ENDORSEMENT) endorsement.setTimestamp(in.readLong());
+
+                if (endorsedPost instanceof Original original) {
+                    original.getEndorsements().add(endorsement);
+                } else if (endorsedPost instanceof Comment comment) {
+                    comment.getEndorsements().add(endorsement);
+                }
+
+                Account account = ownerOf(platform, endorsement);
+                if (account != null) account.getEndorsements().add(endorsement);
+
+                platform.addEndorsement(endorsement);
+                posts.put(id, endorsement);
+            }
+
+            default -> throw new StreamCorruptedException("Unknown record tag " + tag);
+        }
+    }
+
+    /**
+     * Method that finds the Account that made a restored Post
+     * @param platform The Platform being restored
+     * @param post The restored Post
+     * @return Returns the Account, or null if the Post has been deleted
+     */
+    private static Account ownerOf(Platform platform, Post post) {
+        if (post.getHandle() == null) return null;
+        return platform.getAccount(post.getHandle());
+    }
+
+    /**
+     * Method that writes a String that may be null, as its UTF-8 length followed by its bytes
+     * @param out The DataOutput the String is written to
+     * @param value The String to write, or null
+     * @throws IOException If the String could not be written
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Method that reads a String written by {@link #writeString(DataOutput, String)}
+     * @param in The DataInput the String is read from
+     * @return Returns the String, or null if null was written
+     * @throws IOException If the String is truncated or malformed
+     */
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) return null;
+        if (length < 0) throw new StreamCorruptedException("Invalid string length " + length);
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,304 @@
+package socialmedia;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The SnapshotFiles Class.
+ * This writes snapshot files so a crash can never leave a half-written file under the snapshot's name,
+ * and reads back the footer that proves a snapshot file is complete
+ *
+ * A snapshot is written to a temporary file next to its target, forced to disk, and then atomically
+ * renamed over the target. The file is made of the payload (the sections, compressed or not) followed
+ * by the footer: creation time, payload length, CRC32 of the payload as stored, and the tag, record count
+ * and CRC32 of each section. The footer ends with its own length, its CRC32 and the {@link #FOOTER_MAGIC} bytes,
+ * so it can be read from the end of the file without reading anything else
+ */
+final class SnapshotFiles {
+
+    // Bytes that end every snapshot with a footer, "SMF1"
+    static final byte[] FOOTER_MAGIC = {'S', 'M', 'F', '1'};
+
+    // Extension of the file a snapshot is written to before it is renamed
+    static final String TEMPORARY_EXTENSION = ".tmp";
+
+    // Footer length, footer CRC32 and magic bytes at the very end of the file
+    private static final int TRAILER_LENGTH = 12;
+
+    // Sections of a snapshot, in the order they are written
+    static final byte HEADER_SECTION = 'H';
+    static final byte ACCOUNTS_SECTION = 'A';
+    static final byte POSTS_SECTION = 'P';
+
+    private SnapshotFiles() {
+    }
+
+    /**
+     * A section of the payload as recorded in the footer
+     * @param tag The byte tag of the section
+     * @param records The number of records in the section
+     * @param crc The CRC32 of the section's uncompressed bytes
+     */
+    record Section(byte tag, long records, int crc) {
+    }
+
+    /**
+     * The footer of a snapshot file
+     * @param created The time the snapshot was started, in nanoseconds since the epoch
+     * @param payloadLength The number of bytes before the footer
+     * @param payloadCRC The CRC32 of the bytes before the footer
+     * @param sections The sections of the payload in order
+     */
+    record Footer(long created, long payloadLength, int payloadCRC, List<Section> sections) {
+    }
+
+    /**
+     * The Writer Class. Writes the payload of a snapshot section by section, then commits the file
+     */
+    static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temporary;
+        private final FileOutputStream fileOut;
+        private final CRC32 payloadCRC = new CRC32();
+        private final CRC32 sectionCRC = new CRC32();
+        private final ArrayList<Section> sections = new ArrayList<>();
+        private final long created;
+        private long payloadLength = 0;
+        private final BufferedOutputStream raw;
+        private final OutputStream body;
+        private boolean committed = false;
+
+        /**
+         * Constructor method for Writer, which creates the temporary file
+         * @param filename The file the snapshot will be committed to
+         * @param compressed Whether the payload is compressed
+         * @throws IOException If the temporary file could not be created
+         */
+        Writer(String filename, boolean compressed) throws IOException {
+            this.target = Paths.get(filename).toAbsolutePath();
+            this.temporary = target.resolveSibling(target.getFileName() + TEMPORARY_EXTENSION);
+            this.created = nanosSinceEpoch();
+            this.fileOut = new FileOutputStream(temporary.toFile());
+
+            // Every byte of the payload goes through this stream, so its length and CRC32 are known for the footer
+            this.raw = new BufferedOutputStream(new FilterOutputStream(fileOut) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    payloadCRC.update(b);
+                    payloadLength += 1;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    payloadCRC.update(b, off, len);
+                    payloadLength += len;
+                }
+            });
+
+            this.body = compressed ? new BlockDeflaterOutputStream(raw) : raw;
+        }
+
+        /**
+         * Method that writes bytes to the current section
+         * @param bytes The bytes to write
+         * @param length The number of bytes to write from the start of the array
+         * @throws IOException If the bytes could not be written
+         */
+        void write(byte[] bytes, int length) throws IOException {
+            body.write(bytes, 0, length);
+            sectionCRC.update(bytes, 0, length);
+        }
+
+        /**
+         * Method that ends the current section by writing its CRC32, and starts the next one
+         * @param tag The byte tag of the section being ended
+         * @param records The number of records in the section
+         * @throws IOException If the CRC32 could not be written
+         */
+        void endSection(byte tag, long records) throws IOException {
+            int crc = (int) sectionCRC.getValue();
+            sectionCRC.reset();
+
+            body.write(ByteBuffer.allocate(4).putInt(crc).array());
+            sections.add(new Section(tag, records, crc));
+        }
+
+        /**
+         * Method that writes the footer, forces the file to disk and atomically renames it to the target
+         * @throws IOException If the file could not be written or renamed
+         */
+        void commit() throws IOException {
+            if (body instanceof BlockDeflaterOutputStream compressedBody) compressedBody.finish();
+            raw.flush();
+
+            ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+            DataOutputStream footer = new DataOutputStream(footerBytes);
+            footer.writeLong(created);
+            footer.writeLong(payloadLength);
+            footer.writeInt((int) payloadCRC.getValue());
+            footer.writeInt(sections.size());
+            for (Section section : sections) {
+                footer.writeByte(section.tag());
+                footer.writeLong(section.records());
+                footer.writeInt(section.crc());
+            }
+
+            byte[] footerBody = footerBytes.toByteArray();
+            CRC32 footerCRC = new CRC32();
+            footerCRC.update(footerBody);
+
+            DataOutputStream out = new DataOutputStream(fileOut);
+            out.write(footerBody);
+            out.writeInt(footerBody.length);
+            out.writeInt((int) footerCRC.getValue());
+            out.write(FOOTER_MAGIC);
+            out.flush();
+
+            fileOut.getChannel().force(true);
+            fileOut.close();
+
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+
+            forceDirectory(target.getParent());
+        }
+
+        /**
+         * Method that closes the temporary file, deleting it if the snapshot was not committed
+         * @throws IOException If the file could not be closed
+         */
+        @Override
+        public void close() throws IOException {
+            if (committed) return;
+
+            fileOut.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Method that reads the footer of a snapshot file
+     * @param path The Path of the snapshot file
+     * @return Returns the Footer, or null if the file does not end with a footer (an older snapshot format)
+     * @throws CorruptSnapshotException If the file ends with a footer that fails its checksum
+     * @throws IOException If the file could not be read
+     */
+    static Footer readFooter(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size < TRAILER_LENGTH) return null;
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            readFully(channel, trailer, size - TRAILER_LENGTH);
+            trailer.flip();
+
+            int footerLength = trailer.getInt();
+            int footerCRC = trailer.getInt();
+            byte[] magic = new byte[FOOTER_MAGIC.length];
+            trailer.get(magic);
+
+            if (!Arrays.equals(magic, FOOTER_MAGIC)) return null;
+            if (footerLength < 0 || footerLength > size - TRAILER_LENGTH) {
+                throw new CorruptSnapshotException("Snapshot footer has an invalid length");
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate(footerLength);
+            readFully(channel, footer, size - TRAILER_LENGTH - footerLength);
+
+            CRC32 crc = new CRC32();
+            crc.update(footer.array());
+            if ((int) crc.getValue() != footerCRC) throw new CorruptSnapshotException("Snapshot footer failed its checksum");
+
+            footer.flip();
+            long created = footer.getLong();
+            long payloadLength = footer.getLong();
+            int payloadCRC = footer.getInt();
+            int count = footer.getInt();
+
+            ArrayList<Section> sections = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                sections.add(new Section(footer.get(), footer.getLong(), footer.getInt()));
+            }
+
+            if (payloadLength != size - TRAILER_LENGTH - footerLength) {
+                throw new CorruptSnapshotException("Snapshot payload length does not match its footer");
+            }
+
+            return new Footer(created, payloadLength, payloadCRC, sections);
+        }
+    }
+
+    /**
+     * Method that fully validates a snapshot file by checking the CRC32 of its whole payload against the footer
+     * @param path The Path of the snapshot file
+     * @param footer The Footer read from the file
+     * @throws CorruptSnapshotException If the payload does not match the footer
+     * @throws IOException If the file could not be read
+     */
+    static void verifyPayload(Path path, Footer footer) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+
+        try (InputStream in = new FileInputStream(path.toFile())) {
+            long remaining = footer.payloadLength();
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) throw new CorruptSnapshotException("Snapshot payload is truncated");
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+
+        if ((int) crc.getValue() != footer.payloadCRC()) throw new CorruptSnapshotException("Snapshot payload failed its checksum");
+    }
+
+    /**
+     * Method that forces a directory to disk so a rename inside it survives a crash.
+     * Not every platform allows this, in which case it is skipped
+     * @param directory The Path of the directory
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) return;
+
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform, the rename has still happened
+        }
+    }
+
+    /**
+     * Method that reads from a channel until the buffer is full
+     * @param channel The FileChannel to read from
+     * @param buffer The ByteBuffer to fill
+     * @param position The position in the file to start reading at
+     * @throws IOException If the file ends before the buffer is full
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new CorruptSnapshotException("Snapshot is truncated");
+            position += read;
+        }
+    }
+
+    /**
+     * Method that returns the current time with the best precision available
+     * @return Returns the long number of nanoseconds since the epoch
+     */
+    private static long nanosSinceEpoch() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+}
@@ -0,0 +1,31 @@
+package socialmedia;
+
+import java.io.IOException;
+
+/**
+ * SnapshotListener interface.
+ * Receives progress and completion of a snapshot written by {@link BackgroundSnapshot}.
+ * Methods are called on the thread writing the snapshot
+ */
+public interface SnapshotListener {
+
+    /**
+     * Called after each batch of records has been written
+     * @param written The number of Accounts and Post IDs written so far
+     * @param total The number of Accounts and Post IDs in the snapshot
+     */
+    default void onProgress(long written, long total) {
+    }
+
+    /**
+     * Called once the snapshot has been completely written and closed
+     * @param filename The file the snapshot was written to
+     */
+    void onComplete(String filename);
+
+    /**
+     * Called if the snapshot could not be written
+     * @param exception The IOException that stopped the snapshot
+     */
+    void onFailure(IOException exception);
+}
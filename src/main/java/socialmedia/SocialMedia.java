@@ -1,7 +1,16 @@
 package socialmedia;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
+import java.util.zip.ZipException;
 
 /**
  * The SocialMedia backend. This program provides a backend solution to the ECM1410 OOP CA3 2021 problem.
@@ -16,6 +25,15 @@ public class SocialMedia implements SocialMediaPlatform {
 
     public Platform platform;
 
+    // Snapshots saved to a file with this extension are compressed
+    public static final String COMPRESSED_EXTENSION = ".smz";
+
+    // Each thread formats posts and accounts in its own reused buffer
+    private final ThreadLocal<ViewFormatter> formatters = ThreadLocal.withInitial(ViewFormatter::new);
+
+    // The time posts are made at is read from this clock, which tests can replace
+    private Clock clock = Clock.systemUTC();
+
     /**
      * Social Media method
      * Generates a new, clean Platform object
@@ -44,7 +62,7 @@ public class SocialMedia implements SocialMediaPlatform {
     }
 
     @Override
-    public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+    public synchronized int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
 
         // Checks if handle is valid
         if (handle.equals("") || handle.length() > 30 || handle.contains(" ")) throw new InvalidHandleException();
@@ -58,13 +76,16 @@ public class SocialMedia implements SocialMediaPlatform {
         // Adds account to platform
         platform.addAccount(handle, newAccount);
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
         // Returns the id of the created account
         return newAccount.getNUMERICAL_IDENTIFIER();
 
     }
 
     @Override
-    public void removeAccount(int id) throws AccountIDNotRecognisedException {
+    public synchronized void removeAccount(int id) throws AccountIDNotRecognisedException {
 
         // Finds the account with the corresponding Id
         for (Account i : platform.getAccounts().values()) {
@@ -73,9 +94,10 @@ public class SocialMedia implements SocialMediaPlatform {
 
                     //Removes all posts associated with account
 
-                    HashSet<Endorsement> endorsementsHashSet = i.getEndorsements();
-                    HashSet<Comment> commentHashSet = i.getComments();
-                    HashSet<Original> originalHashSet = i.getOriginals();
+                    // The sets are copied, as deleting a post removes it from the account's set
+                    ArrayList<Endorsement> endorsementsHashSet = new ArrayList<>(i.getEndorsements());
+                    ArrayList<Comment> commentHashSet = new ArrayList<>(i.getComments());
+                    ArrayList<Original> originalHashSet = new ArrayList<>(i.getOriginals());
 
                     for (Endorsement j : endorsementsHashSet) {
                         deletePost(j.getID());
@@ -105,7 +127,7 @@ public class SocialMedia implements SocialMediaPlatform {
     }
 
     @Override
-    public void removeAccount(String handle) throws HandleNotRecognisedException {
+    public synchronized void removeAccount(String handle) throws HandleNotRecognisedException {
 
         try {
 
@@ -117,9 +139,10 @@ public class SocialMedia implements SocialMediaPlatform {
 
             //Removes all posts associated with account
 
-            HashSet<Endorsement> endorsementsHashSet = account1.getEndorsements();
-            HashSet<Comment> commentHashSet = account1.getComments();
-            HashSet<Original> originalHashSet = account1.getOriginals();
+            // The sets are copied, as deleting a post removes it from the account's set
+            ArrayList<Endorsement> endorsementsHashSet = new ArrayList<>(account1.getEndorsements());
+            ArrayList<Comment> commentHashSet = new ArrayList<>(account1.getComments());
+            ArrayList<Original> originalHashSet = new ArrayList<>(account1.getOriginals());
 
             for (Endorsement j : endorsementsHashSet) {
                 deletePost(j.getID());
@@ -133,9 +156,21 @@ public class SocialMedia implements SocialMediaPlatform {
                 deletePost(j.getID());
             }
 
+            // The account stops following everyone, and everyone stops following it
+            for (int id : account1.getFollowing().toArray()) {
+                unfollow(account1, platform.getAccount(id));
+            }
+            for (int id : account1.getFollowers().toArray()) {
+                unfollow(platform.getAccount(id), account1);
+            }
+            platform.getTimelines().accountRemoved(account1);
+
             // Removes account from the HashMap accounts
             Account account = platform.removeAccount(handle);
 
+            // Writes the changes to the attached storage, if there is one
+            platform.commitChanges();
+
         } catch (PostIDNotRecognisedException e) {
             e.printStackTrace();
         }
@@ -143,7 +178,7 @@ public class SocialMedia implements SocialMediaPlatform {
     }
 
     @Override
-    public void changeAccountHandle(String oldHandle, String newHandle)
+    public synchronized void changeAccountHandle(String oldHandle, String newHandle)
             throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
 
         // Checks if old handle exists in system
@@ -158,6 +193,7 @@ public class SocialMedia implements SocialMediaPlatform {
         if (newHandle.equals("") || newHandle.length() > 30 || newHandle.contains(" ")) throw new InvalidHandleException();
 
         // Removes old data from system
+        platform.beforeChange(account);
         platform.removeAccount(oldHandle);
 
         // Changes handle of old account
@@ -166,16 +202,20 @@ public class SocialMedia implements SocialMediaPlatform {
         // Adds new account and handle to system
         platform.addAccount(newHandle, account);
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
     }
 
     @Override
-    public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+    public synchronized void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
 
         // Gets account from system, throws exception if user is not found.
         Account account = platform.getAccount(handle);
         if (account == null) throw new HandleNotRecognisedException();
 
         // Removes account from system
+        platform.beforeChange(account);
         platform.removeAccount(handle);
 
         // Changes description of account
@@ -184,10 +224,13 @@ public class SocialMedia implements SocialMediaPlatform {
         // Add account back into system
         platform.addAccount(handle, account);
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
     }
 
     @Override
-    public String showAccount(String handle) throws HandleNotRecognisedException {
+    public synchronized String showAccount(String handle) throws HandleNotRecognisedException {
 
         // The account is retrieved
         Account account = platform.getAccount(handle);
@@ -195,18 +238,288 @@ public class SocialMedia implements SocialMediaPlatform {
         // If the account is not found the object will be null, so a HandleNotRecognisedException will be thrown
         if (account == null) throw new HandleNotRecognisedException();
 
-        return String.format("""
-                ID: %o
-                Handle: %s
-                Description: %s
-                Post count: %o
-                Endorse count: %o
-                """, account.getNUMERICAL_IDENTIFIER(), account.getHandle(), account.getDescription(),
-                account.getTotalPosts(), account.getTotalEndorsementsReceived());
+        // The account is written field by field from its view, in a buffer reused by this thread
+        return formatters.get().formatAccount(AccountView.of(account));
+    }
+
+    /**
+     * Method that makes one account follow another, so the other account's posts appear in its home timeline
+     * @param handle The String handle of the account that follows
+     * @param followedHandle The String handle of the account to follow
+     * @return Returns true if the account was not already followed
+     * @throws HandleNotRecognisedException If either handle does not match an account in the system
+     * @throws IllegalArgumentException If an account tries to follow itself
+     */
+    public synchronized boolean follow(String handle, String followedHandle) throws HandleNotRecognisedException {
+
+        // Both accounts must exist
+        Account account = platform.getAccount(handle);
+        Account followed = platform.getAccount(followedHandle);
+        if (account == null || followed == null) throw new HandleNotRecognisedException();
+
+        if (account == followed) throw new IllegalArgumentException("An account cannot follow itself");
+        if (account.isFollowing(followed.getNUMERICAL_IDENTIFIER())) return false;
+
+        // Only the following of the account is saved, the followers of the other account are rebuilt from it
+        platform.beforeChange(account);
+        account.follow(followed);
+        platform.getTimelines().followed(account, followed);
+
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
+        return true;
+    }
+
+    /**
+     * Method that makes one account stop following another
+     * @param handle The String handle of the account that follows
+     * @param followedHandle The String handle of the account to stop following
+     * @return Returns true if the account was followed
+     * @throws HandleNotRecognisedException If either handle does not match an account in the system
+     */
+    public synchronized boolean unfollow(String handle, String followedHandle) throws HandleNotRecognisedException {
+
+        // Both accounts must exist
+        Account account = platform.getAccount(handle);
+        Account followed = platform.getAccount(followedHandle);
+        if (account == null || followed == null) throw new HandleNotRecognisedException();
+
+        boolean unfollowed = unfollow(account, followed);
+
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
+        return unfollowed;
+    }
+
+    /**
+     * Method that makes one account stop following another and updates the home timelines, without committing
+     * @param account The Account that follows
+     * @param followed The Account to stop following
+     * @return Returns true if the account was followed
+     */
+    private boolean unfollow(Account account, Account followed) {
+        if (!account.isFollowing(followed.getNUMERICAL_IDENTIFIER())) return false;
+
+        platform.beforeChange(account);
+        account.unfollow(followed);
+        platform.getTimelines().unfollowed(account, followed);
+        return true;
+    }
+
+    /**
+     * Method that returns the home timeline of an account: the latest posts of every type made by the accounts
+     * it follows, newest first. Deleted posts are left out.
+     * Timelines are kept up to date as posts are made, see {@link TimelineService}, so this does not depend on
+     * how many posts the followed accounts have made
+     * @param handle The String handle of the account
+     * @param limit The most posts returned, at most {@value TimelineService#DEFAULT_CAPACITY}
+     * @return Returns an int array of post IDs, newest first
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized int[] getHomeTimeline(String handle, int limit) throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        return platform.getTimelines().getTimeline(account, Math.max(0, limit));
+    }
+
+    /**
+     * Method that returns one page of the posts made by an account, newest first.
+     * Pages are found through the account's index of its posts, see {@link PostIndex}, so the cost depends on
+     * the size of the page and not on how many posts the account has made
+     * @param handle The String handle of the account
+     * @param cursor The cursor returned with the previous page, or 0 for the first page
+     * @param limit The most posts on the page
+     * @param type The type of post listed, or null to list every type
+     * @return Returns the PostPage holding the views of the posts
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized PostPage getAccountPosts(String handle, int cursor, int limit, PostType type)
+            throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        return page(account.getPostIndex(), cursor, limit, type);
+    }
+
+    /**
+     * Method that returns one page of the activity on the posts of an account, that is the comments replying to
+     * them and the endorsements made of them, newest first. Pages are found through the account's index of the
+     * posts it has received, see {@link PostIndex#inbound(Account)}, so the cost depends on the size of the page
+     * and not on how much activity the account's posts have had
+     * @param handle The String handle of the account
+     * @param cursor The cursor returned with the previous page, or 0 for the first page
+     * @param limit The most posts on the page
+     * @param type {@link PostType#COMMENT} or {@link PostType#ENDORSEMENT} to list one type, or null to list both
+     * @return Returns the PostPage holding the views of the comments and endorsements
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized PostPage getAccountActivity(String handle, int cursor, int limit, PostType type)
+            throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        return page(account.getInboundIndex(), cursor, limit, type);
+    }
+
+    /**
+     * Method that sets the number of endorsements an account has received to the number its posts hold now,
+     * counted from the account's index of the posts it has received rather than by scanning the platform
+     * @param handle The String handle of the account
+     * @return Returns the int number of endorsements the account has received
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized int recountEndorsementsReceived(String handle) throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        platform.beforeChange(account);
+        int total = account.recountEndorsementsReceived();
+
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+        return total;
+    }
+
+    /**
+     * Method that returns the accounts an account has interacted with, or that have interacted with it, through
+     * comments and endorsements. Read from the platform's interaction graph, see {@link InteractionGraph}, so the cost
+     * depends on the number of accounts returned and not on the number of posts
+     * @param handle The String handle of the account
+     * @param outgoing True for the accounts whose posts it has commented on or endorsed, false for the accounts
+     *                 that have commented on or endorsed its posts
+     * @return Returns an ArrayList of Interactions, heaviest first and in order of handle among equals
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized ArrayList<Interaction> getInteractions(String handle, boolean outgoing)
+            throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        InteractionGraph.Neighbors neighbors = platform.getInteractionGraph().getNeighbors(account.getNUMERICAL_IDENTIFIER(), outgoing);
+
+        ArrayList<Interaction> interactions = new ArrayList<>(neighbors.size);
+        for (int i = 0; i < neighbors.size; i++) {
+            Account other = platform.getAccount(neighbors.ids[i]);
+            if (other != null) interactions.add(new Interaction(other.getHandle(), neighbors.weights[i]));
+        }
+        interactions.sort((a, b) -> a.weight() != b.weight() ? Integer.compare(b.weight(), a.weight()) : a.handle().compareTo(b.handle()));
+        return interactions;
+    }
+
+    /**
+     * Method that returns the number of comments and endorsements an account has made of other accounts' posts,
+     * or other accounts have made of its posts
+     * @param handle The String handle of the account
+     * @param outgoing True to count those it has made, false to count those made of its posts
+     * @return Returns the int number of comments and endorsements
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized int getInteractionCount(String handle, boolean outgoing) throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        return platform.getInteractionGraph().getWeightedDegree(account.getNUMERICAL_IDENTIFIER(), outgoing);
+    }
+
+    /**
+     * Method that reads one page of posts out of an index, newest first
+     * @param index The PostIndex the post IDs are read from
+     * @param cursor The cursor returned with the previous page, or 0 for the first page
+     * @param limit The most posts on the page
+     * @param type The type of post listed, or null to list every type
+     * @return Returns the PostPage holding the views of the posts
+     */
+    private PostPage page(PostIndex index, int cursor, int limit, PostType type) {
+
+        // One more post than asked for is found, to know whether there is a next page, so the limit is kept below
+        // the largest int
+        limit = Math.max(0, Math.min(limit, Integer.MAX_VALUE - 1));
+        int[] ids = index.page(type, cursor, limit + 1);
+        int count = Math.min(ids.length, limit);
+
+        // IDs of posts that are no longer in the platform are skipped rather than shown
+        ArrayList<PostView> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Post post = platform.getPost(ids[i]);
+            if (post != null) posts.add(PostView.of(post));
+        }
+
+        int nextCursor = ids.length > count && count > 0 ? ids[count - 1] : 0;
+        return new PostPage(posts, nextCursor);
+    }
+
+    /**
+     * Method that searches the messages of every original and comment post, returning the most endorsed matches.
+     * The query is a list of words which must all be in the message. A "quoted phrase" must appear as it is,
+     * words or phrases joined by OR may be used in place of one word, and a word or phrase starting with -
+     * must not be in the message. Case and punctuation are ignored.
+     * Posts are found through an index of their words, see {@link SearchIndex}, without reading any messages
+     * @param query The String query
+     * @param k The most posts returned
+     * @return Returns an ArrayList of the views of the posts found, most endorsed first and newest first among equals
+     */
+    public synchronized ArrayList<PostView> searchPosts(String query, int k) {
+
+        int[] ids = platform.getSearchIndex().search(query, k);
+
+        ArrayList<PostView> posts = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Post post = platform.getPost(id);
+            if (post != null) posts.add(PostView.of(post));
+        }
+
+        return posts;
+    }
+
+    /**
+     * Method that returns the tags used most in the posts made in a window of time ending now.
+     * Tags are counted by the minute for windows of up to an hour, and by the hour for longer windows of up to a week,
+     * from counts kept as posts are made, see {@link HashtagIndex}
+     * @param window The Duration of the window
+     * @param k The most tags returned
+     * @return Returns an ArrayList of TagCounts, most used first and in alphabetical order among equals
+     */
+    public synchronized ArrayList<TagCount> getTrendingTags(Duration window, int k) {
+        return platform.getHashtags().getTrending(clock.millis(), window.toMillis(), k);
+    }
+
+    /**
+     * Method that returns the latest original and comment posts using a tag
+     * @param tag The String tag, with or without its #, in any case
+     * @param limit The most post IDs returned
+     * @return Returns an int array of post IDs, newest first
+     */
+    public synchronized int[] getTaggedPosts(String tag, int limit) {
+        return platform.getHashtags().getPosts(tag, limit);
+    }
+
+    /**
+     * Method that sets the clock the time posts are made at is read from
+     * @param clock The Clock to use
+     */
+    public synchronized void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Method that returns the clock the time posts are made at is read from
+     * @return Returns the Clock in use
+     */
+    public synchronized Clock getClock() {
+        return clock;
     }
 
     @Override
-    public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+    public synchronized int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
 
         // Checks if user handle exists on system
         if (!platform.getAccounts().containsKey(handle)) throw new HandleNotRecognisedException();
@@ -214,30 +527,40 @@ public class SocialMedia implements SocialMediaPlatform {
         // If message is empty or has more than 100 characters is it invalid
         if (message.equals("") || message.length() > 100) throw new InvalidPostException();
 
-        // Creates new original
+        // Creates new original, made now
         Original original = new Original(handle, message);
+        original.setTimestamp(clock.millis());
 
         // Gets account from platform
         Account account = platform.getAccount(handle);
 
         // Adds original to account
+        platform.beforeChange(account);
         account.addOriginal(original);
 
         // Adds original to platform
         platform.addOriginal(original);
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
         return original.getID();
 
     }
 
     @Override
-    public int endorsePost(String handle, int id)
+    public synchronized int endorsePost(String handle, int id)
             throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
 
 
         // Checks if the user exists in the system, throws HandleNotRecognisedException otherwise
         if (platform.getAccount(handle) == null) throw new HandleNotRecognisedException();
 
+        // Each account can only endorse a post once, checked against the set of (account, post) pairs
+        if (platform.getEndorsementIndex().contains(platform.getAccount(handle).getNUMERICAL_IDENTIFIER(), id)) {
+            throw new DuplicateEndorsementException("Post " + id + " has already been endorsed by " + handle);
+        }
+
         // Gets the original post, one of these will be null depending on the type of post
         Original original = platform.getOriginals().get(id);
         Comment comment = platform.getComments().get(id);
@@ -253,10 +576,13 @@ public class SocialMedia implements SocialMediaPlatform {
             endorsement = new Endorsement(handle, original);
 
             // Original has the endorsement added
+            platform.beforeChange(original);
             original.addEndorsement(endorsement);
 
             // Account that posted original has 1 added to it's totalEndorsementsReceived value
-            platform.getAccount(original.getHandle()).addEndorsementsReceived();
+            Account endorsedAccount = platform.getAccount(original.getHandle());
+            platform.beforeChange(endorsedAccount);
+            endorsedAccount.addEndorsementsReceived(endorsement);
 
         } else if (comment != null) {
 
@@ -269,10 +595,13 @@ public class SocialMedia implements SocialMediaPlatform {
             endorsement = new Endorsement(handle, comment);
 
             // Comment has the endorsement added
+            platform.beforeChange(comment);
             comment.addEndorsement(endorsement);
 
             // Account that posted comment has 1 added to it's totalEndorsementsReceived value
-            platform.getAccount(comment.getHandle()).addEndorsementsReceived();
+            Account endorsedAccount = platform.getAccount(comment.getHandle());
+            platform.beforeChange(endorsedAccount);
+            endorsedAccount.addEndorsementsReceived(endorsement);
 
         } else if (endorsement != null){
 
@@ -284,22 +613,29 @@ public class SocialMedia implements SocialMediaPlatform {
             throw new PostIDNotRecognisedException();
         }
 
+        // The endorsement is made now, and counted in the thread of the endorsed post
+        endorsement.setTimestamp(clock.millis());
+        endorsement.getEndorsedPost().addToThread(0, 1, 0, endorsement.getID());
+
         // Gets account that is endorsing
         Account account = platform.getAccount(handle);
 
         // Adds endorsement to account
+        platform.beforeChange(account);
         account.addEndorsement(endorsement);
 
         // Adds endorsement to system
         platform.addEndorsement(endorsement);
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
 
         return endorsement.getID();
 
     }
 
     @Override
-    public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+    public synchronized int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
             PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
 
         // If message is empty or greater than 100 character a InvalidPostException is thrown
@@ -326,6 +662,7 @@ public class SocialMedia implements SocialMediaPlatform {
             newComment = new Comment(handle, comment, message);
 
             // comment has new comment added
+            platform.beforeChange(comment);
             comment.addComment(newComment);
 
         } else if (original != null) {
@@ -338,6 +675,7 @@ public class SocialMedia implements SocialMediaPlatform {
             newComment = new Comment(handle, original, message);
 
             // Original has new comment added
+            platform.beforeChange(original);
             original.addComment(newComment);
 
         } else if (endorsement != null) {
@@ -350,17 +688,29 @@ public class SocialMedia implements SocialMediaPlatform {
             throw new PostIDNotRecognisedException();
         }
 
+        // The comment is made now, and counted in the thread of every post above it
+        newComment.setTimestamp(clock.millis());
+        newComment.getParentPost().addToThread(1, 0, newComment.getLevel(), newComment.getID());
+
         // Comment is added to account
+        platform.beforeChange(account);
         account.addComment(newComment);
 
+        // Comment is recorded as a reply received by the account that made the post
+        Account parentAccount = parentAccount(newComment);
+        if (parentAccount != null) parentAccount.addReplyReceived(newComment);
+
         // Comment is added to platform
         platform.addComment(newComment);
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
         return newComment.getID();
     }
 
     @Override
-    public void deletePost(int id) throws PostIDNotRecognisedException {
+    public synchronized void deletePost(int id) throws PostIDNotRecognisedException {
 
         // One of these variables will be not null depending on the type of object the post is
         Original original = platform.getOriginals().get(id);
@@ -372,6 +722,8 @@ public class SocialMedia implements SocialMediaPlatform {
 
             // Gets original posting account
             Account account = platform.getAccount(original.getHandle());
+            platform.beforeChange(account);
+            platform.beforeChange(original);
 
             // To avoid concurrent modification, endorsements to be removed are added to a HashSet
             HashSet<Endorsement> endorsementsToRemoveHashSet = original.getEndorsements();
@@ -382,30 +734,27 @@ public class SocialMedia implements SocialMediaPlatform {
 
             endorsementsToRemove.addAll(account.getEndorsements());
 
-            // Endorsements from list endorsementsToRemove are removed from the comment and account
+            // Each endorsement is deleted like any other, taking it off its endorser, the post it endorses and
+            // that post's account. An endorsement of the original by its own account is in the list twice
             for (Endorsement i : endorsementsToRemove) {
-
-                // Endorsement is removed from account
-                account.removeEndorsement(i);
-
-                // Endorsement is removed from system
-                platform.removeEndorsement(i);
-
-                // Endorsed account has 1 taken of its totalEndorsementsReceived value
-                platform.getAccount( original.getHandle() ).removeEndorsementsReceived();
-
-
+                if (i.getHandle() == null) continue;
+                deleteEndorsement(i, platform.getAccount(i.getHandle()));
             }
 
-            // Removes original from Account
+            // Removes original from Account, with the replies it received
             account.removeOriginal(original);
+            account.removeRepliesReceived(original);
+            platform.postDeleting(original);
 
             original.deletePost();
+            platform.postDeleted(original);
 
         } else if (comment != null) {
 
             // Gets original posting account
             Account account = platform.getAccount(comment.getHandle());
+            platform.beforeChange(account);
+            platform.beforeChange(comment);
 
             // To avoid concurrent modification, endorsements to be removed are added to a HashSet
             HashSet<Endorsement> endorsementsToRemoveHashSet = comment.getEndorsements();
@@ -413,233 +762,419 @@ public class SocialMedia implements SocialMediaPlatform {
             // So objects can be added the HashSet is converted to an ArrayList
             ArrayList<Endorsement> endorsementsToRemove = new ArrayList<>(endorsementsToRemoveHashSet);
 
-            // Endorsements from list endorsementsToRemove are removed from the comment and account
+            // Each endorsement is deleted like any other, taking it off its endorser, the comment and its account
             for (Endorsement i : endorsementsToRemove) {
+                if (i.getHandle() == null) continue;
+                deleteEndorsement(i, platform.getAccount(i.getHandle()));
+            }
 
-                Account endorsementAccount =  platform.getAccount(i.getHandle());
+            // Removes comment from Account, with the replies it received, and it from its thread
+            account.removeComment(comment);
+            account.removeRepliesReceived(comment);
+            platform.postDeleting(comment);
+            Account parentAccount = parentAccount(comment);
+            if (parentAccount != null) parentAccount.removeReplyReceived(comment);
+            comment.getParentPost().addToThread(-1, 0, 0, 0);
 
-                // Endorsement is removed from account
-                endorsementAccount.removeEndorsement(i);
+            comment.deletePost();
+            platform.postDeleted(comment);
 
-                // Endorsement is removed from system
-                platform.removeEndorsement(i);
+        } else if (endorsement != null && endorsement.getEndorsedPost() != null) {
 
-                // Endorsed account has 1 taken of its totalEndorsementsReceived value
-                platform.getAccount( comment.getHandle() ).removeEndorsementsReceived();
+            // Endorsement is removed from the endorsed post and both accounts
+            deleteEndorsement(endorsement, platform.getAccount(endorsement.getHandle()));
 
-            }
+        } else {
 
-            // Removes comment from Account
-            account.removeComment(comment);
+            // If id does not match any post object type then it does not exist, PostIDNotRecognisedException is thrown
+            throw new PostIDNotRecognisedException();
+        }
 
-            comment.deletePost();
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+    }
 
-        } else if (endorsement != null) {
+    /**
+     * Method that undoes an account's endorsement of a post, given the post that was endorsed rather than the
+     * endorsement itself. The endorsement is found in the {@link EndorsementIndex} and removed along with the
+     * counters of the endorsed post and both accounts, so no other lookups are needed
+     * @param handle The handle of the account that endorsed the post
+     * @param id The ID of the Original or Comment that was endorsed
+     * @throws HandleNotRecognisedException If no account has the handle
+     * @throws PostIDNotRecognisedException If the account has not endorsed a post with the ID
+     */
+    public synchronized void unendorsePost(String handle, int id) throws HandleNotRecognisedException, PostIDNotRecognisedException {
+
+        // Account is retrieved from the platform, if no account is found a HandleNotRecognisedException is thrown
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
 
-            // Original is retrieved
-            Original endorsedOriginal = platform.getOriginals().get( endorsement.getEndorsedPost().getID() );
-            Comment endorsedComment = platform.getComments().get( endorsement.getEndorsedPost().getID() );
+        // The endorsement made by the account of the post is looked up by the pair
+        int endorsementID = platform.getEndorsementIndex().get(account.getNUMERICAL_IDENTIFIER(), id);
+        if (endorsementID == 0) throw new PostIDNotRecognisedException("Post " + id + " has not been endorsed by " + handle);
 
-            // The type of object will be tested and one removed from its numberOfEndorsements variable
-            if (endorsedOriginal != null) {
+        deleteEndorsement(platform.getEndorsements().get(endorsementID), account);
 
-                // The account that was endorsed will have 1 subtracted from the totalEndorsementsReceived value
-                Account account = platform.getAccounts().get( endorsedOriginal.getHandle() );
-                account.removeEndorsementsReceived();
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+    }
 
-                // Endorsed object is removed from the accounts list of endorsements
-                endorsedOriginal.removeEndorsement(endorsement);
+    /**
+     * Method that returns one page of the accounts that have endorsed a post, in the order they endorsed it.
+     * The accounts are held in order for each post, so a page is found with a binary search for the cursor
+     * and only the page itself is read, see {@link EndorserList}
+     * @param id The ID of the Original or Comment
+     * @param cursor 0 for the first page, otherwise the nextCursor of the previous {@link EndorserPage}
+     * @param limit The most accounts on the page
+     * @return Returns the EndorserPage
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement
+     */
+    public synchronized EndorserPage getEndorsers(int id, int cursor, int limit)
+            throws PostIDNotRecognisedException, NotActionablePostException {
 
-            } else if (endorsedComment != null) {
+        Post post = platform.getPost(id);
+        if (post == null) throw new PostIDNotRecognisedException();
+        if (post instanceof Endorsement) throw new NotActionablePostException();
 
-                // The account that was endorsed will have 1 subtracted from the totalEndorsements value
-                Account account = platform.getAccounts().get( endorsedComment.getHandle() );
-                account.removeEndorsementsReceived();
+        // One more account than asked for is found, to know whether there is a next page
+        EndorserList endorsers = platform.getEndorserList(post);
+        int[] accountIDs = new int[Math.min(Math.max(0, limit), endorsers.size()) + 1];
+        int[] endorsementIDs = new int[accountIDs.length];
+        int found = endorsers.page(cursor, accountIDs, endorsementIDs);
+        int count = Math.min(found, Math.max(0, limit));
 
-                // Endorsed object is removed from the accounts list of endorsements
-                endorsedComment.removeEndorsement(endorsement);
+        ArrayList<String> handles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) handles.add(platform.getAccount(accountIDs[i]).getHandle());
 
-            }
+        int nextCursor = found > count && count > 0 ? endorsementIDs[count - 1] : 0;
+        return new EndorserPage(handles, nextCursor);
+    }
 
-            // Endorsement is removed from account
-            platform.getAccount(endorsement.getHandle()).removeEndorsement(endorsement);
+    /**
+     * Method that returns the account that made the post a comment replies to
+     * @param comment The Comment
+     * @return Returns the Account, or null if the post has been deleted or its account is no longer found
+     */
+    private Account parentAccount(Comment comment) {
+        String parentHandle = comment.getParentPost().getHandle();
+        return parentHandle == null ? null : platform.getAccount(parentHandle);
+    }
 
-            endorsement.deletePost();
+    /**
+     * Method that deletes an Endorsement, taking it off the post it endorses and the counters of both accounts
+     * @param endorsement The Endorsement to delete
+     * @param endorsingAccount The Account that made the Endorsement
+     */
+    private void deleteEndorsement(Endorsement endorsement, Account endorsingAccount) {
 
-        } else {
+        Post endorsedPost = endorsement.getEndorsedPost();
 
-            // If id does not match any post object type then it does not exist, PostIDNotRecognisedException is thrown
-            throw new PostIDNotRecognisedException();
+        // The account that was endorsed will have 1 subtracted from the totalEndorsementsReceived value
+        Account account = platform.getAccount(endorsedPost.getHandle());
+        platform.beforeChange(account);
+        account.removeEndorsementsReceived(endorsement);
+
+        // The type of object will be tested and one removed from its numberOfEndorsements variable
+        platform.beforeChange(endorsedPost);
+        if (endorsedPost instanceof Original endorsedOriginal) {
+            endorsedOriginal.removeEndorsement(endorsement);
+        } else if (endorsedPost instanceof Comment endorsedComment) {
+            endorsedComment.removeEndorsement(endorsement);
         }
 
+        // Endorsement is removed from account
+        platform.beforeChange(endorsingAccount);
+        platform.beforeChange(endorsement);
+        endorsingAccount.removeEndorsement(endorsement);
+
+        platform.endorsementDeleted(endorsement);
+        endorsedPost.addToThread(0, -1, 0, 0);
+        endorsedPost.removeActivity(endorsement.getID());
+        endorsement.deletePost();
     }
 
     @Override
-    public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+    public synchronized String showIndividualPost(int id) throws PostIDNotRecognisedException {
 
-        // The post object is assigned to one of these variables depending on the object type
-        Original original = platform.getOriginals().get(id);
-        Comment comment = platform.getComments().get(id);
-        Endorsement endorsement = platform.getEndorsements().get(id);
+        // Posts that have not changed since they were last shown are not formatted again
+        RenderCache cache = platform.getRenderCache();
+        String cached = cache.get(RenderCache.POST, id);
+        if (cached != null) return cached;
+        long version = cache.getVersion();
 
-        String output;
+        // The post is written field by field from its view, in a buffer reused by this thread
+        String output = formatters.get().formatPost(getPostView(id));
 
-        // The output string will be constructed based on what object type the post is
-        if (original != null) {
+        cache.put(RenderCache.POST, id, output, version);
 
-            output = String.format("""
-                ID: %d
-                Account: %s
-                No. endorsements: %d | No. comments: %d
-                %s
-                """, original.getID(), original.getHandle(), original.getNumberOfEndorsements(), original.getNumberOfComments(), original.getMessage());
-        } else if (comment != null) {
+        return output;
 
-            output = String.format("""
-                ID: %d
-                Account: %s
-                No. endorsements: %d | No. comments: %d
-                %s
-                """, comment.getID(), comment.getHandle(), comment.getNumberOfEndorsements(), comment.getNumberOfComments(), comment.getMessage());
-        } else if (endorsement != null) {
+    }
 
-            output = String.format("""
-                    ID: %d
-                    Account: %s
-                    No. endorsements: 0 | No. comments: 0
-                    %s
-                    """, endorsement.getID(), endorsement.getHandle(), endorsement.getMessage());
-        } else {
+    /**
+     * Method that returns the details of a post as plain fields, the same details shown by {@link #showIndividualPost(int)}
+     * @param id The ID of the post
+     * @return Returns the PostView of the post
+     * @throws PostIDNotRecognisedException If no post has the ID
+     */
+    public synchronized PostView getPostView(int id) throws PostIDNotRecognisedException {
 
-            // if all objets are null the post has not been found in the system so a PostIDNotRecognisedException will be thrown
-            throw new PostIDNotRecognisedException();
-        }
+        Post post = platform.getPost(id);
 
-        return output;
+        // if no post is found the post has not been found in the system so a PostIDNotRecognisedException will be thrown
+        if (post == null) throw new PostIDNotRecognisedException();
 
+        return PostView.of(post);
     }
 
-    @Override
-    public StringBuilder showPostChildrenDetails(int id)
-            throws PostIDNotRecognisedException, NotActionablePostException {
+    /**
+     * Method that returns the details of an account as plain fields, the same details shown by {@link #showAccount(String)}
+     * @param handle The handle of the account
+     * @return Returns the AccountView of the account
+     * @throws HandleNotRecognisedException If no account has the handle
+     */
+    public synchronized AccountView getAccountView(String handle) throws HandleNotRecognisedException {
 
-        // String builder object that will be the final output of the function
-        StringBuilder finalOutput = new StringBuilder();
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
 
-        // The post is assumed to be an original and retrieved
-        Original original = platform.getOriginals().get(id);
+        return AccountView.of(account);
+    }
 
-        // If the object is null the post is assumed to be a comment
-        if (original == null) {
-            Comment comment = platform.getComments().get(id);
+    @Override
+    public synchronized StringBuilder showPostChildrenDetails(int id)
+            throws PostIDNotRecognisedException, NotActionablePostException {
 
-            // Checks if post is still null, implying it is an endorsement
-            if (comment == null) {
+        // Threads that have not changed since they were last shown are not rendered again
+        RenderCache cache = platform.getRenderCache();
+        String cached = cache.get(RenderCache.THREAD, id);
+        if (cached != null) return new StringBuilder(cached);
+        long version = cache.getVersion();
 
-                if (platform.getEndorsements().get(id) != null ) {
+        // The thread is written into one StringBuilder, see ThreadRenderer
+        StringBuilder output = new ThreadRenderer().renderThread(threadRange(id));
 
-                    // If the if the ID refers to an endorsement post (is not null), a NotActionablePostException is thrown
-                    throw new NotActionablePostException();
-                } else {
+        cache.put(RenderCache.THREAD, id, output.toString(), version);
 
-                    // If it is not an endorsement (is null), the post does not exist in the system, so a PostIDNotRecognisedException is thrown
-                    throw new PostIDNotRecognisedException();
-                }
-            }
+        return output;
+
+    }
 
-            //---------This part of the method will only run if the post is a comment---------
+    /**
+     * Method that writes the details of a post and every comment below it, in the same format as
+     * {@link #showPostChildrenDetails(int)}, straight into an Appendable such as a Writer.
+     * The thread is walked without recursion, so threads of any depth can be written
+     * @param id The ID of the Original or Comment the thread starts from
+     * @param out The Appendable the thread is written to
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or has been deleted, or a comment in the
+     * thread has been deleted, in which case the output may already be partly written
+     * @throws IOException If the Appendable could not be written
+     */
+    public synchronized void showPostChildrenDetails(int id, Appendable out)
+            throws PostIDNotRecognisedException, NotActionablePostException, IOException {
+
+        // A cached thread is copied out, otherwise the thread is streamed without being cached
+        String cached = platform.getRenderCache().get(RenderCache.THREAD, id);
+        if (cached != null) {
+            out.append(cached);
+            return;
+        }
 
-            finalOutput.append(showIndividualPost(comment.getID()));
-            finalOutput.append("|\n");
+        new ThreadRenderer().renderThread(threadRange(id), out);
 
-            HashSet<Comment> commentsHashSet = comment.getComments();
+    }
 
-            // List is sorted with CommentComparator object
-            ArrayList<Comment> commentsList = new ArrayList<>(commentsHashSet);
-            CommentComparator commentComparator = new CommentComparator();
-            commentsList.sort(commentComparator);
+    /**
+     * Method that returns the cache of text rendered by {@link #showIndividualPost(int)} and
+     * {@link #showPostChildrenDetails(int)}, along with its hit, miss and eviction counts
+     * @return Returns the RenderCache of the current platform
+     */
+    public RenderCache getRenderCache() {
+        return platform.getRenderCache();
+    }
 
-            for (Comment i: commentsList) {
-                finalOutput.append(showPostChildrenDetails(i.getID(), 4));
-                finalOutput.append("\n");
-            }
+    /**
+     * Method that returns one page of a thread, in the same format as {@link #showPostChildrenDetails(int)}.
+     * The first page starts with the post itself, and each page holds at most pageSize comments.
+     * Comments deeper than maxDepth are left out, with a line saying how many replies were left out in their place.
+     * Only the comments on the page are visited, so each page takes the same time however large the thread is
+     * @param id The ID of the Original or Comment the thread starts from
+     * @param cursor 0 for the first page, otherwise the nextCursor of the previous {@link ThreadPage}
+     * @param pageSize The most comments shown on the page
+     * @param maxDepth The deepest level of comments shown, where comments on the post itself are level 1
+     * @return Returns the ThreadPage
+     * @throws PostIDNotRecognisedException If no post has the ID, or no comment has the cursor ID
+     * @throws NotActionablePostException If the post is an endorsement or has been deleted, or a comment
+     * on the page has been deleted
+     * @throws IllegalArgumentException If pageSize or maxDepth is less than 1, or the cursor is not in the thread
+     */
+    public synchronized ThreadPage showThreadPage(int id, int cursor, int pageSize, int maxDepth)
+            throws PostIDNotRecognisedException, NotActionablePostException {
 
-            finalOutput.deleteCharAt(finalOutput.length()-1);
+        if (pageSize < 1 || maxDepth < 1) throw new IllegalArgumentException("Page size and depth must be at least 1");
 
-            return finalOutput;
+        Post root = threadRoot(id);
 
+        Comment cursorComment = null;
+        if (cursor != 0) {
+            cursorComment = platform.getComments().get(cursor);
+            if (cursorComment == null) throw new PostIDNotRecognisedException();
         }
 
-        //---------This part of the method will only run if the post is an original---------
+        StringBuilder output = new StringBuilder();
+        int nextCursor;
 
-        // Checks if original is actionable (has not been deleted)
-        if (!original.isActionable()) throw new NotActionablePostException();
+        try {
+            nextCursor = new ThreadRenderer().renderPage(root, cursorComment, pageSize, maxDepth, output);
+        } catch (IOException e) {
+            // A StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
 
-        finalOutput.append(showIndividualPost(original.getID()));
-        finalOutput.append("|\n");
+        return new ThreadPage(output.toString(), nextCursor);
+    }
 
-        HashSet<Comment> commentsHashSet = original.getComments();
+    /**
+     * Method that writes the details of a comment and every comment below it, indented as they appear
+     * inside a thread
+     * @param id The ID of the Comment
+     * @param spacing The number of spaces the Comment's details are indented by
+     * @return Returns a StringBuilder holding the Comments
+     * @throws NotActionablePostException If one of the Comments has been deleted
+     * @throws PostIDNotRecognisedException If no comment has the ID
+     */
+    public synchronized StringBuilder showPostChildrenDetails(int id, int spacing) throws NotActionablePostException, PostIDNotRecognisedException {
 
-        // List is sorted with CommentComparator object
-        ArrayList<Comment> commentsList = new ArrayList<>(commentsHashSet);
-        CommentComparator commentComparator = new CommentComparator();
-        commentsList.sort(commentComparator);
+        Comment comment = platform.getComments().get(id);
+        if (comment == null) throw new PostIDNotRecognisedException();
 
+        StringBuilder output = new StringBuilder();
 
-        for (Comment i: commentsList) {
-            finalOutput.append(showPostChildrenDetails(i.getID(), 4));
-            finalOutput.append("\n");
+        try {
+            new ThreadRenderer().renderReplies(comment, spacing, output);
+        } catch (IOException e) {
+            // A StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
         }
 
-        finalOutput.deleteCharAt(finalOutput.length()-1);
-
-        return finalOutput;
-
+        return output;
     }
 
-    public StringBuilder showPostChildrenDetails(int id, int spacing) throws NotActionablePostException, PostIDNotRecognisedException {
+    /**
+     * Method that returns aggregates over a post and every comment below it: the number of replies, the number of
+     * endorsements, how many levels deep the replies go and the latest post in the thread.
+     * The aggregates are kept up to date as posts are made and deleted, so the thread is not walked
+     * @param id The ID of the Original or Comment the thread starts from
+     * @return Returns the ThreadSummary of the post
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or a deleted Original
+     */
+    public synchronized ThreadSummary getThreadSummary(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+        return threadRoot(id).getThreadSummary();
+    }
 
-        Comment comment = platform.getComments().get(id);
+    /**
+     * Method that returns the original post a thread starts from, however deep in the thread the post is
+     * @param id The ID of the Original or Comment
+     * @return Returns the int ID of the Original at the top of its thread, which is the post itself for an Original
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or a deleted Original
+     */
+    public synchronized int getThreadRootID(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+        return threadRoot(id).getThreadRoot().getID();
+    }
 
-        if (!comment.isActionable()) throw new NotActionablePostException();
+    /**
+     * Method that returns the post a number of levels above a post in its thread, using the jump pointers of
+     * each comment so only a logarithmic number of posts are visited
+     * @param id The ID of the Original or Comment
+     * @param k The number of levels up, 0 for the post itself
+     * @return Returns the int ID of the post k levels up, or 0 if the post is less than k levels deep
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or a deleted Original
+     * @throws IllegalArgumentException If k is negative
+     */
+    public synchronized int getAncestorID(int id, int k) throws PostIDNotRecognisedException, NotActionablePostException {
+        Post ancestor = threadRoot(id).getAncestor(k);
+        return ancestor == null ? 0 : ancestor.getID();
+    }
 
-        StringBuilder output = new StringBuilder();
+    /**
+     * Method that returns the deepest post that two posts are both replies to, directly or not.
+     * A post counts as above itself, so if one post is above the other that post is returned
+     * @param first The ID of the first Original or Comment
+     * @param second The ID of the second Original or Comment
+     * @return Returns the int ID of the lowest common ancestor, or 0 if the posts are in different threads
+     * @throws PostIDNotRecognisedException If no post has either ID
+     * @throws NotActionablePostException If either post is an endorsement or a deleted Original
+     */
+    public synchronized int getCommonAncestorID(int first, int second)
+            throws PostIDNotRecognisedException, NotActionablePostException {
+        Post ancestor = Post.getCommonAncestor(threadRoot(first), threadRoot(second));
+        return ancestor == null ? 0 : ancestor.getID();
+    }
 
-        // String builders are created based for the indentation
+    /**
+     * Method that returns the IDs of a post and every comment below it, in the order they are shown by
+     * {@link #showPostChildrenDetails(int)}, read from the flat layout of the thread
+     * @param id The ID of the Original or Comment the thread starts from
+     * @return Returns an int array of post IDs, starting with the post itself
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or a deleted Original
+     */
+    public int[] getThreadPostIDs(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+        Post[] posts = threadRange(id).posts;
 
-        StringBuilder secondaryIndentation = new StringBuilder();
-        secondaryIndentation.append(" ".repeat(Math.max(0, spacing)));
+        int[] ids = new int[posts.length];
+        for (int i = 0; i < posts.length; i++) ids[i] = posts[i].getID();
+        return ids;
+    }
 
-        String postDetails = showIndividualPost(id);
-        String[] splitPostDetails = postDetails.split("\n");
+    /**
+     * Method that copies the part of a thread's layout starting from a post, so it can be read without the lock
+     * @param id The ID of the Original or Comment
+     * @return Returns the Range of the post and every comment below it
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or a deleted Original
+     */
+    private synchronized ThreadLayout.Range threadRange(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+        Post root = threadRoot(id);
+        return root.getThreadLayout().subtree(root);
+    }
 
-        String firstIndentation = " ".repeat(Math.max(0, spacing - 4)) +
-                "| > ";
-        splitPostDetails[0] = firstIndentation + splitPostDetails[0];
-        for (int i=1; i< splitPostDetails.length; i++) {
-            splitPostDetails[i] = secondaryIndentation + splitPostDetails[i];
-        }
+    /**
+     * Method that finds the post a thread starts from
+     * @param id The ID of the Original or Comment
+     * @return Returns the Original or Comment
+     * @throws PostIDNotRecognisedException If no post has the ID
+     * @throws NotActionablePostException If the post is an endorsement or a deleted Original
+     */
+    private Post threadRoot(int id) throws PostIDNotRecognisedException, NotActionablePostException {
 
-        output.append(String.join("\n", splitPostDetails));
+        // The post is assumed to be an original and retrieved
+        Original original = platform.getOriginals().get(id);
 
-        HashSet<Comment> commentsHashSet = comment.getComments();
+        if (original != null) {
 
-        if (!commentsHashSet.isEmpty()) {
-            output.append("\n").append(secondaryIndentation).append("|\n");
-        } else {
-            output.append("\n" );
+            // Checks if original is actionable (has not been deleted)
+            if (!original.isActionable()) throw new NotActionablePostException();
+            return original;
         }
 
-        // List is sorted with CommentComparator object
-        ArrayList<Comment> commentsList = new ArrayList<>(commentsHashSet);
-        CommentComparator commentComparator = new CommentComparator();
-        commentsList.sort(commentComparator);
+        // If the object is null the post is assumed to be a comment
+        Comment comment = platform.getComments().get(id);
+        if (comment != null) return comment;
+
+        if (platform.getEndorsements().get(id) != null) {
 
-        for (Comment i: commentsList) {
-            output.append(showPostChildrenDetails(i.getID(), spacing+4));
+            // If the if the ID refers to an endorsement post (is not null), a NotActionablePostException is thrown
+            throw new NotActionablePostException();
         }
 
-        return output;
+        // If it is not an endorsement (is null), the post does not exist in the system, so a PostIDNotRecognisedException is thrown
+        throw new PostIDNotRecognisedException();
     }
 
 
@@ -669,7 +1204,7 @@ public class SocialMedia implements SocialMediaPlatform {
     }
 
     @Override
-    public int getMostEndorsedPost() {
+    public synchronized int getMostEndorsedPost() {
 
         Original original = platform.getOriginals().get(1);
         Comment comment = platform.getComments().get(1);
@@ -719,8 +1254,35 @@ public class SocialMedia implements SocialMediaPlatform {
 
     }
 
+    /**
+     * Method that returns the post endorsed most often in a window of time ending now.
+     * Endorsements are counted by the minute as they are made, for windows of up to a day, see
+     * {@link EndorsementTrends}
+     * @param window The Duration of the window
+     * @return Returns the int ID of the post, the lowest ID among equals, or 0 if nothing was endorsed in the window
+     */
+    public synchronized int getMostEndorsedPost(Duration window) {
+        return platform.getEndorsementTrends().getMostEndorsedPost(clock.millis(), window.toMillis());
+    }
+
+    /**
+     * Method that returns the posts with the highest hot scores, where every endorsement counts for half as much
+     * each hour after it was made
+     * @param k The most posts returned
+     * @return Returns an ArrayList of PostViews, hottest first
+     */
+    public synchronized ArrayList<PostView> getHotPosts(int k) {
+        ArrayList<PostView> posts = new ArrayList<>();
+        for (int id : platform.getEndorsementTrends().getHotPosts(k)) {
+            Post post = platform.getPost(id);
+            if (post != null) posts.add(PostView.of(post));
+        }
+
+        return posts;
+    }
+
     @Override
-    public int getMostEndorsedAccount() {
+    public synchronized int getMostEndorsedAccount() {
 
         Map.Entry<String, Account> mostEndorsedAccount = platform.getAccounts().entrySet().stream().toList().get(0);
 
@@ -738,44 +1300,239 @@ public class SocialMedia implements SocialMediaPlatform {
 
     }
 
+    /**
+     * Method that computes an influence score for every account from who comments on and endorses whom, see
+     * {@link InfluenceRank}. The interaction graph is read while holding the lock, but the scores are computed
+     * without it, across every core, starting from the scores computed last time
+     * @return Returns the int number of rounds of iteration it took
+     */
+    public int computeInfluence() {
+        Platform ranked;
+        InteractionGraph.Rows rows;
+        boolean[] accounts;
+        InfluenceRank previous;
+
+        synchronized (this) {
+            ranked = platform;
+            rows = platform.getInteractionGraph().snapshot();
+            previous = platform.getInfluence();
+            accounts = accountMask(rows.nodes);
+        }
+
+        InfluenceRank rank = InfluenceRank.compute(rows, accounts, previous);
+
+        synchronized (this) {
+            ranked.setInfluence(rank);
+        }
+        return rank.getIterations();
+    }
+
+    /**
+     * Method that returns the accounts with the highest influence scores last computed by {@link #computeInfluence()},
+     * computing them first if they never have been. Unlike {@link #getMostEndorsedAccount()}, an account only
+     * scores highly if influential accounts comment on and endorse its posts
+     * @param k The most handles returned
+     * @return Returns an ArrayList of handles, most influential first
+     */
+    public ArrayList<String> getMostInfluentialAccounts(int k) {
+        ArrayList<String> top = mostInfluentialAccounts(k);
+        if (top != null) return top;
+
+        computeInfluence();
+        top = mostInfluentialAccounts(k);
+        return top == null ? new ArrayList<>() : top;
+    }
+
+    /**
+     * Method that returns the accounts with the highest influence scores last computed
+     * @param k The most handles returned
+     * @return Returns an ArrayList of handles, most influential first, or null if no scores have been computed
+     */
+    private synchronized ArrayList<String> mostInfluentialAccounts(int k) {
+        InfluenceRank influence = platform.getInfluence();
+        if (influence == null) return null;
+
+        // Accounts removed since the scores were computed are skipped
+        ArrayList<String> handles = new ArrayList<>();
+        for (int id : influence.getTop(k, accountMask(0))) handles.add(platform.getAccount(id).getHandle());
+        return handles;
+    }
+
+    /**
+     * Method that recommends accounts to an account, those that have endorsed the most of the same posts.
+     * Similarity is estimated from MinHash signatures and only accounts sharing a locality sensitive hash bucket
+     * are compared, see {@link AccountRecommender}, so the cost does not depend on the number of accounts
+     * @param handle The String handle of the account
+     * @param k The most handles returned
+     * @return Returns an ArrayList of handles, most alike first, leaving out accounts it already follows
+     * @throws HandleNotRecognisedException If the handle does not match an account in the system
+     */
+    public synchronized ArrayList<String> recommendAccounts(String handle, int k) throws HandleNotRecognisedException {
+
+        Account account = platform.getAccount(handle);
+        if (account == null) throw new HandleNotRecognisedException();
+
+        ArrayList<String> handles = new ArrayList<>();
+        for (int id : platform.getRecommender().recommend(account, k)) handles.add(platform.getAccount(id).getHandle());
+        return handles;
+    }
+
+    /**
+     * Method that marks which NUMERICAL_IDENTIFIERs belong to an account in the platform
+     * @param length The least length of the array returned
+     * @return Returns a boolean array, true at the NUMERICAL_IDENTIFIER of each account
+     */
+    private boolean[] accountMask(int length) {
+        for (Account account : platform.getAccounts().values()) length = Math.max(length, account.getNUMERICAL_IDENTIFIER() + 1);
+
+        boolean[] accounts = new boolean[length];
+        for (Account account : platform.getAccounts().values()) accounts[account.getNUMERICAL_IDENTIFIER()] = true;
+        return accounts;
+    }
+
     @Override
-    public void erasePlatform() {
+    public synchronized void erasePlatform() {
+        // A snapshot being written still needs the current data, so it is allowed to finish first
+        awaitSnapshot();
+
         // Calls various classes in Platform to erase the HashMaps and reset counters in other classes
         platform.eraseHashMaps();
         platform.clearCounters();
 
+        // Writes the changes to the attached storage, if there is one
+        platform.commitChanges();
+
     }
 
     @Override
     public void savePlatform(String filename) throws IOException {
+        // Snapshots saved with the compressed file extension are compressed automatically
+        savePlatform(filename, filename.endsWith(COMPRESSED_EXTENSION));
+    }
+
+    /**
+     * Method that saves the platform to a file, optionally compressing it.
+     * Compressed snapshots are deflated in fixed-size blocks, each with its own checksum,
+     * see {@link BlockDeflaterOutputStream}. {@link #loadPlatform(String)} detects either format.
+     * The snapshot is written to a temporary file that replaces filename only once it is complete,
+     * see {@link SnapshotFiles}.
+     * @param filename The location the platform will be saved to
+     * @param compressed Whether the snapshot should be compressed
+     * @throws IOException If there is a problem writing the file
+     */
+    public synchronized void savePlatform(String filename, boolean compressed) throws IOException {
+        // Only one snapshot can be written at a time
+        awaitSnapshot();
+
+        // The snapshot is written on this thread, which already holds the lock
+        BackgroundSnapshot snapshot = new BackgroundSnapshot(this, platform, filename, compressed, null);
+        snapshot.run();
+
+        if (snapshot.getFailure() != null) throw new IOException(snapshot.getFailure());
+    }
+
+    /**
+     * Method that saves the platform to a file on a separate thread, while the platform can still be changed.
+     * The file holds the platform exactly as it was when this method was called, see {@link BackgroundSnapshot}.
+     * Snapshots saved with the compressed file extension are compressed
+     * @param filename The location the platform will be saved to
+     * @param listener The SnapshotListener told about progress and completion, may be null
+     * @return Returns the BackgroundSnapshot being written
+     * @throws IllegalStateException If another snapshot is still being written
+     */
+    public synchronized BackgroundSnapshot savePlatformInBackground(String filename, SnapshotListener listener) {
+
+        BackgroundSnapshot snapshot = new BackgroundSnapshot(this, platform, filename,
+                filename.endsWith(COMPRESSED_EXTENSION), listener);
+
+        Thread thread = new Thread(snapshot, "platform-snapshot");
+        thread.start();
+
+        return snapshot;
+    }
+
+    /**
+     * Method that attaches a {@link LogStructuredStore} in the given directory to the platform,
+     * after which every change is written to it as it happens. Post messages are then kept only in the store,
+     * and read back through its cache of recently read records when they are shown.
+     * A change that cannot be written makes the method that made it throw an UncheckedIOException; the change
+     * has still been made, and is written along with the next change or by {@link #closeStorage()}.
+     * If the directory already holds a store, the platform is restored from it, replacing the current one.
+     * Otherwise the current platform is written to the new store
+     * @param directory The directory holding the store
+     * @throws IOException If the store could not be opened, read or written
+     */
+    public synchronized void openStorage(String directory) throws IOException {
+        closeStorage();
+
+        LogStructuredStore store = new LogStructuredStore(directory);
+
         try {
-            platform.saveCounters(); // This calls a method that saves all counters to variables in platform
-
-            FileOutputStream fileOut = new FileOutputStream(filename); // Creates a new FOS using the filename
-            ObjectOutputStream out = new ObjectOutputStream(fileOut); // Creates an OOS to write objects to file
-            out.writeObject(platform); // Writes the object
-            // Below closes the OOS and FOS
-            out.close();
-            fileOut.close();
-        } catch (IOException exception) {
-            throw new IOException();
+            if (store.keys().length == 0) {
+                platform.attachStorage(store);
+            } else {
+                awaitSnapshot();
+                platform = SnapshotCodec.read(store);
+                platform.loadCounters();
+                platform.resumeStorage(store);
+            }
+        } catch (IOException e) {
+            store.close();
+            throw e;
         }
+    }
 
+    /**
+     * Method that flushes and closes the storage attached by {@link #openStorage(String)}, if there is one.
+     * Mutating methods keep changes they could not write to the storage pending, so they are written here
+     * @throws IOException If the pending changes could not be written or the storage could not be closed
+     */
+    public synchronized void closeStorage() throws IOException {
+        StorageEngine storage = platform.getStorage();
+        if (storage == null) return;
 
+        // Changes left pending by a failed write are written once more, and the failure thrown if it happens again
+        try {
+            platform.writeChanges();
+            storage.flush();
+        } finally {
+            platform.resumeStorage(null);
+            storage.close();
+        }
+    }
+
+    /**
+     * Method that waits until no snapshot of the current platform is being written.
+     * Must be called while holding the lock, which is released while waiting
+     */
+    private void awaitSnapshot() {
+        while (platform.getActiveSnapshot() != null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
     }
 
     @Override
-    public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+    public synchronized void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+        // A snapshot being written still needs the current data, and may be reading it from the storage
+        awaitSnapshot();
+
         try {
-            FileInputStream fileIn = new FileInputStream(filename); // Creates FIS using the filename
-            ObjectInputStream in = new ObjectInputStream(fileIn); // Creates an OIS to read objects from file
-            platform = (Platform) in.readObject(); // Reads the Platform object from file
-            // Below closes the OIS and FIS
-            in.close();
-            fileIn.close();
+            Path path = Paths.get(filename);
 
-            platform.loadCounters(); // This calls a method that loads all counters from variables in new platform
+            // Snapshots with a footer are checked section by section, older ones are read as they are
+            SnapshotFiles.Footer footer = SnapshotFiles.readFooter(path);
+            Platform loaded = footer != null ? readSnapshot(path, footer) : readSnapshotWithoutFooter(path);
 
+            usePlatform(loaded);
+
+        } catch (CorruptSnapshotException c) {
+            c.printStackTrace();
+            throw c;
         } catch (IOException i) {
             i.printStackTrace();
             throw new IOException();
@@ -787,4 +1544,227 @@ public class SocialMedia implements SocialMediaPlatform {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Method that restores the platform from the newest complete snapshot in a directory.
+     * Only the footer of each file is read to find the newest complete snapshot; because snapshots are
+     * renamed into place once fully written, a matching footer means the payload does not need a separate
+     * full check, and each section is still checked against its CRC32 as it is read.
+     * If the newest snapshot cannot be read, the next newest is tried
+     * @param directory The directory holding the snapshot files
+     * @return Returns the path of the snapshot the platform was restored from
+     * @throws CorruptSnapshotException If the directory holds no snapshot that can be read, with the reason each
+     *                                  snapshot tried could not be read added as a suppressed exception
+     * @throws IOException If the directory could not be listed
+     */
+    public synchronized String recoverPlatform(String directory) throws IOException {
+        // A snapshot being written still needs the current data, and may be reading it from the storage
+        awaitSnapshot();
+
+        HashMap<Path, SnapshotFiles.Footer> footers = new HashMap<>();
+
+        // Why each snapshot could not be used, reported with the exception thrown if none can
+        ArrayList<IOException> failures = new ArrayList<>();
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory))) {
+            for (Path path : files) {
+
+                // Temporary files are snapshots that were never completed
+                if (!Files.isRegularFile(path) || path.toString().endsWith(SnapshotFiles.TEMPORARY_EXTENSION)) continue;
+
+                try {
+                    SnapshotFiles.Footer footer = SnapshotFiles.readFooter(path);
+                    if (footer != null) footers.put(path, footer);
+                } catch (IOException e) {
+                    // A file with a damaged footer is skipped
+                    failures.add(e);
+                }
+            }
+        }
+
+        // Newest snapshots are tried first
+        ArrayList<Path> candidates = new ArrayList<>(footers.keySet());
+        candidates.sort((a, b) -> Long.compare(footers.get(b).created(), footers.get(a).created()));
+
+        for (Path path : candidates) {
+            try {
+                usePlatform(readSnapshot(path, footers.get(path)));
+                return path.toString();
+            } catch (IOException e) {
+                failures.add(e);
+            }
+        }
+
+        CorruptSnapshotException notFound = new CorruptSnapshotException("No complete snapshot found in " + directory);
+        for (IOException failure : failures) notFound.addSuppressed(failure);
+        throw notFound;
+    }
+
+    /**
+     * Method that fully validates a snapshot file without loading it: the footer, the CRC32 of the whole
+     * payload and the CRC32 of every section are all checked
+     * @param filename The location of the snapshot
+     * @throws CorruptSnapshotException If the snapshot has no footer or fails any check
+     * @throws IOException If the file could not be read
+     */
+    public void verifySnapshot(String filename) throws IOException {
+        Path path = Paths.get(filename);
+
+        SnapshotFiles.Footer footer = SnapshotFiles.readFooter(path);
+        if (footer == null) throw new CorruptSnapshotException("Snapshot has no footer");
+
+        SnapshotFiles.verifyPayload(path, footer);
+        readSnapshot(path, footer);
+    }
+
+    /**
+     * Method that exports the whole platform as text, picking the format from the file extension
+     * @param filename The location the export will be written to, ending with .jsonl or .csv
+     * @return Returns the long number of rows written
+     * @throws IllegalArgumentException If the extension does not match an {@link ExportFormat}
+     * @throws IOException If there is a problem writing the file
+     */
+    public long exportPlatform(String filename) throws IOException {
+        return exportPlatform(filename, ExportFormat.fromFilename(filename));
+    }
+
+    /**
+     * Method that exports the whole platform as text, one row per Account and Post, see {@link PlatformExporter}.
+     * The platform cannot be changed while the export is written
+     * @param filename The location the export will be written to
+     * @param format The ExportFormat to write
+     * @return Returns the long number of rows written
+     * @throws IOException If there is a problem writing the file
+     */
+    public synchronized long exportPlatform(String filename, ExportFormat format) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return new PlatformExporter(format).export(platform, channel);
+        }
+    }
+
+    /**
+     * Method that replaces the platform with one imported from text, picking the format from the file extension
+     * @param filename The location of the export, ending with .jsonl or .csv
+     * @throws IllegalArgumentException If the extension does not match an {@link ExportFormat}
+     * @throws IOException If there is a problem reading the file, or it is malformed
+     */
+    public void importPlatform(String filename) throws IOException {
+        importPlatform(filename, ExportFormat.fromFilename(filename));
+    }
+
+    /**
+     * Method that replaces the platform with one imported from text, see {@link PlatformImporter}.
+     * The file is read into a new Platform without holding the lock, so the current platform can still be used
+     * until the import is complete. If the file is malformed the current platform is left unchanged
+     * @param filename The location of the export
+     * @param format The ExportFormat to read
+     * @throws IOException If there is a problem reading the file, or it is malformed
+     */
+    public void importPlatform(String filename, ExportFormat format) throws IOException {
+        Platform imported;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            imported = new PlatformImporter(format).read(channel);
+        }
+
+        synchronized (this) {
+            awaitSnapshot();
+            usePlatform(imported);
+        }
+    }
+
+    /**
+     * Method that reads a snapshot file that ends with a footer
+     * @param path The Path of the snapshot
+     * @param footer The Footer read from the snapshot
+     * @return Returns the Platform read from the snapshot
+     * @throws CorruptSnapshotException If the snapshot is truncated or fails a checksum
+     * @throws IOException If the file could not be read
+     */
+    private Platform readSnapshot(Path path, SnapshotFiles.Footer footer) throws IOException {
+        try (InputStream in = openSnapshot(new FileInputStream(path.toFile()))) {
+            return SnapshotCodec.readSections(in, footer);
+        } catch (CorruptSnapshotException e) {
+            throw e;
+        } catch (EOFException | ZipException | StreamCorruptedException e) {
+            throw new CorruptSnapshotException("Snapshot " + path + " is corrupt", e);
+        }
+    }
+
+    /**
+     * Method that reads a snapshot file written before footers were added,
+     * either as records or as the serialized Platform object
+     * @param path The Path of the snapshot
+     * @return Returns the Platform read from the snapshot
+     * @throws CorruptSnapshotException If the snapshot is truncated or malformed
+     * @throws IOException If the file could not be read
+     * @throws ClassNotFoundException If the serialized Platform class could not be found
+     */
+    private Platform readSnapshotWithoutFooter(Path path) throws IOException, ClassNotFoundException {
+        FileInputStream fileIn = new FileInputStream(path.toFile()); // Creates FIS using the filename
+
+        try (BufferedInputStream in = new BufferedInputStream(openSnapshot(fileIn))) {
+
+            if (startsWith(in, SnapshotCodec.MAGIC)) {
+                // Snapshots are read record by record
+                return SnapshotCodec.read(new DataInputStream(in));
+            }
+
+            // Snapshots written before the record format held the serialized Platform object
+            ObjectInputStream objectIn = new ObjectInputStream(in); // Creates an OIS to read objects from file
+            Platform platform = (Platform) objectIn.readObject(); // Reads the Platform object from file
+            platform.linkThreads();
+            return platform;
+
+        } catch (EOFException | ZipException | StreamCorruptedException e) {
+            // Without a footer a snapshot cut short is only noticed when its data runs out
+            throw new CorruptSnapshotException("Snapshot " + path + " is corrupt", e);
+        }
+    }
+
+    /**
+     * Method that replaces the platform with one that has been loaded, restoring its counters
+     * and moving the attached storage, if any, over to it
+     * @param loaded The Platform that has been loaded
+     * @throws IOException If the loaded Platform could not be written to the storage
+     */
+    private void usePlatform(Platform loaded) throws IOException {
+        StorageEngine storage = platform.getStorage();
+
+        platform = loaded;
+        platform.loadCounters(); // This calls a method that loads all counters from variables in new platform
+
+        if (storage != null) platform.attachStorage(storage);
+    }
+
+    /**
+     * Method that wraps a snapshot file in a decompressing stream if it was saved compressed
+     * @param fileIn The stream of the snapshot file
+     * @return Returns a stream of the uncompressed snapshot
+     * @throws IOException If the start of the file cannot be read
+     */
+    private InputStream openSnapshot(InputStream fileIn) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(fileIn);
+
+        if (startsWith(in, BlockDeflaterOutputStream.MAGIC)) {
+            return new BlockInflaterInputStream(in, Runtime.getRuntime().availableProcessors());
+        }
+        return in;
+    }
+
+    /**
+     * Method that checks whether a stream starts with the given bytes, without consuming them
+     * @param in The stream to check
+     * @param magic The bytes expected at the start of the stream
+     * @return Returns true if the stream starts with the bytes
+     * @throws IOException If the start of the stream cannot be read
+     */
+    private static boolean startsWith(BufferedInputStream in, byte[] magic) throws IOException {
+        byte[] start = new byte[magic.length];
+        in.mark(magic.length);
+        int read = in.readNBytes(start, 0, start.length);
+        in.reset();
+
+        return read == magic.length && Arrays.equals(start, magic);
+    }
+
+}
@@ -0,0 +1,69 @@
+package socialmedia;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * StorageEngine interface.
+ * A key-value store that a {@link Platform} writes its Accounts and Posts to as they change,
+ * so they survive a restart without saving a whole snapshot.
+ * Keys are built with {@link #accountKey(int)} and {@link #postKey(int)}, values are {@link SnapshotCodec} records
+ */
+public interface StorageEngine extends Closeable {
+
+    // Key of the record holding the counter variables
+    long HEADER_KEY = 0;
+
+    /**
+     * Method that returns the key an Account is stored under
+     * @param id The NUMERICAL_IDENTIFIER of the Account
+     * @return Returns the long key
+     */
+    static long accountKey(int id) {
+        return ((long) SnapshotCodec.ACCOUNT << 32) | (id & 0xffffffffL);
+    }
+
+    /**
+     * Method that returns the key a Post is stored under
+     * @param id The ID of the Post
+     * @return Returns the long key
+     */
+    static long postKey(int id) {
+        return ((long) 'P' << 32) | (id & 0xffffffffL);
+    }
+
+    /**
+     * Method that stores a record, replacing any record already stored under the key
+     * @param key The long key of the record
+     * @param record The bytes of the record
+     * @throws IOException If the record could not be stored
+     */
+    void put(long key, byte[] record) throws IOException;
+
+    /**
+     * Method that returns the record stored under a key
+     * @param key The long key of the record
+     * @return Returns the bytes of the record, or null if there is none
+     * @throws IOException If the record could not be read
+     */
+    byte[] get(long key) throws IOException;
+
+    /**
+     * Method that removes the record stored under a key, if there is one
+     * @param key The long key of the record
+     * @throws IOException If the removal could not be stored
+     */
+    void remove(long key) throws IOException;
+
+    /**
+     * Method that returns every key with a record, in ascending order
+     * @return Returns the array of keys
+     */
+    long[] keys();
+
+    /**
+     * Method that makes sure every record stored so far has reached the disk
+     * @throws IOException If the records could not be written
+     */
+    void flush() throws IOException;
+}
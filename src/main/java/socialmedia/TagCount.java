@@ -0,0 +1,10 @@
+package socialmedia;
+
+/**
+ * The TagCount Record.
+ * A tag and the number of times it was used, as returned by {@link SocialMedia#getTrendingTags(java.time.Duration, int)}
+ * @param tag The lower case tag, without its #
+ * @param count The number of Posts that used the tag in the window
+ */
+public record TagCount(String tag, int count) {
+}
@@ -0,0 +1,235 @@
+package socialmedia;
+
+import java.util.ArrayList;
+
+/**
+ * The ThreadLayout Class.
+ * Every Post of one thread laid out flat in preorder, each with its level and the size of the subtree it starts,
+ * so the Comments below any Post are the range that follows it and a subtree is read with a contiguous scan
+ * instead of a walk through the linked Comments, see {@link ThreadRenderer#renderThread(ThreadLayout.Range, Appendable)}
+ *
+ * A new Comment always has the highest ID, so it goes at the end of its parent's subtree. The arrays hold a gap
+ * at the position of the last insert, so replies to the same part of a thread are added without moving anything;
+ * only the entries between the old and new position of the gap are moved when it moves, and each Post keeps
+ * its own position in the arrays, see {@link Post#getLayoutIndex()}. After a Comment is added the subtree size
+ * of every Post above it is increased, following the chain of parents.
+ * Deleted Comments keep their place in the thread, so entries are never removed.
+ * Must only be used while holding the {@link SocialMedia} lock; subtrees are copied out to be read without it
+ */
+class ThreadLayout {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Entries at physical positions from gapStart up to but not including gapEnd are unused
+    private Post[] posts;
+    private int[] levels;
+    private int[] sizes;
+    private int gapStart;
+    private int gapEnd;
+
+    /**
+     * Constructor method for ThreadLayout
+     * @param capacity The number of entries the arrays can hold before growing
+     */
+    private ThreadLayout(int capacity) {
+        posts = new Post[capacity];
+        levels = new int[capacity];
+        sizes = new int[capacity];
+        gapEnd = capacity;
+    }
+
+    /**
+     * Method that lays out a thread as it is now, walking the Comments of each Post in ID order without recursion
+     * @param root The Original the thread starts from
+     * @return Returns the new ThreadLayout
+     */
+    static ThreadLayout of(Original root) {
+        ArrayList<Post> order = new ArrayList<>();
+        ArrayList<Comment> stack = new ArrayList<>();
+
+        order.add(root);
+        if (root.getFirstComment() != null) stack.add(root.getFirstComment());
+        while (!stack.isEmpty()) {
+            int last = stack.size() - 1;
+            Comment comment = stack.get(last);
+            if (comment.getNextComment() != null) stack.set(last, comment.getNextComment());
+            else stack.remove(last);
+
+            order.add(comment);
+            if (comment.getFirstComment() != null) stack.add(comment.getFirstComment());
+        }
+
+        ThreadLayout layout = new ThreadLayout(Math.max(INITIAL_CAPACITY, order.size() * 2));
+        for (int i = 0; i < order.size(); i++) {
+            Post post = order.get(i);
+            layout.posts[i] = post;
+            layout.levels[i] = post.getLevel();
+            layout.sizes[i] = 1;
+            post.setLayoutIndex(i);
+        }
+        layout.gapStart = order.size();
+
+        // Every parent comes before its Comments, so walking backwards adds each subtree to its parent's once complete
+        for (int i = order.size() - 1; i > 0; i--) {
+            layout.sizes[((Comment) order.get(i)).getParentPost().getLayoutIndex()] += layout.sizes[i];
+        }
+        return layout;
+    }
+
+    /**
+     * Method that adds a new Comment at the end of its parent's subtree
+     * @param comment The Comment that has just been made, whose parent is already in the layout
+     */
+    void add(Comment comment) {
+        if (gapStart == gapEnd) grow();
+
+        Post parent = comment.getParentPost();
+        moveGap(logical(parent.getLayoutIndex()) + sizes[parent.getLayoutIndex()]);
+
+        posts[gapStart] = comment;
+        levels[gapStart] = comment.getLevel();
+        sizes[gapStart] = 1;
+        comment.setLayoutIndex(gapStart);
+        gapStart++;
+
+        for (Post post = parent; post != null; post = post instanceof Comment above ? above.getParentPost() : null) {
+            sizes[post.getLayoutIndex()]++;
+        }
+    }
+
+    /**
+     * Method that copies the part of the layout a Post starts, that is the Post followed by every Comment below it
+     * @param root The Original or Comment in this thread
+     * @return Returns the Range of the subtree, in preorder
+     */
+    Range subtree(Post root) {
+        int start = logical(root.getLayoutIndex());
+        int length = sizes[root.getLayoutIndex()];
+
+        Range range = new Range(length);
+        copy(start, range.posts, range.levels, range.sizes, length);
+        return range;
+    }
+
+    /**
+     * Method that returns the number of Posts in the thread
+     * @return Returns the int number of Posts, including the Original
+     */
+    int size() {
+        return posts.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * Method that copies entries out of the arrays, reading around the gap
+     * @param start The logical position of the first entry copied
+     * @param toPosts The array the Posts are copied to
+     * @param toLevels The array the levels are copied to
+     * @param toSizes The array the subtree sizes are copied to
+     * @param length The number of entries copied
+     */
+    private void copy(int start, Post[] toPosts, int[] toLevels, int[] toSizes, int length) {
+        int before = Math.max(0, Math.min(length, gapStart - start));
+        System.arraycopy(posts, start, toPosts, 0, before);
+        System.arraycopy(levels, start, toLevels, 0, before);
+        System.arraycopy(sizes, start, toSizes, 0, before);
+
+        int after = physical(start + before);
+        System.arraycopy(posts, after, toPosts, before, length - before);
+        System.arraycopy(levels, after, toLevels, before, length - before);
+        System.arraycopy(sizes, after, toSizes, before, length - before);
+    }
+
+    /**
+     * Method that moves the gap so it starts at a logical position, moving the entries in between across it
+     * @param position The logical position the gap is to start at
+     */
+    private void moveGap(int position) {
+        while (gapStart > position) {
+            gapStart--;
+            gapEnd--;
+            moveEntry(gapStart, gapEnd);
+        }
+        while (gapStart < position) {
+            moveEntry(gapEnd, gapStart);
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    /**
+     * Method that moves one entry to an unused physical position
+     * @param from The physical position of the entry
+     * @param to The physical position it is moved to
+     */
+    private void moveEntry(int from, int to) {
+        posts[to] = posts[from];
+        levels[to] = levels[from];
+        sizes[to] = sizes[from];
+        posts[from] = null;
+        posts[to].setLayoutIndex(to);
+    }
+
+    /**
+     * Method that doubles the capacity of the arrays, keeping the gap where it is
+     */
+    private void grow() {
+        int capacity = posts.length * 2;
+        int tail = posts.length - gapEnd;
+
+        Post[] newPosts = new Post[capacity];
+        int[] newLevels = new int[capacity];
+        int[] newSizes = new int[capacity];
+        System.arraycopy(posts, 0, newPosts, 0, gapStart);
+        System.arraycopy(levels, 0, newLevels, 0, gapStart);
+        System.arraycopy(sizes, 0, newSizes, 0, gapStart);
+        System.arraycopy(posts, gapEnd, newPosts, capacity - tail, tail);
+        System.arraycopy(levels, gapEnd, newLevels, capacity - tail, tail);
+        System.arraycopy(sizes, gapEnd, newSizes, capacity - tail, tail);
+
+        posts = newPosts;
+        levels = newLevels;
+        sizes = newSizes;
+        gapEnd = capacity - tail;
+        for (int i = gapEnd; i < capacity; i++) posts[i].setLayoutIndex(i);
+    }
+
+    /**
+     * Method that returns the logical position of an entry, as if there were no gap
+     * @param physical The physical position of the entry
+     * @return Returns the int logical position
+     */
+    private int logical(int physical) {
+        return physical < gapStart ? physical : physical - (gapEnd - gapStart);
+    }
+
+    /**
+     * Method that returns the physical position of an entry
+     * @param logical The logical position of the entry
+     * @return Returns the int physical position
+     */
+    private int physical(int logical) {
+        return logical < gapStart ? logical : logical + (gapEnd - gapStart);
+    }
+
+    /**
+     * The Range Class.
+     * A copy of a subtree of a ThreadLayout, in preorder. The Comments below the Post at position i
+     * are the positions from i + 1 up to but not including i + sizes[i]
+     */
+    static final class Range {
+
+        final Post[] posts;
+        final int[] levels;
+        final int[] sizes;
+
+        /**
+         * Constructor method for Range
+         * @param length The number of Posts in the subtree
+         */
+        private Range(int length) {
+            posts = new Post[length];
+            levels = new int[length];
+            sizes = new int[length];
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package socialmedia;
+
+/**
+ * The ThreadPage Record.
+ * One page of a thread, as returned by {@link SocialMedia#showThreadPage(int, int, int, int)}
+ * @param details The details of the Posts on the page, in the format of {@link SocialMedia#showPostChildrenDetails(int)}
+ * @param nextCursor The cursor to pass to get the next page, or 0 if this is the last page
+ */
+public record ThreadPage(String details, int nextCursor) {
+
+    /**
+     * Method that returns whether there are more pages after this one
+     * @return Returns true if there is a next page
+     */
+    public boolean hasMore() {
+        return nextCursor != 0;
+    }
+}
@@ -0,0 +1,351 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The ThreadRenderer Class.
+ * This writes a Post and every Comment below it, in the format of {@link SocialMedia#showPostChildrenDetails(int)},
+ * straight into an Appendable
+ *
+ * A whole thread is written from its {@link ThreadLayout}, scanning its Posts in order. Pages of a thread are walked
+ * with an explicit stack instead of recursion, so deep threads cannot overflow the call stack.
+ * Comments are linked in ID order by {@link Post#getFirstComment()}, so nothing is sorted,
+ * and each Post is written field by field with indentation taken from one shared run of spaces, so no Strings
+ * are built per Post. One renderer can be reused for many threads, but not by several threads at once
+ */
+class ThreadRenderer {
+
+    // Spaces between each level of the thread
+    static final int INDENT = 4;
+
+    // The next Comment to be written at each level of the thread and its spacing, used as a stack
+    private final ArrayList<Comment> stack = new ArrayList<>();
+    private int[] spacings = new int[16];
+
+    private final char[] digits = new char[11];
+    private String spaces = " ".repeat(64);
+    private Appendable out;
+
+    /**
+     * Method that writes a whole thread, starting from an Original or a Comment.
+     * The starting Post is written without indentation, followed by every Comment below it in ID order,
+     * each indented by its level below the starting Post
+     * @param thread The Range of the thread's layout the thread starts from, see {@link ThreadLayout#subtree(Post)}
+     * @param out The Appendable the thread is written to
+     * @throws NotActionablePostException If a Comment in the thread has been deleted, in which case
+     * the output may already be partly written
+     * @throws IOException If the Appendable could not be written
+     */
+    void renderThread(ThreadLayout.Range thread, Appendable out) throws NotActionablePostException, IOException {
+        this.out = out;
+        try {
+            int length = thread.posts.length;
+            writePost(thread.posts[0], 0);
+            out.append('|');
+            if (length > 1) out.append('\n');
+
+            for (int i = 1; i < length; i++) {
+                Comment comment = (Comment) thread.posts[i];
+                int spacing = (thread.levels[i] - thread.levels[0]) * INDENT;
+
+                // The Comments directly below the root are separated by an empty line
+                if (spacing == INDENT && i > 1) out.append('\n');
+
+                if (!comment.isActionable()) throw new NotActionablePostException();
+
+                appendSpaces(spacing - INDENT);
+                out.append("| > ");
+                writePost(comment, spacing);
+
+                if (thread.sizes[i] > 1) {
+                    appendSpaces(spacing);
+                    out.append("|\n");
+                }
+            }
+        } finally {
+            this.out = null;
+        }
+    }
+
+    /**
+     * Method that writes a Comment and every Comment below it as they appear inside a thread,
+     * in the format of {@link SocialMedia#showPostChildrenDetails(int, int)}
+     * @param comment The Comment to start from
+     * @param spacing The number of spaces the Comment's details are indented by
+     * @param out The Appendable the Comments are written to
+     * @throws NotActionablePostException If one of the Comments has been deleted
+     * @throws IOException If the Appendable could not be written
+     */
+    void renderReplies(Comment comment, int spacing, Appendable out) throws NotActionablePostException, IOException {
+        this.out = out;
+        try {
+            push(comment, spacing);
+            while (!stack.isEmpty()) renderNext(Integer.MAX_VALUE);
+        } finally {
+            stack.clear();
+            this.out = null;
+        }
+    }
+
+    /**
+     * Method that writes one page of a thread, in the same format as {@link #renderThread(ThreadLayout.Range, Appendable)}.
+     * The walk stops as soon as the page is full, so the work done depends on the page and not the thread.
+     * Comments deeper than maxDepth are not written; a Comment at maxDepth that has replies is followed by
+     * a line saying how many Comments below it are left out instead
+     * @param root The Original or Comment the thread starts from
+     * @param cursor The Comment the page starts from, or null for the first page, which starts with the root
+     * @param pageSize The most Comments written on the page
+     * @param maxDepth The deepest level of Comments written, where the Comments on the root are level 1
+     * @param out The Appendable the page is written to
+     * @return Returns the ID of the Comment the next page starts from, or 0 if this is the last page
+     * @throws NotActionablePostException If a Comment on the page has been deleted
+     * @throws IllegalArgumentException If the cursor is not in the thread within maxDepth
+     * @throws IOException If the Appendable could not be written
+     */
+    int renderPage(Post root, Comment cursor, int pageSize, int maxDepth, Appendable out)
+            throws NotActionablePostException, IOException {
+        this.out = out;
+        try {
+            if (cursor == null) {
+                writePost(root, 0);
+                out.append('|');
+                if (pushChildren(root, INDENT)) out.append('\n');
+            } else {
+                resume(root, cursor, maxDepth);
+            }
+
+            // The Comments directly below the root are separated by an empty line
+            int written = 0;
+            boolean first = true;
+            while (!stack.isEmpty() && written < pageSize) {
+                int spacing = spacings[stack.size() - 1];
+                if (spacing == INDENT) {
+                    if (!first) out.append('\n');
+                    first = false;
+                }
+                renderNext(maxDepth);
+                written++;
+            }
+
+            return stack.isEmpty() ? 0 : stack.get(stack.size() - 1).getID();
+        } finally {
+            stack.clear();
+            this.out = null;
+        }
+    }
+
+    /**
+     * Method that rebuilds the stack as it was when the cursor was about to be written: for each level above
+     * the cursor, the Comment that follows its ancestor at that level, then the cursor itself
+     * @param root The Original or Comment the thread starts from
+     * @param cursor The Comment the page starts from
+     * @param maxDepth The deepest level of Comments written
+     * @throws IllegalArgumentException If the cursor is not in the thread within maxDepth
+     */
+    private void resume(Post root, Comment cursor, int maxDepth) {
+        // The path is collected from the cursor up, so it is pushed in reverse
+        ArrayList<Comment> path = new ArrayList<>();
+        Post post = cursor;
+        while (post != root) {
+            if (!(post instanceof Comment comment) || path.size() == maxDepth) {
+                throw new IllegalArgumentException("Cursor " + cursor.getID() + " is not in this thread");
+            }
+            path.add(comment);
+            post = comment.getParentPost();
+        }
+
+        for (int i = path.size() - 1; i > 0; i--) {
+            Comment next = path.get(i).getNextComment();
+            if (next != null) push(next, (path.size() - i) * INDENT);
+        }
+        push(cursor, path.size() * INDENT);
+    }
+
+    /**
+     * Method that takes the next Comment off the stack, writes it, and puts its own Comments on the stack
+     * @param maxDepth The deepest level of Comments written, deeper Comments are counted instead
+     * @throws NotActionablePostException If the Comment has been deleted
+     * @throws IOException If the Appendable could not be written
+     */
+    private void renderNext(int maxDepth) throws NotActionablePostException, IOException {
+        int last = stack.size() - 1;
+        Comment comment = stack.get(last);
+        int spacing = spacings[last];
+
+        // The Comment's next sibling takes its place, to be written once the Comment's own Comments are done
+        if (comment.getNextComment() != null) {
+            stack.set(last, comment.getNextComment());
+        } else {
+            stack.remove(last);
+        }
+
+        if (!comment.isActionable()) throw new NotActionablePostException();
+
+        appendSpaces(Math.max(0, spacing - INDENT));
+        out.append("| > ");
+        writePost(comment, spacing);
+
+        if (comment.getFirstComment() == null) return;
+
+        appendSpaces(spacing);
+        out.append("|\n");
+
+        if (spacing / INDENT < maxDepth) {
+            push(comment.getFirstComment(), spacing + INDENT);
+        } else {
+            // Every live Comment below is left out, not only the direct replies
+            int replies = comment.getThreadSummary().replies();
+            appendSpaces(spacing);
+            out.append("| > ");
+            appendInt(replies);
+            out.append(replies == 1 ? " more reply\n" : " more replies\n");
+        }
+    }
+
+    /**
+     * Method that writes the details of a Post as {@link SocialMedia#showIndividualPost(int)} does,
+     * indenting every line after the first. As in the original line splitting, empty lines at the end
+     * of the message are left out when indenting
+     * @param post The Original or Comment to write
+     * @param spacing The number of spaces every line after the first is indented by
+     * @throws IOException If the Appendable could not be written
+     */
+    private void writePost(Post post, int spacing) throws IOException {
+        String message;
+        int endorsements;
+        int comments;
+
+        if (post instanceof Original original) {
+            message = original.getMessage();
+            endorsements = original.getNumberOfEndorsements();
+            comments = original.getNumberOfComments();
+        } else {
+            Comment comment = (Comment) post;
+            message = comment.getMessage();
+            endorsements = comment.getNumberOfEndorsements();
+            comments = comment.getNumberOfComments();
+        }
+        if (message == null) message = "null";
+
+        out.append("ID: ");
+        appendInt(post.getID());
+        out.append('\n');
+
+        appendSpaces(spacing);
+        out.append("Account: ").append(String.valueOf(post.getHandle())).append('\n');
+
+        appendSpaces(spacing);
+        out.append("No. endorsements: ");
+        appendInt(endorsements);
+        out.append(" | No. comments: ");
+        appendInt(comments);
+        out.append('\n');
+
+        // The root is not indented, so its message is written exactly as it is
+        if (spacing == 0) {
+            out.append(message).append('\n');
+            return;
+        }
+
+        int end = message.length();
+        while (end > 0 && message.charAt(end - 1) == '\n') end--;
+
+        int start = 0;
+        while (start < end) {
+            int newline = message.indexOf('\n', start);
+            if (newline < 0 || newline > end) newline = end;
+
+            appendSpaces(spacing);
+            out.append(message, start, newline).append('\n');
+            start = newline + 1;
+        }
+    }
+
+    /**
+     * Method that puts the first Comment of a Post on the stack. The others are put on the stack in turn
+     * as each one before them is written
+     * @param post The Original or Comment whose Comments are added
+     * @param spacing The spacing the Comments are written at
+     * @return Returns true if the Post has any Comments
+     */
+    private boolean pushChildren(Post post, int spacing) {
+        Comment first = post.getFirstComment();
+        if (first == null) return false;
+
+        push(first, spacing);
+        return true;
+    }
+
+    /**
+     * Method that puts a Comment on the stack
+     * @param comment The Comment to be written
+     * @param spacing The spacing it is written at
+     */
+    private void push(Comment comment, int spacing) {
+        if (stack.size() == spacings.length) spacings = Arrays.copyOf(spacings, spacings.length * 2);
+        spacings[stack.size()] = spacing;
+        stack.add(comment);
+    }
+
+    /**
+     * Method that writes a number of spaces from the shared run of spaces
+     * @param count The number of spaces
+     * @throws IOException If the Appendable could not be written
+     */
+    private void appendSpaces(int count) throws IOException {
+        if (count == 0) return;
+        if (count > spaces.length()) spaces = " ".repeat(Math.max(count, spaces.length() * 2));
+
+        // Writers copy a CharSequence range into a new String, writing from the String directly avoids that
+        if (out instanceof Writer writer) {
+            writer.write(spaces, 0, count);
+        } else {
+            out.append(spaces, 0, count);
+        }
+    }
+
+    /**
+     * Method that writes an int in decimal without creating a String
+     * @param value The int to write
+     * @throws IOException If the Appendable could not be written
+     */
+    private void appendInt(int value) throws IOException {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                out.append(Integer.toString(value));
+                return;
+            }
+            out.append('-');
+            value = -value;
+        }
+
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+
+        for (int i = position; i < digits.length; i++) out.append(digits[i]);
+    }
+
+    /**
+     * Method that renders a thread into a new StringBuilder
+     * @param thread The Range of the thread's layout the thread starts from
+     * @return Returns the StringBuilder holding the thread
+     * @throws NotActionablePostException If a Comment in the thread has been deleted
+     */
+    StringBuilder renderThread(ThreadLayout.Range thread) throws NotActionablePostException {
+        StringBuilder output = new StringBuilder();
+        try {
+            renderThread(thread, output);
+        } catch (IOException e) {
+            // A StringBuilder never throws IOException
+            throw new UncheckedIOException(e);
+        }
+        return output;
+    }
+}
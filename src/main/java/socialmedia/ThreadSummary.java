@@ -0,0 +1,16 @@
+package socialmedia;
+
+/**
+ * The ThreadSummary Record.
+ * Aggregates over a Post and every Comment below it, as returned by {@link SocialMedia#getThreadSummary(int)}.
+ * They are kept up to date as the thread changes, so no part of the thread is walked to answer the query
+ * @param id The ID of the Original or Comment the thread starts from
+ * @param level The number of Posts above it, 0 for an Original
+ * @param replies The number of Comments below it that have not been deleted
+ * @param endorsements The number of Endorsements of it and of every Comment below it
+ * @param depth The number of levels of Comments below it, 0 if there are none
+ * @param lastActivityID The ID of the latest Post in the thread: the Post itself, a Comment below it whether deleted or
+ *                       not, or an Endorsement in the thread that has not been deleted
+ */
+public record ThreadSummary(int id, int level, int replies, int endorsements, int depth, int lastActivityID) {
+}
@@ -0,0 +1,367 @@
+package socialmedia;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The TimelineService Class.
+ * This keeps the home timeline of each Account, the latest Posts made by the Accounts it follows,
+ * as returned by {@link SocialMedia#getHomeTimeline(String, int)}
+ *
+ * Each Account has an inbox, a bounded buffer of the latest Posts fanned out to it, and an outbox of its own latest Posts.
+ * When an Account posts, the Post is added to the inbox of each of its followers (fan-out-on-write), unless it has more
+ * followers than the fan-out limit; the Posts of those Accounts are merged in from their outboxes when a timeline is
+ * read instead (fan-out-on-read), so one Post never costs millions of writes.
+ * Post IDs are given out in creation order, so every buffer is kept in ID order and a timeline is a merge of
+ * already sorted buffers. Buffers are only built the first time they are needed, from the Accounts' own Posts,
+ * so nothing is built for Accounts whose timeline is never read.
+ * Must only be used while holding the {@link SocialMedia} lock
+ */
+public class TimelineService {
+
+    static final int DEFAULT_CAPACITY = 800;
+    static final int DEFAULT_FAN_OUT_LIMIT = 10_000;
+
+    private final Platform platform;
+    private final int capacity;
+    private final int fanOutLimit;
+
+    // Buffers by Account ID, and the IDs of the Accounts with more followers than the fan-out limit
+    private final HashMap<Integer, Buffer> inboxes = new HashMap<>();
+    private final HashMap<Integer, Buffer> outboxes = new HashMap<>();
+    private final IntList highFollowerAccounts = new IntList();
+
+    /**
+     * Constructor method for TimelineService using the default bounds
+     * @param platform The Platform whose timelines are kept
+     */
+    TimelineService(Platform platform) {
+        this(platform, DEFAULT_CAPACITY, DEFAULT_FAN_OUT_LIMIT);
+    }
+
+    /**
+     * Constructor method for TimelineService
+     * @param platform The Platform whose timelines are kept
+     * @param capacity The most Posts held in each inbox and outbox
+     * @param fanOutLimit The most followers an Account can have for its Posts to be fanned out on write
+     */
+    TimelineService(Platform platform, int capacity, int fanOutLimit) {
+        this.platform = platform;
+        this.capacity = capacity;
+        this.fanOutLimit = fanOutLimit;
+
+        for (Account account : platform.getAccounts().values()) {
+            if (account.getFollowers().size() > fanOutLimit) highFollowerAccounts.add(account.getNUMERICAL_IDENTIFIER());
+        }
+    }
+
+    /**
+     * Method that returns the latest Posts made by the Accounts an Account follows, newest first.
+     * Deleted Posts are left out, so fewer Posts than the limit may be returned even if more exist
+     * @param account The Account whose timeline is read
+     * @param limit The most Post IDs returned, at most the capacity of an inbox
+     * @return Returns an int array of Post IDs, newest first
+     */
+    int[] getTimeline(Account account, int limit) {
+        limit = Math.min(limit, capacity);
+
+        // The inbox and the outbox of every followed high-follower Account, each read from its newest end
+        ArrayList<Buffer> sources = new ArrayList<>();
+        sources.add(inbox(account));
+
+        IntList following = account.getFollowing();
+        if (highFollowerAccounts.size() <= following.size()) {
+            for (int i = 0; i < highFollowerAccounts.size(); i++) {
+                int id = highFollowerAccounts.get(i);
+                if (following.contains(id)) sources.add(outbox(platform.getAccount(id)));
+            }
+        } else {
+            for (int i = 0; i < following.size(); i++) {
+                int id = following.get(i);
+                if (highFollowerAccounts.contains(id)) sources.add(outbox(platform.getAccount(id)));
+            }
+        }
+
+        int[] positions = new int[sources.size()];
+        for (int i = 0; i < positions.length; i++) positions[i] = sources.get(i).size() - 1;
+
+        int[] timeline = new int[limit];
+        int count = 0;
+        int lastID = Integer.MAX_VALUE;
+
+        while (count < limit) {
+            // The newest Post left in any source is taken next
+            int newest = -1;
+            int newestID = 0;
+            for (int i = 0; i < positions.length; i++) {
+                if (positions[i] < 0) continue;
+                int id = postID(sources.get(i).get(positions[i]));
+                if (id > newestID) {
+                    newest = i;
+                    newestID = id;
+                }
+            }
+            if (newest < 0) break;
+            positions[newest]--;
+
+            // A Post can be in an inbox and an outbox if its Account passed the fan-out limit after posting it
+            if (newestID == lastID) continue;
+            lastID = newestID;
+
+            Post post = platform.getPost(newestID);
+            if (post != null && post.getHandle() != null) timeline[count++] = newestID;
+        }
+
+        return Arrays.copyOf(timeline, count);
+    }
+
+    /**
+     * Method that adds a new Post to the outbox of its Account and, for Accounts under the fan-out limit,
+     * to the inbox of each of its followers. Buffers that have not been built yet are left alone, as they
+     * will include the Post when they are built
+     * @param post The Post that has just been added to the Platform
+     */
+    void postAdded(Post post) {
+        if (post.getHandle() == null) return;
+        Account author = platform.getAccount(post.getHandle());
+        if (author == null) return;
+
+        long entry = entry(post.getID(), author.getNUMERICAL_IDENTIFIER());
+
+        Buffer outbox = outboxes.get(author.getNUMERICAL_IDENTIFIER());
+        if (outbox != null) outbox.add(entry);
+
+        if (highFollowerAccounts.contains(author.getNUMERICAL_IDENTIFIER())) return;
+
+        IntList followers = author.getFollowers();
+        for (int i = 0; i < followers.size(); i++) {
+            Buffer inbox = inboxes.get(followers.get(i));
+            if (inbox != null) inbox.add(entry);
+        }
+    }
+
+    /**
+     * Method that updates the timelines after one Account has started following another.
+     * The followed Account's latest Posts are merged into the follower's inbox
+     * @param follower The Account that followed
+     * @param followed The Account that was followed
+     */
+    void followed(Account follower, Account followed) {
+        int id = followed.getNUMERICAL_IDENTIFIER();
+
+        if (followed.getFollowers().size() > fanOutLimit && highFollowerAccounts.add(id)) {
+            // Posts already in inboxes stay there, newer ones are read from the outbox
+            return;
+        }
+
+        Buffer inbox = inboxes.get(follower.getNUMERICAL_IDENTIFIER());
+        if (inbox != null && !highFollowerAccounts.contains(id)) inbox.merge(outbox(followed));
+    }
+
+    /**
+     * Method that updates the timelines after one Account has stopped following another.
+     * The unfollowed Account's Posts are removed from the follower's inbox
+     * @param follower The Account that unfollowed
+     * @param followed The Account that was unfollowed
+     */
+    void unfollowed(Account follower, Account followed) {
+        int id = followed.getNUMERICAL_IDENTIFIER();
+
+        Buffer inbox = inboxes.get(follower.getNUMERICAL_IDENTIFIER());
+        if (inbox != null) inbox.removeAuthor(id);
+
+        // Posts made while above the limit are only in the outbox, so the followers' inboxes are rebuilt from scratch
+        if (followed.getFollowers().size() <= fanOutLimit && highFollowerAccounts.remove(id)) {
+            IntList followers = followed.getFollowers();
+            for (int i = 0; i < followers.size(); i++) inboxes.remove(followers.get(i));
+        }
+    }
+
+    /**
+     * Method that forgets the buffers of an Account that has been removed.
+     * It must already have stopped following, and lost all of its followers
+     * @param account The Account that has been removed
+     */
+    void accountRemoved(Account account) {
+        int id = account.getNUMERICAL_IDENTIFIER();
+        inboxes.remove(id);
+        outboxes.remove(id);
+        highFollowerAccounts.remove(id);
+    }
+
+    /**
+     * Method that returns the inbox of an Account, building it from the outboxes of the Accounts it follows
+     * the first time
+     * @param account The Account
+     * @return Returns the Buffer of Posts fanned out to the Account
+     */
+    private Buffer inbox(Account account) {
+        Buffer inbox = inboxes.get(account.getNUMERICAL_IDENTIFIER());
+        if (inbox != null) return inbox;
+
+        inbox = new Buffer(capacity);
+        IntList following = account.getFollowing();
+        for (int i = 0; i < following.size(); i++) {
+            int id = following.get(i);
+            Account followed = platform.getAccount(id);
+            if (followed != null && !highFollowerAccounts.contains(id)) inbox.merge(outbox(followed));
+        }
+
+        inboxes.put(account.getNUMERICAL_IDENTIFIER(), inbox);
+        return inbox;
+    }
+
+    /**
+     * Method that returns the outbox of an Account, building it from the Account's Posts the first time
+     * @param account The Account
+     * @return Returns the Buffer of the Account's own latest Posts
+     */
+    private Buffer outbox(Account account) {
+        int accountID = account.getNUMERICAL_IDENTIFIER();
+
+        Buffer outbox = outboxes.get(accountID);
+        if (outbox != null) return outbox;
+
+        // The latest Posts come newest first, so they are added oldest first
+        int[] latest = account.getPostIndex().page(null, 0, capacity);
+
+        outbox = new Buffer(capacity);
+        for (int i = latest.length - 1; i >= 0; i--) outbox.add(entry(latest[i], accountID));
+
+        outboxes.put(accountID, outbox);
+        return outbox;
+    }
+
+    /**
+     * Method that packs a Post ID and the ID of the Account that made it into a single buffer entry
+     * @param postID The int ID of the Post
+     * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+     * @return Returns the long entry, which sorts in Post ID order
+     */
+    private static long entry(int postID, int accountID) {
+        return ((long) postID << 32) | (accountID & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Method that returns the Post ID of a buffer entry
+     * @param entry The long entry
+     * @return Returns the int Post ID
+     */
+    private static int postID(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    /**
+     * The Buffer Class.
+     * A ring of buffer entries in ascending Post ID order, which drops its oldest entry when a new one is added while full
+     */
+    static final class Buffer {
+
+        private final long[] entries;
+        private int start = 0;
+        private int size = 0;
+
+        /**
+         * Constructor method for Buffer
+         * @param capacity The most entries held
+         */
+        Buffer(int capacity) {
+            this.entries = new long[capacity];
+        }
+
+        /**
+         * Method that adds an entry newer than every entry held
+         * @param entry The long entry to add
+         */
+        void add(long entry) {
+            if (entries.length == 0) return;
+            if (size > 0 && postID(entry) <= postID(get(size - 1))) {
+                merge(new long[]{entry}, 1);
+                return;
+            }
+
+            if (size == entries.length) {
+                entries[start] = entry;
+                start = (start + 1) % entries.length;
+            } else {
+                entries[(start + size) % entries.length] = entry;
+                size++;
+            }
+        }
+
+        /**
+         * Method that merges the entries of another Buffer into this one, keeping the newest entries
+         * @param other The Buffer to merge in
+         */
+        void merge(Buffer other) {
+            long[] sorted = new long[other.size];
+            for (int i = 0; i < other.size; i++) sorted[i] = other.get(i);
+            merge(sorted, sorted.length);
+        }
+
+        /**
+         * Method that merges sorted entries into this Buffer, keeping the newest entries.
+         * An entry with the same Post ID as one already held is only kept once
+         * @param sorted The entries to merge in, in ascending Post ID order
+         * @param count The number of entries to merge in
+         */
+        private void merge(long[] sorted, int count) {
+            long[] merged = new long[entries.length];
+
+            // Merged from the newest end, so only the entries that are kept are visited
+            int mine = size - 1;
+            int theirs = count - 1;
+            int position = merged.length;
+
+            while (position > 0 && (mine >= 0 || theirs >= 0)) {
+                long next;
+                if (theirs < 0 || (mine >= 0 && postID(get(mine)) >= postID(sorted[theirs]))) {
+                    next = get(mine--);
+                    if (theirs >= 0 && postID(sorted[theirs]) == postID(next)) theirs--;
+                } else {
+                    next = sorted[theirs--];
+                }
+                merged[--position] = next;
+            }
+
+            size = merged.length - position;
+            System.arraycopy(merged, position, entries, 0, size);
+            start = 0;
+        }
+
+        /**
+         * Method that removes every entry made by an Account
+         * @param accountID The int NUMERICAL_IDENTIFIER of the Account
+         */
+        void removeAuthor(int accountID) {
+            int kept = 0;
+            long[] remaining = new long[size];
+            for (int i = 0; i < size; i++) {
+                long entry = get(i);
+                if ((int) entry != accountID) remaining[kept++] = entry;
+            }
+
+            System.arraycopy(remaining, 0, entries, 0, kept);
+            start = 0;
+            size = kept;
+        }
+
+        /**
+         * Method that returns an entry by its position
+         * @param index The position, 0 being the oldest entry
+         * @return Returns the long entry
+         */
+        long get(int index) {
+            return entries[(start + index) % entries.length];
+        }
+
+        /**
+         * Method that returns the number of entries held
+         * @return Returns the int size
+         */
+        int size() {
+            return size;
+        }
+    }
+}
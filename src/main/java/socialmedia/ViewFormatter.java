@@ -0,0 +1,60 @@
+package socialmedia;
+
+/**
+ * The ViewFormatter Class.
+ * This writes {@link PostView}s and {@link AccountView}s as the text shown by {@link SocialMedia#showIndividualPost(int)}
+ * and {@link SocialMedia#showAccount(String)}, appending each field straight into a StringBuilder.
+ * The formatter's own buffer is reused for every call, so it must only be used by one thread at a time
+ */
+public class ViewFormatter {
+
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * Method that appends the text of a Post to a StringBuilder
+     * @param post The PostView to write
+     * @param out The StringBuilder the text is appended to
+     * @return Returns out
+     */
+    public StringBuilder appendPost(PostView post, StringBuilder out) {
+        return out.append("ID: ").append(post.id()).append('\n')
+                .append("Account: ").append(post.handle()).append('\n')
+                .append("No. endorsements: ").append(post.endorsements())
+                .append(" | No. comments: ").append(post.comments()).append('\n')
+                .append(post.message()).append('\n');
+    }
+
+    /**
+     * Method that appends the text of an Account to a StringBuilder
+     * @param account The AccountView to write
+     * @param out The StringBuilder the text is appended to
+     * @return Returns out
+     */
+    public StringBuilder appendAccount(AccountView account, StringBuilder out) {
+        return out.append("ID: ").append(account.id()).append('\n')
+                .append("Handle: ").append(account.handle()).append('\n')
+                .append("Description: ").append(account.description()).append('\n')
+                .append("Post count: ").append(account.postCount()).append('\n')
+                .append("Endorse count: ").append(account.endorsementCount()).append('\n');
+    }
+
+    /**
+     * Method that returns the text of a Post, built in the reused buffer
+     * @param post The PostView to write
+     * @return Returns the String text
+     */
+    public String formatPost(PostView post) {
+        buffer.setLength(0);
+        return appendPost(post, buffer).toString();
+    }
+
+    /**
+     * Method that returns the text of an Account, built in the reused buffer
+     * @param account The AccountView to write
+     * @return Returns the String text
+     */
+    public String formatAccount(AccountView account) {
+        buffer.setLength(0);
+        return appendAccount(account, buffer).toString();
+    }
+}
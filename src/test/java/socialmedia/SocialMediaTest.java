@@ -1,12 +1,27 @@
 package socialmedia;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
-
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 
 public class SocialMediaTest {
 
+    // Directories the storage and snapshot tests write to, deleted after each test
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     /*
     -----------------Account Method Tests-----------------
      */
@@ -1048,5 +1063,1799 @@ public class SocialMediaTest {
         }
     }
 
+    @Test
+    public void savePlatformCompressedTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            for (int i = 0; i < 200; i++) {
+                int id = sm.createPost("user1", "A fairly repetitive post message number " + i);
+                sm.endorsePost("user2", id);
+            }
+
+            File plain = File.createTempFile("platform", ".ser");
+            File compressed = File.createTempFile("platform", SocialMedia.COMPRESSED_EXTENSION);
+            plain.deleteOnExit();
+            compressed.deleteOnExit();
+
+            sm.savePlatform(plain.getPath());
+            sm.savePlatform(compressed.getPath());
+
+            Assert.assertTrue(compressed.length() < plain.length());
+
+            String expected = sm.showIndividualPost(399);
+
+            sm.erasePlatform();
+            sm.loadPlatform(compressed.getPath());
+
+            Assert.assertEquals(expected, sm.showIndividualPost(399));
+            Assert.assertEquals(200, sm.getTotalOriginalPosts());
+            Assert.assertEquals(200, sm.getTotalEndorsmentPosts());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void blockCompressionChecksumTest() throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BlockDeflaterOutputStream out = new BlockDeflaterOutputStream(bytes, 16);
+        out.write("The same text, over and over, over and over again".getBytes());
+        out.close();
+
+        byte[] data = bytes.toByteArray();
+        Assert.assertEquals("The same text, over and over, over and over again",
+                new String(new BlockInflaterInputStream(new ByteArrayInputStream(data), 4).readAllBytes()));
+
+        // Flips a bit in the last block's compressed bytes
+        data[data.length - 6] ^= 1;
+        Assert.assertThrows(IOException.class,
+                () -> new BlockInflaterInputStream(new ByteArrayInputStream(data)).readAllBytes());
+    }
+
+    @Test
+    public void savePlatformInBackgroundTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "first"); //1
+            sm.commentPost("user2", 1, "reply"); //2
+            sm.endorsePost("user2", 1); //3
+
+            String expectedOriginal = sm.showIndividualPost(1);
+            String expectedComment = sm.showIndividualPost(2);
+            String expectedAccount = sm.showAccount("user1");
+
+            File file = File.createTempFile("platform", ".snapshot");
+            file.deleteOnExit();
+
+            boolean[] completed = new boolean[1];
+
+            BackgroundSnapshot snapshot;
+
+            // Holding the lock keeps the snapshot thread waiting, so every change below happens before it writes
+            synchronized (sm) {
+                snapshot = sm.savePlatformInBackground(file.getPath(), new SnapshotListener() {
+                    @Override
+                    public void onComplete(String filename) {
+                        completed[0] = true;
+                    }
+
+                    @Override
+                    public void onFailure(IOException exception) {
+                        exception.printStackTrace();
+                    }
+                });
+
+                sm.endorsePost("user2", 2); //4
+                sm.commentPost("user1", 2, "another reply"); //5
+                sm.deletePost(1);
+                sm.updateAccountDescription("user1", "changed");
+            }
+
+            snapshot.await();
+
+            Assert.assertTrue(completed[0]);
+            Assert.assertNull(snapshot.getFailure());
+
+            sm.loadPlatform(file.getPath());
+
+            Assert.assertEquals(expectedOriginal, sm.showIndividualPost(1));
+            Assert.assertEquals(expectedComment, sm.showIndividualPost(2));
+            Assert.assertEquals(expectedAccount, sm.showAccount("user1"));
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.showIndividualPost(5));
+
+            // New posts continue from the saved IDs
+            Assert.assertEquals(4, sm.createPost("user2", "after loading"));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void openStorageTest() {
+
+        try {
+
+            Path directory = temporaryFolder.newFolder("platform-store").toPath();
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1", "first account");
+            sm.createPost("user1", "written before the store was opened"); //1
+
+            sm.openStorage(directory.toString());
+
+            sm.createAccount("user2");
+            sm.commentPost("user2", 1, "written to the store"); //2
+            sm.endorsePost("user2", 2); //3
+            sm.endorsePost("user1", 2); //4
+            sm.deletePost(4);
+            sm.changeAccountHandle("user1", "renamed");
+
+            String expectedOriginal = sm.showIndividualPost(1);
+            String expectedComment = sm.showIndividualPost(2);
+            String expectedAccount = sm.showAccount("user2");
+
+            sm.closeStorage();
+
+            SocialMedia restored = new SocialMedia();
+            restored.openStorage(directory.toString());
+
+            Assert.assertEquals(expectedOriginal, restored.showIndividualPost(1));
+            Assert.assertEquals(expectedComment, restored.showIndividualPost(2));
+            Assert.assertEquals(expectedAccount, restored.showAccount("user2"));
+            Assert.assertEquals("first account", restored.platform.getAccount("renamed").getDescription());
+            Assert.assertEquals(5, restored.createPost("user2", "after restoring"));
+
+            restored.closeStorage();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void logStructuredStoreCompactionTest() throws IOException {
+
+        Path directory = temporaryFolder.newFolder("log-store").toPath();
+
+        LogStructuredStore store = new LogStructuredStore(directory.toString(), 256, 4, false);
+
+        // Each key is overwritten many times, so most of the sealed segments is out of date
+        for (int i = 0; i < 100; i++) {
+            for (int key = 1; key <= 5; key++) {
+                store.put(key, ("value " + key + " " + i).getBytes());
+            }
+        }
+        store.remove(5);
+
+        Assert.assertTrue(store.getNumberOfSegments() > 2);
+        store.compactIfNeeded();
+        Assert.assertEquals(2, store.getNumberOfSegments());
+        Assert.assertEquals("value 3 99", new String(store.get(3)));
+        store.close();
+
+        // Bytes left by a write cut short are discarded when the store is opened again
+        Path last;
+        try (java.util.stream.Stream<Path> files = Files.list(directory)) {
+            last = files.max(Comparator.naturalOrder()).get();
+        }
+        Files.write(last, new byte[] {0, 0, 0, 9, 1, 2}, StandardOpenOption.APPEND);
+
+        store = new LogStructuredStore(directory.toString(), 256, 4, false);
+        Assert.assertArrayEquals(new long[] {1, 2, 3, 4}, store.keys());
+        Assert.assertEquals("value 1 99", new String(store.get(1)));
+        Assert.assertNull(store.get(5));
+
+        // A failed background compaction is thrown by the next write rather than lost, and only once
+        IOException failure = new IOException("no space left");
+        LogStructuredStore reopened = store;
+        reopened.compactionFailed(failure);
+        IOException thrown = Assert.assertThrows(IOException.class, () -> reopened.put(1, "lost".getBytes()));
+        Assert.assertSame(failure, thrown.getCause());
+        Assert.assertEquals("value 1 99", new String(reopened.get(1)));
+        reopened.put(1, "written".getBytes());
+        Assert.assertEquals("written", new String(reopened.get(1)));
+        reopened.close();
+    }
+
+    @Test
+    public void recoverPlatformTest() {
+
+        try {
+
+            Path directory = temporaryFolder.newFolder("snapshots").toPath();
+            String older = directory.resolve("older.snapshot").toString();
+            String newer = directory.resolve("newer" + SocialMedia.COMPRESSED_EXTENSION).toString();
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createPost("user1", "in both snapshots"); //1
+            sm.savePlatform(older);
+
+            sm.createPost("user1", "only in the newer snapshot"); //2
+            sm.savePlatform(newer);
+
+            sm.verifySnapshot(older);
+            sm.verifySnapshot(newer);
+
+            // The newest complete snapshot is chosen, and unfinished temporary files are ignored
+            Files.write(directory.resolve("newest.snapshot" + SnapshotFiles.TEMPORARY_EXTENSION), new byte[100]);
+            Assert.assertEquals(newer, sm.recoverPlatform(directory.toString()));
+            Assert.assertEquals(2, sm.getTotalOriginalPosts());
+
+            // A newer snapshot cut short is skipped in favour of the older one
+            byte[] bytes = Files.readAllBytes(Paths.get(newer));
+            Files.write(Paths.get(newer), Arrays.copyOf(bytes, bytes.length / 2));
+
+            Assert.assertThrows(CorruptSnapshotException.class, () -> sm.loadPlatform(newer));
+            Assert.assertEquals(older, sm.recoverPlatform(directory.toString()));
+            Assert.assertEquals(1, sm.getTotalOriginalPosts());
+
+            // A flipped bit inside a section is caught by the section checksum
+            bytes = Files.readAllBytes(Paths.get(older));
+            bytes[10] ^= 1;
+            Files.write(Paths.get(older), bytes);
+
+            Assert.assertThrows(CorruptSnapshotException.class, () -> sm.verifySnapshot(older));
+            Assert.assertThrows(CorruptSnapshotException.class, () -> sm.loadPlatform(older));
+
+            // With neither snapshot readable, the reason the one with a footer was rejected is kept on the exception
+            CorruptSnapshotException notFound = Assert.assertThrows(CorruptSnapshotException.class,
+                    () -> sm.recoverPlatform(directory.toString()));
+            Assert.assertEquals(1, notFound.getSuppressed().length);
+            Assert.assertTrue(notFound.getSuppressed()[0] instanceof CorruptSnapshotException);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void exportImportPlatformTest() {
+
+        try {
+
+            Path directory = temporaryFolder.newFolder("exports").toPath();
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1", "commas, \"quotes\"\nand a new line");
+            sm.createAccount("user2", "");
+            sm.createAccount("user3");
+            sm.createPost("user1", "first post"); //1
+            sm.commentPost("user2", 1, "a comment, with a comma"); //2
+            sm.commentPost("user1", 2, "a reply"); //3
+            sm.endorsePost("user2", 1); //4
+            sm.endorsePost("user1", 2); //5
+            sm.createPost("user3", "deleted"); //6
+            sm.deletePost(6);
+
+            String expectedAccount = sm.showAccount("user1");
+            String expectedThread = sm.showPostChildrenDetails(1).toString();
+
+            // Every format is exported before any is imported, as importing replaces the counter variables
+            for (ExportFormat format : ExportFormat.values()) {
+                String filename = directory.resolve("platform" + format.getExtension()).toString();
+
+                // 3 accounts, 6 posts and the counters row
+                Assert.assertEquals(10, sm.exportPlatform(filename));
+            }
+
+            for (ExportFormat format : ExportFormat.values()) {
+                String filename = directory.resolve("platform" + format.getExtension()).toString();
+
+                SocialMedia imported = new SocialMedia();
+                imported.importPlatform(filename);
+
+                Assert.assertEquals(expectedAccount, imported.showAccount("user1"));
+                Assert.assertEquals("", imported.platform.getAccount("user2").getDescription());
+                Assert.assertEquals(expectedThread, imported.showPostChildrenDetails(1).toString());
+                Assert.assertEquals(3, imported.getNumberOfAccounts());
+                Assert.assertEquals(1, imported.getTotalOriginalPosts());
+                Assert.assertEquals(2, imported.getTotalCommentPosts());
+                Assert.assertEquals(2, imported.getTotalEndorsmentPosts());
+                Assert.assertEquals(7, imported.createPost("user2", "after importing"));
+            }
+
+            // Rows may come in any order, a comment can be read before the post it replies to
+            Path unordered = directory.resolve("unordered.jsonl");
+            Files.writeString(unordered, """
+                    {"type":"comment","id":2,"handle":"user1","parent":1,"message":"reply","endorsements":0,"comments":0,"actionable":true}
+                    {"type":"account","id":0,"handle":"user1","description":null,"endorsementsReceived":0,"posts":2}
+                    {"type":"original","id":1,"handle":"user1","message":"post","endorsements":0,"comments":1,"actionable":true}
+                    """);
+
+            SocialMedia imported = new SocialMedia();
+            imported.importPlatform(unordered.toString());
+            Assert.assertEquals(1, imported.platform.getOriginals().get(1).getComments().size());
+            Assert.assertEquals(1, imported.platform.getAccount("user1").getComments().size());
+
+            // A malformed file leaves the platform as it was
+            Path malformed = directory.resolve("malformed.csv");
+            Files.writeString(malformed, ExportFormat.CSV_HEADER + "\noriginal,1,user1,\"unterminated\n");
+            Assert.assertThrows(IOException.class, () -> imported.importPlatform(malformed.toString()));
+            Assert.assertEquals("reply", imported.platform.getComments().get(2).getMessage());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void showPostChildrenDetailsAppendableTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "root\nmessage"); //1
+            sm.commentPost("user2", 1, "two\nlines\n\n"); //2
+            sm.commentPost("user1", 2, "\n"); //3
+
+            String expectedOutput = """
+                    ID: 1
+                    Account: user1
+                    No. endorsements: 0 | No. comments: 1
+                    root
+                    message
+                    |
+                    | > ID: 2
+                        Account: user2
+                        No. endorsements: 0 | No. comments: 1
+                        two
+                        lines
+                        |
+                        | > ID: 3
+                            Account: user1
+                            No. endorsements: 0 | No. comments: 0
+                    """;
+            Assert.assertEquals(expectedOutput, sm.showPostChildrenDetails(1).toString());
+
+            // A deep thread is written straight into a Writer, which here only keeps the end of the output
+            int parent = 1;
+            for (int i = 0; i < 5000; i++) parent = sm.commentPost("user2", parent, "reply " + i);
+
+            StringBuilder tail = new StringBuilder();
+            long[] length = new long[1];
+            Writer writer = new Writer() {
+                @Override
+                public void write(char[] buffer, int offset, int count) {
+                    length[0] += count;
+                    tail.append(buffer, offset, count);
+                    if (tail.length() > 100_000) tail.delete(0, tail.length() - 50_000);
+                }
+
+                @Override
+                public void flush() {
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            sm.showPostChildrenDetails(1, writer);
+
+            Assert.assertTrue(length[0] > 5000L * 5000 * 4);
+            Assert.assertTrue(tail.toString().endsWith("\n" + " ".repeat(5000 * 4) + "reply 4999\n"));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void commentsKeptInIdOrderTest() {
+
+        try {
+
+            Original original = new Original(1, "user1", "post", 0, 0, true);
+
+            // Comments restored out of order are still linked in ID order, and never twice
+            for (int id : new int[]{5, 3, 7, 4, 3, 7}) {
+                original.linkComment(new Comment(id, "user1", original, "reply " + id, 0, 0, true));
+            }
+
+            ArrayList<Integer> ids = new ArrayList<>();
+            for (Comment comment = original.getFirstComment(); comment != null; comment = comment.getNextComment()) {
+                ids.add(comment.getID());
+            }
+
+            Assert.assertEquals(Arrays.asList(3, 4, 5, 7), ids);
+            Assert.assertEquals(4, original.getComments().size());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void showThreadPageTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "I like examples."); //1
+            sm.commentPost("user2", 1, "No more than me..."); //2
+            sm.commentPost("user2", 1, "Can't you do better than this?"); //3
+            sm.commentPost("user1", 2, "I can prove!"); //4
+            sm.commentPost("user2", 4, "prove it"); //5
+            sm.commentPost("user2", 1, "where is the example?"); //6
+            sm.commentPost("user1", 6, "This is the example!"); //7
+
+            ThreadPage first = sm.showThreadPage(1, 0, 2, 2);
+            Assert.assertEquals("""
+                    ID: 1
+                    Account: user1
+                    No. endorsements: 0 | No. comments: 3
+                    I like examples.
+                    |
+                    | > ID: 2
+                        Account: user2
+                        No. endorsements: 0 | No. comments: 1
+                        No more than me...
+                        |
+                        | > ID: 4
+                            Account: user1
+                            No. endorsements: 0 | No. comments: 1
+                            I can prove!
+                            |
+                            | > 1 more reply
+                    """, first.details());
+            Assert.assertEquals(3, first.nextCursor());
+
+            ThreadPage second = sm.showThreadPage(1, first.nextCursor(), 2, 2);
+            Assert.assertEquals("""
+                    | > ID: 3
+                        Account: user2
+                        No. endorsements: 0 | No. comments: 0
+                        Can't you do better than this?
+
+                    | > ID: 6
+                        Account: user2
+                        No. endorsements: 0 | No. comments: 1
+                        where is the example?
+                        |
+                    """, second.details());
+
+            ThreadPage third = sm.showThreadPage(1, second.nextCursor(), 2, 2);
+            Assert.assertTrue(third.details().startsWith("    | > ID: 7\n"));
+            Assert.assertFalse(third.hasMore());
+
+            // Without limits the page is the whole thread
+            Assert.assertEquals(sm.showPostChildrenDetails(1).toString(),
+                    sm.showThreadPage(1, 0, Integer.MAX_VALUE, Integer.MAX_VALUE).details());
+
+            Assert.assertThrows(IllegalArgumentException.class, () -> sm.showThreadPage(6, 4, 2, 2));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void renderCacheTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "first"); //1
+            sm.commentPost("user2", 1, "reply"); //2
+            sm.commentPost("user1", 2, "deeper reply"); //3
+
+            RenderCache cache = sm.getRenderCache();
+
+            String post = sm.showIndividualPost(1);
+            String thread = sm.showPostChildrenDetails(1).toString();
+            Assert.assertEquals(2, cache.getMisses());
+
+            Assert.assertSame(post, sm.showIndividualPost(1));
+            Assert.assertEquals(thread, sm.showPostChildrenDetails(1).toString());
+            Assert.assertEquals(2, cache.getHits());
+
+            // A change deep in the thread removes the cached thread of every post above it, but not the post itself
+            sm.endorsePost("user2", 3); //4
+            Assert.assertSame(post, sm.showIndividualPost(1));
+            Assert.assertNotEquals(thread, sm.showPostChildrenDetails(1).toString());
+            Assert.assertTrue(sm.showPostChildrenDetails(1).toString().contains("No. endorsements: 1 | No. comments: 0"));
+
+            // Commenting on a post changes its own details
+            sm.commentPost("user2", 1, "another reply"); //5
+            Assert.assertTrue(sm.showIndividualPost(1).contains("No. comments: 2"));
+
+            // The least recently used entries are evicted to stay within the bounds
+            RenderCache small = new RenderCache(2, 1000);
+            small.put(RenderCache.POST, 1, "one", small.getVersion());
+            small.put(RenderCache.POST, 2, "two", small.getVersion());
+            small.get(RenderCache.POST, 1);
+            small.put(RenderCache.POST, 3, "three", small.getVersion());
+            Assert.assertEquals(1, small.getEvictions());
+            Assert.assertNull(small.get(RenderCache.POST, 2));
+            Assert.assertEquals("one", small.get(RenderCache.POST, 1));
+
+            // Text rendered before an invalidation is not stored
+            long version = small.getVersion();
+            small.invalidate(sm.platform.getPost(1));
+            small.put(RenderCache.POST, 1, "stale", version);
+            Assert.assertNull(small.get(RenderCache.POST, 1));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void postAndAccountViewTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            for (int i = 0; i < 10; i++) sm.createAccount("user" + i, "account " + i);
+
+            sm.createPost("user9", "first"); //1
+            sm.commentPost("user1", 1, "reply"); //2
+            sm.endorsePost("user2", 2); //3
+
+            Assert.assertEquals(new PostView(2, PostType.COMMENT, "user1", "reply", 1, 0, 1, true), sm.getPostView(2));
+            Assert.assertEquals(new PostView(3, PostType.ENDORSEMENT, "user2", "EP@user2:reply", 0, 0, 2, false),
+                    sm.getPostView(3));
+            Assert.assertEquals(new AccountView(9, "user9", "account 9", 1, 0), sm.getAccountView("user9"));
+
+            // Numbers are shown in decimal
+            Assert.assertEquals("""
+                    ID: 9
+                    Handle: user9
+                    Description: account 9
+                    Post count: 1
+                    Endorse count: 0
+                    """, sm.showAccount("user9"));
+
+            Assert.assertEquals("""
+                    ID: 3
+                    Account: user2
+                    No. endorsements: 0 | No. comments: 0
+                    EP@user2:reply
+                    """, sm.showIndividualPost(3));
+
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.getPostView(4));
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.getAccountView("user10"));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void homeTimelineTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("reader");
+            sm.createAccount("alice");
+            sm.createAccount("bob");
+
+            sm.createPost("alice", "a1"); //1
+            sm.createPost("bob", "b1"); //2
+
+            Assert.assertTrue(sm.follow("reader", "alice"));
+            Assert.assertFalse(sm.follow("reader", "alice"));
+            Assert.assertArrayEquals(new int[]{1}, sm.getHomeTimeline("reader", 10));
+
+            // Posts made before following are merged in, later posts are fanned out as they are made
+            sm.follow("reader", "bob");
+            sm.commentPost("alice", 2, "a2"); //3
+            sm.endorsePost("bob", 1); //4
+            Assert.assertArrayEquals(new int[]{4, 3, 2, 1}, sm.getHomeTimeline("reader", 10));
+            Assert.assertArrayEquals(new int[]{4, 3}, sm.getHomeTimeline("reader", 2));
+
+            sm.deletePost(3);
+            Assert.assertTrue(sm.unfollow("reader", "bob"));
+            Assert.assertArrayEquals(new int[]{1}, sm.getHomeTimeline("reader", 10));
+
+            // Follows are kept in snapshots, and the followers rebuilt from them
+            File file = File.createTempFile("platform", ".snapshot");
+            file.deleteOnExit();
+            sm.savePlatform(file.getPath());
+            sm.erasePlatform();
+            sm.loadPlatform(file.getPath());
+
+            Assert.assertArrayEquals(new int[]{1}, sm.platform.getAccount("reader").getFollowing().toArray());
+            Assert.assertArrayEquals(new int[]{0}, sm.platform.getAccount("alice").getFollowers().toArray());
+            Assert.assertArrayEquals(new int[]{1}, sm.getHomeTimeline("reader", 10));
+
+            // And in exports, in either format
+            for (ExportFormat format : ExportFormat.values()) {
+                File export = File.createTempFile("platform", format.getExtension());
+                export.deleteOnExit();
+                sm.exportPlatform(export.getPath());
+                sm.importPlatform(export.getPath());
+                Assert.assertArrayEquals(new int[]{0}, sm.platform.getAccount("alice").getFollowers().toArray());
+            }
+
+            // Removing an account removes it from every follow list
+            sm.removeAccount("alice");
+            Assert.assertTrue(sm.platform.getAccount("reader").getFollowing().isEmpty());
+            Assert.assertEquals(0, sm.getHomeTimeline("reader", 10).length);
+
+            Assert.assertThrows(IllegalArgumentException.class, () -> sm.follow("reader", "reader"));
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.follow("reader", "alice"));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void highFollowerTimelineTest() {
+
+        try {
 
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("star");
+            sm.createAccount("friend");
+            sm.follow("friend", "star");
+
+            int before = sm.createPost("star", "before");
+            Assert.assertArrayEquals(new int[]{before}, sm.getHomeTimeline("friend", 10));
+
+            // Past the fan-out limit, the star's posts are read from its own outbox instead
+            for (int i = 0; i < TimelineService.DEFAULT_FAN_OUT_LIMIT; i++) {
+                sm.createAccount("fan" + i);
+                sm.follow("fan" + i, "star");
+            }
+            int after = sm.createPost("star", "after");
+
+            Assert.assertArrayEquals(new int[]{after, before}, sm.getHomeTimeline("friend", 10));
+            Assert.assertArrayEquals(new int[]{after, before}, sm.getHomeTimeline("fan0", 10));
+
+            // Dropping back under the limit rebuilds the followers' timelines, so no posts are lost
+            sm.unfollow("fan0", "star");
+            sm.unfollow("fan1", "star");
+            Assert.assertArrayEquals(new int[]{after, before}, sm.getHomeTimeline("friend", 10));
+            Assert.assertEquals(0, sm.getHomeTimeline("fan0", 10).length);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void accountPostsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "one"); //1
+            sm.createPost("user2", "other"); //2
+            sm.commentPost("user1", 2, "two"); //3
+            sm.endorsePost("user1", 2); //4
+            sm.createPost("user1", "three"); //5
+            sm.commentPost("user1", 1, "four"); //6
+
+            PostPage page = sm.getAccountPosts("user1", 0, 2, null);
+            Assert.assertEquals(Arrays.asList(6, 5), page.posts().stream().map(PostView::id).toList());
+            Assert.assertTrue(page.hasMore());
+
+            page = sm.getAccountPosts("user1", page.nextCursor(), 2, null);
+            Assert.assertEquals(Arrays.asList(4, 3), page.posts().stream().map(PostView::id).toList());
+
+            page = sm.getAccountPosts("user1", page.nextCursor(), 2, null);
+            Assert.assertEquals(Arrays.asList(1), page.posts().stream().map(PostView::id).toList());
+            Assert.assertFalse(page.hasMore());
+
+            // Filtered by type, and kept up to date as posts are made and deleted
+            page = sm.getAccountPosts("user1", 0, 10, PostType.COMMENT);
+            Assert.assertEquals(Arrays.asList(6, 3), page.posts().stream().map(PostView::id).toList());
+
+            sm.deletePost(3);
+            sm.commentPost("user1", 5, "five"); //7
+            page = sm.getAccountPosts("user1", 0, 10, PostType.COMMENT);
+            Assert.assertEquals(Arrays.asList(7, 6), page.posts().stream().map(PostView::id).toList());
+            Assert.assertEquals(PostType.COMMENT, page.posts().get(0).type());
+
+            Assert.assertTrue(sm.getAccountPosts("user1", 1, 10, null).posts().isEmpty());
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.getAccountPosts("user3", 0, 10, null));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Test
+    public void searchPostsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "The quick brown fox"); //1
+            sm.createPost("user2", "A brown dog, quick!"); //2
+            sm.commentPost("user2", 1, "Quick fox jumps"); //3
+            sm.endorsePost("user2", 3); //4
+
+            Assert.assertEquals(Arrays.asList(3, 2, 1), ids(sm.searchPosts("quick", 10)));
+            Assert.assertEquals(Arrays.asList(3, 1), ids(sm.searchPosts("QUICK fox", 10)));
+            Assert.assertEquals(Arrays.asList(1), ids(sm.searchPosts("\"brown fox\"", 10)));
+            Assert.assertEquals(Arrays.asList(2, 1), ids(sm.searchPosts("dog OR \"the quick\"", 10)));
+            Assert.assertEquals(Arrays.asList(2), ids(sm.searchPosts("brown -fox", 10)));
+            Assert.assertEquals(Arrays.asList(3), ids(sm.searchPosts("quick", 1)));
+
+            // New posts are indexed as they are made, deleted ones are no longer found
+            sm.commentPost("user1", 2, "another quick one"); //5
+            sm.deletePost(3);
+            Assert.assertEquals(Arrays.asList(5, 2, 1), ids(sm.searchPosts("quick", 10)));
+            Assert.assertTrue(sm.searchPosts("jumps", 10).isEmpty());
+
+            // Sealed segments are merged as they fill up, and rewritten once enough of their posts are deleted
+            for (int i = 0; i < 5 * SearchIndex.SEGMENT_SIZE; i++) sm.createPost("user1", "bulk post " + i);
+            for (int i = 0; i < SearchIndex.SEGMENT_SIZE; i++) sm.deletePost(6 + i);
+
+            SearchIndex index = sm.platform.getSearchIndex();
+            Assert.assertTrue(index.getSegmentCount() <= 3);
+            Assert.assertEquals(4 * SearchIndex.SEGMENT_SIZE, sm.searchPosts("bulk", Integer.MAX_VALUE).size());
+            Assert.assertEquals(Arrays.asList(6 + 2000), ids(sm.searchPosts("\"post 2000\"", 10)));
+            Assert.assertEquals(Arrays.asList(5, 2, 1), ids(sm.searchPosts("quick", 10)));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method that returns the IDs of a list of post views
+     * @param posts The PostViews
+     * @return Returns a List of their IDs in order
+     */
+    private static java.util.List<Integer> ids(java.util.List<PostView> posts) {
+        return posts.stream().map(PostView::id).toList();
+    }
+
+    @Test
+    public void trendingTagsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+            java.time.Instant start = java.time.Instant.parse("2021-05-13T10:00:00Z");
+            sm.setClock(java.time.Clock.fixed(start, java.time.ZoneOffset.UTC));
+
+            sm.createAccount("user1");
+
+            sm.createPost("user1", "#Java is #fun, #java!"); //1
+            sm.createPost("user1", "email@not#atag and #fun"); //2
+
+            sm.setClock(java.time.Clock.fixed(start.plus(java.time.Duration.ofMinutes(30)), java.time.ZoneOffset.UTC));
+            sm.commentPost("user1", 1, "#exams #fun"); //3
+
+            Assert.assertEquals(Arrays.asList(new TagCount("fun", 3), new TagCount("exams", 1), new TagCount("java", 1)),
+                    sm.getTrendingTags(java.time.Duration.ofHours(1), 10));
+            Assert.assertEquals(Arrays.asList(new TagCount("exams", 1), new TagCount("fun", 1)),
+                    sm.getTrendingTags(java.time.Duration.ofMinutes(10), 10));
+            Assert.assertEquals(Arrays.asList(new TagCount("fun", 3)), sm.getTrendingTags(java.time.Duration.ofHours(1), 1));
+            Assert.assertArrayEquals(new int[]{3, 2, 1}, sm.getTaggedPosts("#FUN", 10));
+
+            // Deleted posts are no longer counted or listed
+            sm.deletePost(2);
+            Assert.assertArrayEquals(new int[]{3, 1}, sm.getTaggedPosts("fun", 10));
+            Assert.assertEquals(new TagCount("fun", 2), sm.getTrendingTags(java.time.Duration.ofHours(1), 1).get(0));
+
+            // Longer windows are counted by the hour
+            sm.setClock(java.time.Clock.fixed(start.plus(java.time.Duration.ofHours(2)), java.time.ZoneOffset.UTC));
+            Assert.assertTrue(sm.getTrendingTags(java.time.Duration.ofHours(1), 10).isEmpty());
+            Assert.assertEquals(new TagCount("fun", 2), sm.getTrendingTags(java.time.Duration.ofHours(3), 10).get(0));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void endorsementTrendsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+            java.time.Instant start = java.time.Instant.parse("2021-05-13T10:00:00Z");
+            sm.setClock(java.time.Clock.fixed(start, java.time.ZoneOffset.UTC));
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+            sm.createAccount("user3");
+
+            sm.createPost("user1", "Older post"); //1
+            sm.createPost("user1", "Newer post"); //2
+            sm.endorsePost("user2", 1); //3
+            sm.endorsePost("user3", 1); //4
+
+            Assert.assertEquals(start.toEpochMilli(), sm.platform.getPost(1).getTimestamp());
+            Assert.assertEquals(1, sm.getMostEndorsedPost(java.time.Duration.ofMinutes(5)));
+
+            // An hour later post 2 is endorsed once, which outweighs two endorsements that have halved
+            sm.setClock(java.time.Clock.fixed(start.plus(java.time.Duration.ofMinutes(90)), java.time.ZoneOffset.UTC));
+            int endorsement = sm.endorsePost("user2", 2); //5
+
+            Assert.assertEquals(2, sm.getMostEndorsedPost(java.time.Duration.ofMinutes(30)));
+            Assert.assertEquals(1, sm.getMostEndorsedPost(java.time.Duration.ofHours(2)));
+            Assert.assertEquals(Arrays.asList(2, 1), sm.getHotPosts(10).stream().map(PostView::id).toList());
+
+            // Deleted endorsements are no longer counted
+            sm.deletePost(endorsement);
+            Assert.assertEquals(0, sm.getMostEndorsedPost(java.time.Duration.ofMinutes(30)));
+            Assert.assertEquals(Arrays.asList(1), sm.getHotPosts(10).stream().map(PostView::id).toList());
+
+            // Creation times are kept when saved and when exported
+            File file = File.createTempFile("platform", ".ser");
+            file.deleteOnExit();
+            sm.savePlatform(file.getPath());
+            sm.erasePlatform();
+            sm.loadPlatform(file.getPath());
+            Assert.assertEquals(start.toEpochMilli(), sm.platform.getPost(4).getTimestamp());
+            Assert.assertEquals(1, sm.getMostEndorsedPost(java.time.Duration.ofHours(2)));
+
+            for (ExportFormat format : ExportFormat.values()) {
+                File export = File.createTempFile("platform", format.getExtension());
+                export.deleteOnExit();
+                sm.exportPlatform(export.getPath());
+                sm.importPlatform(export.getPath());
+                Assert.assertEquals(start.toEpochMilli(), sm.platform.getPost(3).getTimestamp());
+                Assert.assertEquals(Arrays.asList(1), sm.getHotPosts(10).stream().map(PostView::id).toList());
+            }
+
+            // Deleted posts are no longer ranked
+            sm.deletePost(1);
+            Assert.assertTrue(sm.getHotPosts(10).isEmpty());
+            Assert.assertEquals(0, sm.getMostEndorsedPost(java.time.Duration.ofHours(2)));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void threadSummaryTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "Original"); //1
+            sm.commentPost("user2", 1, "Reply"); //2
+            sm.commentPost("user1", 2, "Reply to reply"); //3
+            sm.commentPost("user2", 1, "Second reply"); //4
+            sm.endorsePost("user2", 1); //5
+            sm.endorsePost("user1", 3); //6
+            int endorsement = sm.endorsePost("user2", 3); //7
+
+            Assert.assertEquals(new ThreadSummary(1, 0, 3, 3, 2, 7), sm.getThreadSummary(1));
+            Assert.assertEquals(new ThreadSummary(2, 1, 1, 2, 1, 7), sm.getThreadSummary(2));
+            Assert.assertEquals(new ThreadSummary(4, 1, 0, 0, 0, 4), sm.getThreadSummary(4));
+
+            // Deleted posts are taken off every post above them
+            sm.deletePost(endorsement);
+            sm.deletePost(3);
+            Assert.assertEquals(new ThreadSummary(1, 0, 2, 1, 2, 5), sm.getThreadSummary(1));
+            Assert.assertEquals(new ThreadSummary(2, 1, 0, 0, 1, 3), sm.getThreadSummary(2));
+
+            // The aggregates are worked out again when the platform is loaded
+            File file = File.createTempFile("platform", ".ser");
+            file.deleteOnExit();
+            sm.savePlatform(file.getPath());
+            sm.erasePlatform();
+            sm.loadPlatform(file.getPath());
+            Assert.assertEquals(new ThreadSummary(1, 0, 2, 1, 2, 5), sm.getThreadSummary(1));
+
+            sm.commentPost("user1", 4, "Reply to second reply"); //8
+            Assert.assertEquals(new ThreadSummary(1, 0, 3, 1, 2, 8), sm.getThreadSummary(1));
+
+            Assert.assertThrows(NotActionablePostException.class, () -> sm.getThreadSummary(5));
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.getThreadSummary(100));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void threadAncestorsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+
+            sm.createPost("user1", "Original"); //1
+            sm.createPost("user1", "Other original"); //2
+
+            // A chain of 100 replies, with a branch off the 40th
+            int parent = 1;
+            for (int i = 0; i < 100; i++) parent = sm.commentPost("user1", parent, "Reply " + i); //3 to 102
+            int branch = sm.commentPost("user1", 42, "Branch"); //103
+            int reply = sm.commentPost("user1", 2, "Reply to other"); //104
+
+            Assert.assertEquals(1, sm.getThreadRootID(102));
+            Assert.assertEquals(1, sm.getThreadRootID(1));
+            Assert.assertEquals(2, sm.getThreadRootID(reply));
+
+            Assert.assertEquals(102, sm.getAncestorID(102, 0));
+            Assert.assertEquals(101, sm.getAncestorID(102, 1));
+            Assert.assertEquals(29, sm.getAncestorID(102, 73));
+            Assert.assertEquals(1, sm.getAncestorID(102, 100));
+            Assert.assertEquals(0, sm.getAncestorID(102, 101));
+            Assert.assertThrows(IllegalArgumentException.class, () -> sm.getAncestorID(102, -1));
+
+            Assert.assertEquals(42, sm.getCommonAncestorID(102, branch));
+            Assert.assertEquals(42, sm.getCommonAncestorID(branch, 80));
+            Assert.assertEquals(42, sm.getCommonAncestorID(42, 102));
+            Assert.assertEquals(20, sm.getCommonAncestorID(20, 20));
+            Assert.assertEquals(0, sm.getCommonAncestorID(branch, reply));
+
+            // Jump pointers are worked out again when the platform is loaded
+            File file = File.createTempFile("platform", ".ser");
+            file.deleteOnExit();
+            sm.savePlatform(file.getPath());
+            sm.erasePlatform();
+            sm.loadPlatform(file.getPath());
+            Assert.assertEquals(29, sm.getAncestorID(102, 73));
+            Assert.assertEquals(42, sm.getCommonAncestorID(102, branch));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void threadLayoutTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+
+            sm.createPost("user1", "Original"); //1
+            sm.commentPost("user1", 1, "First"); //2
+            sm.commentPost("user1", 2, "Reply to first"); //3
+            sm.commentPost("user1", 1, "Second"); //4
+
+            // The thread is laid out the first time it is shown
+            Assert.assertArrayEquals(new int[]{1, 2, 3, 4}, sm.getThreadPostIDs(1));
+
+            // Replies are put at the end of their parent's subtree, wherever it is in the layout
+            sm.commentPost("user1", 2, "Second reply to first"); //5
+            sm.commentPost("user1", 3, "Deep reply"); //6
+            sm.commentPost("user1", 4, "Reply to second"); //7
+            Assert.assertArrayEquals(new int[]{1, 2, 3, 6, 5, 4, 7}, sm.getThreadPostIDs(1));
+            Assert.assertArrayEquals(new int[]{2, 3, 6, 5}, sm.getThreadPostIDs(2));
+
+            // The layout grows past its first capacity, with replies spread over the thread
+            for (int i = 0; i < 40; i++) sm.commentPost("user1", 2 + (i * 5) % 6, "Reply " + i);
+
+            String expected = sm.showThreadPage(1, 0, Integer.MAX_VALUE, Integer.MAX_VALUE).details();
+            Assert.assertEquals(expected, sm.showPostChildrenDetails(1).toString());
+            Assert.assertEquals(sm.showThreadPage(3, 0, Integer.MAX_VALUE, Integer.MAX_VALUE).details(),
+                    sm.showPostChildrenDetails(3).toString());
+            Assert.assertEquals(47, sm.getThreadPostIDs(1).length);
+            Assert.assertEquals(sm.getThreadSummary(2).replies() + 1, sm.getThreadPostIDs(2).length);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void duplicateEndorsementTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "Original"); //1
+            sm.commentPost("user1", 1, "Comment"); //2
+            int endorsement = sm.endorsePost("user2", 1); //3
+            sm.endorsePost("user2", 2); //4
+            sm.endorsePost("user1", 1); //5
+
+            Assert.assertThrows(DuplicateEndorsementException.class, () -> sm.endorsePost("user2", 1));
+            Assert.assertThrows(NotActionablePostException.class, () -> sm.endorsePost("user2", 2));
+            Assert.assertEquals(3, sm.getTotalEndorsmentPosts());
+
+            // Once the endorsement is deleted the post can be endorsed again
+            sm.deletePost(endorsement);
+            sm.endorsePost("user2", 1); //6
+
+            // Pairs are added back from the endorsements held when the platform is loaded
+            File file = File.createTempFile("platform", ".ser");
+            file.deleteOnExit();
+            sm.savePlatform(file.getPath());
+            sm.erasePlatform();
+            sm.loadPlatform(file.getPath());
+            Assert.assertThrows(DuplicateEndorsementException.class, () -> sm.endorsePost("user2", 1));
+
+            // Removing an account removes its pairs
+            sm.removeAccount("user2");
+            sm.createAccount("user2");
+            Assert.assertEquals(1, sm.platform.getEndorsementIndex().size());
+
+            // Pairs removed from the middle of a run are still found after it
+            EndorsementIndex index = new EndorsementIndex(new Platform());
+            for (int account = 0; account < 100; account++) {
+                for (int post = 1; post <= 100; post++) Assert.assertTrue(index.add(account, post, post));
+            }
+            for (int account = 0; account < 100; account += 2) {
+                for (int post = 1; post <= 100; post++) Assert.assertTrue(index.remove(account, post, post));
+            }
+            Assert.assertEquals(5000, index.size());
+            for (int account = 0; account < 100; account++) {
+                for (int post = 1; post <= 100; post++) Assert.assertEquals(account % 2 == 1, index.contains(account, post));
+            }
+            Assert.assertEquals(7, index.get(1, 7));
+            Assert.assertFalse(index.add(1, 1, 1));
+            Assert.assertFalse(index.remove(0, 1, 1));
+            Assert.assertFalse(index.remove(1, 1, 2));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void unendorsePostTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+
+            sm.createPost("user1", "Original"); //1
+            sm.commentPost("user1", 1, "Comment"); //2
+            int endorsement = sm.endorsePost("user2", 1); //3
+            sm.endorsePost("user2", 2); //4
+            sm.endorsePost("user1", 2); //5
+
+            sm.unendorsePost("user2", 1);
+
+            // The endorsement is deleted and every counter it added to is taken back
+            Assert.assertNull(sm.platform.getEndorsements().get(endorsement).getHandle());
+            Assert.assertEquals(0, sm.platform.getOriginals().get(1).getNumberOfEndorsements());
+            Assert.assertFalse(sm.platform.getOriginals().get(1).getEndorsements().contains(sm.platform.getEndorsements().get(endorsement)));
+            Assert.assertEquals(2, sm.platform.getAccount("user1").getTotalEndorsementsReceived());
+            Assert.assertEquals(1, sm.platform.getAccount("user2").getEndorsements().size());
+            Assert.assertEquals(2, sm.getTotalEndorsmentPosts());
+            Assert.assertEquals(2, sm.getThreadSummary(1).endorsements());
+
+            sm.unendorsePost("user2", 2);
+            Assert.assertEquals(1, sm.platform.getComments().get(2).getNumberOfEndorsements());
+            Assert.assertEquals(1, sm.getThreadSummary(1).endorsements());
+
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.unendorsePost("user2", 1));
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.unendorsePost("nobody", 1));
+
+            // The post can be endorsed again
+            sm.endorsePost("user2", 1);
+            Assert.assertEquals(1, sm.platform.getOriginals().get(1).getNumberOfEndorsements());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void endorsersTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("author");
+            sm.createPost("author", "Original"); //1
+            for (int i = 0; i < 10; i++) sm.createAccount("user" + i);
+            for (int i = 0; i < 5; i++) sm.endorsePost("user" + i, 1); //2 to 6
+
+            EndorserPage page = sm.getEndorsers(1, 0, 3);
+            Assert.assertEquals(Arrays.asList("user0", "user1", "user2"), page.handles());
+            Assert.assertTrue(page.hasMore());
+
+            // Endorsements made and deleted after the list is built are kept in order
+            sm.unendorsePost("user1", 1);
+            sm.unendorsePost("user3", 1);
+            for (int i = 5; i < 10; i++) sm.endorsePost("user" + i, 1); //7 to 11
+            sm.endorsePost("user1", 1); //12
+
+            page = sm.getEndorsers(1, page.nextCursor(), 3);
+            Assert.assertEquals(Arrays.asList("user4", "user5", "user6"), page.handles());
+            page = sm.getEndorsers(1, page.nextCursor(), 10);
+            Assert.assertEquals(Arrays.asList("user7", "user8", "user9", "user1"), page.handles());
+            Assert.assertFalse(page.hasMore());
+
+            Assert.assertEquals(9, sm.getEndorsers(1, 0, Integer.MAX_VALUE).handles().size());
+            Assert.assertTrue(sm.getEndorsers(1, 0, 0).handles().isEmpty());
+
+            // Removing an account takes it off the list
+            sm.removeAccount("user0");
+            Assert.assertEquals("user2", sm.getEndorsers(1, 0, 1).handles().get(0));
+
+            Assert.assertThrows(NotActionablePostException.class, () -> sm.getEndorsers(2, 0, 10));
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.getEndorsers(100, 0, 10));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void accountActivityTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("author");
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+            sm.createPost("author", "one"); //1
+            sm.commentPost("user1", 1, "two"); //2
+            sm.endorsePost("user2", 1); //3
+
+            // The index is built from the author's posts the first time it is read
+            PostPage page = sm.getAccountActivity("author", 0, 10, null);
+            Assert.assertEquals(Arrays.asList(3, 2), page.posts().stream().map(PostView::id).toList());
+
+            // Then kept up to date as posts are made and deleted
+            sm.createPost("author", "four"); //4
+            sm.endorsePost("user1", 4); //5
+            sm.commentPost("user2", 4, "six"); //6
+            sm.commentPost("author", 6, "seven"); //7
+            sm.commentPost("user1", 7, "eight"); //8
+            sm.unendorsePost("user2", 1);
+
+            page = sm.getAccountActivity("author", 0, 2, null);
+            Assert.assertEquals(Arrays.asList(8, 6), page.posts().stream().map(PostView::id).toList());
+            page = sm.getAccountActivity("author", page.nextCursor(), 2, null);
+            Assert.assertEquals(Arrays.asList(5, 2), page.posts().stream().map(PostView::id).toList());
+            Assert.assertFalse(page.hasMore());
+
+            page = sm.getAccountActivity("author", 0, 10, PostType.ENDORSEMENT);
+            Assert.assertEquals(Arrays.asList(5), page.posts().stream().map(PostView::id).toList());
+            page = sm.getAccountActivity("user2", 0, 10, null);
+            Assert.assertEquals(Arrays.asList(7), page.posts().stream().map(PostView::id).toList());
+
+            // Deleting a post forgets the activity on it
+            sm.deletePost(4);
+            Assert.assertEquals(Arrays.asList(8, 2), sm.getAccountActivity("author", 0, 10, null).posts().stream().map(PostView::id).toList());
+            sm.deletePost(8);
+            Assert.assertEquals(Arrays.asList(2), sm.getAccountActivity("author", 0, 10, null).posts().stream().map(PostView::id).toList());
+
+            Assert.assertEquals(0, sm.recountEndorsementsReceived("author"));
+            sm.endorsePost("user2", 2);
+            Assert.assertEquals(1, sm.recountEndorsementsReceived("user1"));
+            Assert.assertEquals(1, sm.platform.getAccount("user1").getTotalEndorsementsReceived());
+
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.getAccountActivity("nobody", 0, 10, null));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void interactionGraphTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("author");
+            sm.createAccount("user1");
+            sm.createAccount("user2");
+            sm.createPost("author", "one"); //1
+            sm.commentPost("user1", 1, "two"); //2
+            sm.endorsePost("user2", 1); //3
+
+            // The graph is built from the platform the first time it is read
+            Assert.assertEquals(Arrays.asList(new Interaction("user1", 1), new Interaction("user2", 1)), sm.getInteractions("author", false));
+            Assert.assertEquals(2, sm.getInteractionCount("author", false));
+
+            // Then kept up to date, interactions with an account's own posts not being counted
+            sm.endorsePost("user2", 2); //4
+            sm.commentPost("user2", 2, "five"); //5
+            sm.commentPost("user1", 5, "six"); //6
+            sm.commentPost("author", 1, "seven"); //7
+            Assert.assertEquals(Arrays.asList(new Interaction("user1", 1)), sm.getInteractions("user2", false));
+            Assert.assertEquals(Arrays.asList(new Interaction("user1", 2), new Interaction("author", 1)), sm.getInteractions("user2", true));
+            Assert.assertEquals(0, sm.getInteractionCount("author", true));
+
+            // Enough changes to compact the delta into new rows
+            for (int i = 0; i < InteractionGraph.MIN_DELTA; i++) sm.commentPost("user1", 1, "reply");
+            Assert.assertEquals(InteractionGraph.MIN_DELTA + 1, sm.getInteractions("author", false).get(0).weight());
+
+            // Deleting a post takes away its own interaction and the replies to it
+            sm.deletePost(5);
+            sm.unendorsePost("user2", 1);
+            Assert.assertEquals(Arrays.asList(new Interaction("user2", 1)), sm.getInteractions("user1", false));
+            Assert.assertEquals(Arrays.asList(new Interaction("user1", 1)), sm.getInteractions("user2", true));
+            Assert.assertTrue(sm.getInteractions("user2", false).isEmpty());
+
+            // The kept graph matches one built again from the platform
+            InteractionGraph rebuilt = new InteractionGraph(sm.platform);
+            for (String handle : Arrays.asList("author", "user1", "user2")) {
+                int id = sm.platform.getAccount(handle).getNUMERICAL_IDENTIFIER();
+                Assert.assertEquals(rebuilt.getWeightedDegree(id, true), sm.getInteractionCount(handle, true));
+                Assert.assertEquals(rebuilt.getWeightedDegree(id, false), sm.getInteractionCount(handle, false));
+            }
+
+            sm.removeAccount("user1");
+            Assert.assertTrue(sm.getInteractions("author", false).isEmpty());
+            Assert.assertTrue(sm.getInteractions("user2", false).isEmpty());
+
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.getInteractions("nobody", true));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void influenceTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("hub");
+            sm.createAccount("star");
+            int hubPost = sm.createPost("hub", "hub post");
+            int starPost = sm.createPost("star", "star post");
+            for (int i = 0; i < 5; i++) {
+                sm.createAccount("user" + i);
+                sm.endorsePost("user" + i, hubPost);
+            }
+            sm.endorsePost("hub", starPost);
+
+            // The most endorsed account is the hub, but the one account it endorses is more influential
+            Assert.assertEquals(sm.platform.getAccount("hub").getNUMERICAL_IDENTIFIER(), sm.getMostEndorsedAccount());
+            Assert.assertEquals(Arrays.asList("star", "hub"), sm.getMostInfluentialAccounts(2));
+
+            double total = 0;
+            for (Account account : sm.platform.getAccounts().values()) total += sm.platform.getInfluence().getScore(account.getNUMERICAL_IDENTIFIER());
+            Assert.assertEquals(1.0, total, 1e-6);
+
+            // Starting again from the last scores with nothing changed takes no more than a round or two
+            Assert.assertTrue(sm.computeInfluence() <= 2);
+
+            // Scores are served from the last computation until they are computed again
+            sm.removeAccount("star");
+            Assert.assertEquals(Arrays.asList("hub"), sm.getMostInfluentialAccounts(1));
+            sm.computeInfluence();
+            Assert.assertEquals(7 - 1, sm.getMostInfluentialAccounts(10).size());
+            Assert.assertEquals("hub", sm.getMostInfluentialAccounts(10).get(0));
+            Assert.assertTrue(sm.getMostInfluentialAccounts(0).isEmpty());
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void recommendAccountsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("author");
+            for (String handle : Arrays.asList("alice", "bob", "carol", "dave")) sm.createAccount(handle);
+            int[] posts = new int[6];
+            for (int i = 0; i < posts.length; i++) posts[i] = sm.createPost("author", "post " + i);
+
+            // Alice and Bob endorse the same posts, Carol some of them and Dave different ones
+            for (int i = 0; i < 4; i++) {
+                sm.endorsePost("alice", posts[i]);
+                sm.endorsePost("bob", posts[i]);
+            }
+            sm.endorsePost("carol", posts[0]);
+            sm.endorsePost("dave", posts[4]);
+            sm.endorsePost("dave", posts[5]);
+
+            Assert.assertEquals(Arrays.asList("bob"), sm.recommendAccounts("alice", 1));
+            Assert.assertFalse(sm.recommendAccounts("alice", 10).contains("dave"));
+            Assert.assertTrue(sm.recommendAccounts("author", 10).isEmpty());
+
+            // Signatures follow new and deleted endorsements
+            sm.endorsePost("dave", posts[0]);
+            sm.endorsePost("dave", posts[1]);
+            sm.endorsePost("dave", posts[2]);
+            sm.endorsePost("dave", posts[3]);
+            sm.unendorsePost("dave", posts[4]);
+            sm.unendorsePost("dave", posts[5]);
+            Assert.assertEquals(1.0, sm.platform.getRecommender().similarity(
+                    sm.platform.getAccount("alice").getNUMERICAL_IDENTIFIER(), sm.platform.getAccount("dave").getNUMERICAL_IDENTIFIER()), 0);
+
+            // Followed accounts and removed accounts are not recommended
+            sm.follow("alice", "bob");
+            Assert.assertEquals("dave", sm.recommendAccounts("alice", 1).get(0));
+            sm.removeAccount("dave");
+            Assert.assertFalse(sm.recommendAccounts("alice", 10).contains("dave"));
+
+            Assert.assertThrows(HandleNotRecognisedException.class, () -> sm.recommendAccounts("nobody", 1));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void deleteOriginalEndorsementsTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("c");
+            sm.createAccount("a");
+            int original = sm.createPost("c", "original");
+            int other = sm.createPost("a", "other");
+            int endorsement = sm.endorsePost("a", original);
+            int ownEndorsement = sm.endorsePost("c", other);
+            Assert.assertEquals(2, sm.getAccountPosts("a", 0, 10, null).posts().size());
+
+            // Deleting the original deletes the endorsements of it and those its account made, off every account
+            sm.deletePost(original);
+            Assert.assertEquals(Arrays.asList(other), sm.getAccountPosts("a", 0, 10, null).posts().stream().map(PostView::id).toList());
+            Assert.assertTrue(sm.getAccountPosts("c", 0, 10, null).posts().isEmpty());
+            Assert.assertEquals(0, sm.platform.getAccount("a").getTotalEndorsementsReceived());
+            Assert.assertEquals(0, sm.getThreadSummary(other).endorsements());
+            Assert.assertEquals(0, sm.getEndorsers(other, 0, 10).handles().size());
+
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.deletePost(endorsement));
+            Assert.assertThrows(PostIDNotRecognisedException.class, () -> sm.deletePost(ownEndorsement));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void deleteOriginalActivityTest() {
+
+        try {
+
+            SocialMedia sm = new SocialMedia();
+
+            sm.createAccount("a");
+            sm.createAccount("b");
+            int original = sm.createPost("a", "original");
+            int other = sm.createPost("b", "other");
+            sm.endorsePost("b", original);
+            sm.endorsePost("a", other);
+            Assert.assertEquals(1, sm.getAccountActivity("a", 0, 10, null).posts().size());
+            Assert.assertEquals(1, sm.getAccountActivity("b", 0, 10, null).posts().size());
+
+            // The endorsement a made is taken off b, the account that received it, and not off a
+            sm.deletePost(original);
+            Assert.assertTrue(sm.getAccountActivity("b", 0, 10, null).posts().isEmpty());
+            Assert.assertTrue(sm.getAccountActivity("a", 0, 10, null).posts().isEmpty());
+            Assert.assertEquals(0, sm.platform.getAccount("a").getTotalEndorsementsReceived());
+            Assert.assertEquals(0, sm.platform.getAccount("b").getTotalEndorsementsReceived());
+            Assert.assertEquals(0, sm.recountEndorsementsReceived("a"));
+            Assert.assertEquals(0, sm.recountEndorsementsReceived("b"));
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    @Test
+    public void failedStorageWriteTest() throws Exception {
+
+        // A StorageEngine held in memory whose writes can be made to fail
+        boolean[] failing = {false};
+        java.util.TreeMap<Long, byte[]> records = new java.util.TreeMap<>();
+        StorageEngine storage = new StorageEngine() {
+            public void put(long key, byte[] record) throws IOException {
+                if (failing[0]) throw new IOException("disk full");
+                records.put(key, record);
+            }
+            public byte[] get(long key) { return records.get(key); }
+            public void remove(long key) throws IOException {
+                if (failing[0]) throw new IOException("disk full");
+                records.remove(key);
+            }
+            public long[] keys() { return records.keySet().stream().mapToLong(Long::longValue).toArray(); }
+            public void flush() {}
+            public void close() {}
+        };
+
+        SocialMedia sm = new SocialMedia();
+        sm.platform.attachStorage(storage);
+
+        // The caller is told the change was not written, but it is made in memory and kept pending
+        failing[0] = true;
+        UncheckedIOException thrown = Assert.assertThrows(UncheckedIOException.class, () -> sm.createAccount("user1"));
+        Assert.assertEquals("disk full", thrown.getCause().getMessage());
+        Assert.assertNotNull(sm.platform.getStorageFailure());
+        int id = sm.platform.getAccount("user1").getNUMERICAL_IDENTIFIER();
+        Assert.assertNull(records.get(StorageEngine.accountKey(id)));
+
+        // The next change writes it along with its own
+        failing[0] = false;
+        int post = sm.createPost("user1", "written after the failure");
+        Assert.assertNull(sm.platform.getStorageFailure());
+
+        Platform restored = SnapshotCodec.read(storage);
+        restored.loadCounters();
+        Assert.assertEquals(1, restored.getAccount("user1").getTotalPosts());
+        Assert.assertEquals("written after the failure", ((Original) restored.getPost(post)).getMessage());
+
+        // A failure left when the storage is closed is thrown from closeStorage
+        failing[0] = true;
+        Assert.assertThrows(UncheckedIOException.class, () -> sm.createAccount("user2"));
+        try {
+            sm.closeStorage();
+            Assert.fail("closeStorage should throw the pending failure");
+        } catch (IOException e) {
+            Assert.assertEquals("disk full", e.getMessage());
+        }
+        Assert.assertNull(sm.platform.getStorage());
+    }
+
+
+    @Test
+    public void pagedMessagesTest() throws Exception {
+
+        Path directory = temporaryFolder.newFolder("paged-store").toPath();
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("user1");
+        int original = sm.createPost("user1", "held before the store was opened");
+
+        sm.openStorage(directory.toString());
+        int comment = sm.commentPost("user1", original, "written to the store");
+        int endorsement = sm.endorsePost("user1", comment);
+
+        // Messages are paged out once written, and read back from the store when shown
+        Assert.assertTrue(sm.platform.getPost(original).isPagedOut());
+        Assert.assertTrue(sm.platform.getPost(comment).isPagedOut());
+        Assert.assertEquals("EP@user1:written to the store", ((Endorsement) sm.platform.getPost(endorsement)).getMessage());
+        Assert.assertTrue(sm.showIndividualPost(comment).contains("written to the store"));
+
+        // A deleted post shows its replacement message rather than the one paged out
+        sm.deletePost(endorsement);
+        sm.deletePost(comment);
+        Assert.assertTrue(sm.showIndividualPost(comment).contains("no longer available"));
+        Assert.assertNull(((Endorsement) sm.platform.getPost(endorsement)).getMessage());
+        sm.closeStorage();
+
+        // Closing the store brings every message back into memory
+        Assert.assertFalse(sm.platform.getPost(original).isPagedOut());
+        Assert.assertEquals("held before the store was opened", ((Original) sm.platform.getPost(original)).getMessage());
+
+        // A platform restored from the store reads its messages from there
+        SocialMedia restored = new SocialMedia();
+        restored.openStorage(directory.toString());
+        Assert.assertTrue(restored.platform.getPost(original).isPagedOut());
+        Assert.assertEquals("held before the store was opened", ((Original) restored.platform.getPost(original)).getMessage());
+        restored.closeStorage();
+    }
+
+
+    @Test
+    public void exportCountersTest() throws Exception {
+
+        Path directory = temporaryFolder.newFolder("exports").toPath();
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("alice"); //0
+        sm.createAccount("bob"); //1
+        sm.createPost("alice", "kept"); //1
+        sm.createPost("bob", "removed with bob"); //2
+        sm.removeAccount("bob");
+
+        int accounts = sm.getNumberOfAccounts();
+
+        // Every format is exported before any is imported, as importing replaces the counter variables
+        for (ExportFormat format : ExportFormat.values()) {
+            sm.exportPlatform(directory.resolve("platform" + format.getExtension()).toString());
+        }
+
+        for (ExportFormat format : ExportFormat.values()) {
+            String filename = directory.resolve("platform" + format.getExtension()).toString();
+
+            // The highest account and post IDs were removed, but are still not given out again after importing
+            SocialMedia imported = new SocialMedia();
+            imported.importPlatform(filename);
+            Assert.assertEquals(accounts, imported.getNumberOfAccounts());
+            Assert.assertEquals(2, imported.createAccount("carol"));
+            Assert.assertEquals(3, imported.createPost("carol", "after importing"));
+        }
+    }
+
+
+    @Test
+    public void loadDuringBackgroundSnapshotTest() throws Exception {
+
+        Path directory = temporaryFolder.newFolder("background-load").toPath();
+        String saved = directory.resolve("saved.snapshot").toString();
+        String background = directory.resolve("background.snapshot").toString();
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("user1");
+        sm.openStorage(directory.resolve("store").toString());
+        for (int i = 0; i < 20000; i++) sm.createPost("user1", "post " + i);
+        sm.savePlatform(saved);
+
+        // Loading waits for the snapshot, which reads paged out messages from the store loading clears
+        sm.createPost("user1", "only in the background snapshot");
+        BackgroundSnapshot snapshot = sm.savePlatformInBackground(background, null);
+        sm.loadPlatform(saved);
+
+        snapshot.await();
+        Assert.assertNull(snapshot.getFailure());
+        Assert.assertEquals(20000, sm.getTotalOriginalPosts());
+        sm.closeStorage();
+
+        SocialMedia restored = new SocialMedia();
+        restored.loadPlatform(background);
+        Assert.assertEquals(20001, restored.getTotalOriginalPosts());
+        Assert.assertEquals("only in the background snapshot",
+                ((Original) restored.platform.getPost(20001)).getMessage());
+    }
+
+
+    @Test
+    public void deleteCommentEndorsementsTest() throws Exception {
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("a");
+        sm.createAccount("b");
+        sm.createAccount("c");
+        int original = sm.createPost("a", "original");
+        int comment = sm.commentPost("b", original, "comment");
+        sm.endorsePost("c", comment);
+        sm.endorsePost("a", comment);
+        sm.endorsePost("b", original);
+        Assert.assertEquals(2, sm.recountEndorsementsReceived("b"));
+
+        // The comment's endorsements are deleted like any other, whether or not b's inbound index is built
+        sm.deletePost(comment);
+        Assert.assertEquals(1, sm.getTotalEndorsmentPosts());
+        Assert.assertEquals(0, sm.platform.getAccount("b").getTotalEndorsementsReceived());
+        Assert.assertEquals(0, sm.recountEndorsementsReceived("b"));
+        Assert.assertEquals(1, sm.platform.getAccount("a").getTotalEndorsementsReceived());
+        Assert.assertEquals(0, sm.platform.getAccount("c").getEndorsements().size());
+        Assert.assertEquals(0, sm.platform.getComments().get(comment).getEndorsements().size());
+        Assert.assertEquals(1, sm.platform.getPost(original).getThreadSummary().endorsements());
+
+        // The counters match those of the same platform read back from an export
+        Path file = temporaryFolder.newFile("platform.jsonl").toPath();
+        sm.exportPlatform(file.toString());
+        SocialMedia imported = new SocialMedia();
+        imported.importPlatform(file.toString());
+        Assert.assertEquals(1, imported.getTotalEndorsmentPosts());
+        Assert.assertEquals(0, imported.platform.getAccount("b").getTotalEndorsementsReceived());
+    }
+
+
+    @Test
+    public void deletedCommentEndorsersTest() throws Exception {
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("alice");
+        sm.createAccount("dave");
+        int original = sm.createPost("alice", "original");
+        int comment = sm.commentPost("alice", original, "comment");
+        sm.endorsePost("dave", comment);
+        sm.endorsePost("alice", comment);
+        Assert.assertEquals(java.util.List.of("dave", "alice"), sm.getEndorsers(comment, 0, 10).handles());
+
+        // A deleted comment no longer has any endorsers
+        sm.deletePost(comment);
+        EndorserPage page = sm.getEndorsers(comment, 0, 10);
+        Assert.assertTrue(page.handles().isEmpty());
+        Assert.assertEquals(0, page.nextCursor());
+    }
+
+
+    @Test
+    public void intListOfUnsortedTest() {
+
+        // Values in any order are sorted once, and duplicates kept only once
+        IntList list = IntList.ofUnsorted(new int[] {9, 3, 7, 3, 1, 9, 42}, 6);
+        Assert.assertArrayEquals(new int[] {1, 3, 7, 9}, list.toArray());
+        Assert.assertTrue(list.add(5));
+        Assert.assertArrayEquals(new int[] {1, 3, 5, 7, 9}, list.toArray());
+        Assert.assertTrue(IntList.ofUnsorted(new int[4], 0).isEmpty());
+    }
+
+
+    @Test
+    public void unlimitedPageTest() throws Exception {
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("user1");
+        int first = sm.createPost("user1", "first");
+        int second = sm.createPost("user1", "second");
+        sm.commentPost("user1", first, "comment");
+
+        // The largest limit returns every post on a single page
+        PostPage page = sm.getAccountPosts("user1", 0, Integer.MAX_VALUE, null);
+        Assert.assertEquals(3, page.posts().size());
+        Assert.assertEquals(second, page.posts().get(1).id());
+        Assert.assertEquals(0, page.nextCursor());
+
+        Assert.assertEquals(0, sm.getAccountPosts("user1", 0, Integer.MIN_VALUE, null).posts().size());
+    }
+
+
+    @Test
+    public void threadPageHiddenRepliesTest() throws Exception {
+
+        SocialMedia sm = new SocialMedia();
+        sm.createAccount("user1");
+
+        int root = sm.createPost("user1", "root");
+        int c1 = sm.commentPost("user1", root, "c1");
+        int c2 = sm.commentPost("user1", c1, "c2");
+        sm.commentPost("user1", c2, "c3");
+        sm.commentPost("user1", c2, "c4");
+        int c5 = sm.commentPost("user1", c1, "c5");
+        sm.deletePost(c5);
+
+        // Below c1 the live c2, c3 and c4 are left out, counting the grandchildren and not the deleted sibling
+        String details = sm.showThreadPage(root, 0, 10, 1).details();
+        Assert.assertTrue(details, details.endsWith("| > 3 more replies\n"));
+    }
+
+
+    @Test
+    public void concurrentCompactionTest() throws Exception {
+
+        Path directory = temporaryFolder.newFolder("concurrent-store").toPath();
+        LogStructuredStore store = new LogStructuredStore(directory.toString(), 4096, 16, false);
+
+        // Most of the sealed segments is out of date
+        for (int i = 0; i < 50; i++) {
+            for (int key = 1; key <= 200; key++) store.put(key, ("old " + key + " " + i).getBytes());
+        }
+
+        // Writes carry on while the frames are copied, and win over the copies once the new segment is swapped in
+        Thread compaction = new Thread(() -> {
+            try {
+                store.compact();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        compaction.start();
+        for (int key = 1; key <= 200; key += 2) store.put(key, ("new " + key).getBytes());
+        for (int key = 2; key <= 200; key += 10) store.remove(key);
+        compaction.join();
+
+        for (LogStructuredStore current : new LogStructuredStore[] {store, null}) {
+            LogStructuredStore checked = current != null ? current
+                    : new LogStructuredStore(directory.toString(), 4096, 16, false);
+            Assert.assertEquals("new 1", new String(checked.get(1)));
+            Assert.assertNull(checked.get(2));
+            Assert.assertEquals("old 4 49", new String(checked.get(4)));
+            Assert.assertEquals(200 - 20, checked.keys().length);
+            checked.close();
+        }
+    }
+
+
+    @Test
+    public void threadSummaryRoundTripTest() throws Exception {
+
+        SocialMedia sm = new SocialMedia();
+
+        sm.createAccount("user1");
+        sm.createAccount("user2");
+        sm.createAccount("user3");
+
+        sm.createPost("user1", "Original"); //1
+        sm.commentPost("user2", 1, "Reply"); //2
+        sm.commentPost("user3", 2, "Reply to reply"); //3
+        sm.endorsePost("user1", 3); //4
+        sm.commentPost("user1", 1, "Second reply"); //5
+        sm.endorsePost("user3", 2); //6
+        sm.endorsePost("user2", 5); //7
+        sm.commentPost("user2", 3, "Third level"); //8
+        sm.endorsePost("user1", 8); //9
+        sm.endorsePost("user3", 1); //10
+
+        // Deleting the latest endorsements and a comment with an endorsement leaves older activity as the latest
+        sm.deletePost(10);
+        sm.deletePost(9);
+        sm.deletePost(8);
+        sm.deletePost(7);
+        Assert.assertEquals(new ThreadSummary(1, 0, 3, 2, 3, 8), sm.getThreadSummary(1));
+        Assert.assertEquals(new ThreadSummary(5, 1, 0, 0, 0, 5), sm.getThreadSummary(5));
+
+        int[] ids = {1, 2, 3, 5};
+        ThreadSummary[] before = new ThreadSummary[ids.length];
+        for (int i = 0; i < ids.length; i++) before[i] = sm.getThreadSummary(ids[i]);
+
+        // The summaries kept as the thread changed match the ones worked out again when the platform is loaded
+        File file = temporaryFolder.newFile("platform.ser");
+        sm.savePlatform(file.getPath());
+        sm.erasePlatform();
+        sm.loadPlatform(file.getPath());
+        for (int i = 0; i < ids.length; i++) Assert.assertEquals(before[i], sm.getThreadSummary(ids[i]));
+    }
+
+    @Test
+    public void blockCompressedLengthTest() throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BlockDeflaterOutputStream out = new BlockDeflaterOutputStream(bytes, 16);
+        out.write("The same text, over and over, over and over again".getBytes());
+        out.close();
+
+        // Sets the compressed length in the first block's header, after the magic, block size and raw length
+        byte[] data = bytes.toByteArray();
+        ByteBuffer.wrap(data).putInt(BlockDeflaterOutputStream.MAGIC.length + 8, Integer.MAX_VALUE);
+
+        // The length is rejected before anything is allocated for it
+        Assert.assertThrows(CorruptSnapshotException.class,
+                () -> new BlockInflaterInputStream(new ByteArrayInputStream(data)).readAllBytes());
+    }
 }